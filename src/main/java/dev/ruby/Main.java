@@ -1,17 +1,124 @@
 package dev.ruby;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
 
 import dev.ruby.client.GitHubClient;
-import dev.ruby.persistence.StateStore;
-import dev.ruby.service.WorkflowMonitor;
+import dev.ruby.client.RunQuery;
+import dev.ruby.config.MonitorConfig;
+import dev.ruby.jfr.MonitorRecording;
+import dev.ruby.jfr.RecordingAnalyzer;
+import dev.ruby.metrics.MetricsServer;
+import dev.ruby.output.AsyncEventSink;
+import dev.ruby.output.EventFormat;
+import dev.ruby.persistence.StateConverter;
+import dev.ruby.persistence.StateFormat;
+import dev.ruby.service.EventFilter;
+import dev.ruby.service.MonitorFleet;
+import dev.ruby.service.MonitorOptions;
+import dev.ruby.service.PollLane;
+import dev.ruby.service.RunQueryPlanner;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length == 1 && args[0].startsWith("--convert-state=")) {
+            convertState(args[0].substring("--convert-state=".length()));
+            return;
+        }
+        if (args.length == 1 && args[0].startsWith("--analyze-jfr=")) {
+            analyzeRecording(args[0].substring("--analyze-jfr=".length()));
+            return;
+        }
+        Recording recording = startRecording(args);
+
+        MonitorConfig config = args.length >= 1 && args[0].startsWith("--config=")
+                ? loadConfig(args[0].substring("--config=".length()))
+                : singleRepositoryConfig(args);
+
+        MonitorFleet fleet = new MonitorFleet(config);
+        fleet.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // stderr, so that stdout stays a clean JSON Lines or binary stream
+            System.err.println("Shutting down...");
+            try {
+                fleet.shutdown(Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (recording != null) {
+                // writes the recording to its destination
+                recording.stop();
+                System.err.println("Wrote " + recording.getDestination());
+                recording.close();
+            }
+        }));
+    }
+
+    private static void convertState(String path) {
+        try {
+            File binaryFile = StateConverter.jsonToBinary(new File(path));
+            System.out.println("Wrote " + binaryFile);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Cannot convert " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void analyzeRecording(String path) {
+        try {
+            System.out.print(RecordingAnalyzer.read(Path.of(path)).summary());
+        } catch (IOException e) {
+            System.err.println("Cannot read recording " + path + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // --jfr=FILE anywhere on the command line records with the bundled monitor.jfc until shutdown
+    private static Recording startRecording(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--jfr=")) {
+                String path = arg.substring("--jfr=".length());
+                try {
+                    return MonitorRecording.start(Path.of(path));
+                } catch (IOException | IllegalStateException e) {
+                    System.err.println("Cannot start recording " + path + ": " + e.getMessage());
+                    System.exit(1);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static MonitorConfig loadConfig(String path) {
+        try {
+            return MonitorConfig.load(new File(path));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Invalid config file " + path + ": " + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    private static MonitorConfig singleRepositoryConfig(String[] args) {
         if (args.length < 2) {
-            System.err.println("Usage: java -jar monitor.jar <owner/repo> <personal_access_token>");
+            System.err.println("Usage: java -jar monitor.jar <owner/repo> <personal_access_token> [--concurrency=N] [--job-refresh=SECONDS]"
+                    + " [--min-interval=SECONDS] [--max-interval=SECONDS] [--retention-days=N] [--state-format=journal|binary|json]"
+                    + " [--save-delay=SECONDS] [--save-changes=N] [--backfill-from=ISO_INSTANT] [--branch=NAME] [--event=NAME]"
+                    + " [--workflow-id=ID] [--run-queries=auto|scan] [--filter=EXPRESSION]"
+                    + " [--lane=NAME:WORKFLOW_IDS:SECONDS[:high|normal]]... [--output=table|jsonl|binary]"
+                    + " [--output-file=PATH] [--output-queue=N] [--output-backpressure=block|drop-oldest|spill]"
+                    + " [--spill-dir=DIR] [--metrics=[HOST:]PORT] [--serve=[HOST:]PORT] [--jfr=FILE] [--api-url=URL]");
+            System.err.println("       java -jar monitor.jar --config=FILE");
+            System.err.println("       java -jar monitor.jar --convert-state=OWNER-REPO-workflow-state.json");
+            System.err.println("       java -jar monitor.jar --analyze-jfr=FILE");
             System.exit(1);
         }
 
@@ -27,24 +134,87 @@ public class Main {
         String owner = parts[0];
         String repo = parts[1];
 
-        GitHubClient client = new GitHubClient(owner, repo, token);
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-        StateStore stateStore = new StateStore(owner + "-" + repo);
-        WorkflowMonitor monitor = new WorkflowMonitor(client, stateStore);
-        scheduler.scheduleWithFixedDelay(monitor, 0, 10, TimeUnit.SECONDS);
+        return parseOptions(args, owner, repo, token);
+    }
 
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            System.out.println("Shutting down...");
-            scheduler.shutdown();
+    private static MonitorConfig parseOptions(String[] args, String owner, String repo, String token) {
+        MonitorOptions options = MonitorOptions.defaults();
+        String apiUrl = GitHubClient.DEFAULT_API_URL;
 
+        for (int i = 2; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            String value = option.length > 1 ? option[1] : "";
             try {
-                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    scheduler.shutdownNow();
+                switch (option[0]) {
+                    case "--concurrency" -> options = options.withFetchConcurrency(Integer.parseInt(value));
+                    case "--job-refresh" -> options = options.withJobRefreshInterval(
+                            Duration.ofSeconds(Long.parseLong(value)));
+                    case "--min-interval" -> options = withPollBounds(options,
+                            Duration.ofSeconds(Long.parseLong(value)), options.maxPollInterval());
+                    case "--max-interval" -> options = withPollBounds(options, options.minPollInterval(),
+                            Duration.ofSeconds(Long.parseLong(value)));
+                    case "--retention-days" -> options = options.withRetention(
+                            Duration.ofDays(Long.parseLong(value)));
+                    case "--state-format" -> options = options.withStateFormat(StateFormat.parse(value));
+                    case "--save-delay" -> options = options.withSaveThresholds(
+                            Duration.ofSeconds(Long.parseLong(value)), options.saveChanges());
+                    case "--save-changes" -> options = options.withSaveThresholds(options.saveDelay(),
+                            Integer.parseInt(value));
+                    case "--backfill-from" -> options = options.withBackfillFrom(Instant.parse(value));
+                    case "--branch" -> options = options.withRunFilter(RunQuery.of(value,
+                            options.runFilter().event(), options.runFilter().workflowId()));
+                    case "--event" -> options = options.withRunFilter(RunQuery.of(options.runFilter().branch(),
+                            value, options.runFilter().workflowId()));
+                    case "--workflow-id" -> options = options.withRunFilter(RunQuery.of(
+                            options.runFilter().branch(), options.runFilter().event(), Long.parseLong(value)));
+                    case "--run-queries" -> options = options.withRunQueries(RunQueryPlanner.Strategy.parse(value));
+                    case "--filter" -> options = options.withEventFilter(EventFilter.parse(value));
+                    case "--lane" -> {
+                        List<PollLane> lanes = new ArrayList<>(options.lanes());
+                        lanes.add(PollLane.parse(value));
+                        options = options.withLanes(lanes);
+                    }
+                    case "--output" -> options = options.withOutput(options.output()
+                            .withFormat(EventFormat.parse(value)));
+                    case "--output-file" -> options = options.withOutput(options.output().withFile(new File(value)));
+                    case "--output-queue" -> options = options.withOutput(options.output()
+                            .withQueue(Integer.parseInt(value), options.output().backpressure()));
+                    case "--output-backpressure" -> options = options.withOutput(options.output()
+                            .withQueue(options.output().queueCapacity(), AsyncEventSink.Backpressure.parse(value)));
+                    case "--spill-dir" -> options = options.withOutput(options.output().withSpillDir(new File(value)));
+                    case "--metrics" -> options = options.withMetricsAddress(MetricsServer.parseAddress(value));
+                    case "--serve" -> options = options.withServeAddress(MetricsServer.parseAddress(value));
+                    case "--api-url" -> {
+                        if (value.isBlank()) {
+                            throw new IllegalArgumentException("expected --api-url=URL");
+                        }
+                        apiUrl = value;
+                    }
+                    case "--jfr" -> {
+                        // read by startRecording
+                    }
+                    default -> {
+                        System.err.println("Unknown option: " + args[i]);
+                        System.exit(1);
+                    }
                 }
-                stateStore.save(monitor.getState());
-            } catch (InterruptedException e) {
-                scheduler.shutdownNow();
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid option " + args[i] + ": " + e.getMessage());
+                System.exit(1);
             }
-        }));
+        }
+        return MonitorConfig.single(apiUrl, owner, repo, token, options);
+    }
+
+    // keeps the idle base interval inside the new bounds
+    private static MonitorOptions withPollBounds(MonitorOptions options, Duration min, Duration max) {
+        Duration base = MonitorOptions.DEFAULT_BASE_POLL_INTERVAL;
+        if (base.compareTo(min) < 0) {
+            base = min;
+        }
+        if (base.compareTo(max) > 0) {
+            base = max;
+        }
+        return options.withPollIntervals(min, base, max);
     }
 }
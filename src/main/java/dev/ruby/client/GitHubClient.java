@@ -1,116 +1,296 @@
 package dev.ruby.client;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import dev.ruby.client.dto.WorkflowJob;
 import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowRunsPage;
+import dev.ruby.jfr.ApiRequestEvent;
+import dev.ruby.metrics.ApiMetrics;
+import dev.ruby.metrics.ApiMetrics.CountingInputStream;
+import dev.ruby.metrics.ApiMetrics.Endpoint;
+import dev.ruby.metrics.ApiMetrics.Outcome;
 
 public class GitHubClient {
+    public static final String DEFAULT_API_URL = "https://api.github.com";
+    private static final int MAX_ATTEMPTS = 3;
+    // decoders are stateless, so every client shares one instead of building an ObjectMapper each
+    private static final WorkflowDecoder DECODER = new StreamingWorkflowDecoder(
+            new ObjectMapper().registerModule(new JavaTimeModule()).getFactory());
+
+    private final String apiUrl;
     private final String owner;
     private final String repo;
     private final String token;
     private final HttpClient httpClient;
-    private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
+    private final RateBudget rateBudget;
+    private final WorkflowDecoder decoder = DECODER;
+    private final AtomicLong chargedRequests = new AtomicLong();
+    private final ApiMetrics metrics;
 
     public GitHubClient(String owner, String repo, String token) {
+        this(owner, repo, token, new ResponseCache());
+    }
+
+    public GitHubClient(String owner, String repo, String token, ResponseCache responseCache) {
+        this(owner, repo, token, responseCache, new RateBudget());
+    }
+
+    public GitHubClient(String owner, String repo, String token, ResponseCache responseCache,
+            RateBudget rateBudget) {
+        this(DEFAULT_API_URL, owner, repo, token, responseCache, rateBudget);
+    }
+
+    public GitHubClient(String apiUrl, String owner, String repo, String token, ResponseCache responseCache,
+            RateBudget rateBudget) {
+        this(apiUrl, owner, repo, token, HttpClient.newHttpClient(), responseCache, rateBudget);
+    }
+
+    // clients for many repositories can share one HttpClient (and its connection pool), cache and budget
+    public GitHubClient(String apiUrl, String owner, String repo, String token, HttpClient httpClient,
+            ResponseCache responseCache, RateBudget rateBudget) {
+        this(apiUrl, owner, repo, token, httpClient, responseCache, rateBudget, new ApiMetrics());
+    }
+
+    public GitHubClient(String apiUrl, String owner, String repo, String token, HttpClient httpClient,
+            ResponseCache responseCache, RateBudget rateBudget, ApiMetrics metrics) {
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
         this.owner = owner;
         this.repo = repo;
         this.token = token;
-        this.httpClient = HttpClient.newHttpClient();
-        this.objectMapper = new ObjectMapper()
-                .registerModule(new JavaTimeModule());
+        this.httpClient = httpClient;
+        this.responseCache = responseCache;
+        this.rateBudget = rateBudget;
+        this.metrics = metrics;
     }
 
     public List<WorkflowRun> getWorkflowRuns(int page, int perPage) throws Exception {
-        String url = String.format("https://api.github.com/repos/%s/%s/actions/runs?page=%d&per_page=%d",
-                owner, repo, page, perPage);
+        return getWorkflowRuns(RunQuery.ALL, page, perPage);
+    }
 
-        HttpRequest request = buildRequest(url);
-        HttpResponse<String> response = sendWithRetry(request);
+    public List<WorkflowRun> getWorkflowRuns(RunQuery query, int page, int perPage) throws Exception {
+        return getWorkflowRuns(query, page, perPage, RequestPriority.LIVE);
+    }
 
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("API Error: " + response.statusCode() + " " + response.body());
-        }
+    public List<WorkflowRun> getWorkflowRuns(RunQuery query, int page, int perPage, RequestPriority priority)
+            throws Exception {
+        String url = String.format("%s/repos/%s/%s%s", apiUrl, owner, repo, query.path(page, perPage));
 
-        JsonNode root = objectMapper.readTree(response.body());
-        WorkflowRun[] runs = objectMapper.treeToValue(root.path("workflow_runs"), WorkflowRun[].class);
-        return Arrays.asList(runs);
+        return fetch(url, query.workflowId() != null ? Endpoint.WORKFLOW_RUNS : Endpoint.RUNS, priority,
+                decoder::decodeRuns);
     }
 
-    public List<WorkflowJob> getJobsForRun(long runId) throws Exception {
-        String url = String.format("https://api.github.com/repos/%s/%s/actions/runs/%d/jobs", owner, repo, runId);
+    // runs created in [from, to), for backfill: pages of a range in the past stay put while new runs come in.
+    // the API returns at most 1000 runs for a created filter, callers split larger ranges by the total count.
+    // from and to are whole seconds, the resolution of the created filter
+    public WorkflowRunsPage getWorkflowRunsCreated(RunQuery filter, Instant from, Instant to, int page,
+            int perPage) throws Exception {
+        String url = String.format("%s/repos/%s/%s%s", apiUrl, owner, repo,
+                filter.withCreated(from, to).path(page, perPage));
 
-        HttpRequest request = buildRequest(url);
-        HttpResponse<String> response = sendWithRetry(request);
+        return fetch(url, filter.workflowId() != null ? Endpoint.WORKFLOW_RUNS : Endpoint.RUNS,
+                RequestPriority.BACKFILL, decoder::decodeRunsPage);
+    }
 
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("API Error: " + response.statusCode() + " " + response.body());
-        }
+    public List<WorkflowJob> getJobsForRun(long runId) throws Exception {
+        return getJobsForRun(runId, RequestPriority.LIVE);
+    }
 
-        JsonNode root = objectMapper.readTree(response.body());
-        WorkflowJob[] jobs = objectMapper.treeToValue(root.path("jobs"), WorkflowJob[].class);
-        return Arrays.asList(jobs);
+    public List<WorkflowJob> getJobsForRun(long runId, RequestPriority priority) throws Exception {
+        String url = String.format("%s/repos/%s/%s/actions/runs/%d/jobs", apiUrl, owner, repo, runId);
+
+        return fetch(url, Endpoint.JOBS, priority, decoder::decodeJobs);
     }
 
     public WorkflowRun getWorkflowRun(long runId) throws Exception {
-        String url = String.format("https://api.github.com/repos/%s/%s/actions/runs/%d", owner, repo, runId);
+        String url = String.format("%s/repos/%s/%s/actions/runs/%d", apiUrl, owner, repo, runId);
+
+        return fetch(url, Endpoint.RUN, RequestPriority.ACTIVE, decoder::decodeRun);
+    }
 
-        HttpRequest request = buildRequest(url);
-        HttpResponse<String> response = sendWithRetry(request);
+    public String getRepository() {
+        return owner + "/" + repo;
+    }
+
+    // requests answered with a full body; 304s are free and not counted
+    public long getChargedRequests() {
+        return chargedRequests.get();
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public RateBudget getRateBudget() {
+        return rateBudget;
+    }
 
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("API Error: " + response.statusCode() + " " + response.body());
+    public ApiMetrics getMetrics() {
+        return metrics;
+    }
+
+    // conditional GET: a 304 is served from the cache and does not count against the rate limit.
+    // backfill responses are read once, so they stay out of the cache instead of evicting live entries
+    private <T> T fetch(String url, Endpoint endpoint, RequestPriority priority, BodyDecoder<T> decoder)
+            throws Exception {
+        ApiRequestEvent event = new ApiRequestEvent();
+        event.begin();
+        try {
+            return fetch(url, endpoint, priority, decoder, event);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.repository = getRepository();
+                event.endpoint = endpoint.label();
+                event.priority = priority.name();
+                event.commit();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T fetch(String url, Endpoint endpoint, RequestPriority priority, BodyDecoder<T> decoder,
+            ApiRequestEvent event) throws Exception {
+        boolean cacheable = priority != RequestPriority.BACKFILL;
+        ResponseCache.Entry cached = cacheable ? responseCache.get(url) : null;
+        HttpResponse<InputStream> response = sendWithRetry(buildRequest(url, cached), endpoint, priority, event);
+        if (response.statusCode() == 304 && cached == null) {
+            // nothing to serve it from, as when the entry was evicted and an intermediary still answers 304: ask
+            // again without validators
+            response.body().close();
+            response = sendWithRetry(buildRequest(url, null), endpoint, priority, event);
+        }
+
+        T value;
+        CountingInputStream body = metrics.countBytes(endpoint, response.body());
+        try (body) {
+            if (response.statusCode() == 304 && cached != null) {
+                responseCache.recordHit();
+                return (T) cached.value();
+            }
+
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("API Error: " + response.statusCode() + " " + readBody(body));
+            }
+
+            if (cacheable) {
+                responseCache.recordMiss();
+            }
+            chargedRequests.incrementAndGet();
+            value = decoder.decode(body);
+        } finally {
+            event.responseBytes += body.getBytes();
         }
 
-        WorkflowRun run = objectMapper.readValue(response.body(), WorkflowRun.class);
-        return run;
+        String etag = response.headers().firstValue("etag").orElse(null);
+        String lastModified = response.headers().firstValue("last-modified").orElse(null);
+        if (!cacheable) {
+            return value;
+        }
+        if (etag != null || lastModified != null) {
+            responseCache.put(url, new ResponseCache.Entry(etag, lastModified, value));
+        } else {
+            responseCache.remove(url);
+        }
+        return value;
     }
 
-    private HttpResponse<String> sendWithRetry(HttpRequest request) throws Exception {
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    // the duration is measured from send to the response headers, after the budget's wait
+    private HttpResponse<InputStream> sendWithRetry(HttpRequest request, Endpoint endpoint,
+            RequestPriority priority, ApiRequestEvent event) throws Exception {
+        for (int attempt = 1;; attempt++) {
+            event.attempts = attempt;
+            long waitStart = System.nanoTime();
+            rateBudget.acquire(priority);
+            long start = System.nanoTime();
+            event.budgetWait += start - waitStart;
+            HttpResponse<InputStream> response;
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (IOException e) {
+                metrics.request(endpoint, Outcome.FAILED, System.nanoTime() - start);
+                throw e;
+            }
+            long nanos = System.nanoTime() - start;
+            event.status = response.statusCode();
+            rateBudget.update(response.headers());
 
-        if (response.statusCode() == 403 || response.statusCode() == 429) {
-            String remaining = response.headers().firstValue("x-ratelimit-remaining").orElse("1");
-            if ("0".equals(remaining)) {
-                long resetTime = Long.parseLong(response.headers().firstValue("x-ratelimit-reset").orElse("0"));
-                long sleepMillis = (resetTime * 1000) - System.currentTimeMillis() + 5 * 1000;
+            if (response.statusCode() == 200 || response.statusCode() == 304) {
+                metrics.request(endpoint, Outcome.of(response.statusCode()), nanos);
+                if (response.statusCode() == 304) {
+                    rateBudget.onNotModified(response.headers());
+                }
+                rateBudget.onSuccess();
+                return response;
+            }
 
-                if (sleepMillis > 0) {
-                    System.err.printf("Rate limit exceeded. Sleep for %d seconds...%n", sleepMillis / 1000);
+            String body;
+            try (CountingInputStream in = metrics.countBytes(endpoint, response.body())) {
+                body = readBody(in);
+                event.responseBytes += in.getBytes();
+            }
 
-                    try {
-                        Thread.sleep(sleepMillis);
-                        return sendWithRetry(request);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        return response;
-                    }
+            boolean rateLimited = isRateLimited(response, body);
+            metrics.request(endpoint, rateLimited ? Outcome.RATE_LIMITED : Outcome.of(response.statusCode()), nanos);
+            if (rateLimited) {
+                Instant retryAt = rateBudget.onRateLimited(response.headers());
+                System.err.printf("Rate limit exceeded. Retry after %s%n", retryAt);
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new RateLimitedException(retryAt);
                 }
+                // the next acquire either waits out a short backoff or fails fast
+                continue;
             }
+
+            throw new RuntimeException("API Error: " + response.statusCode() + " " + body);
         }
+    }
 
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("API Error: " + response.statusCode() + " " + response.body());
+    private static boolean isRateLimited(HttpResponse<?> response, String body) {
+        if (response.statusCode() != 403 && response.statusCode() != 429) {
+            return false;
         }
-        return response;
+        return response.statusCode() == 429
+                || response.headers().firstValue("retry-after").isPresent()
+                || "0".equals(response.headers().firstValue("x-ratelimit-remaining").orElse(null))
+                || body.toLowerCase().contains("rate limit");
     }
 
-    private HttpRequest buildRequest(String url) {
-        return HttpRequest.newBuilder()
+    private static String readBody(InputStream body) throws IOException {
+        return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private HttpRequest buildRequest(String url, ResponseCache.Entry cached) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Accept", "application/vnd.github+json")
                 .header("X-GitHub-Api-Version", "2022-11-28")
-                .header("Authorization", "Bearer " + token)
-                .GET()
-                .build();
+                .header("Authorization", "Bearer " + token);
+
+        if (cached != null && cached.etag() != null) {
+            builder.header("If-None-Match", cached.etag());
+        }
+        if (cached != null && cached.lastModified() != null) {
+            builder.header("If-Modified-Since", cached.lastModified());
+        }
+        return builder.GET().build();
+    }
+
+    @FunctionalInterface
+    private interface BodyDecoder<T> {
+        T decode(InputStream body) throws IOException;
     }
 }
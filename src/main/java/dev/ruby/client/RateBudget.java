@@ -0,0 +1,241 @@
+package dev.ruby.client;
+
+import java.net.http.HttpHeaders;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class RateBudget {
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(2);
+
+    private static final long WINDOW_SECONDS = 3600;
+    private static final int BURST_DIVISOR = 10;
+    private static final long RESET_MARGIN_MILLIS = 5_000;
+    private static final long SECONDARY_BACKOFF_MILLIS = 60_000;
+    private static final long MAX_BACKOFF_MILLIS = 15 * 60_000;
+
+    private final Clock clock;
+    private final long maxWaitMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Ticket> waiting = new PriorityQueue<>();
+    private long sequence;
+
+    // -1 until the first response tells us the real numbers
+    private int limit = -1;
+    private int remaining = -1;
+    private int used = -1;
+    private long resetEpochSecond;
+    private long nextPermitMillis;
+    private long backoffUntilMillis;
+    private int consecutiveLimits;
+
+    public record Snapshot(int limit, int remaining, int used, Instant resetAt, Instant backoffUntil,
+            Map<RequestPriority, Integer> queued) {
+    }
+
+    private record Ticket(RequestPriority priority, long sequence) implements Comparable<Ticket> {
+        @Override
+        public int compareTo(Ticket other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    public RateBudget() {
+        this(Clock.systemUTC(), DEFAULT_MAX_WAIT);
+    }
+
+    public RateBudget(Clock clock, Duration maxWait) {
+        this.clock = clock;
+        this.maxWaitMillis = maxWait.toMillis();
+    }
+
+    // waits at most maxWait for a permit; longer waits fail fast so the caller's thread is never parked
+    public void acquire(RequestPriority priority) throws InterruptedException {
+        lock.lock();
+        try {
+            Ticket ticket = new Ticket(priority, sequence++);
+            waiting.add(ticket);
+            long deadline = clock.millis() + maxWaitMillis;
+            try {
+                while (true) {
+                    long now = clock.millis();
+                    long readyAt = readyAt(now);
+                    if (readyAt > deadline || now >= deadline && readyAt > now) {
+                        throw new RateLimitedException(Instant.ofEpochMilli(readyAt));
+                    }
+
+                    if (waiting.peek() == ticket && readyAt <= now) {
+                        nextPermitMillis = now + pacingIntervalMillis(now);
+                        if (remaining > 0) {
+                            remaining--;
+                        }
+                        return;
+                    }
+
+                    long waitMillis = waiting.peek() == ticket ? readyAt - now : deadline - now;
+                    changed.await(Math.max(1, waitMillis), TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                waiting.remove(ticket);
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void update(HttpHeaders headers) {
+        lock.lock();
+        try {
+            limit = intHeader(headers, "x-ratelimit-limit", limit);
+            remaining = intHeader(headers, "x-ratelimit-remaining", remaining);
+            used = intHeader(headers, "x-ratelimit-used", used);
+            resetEpochSecond = longHeader(headers, "x-ratelimit-reset", resetEpochSecond);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // records a primary or secondary rate limit response and returns when the next request may go out
+    public Instant onRateLimited(HttpHeaders headers) {
+        lock.lock();
+        try {
+            update(headers);
+            long now = clock.millis();
+            long delayMillis;
+
+            var retryAfter = headers.firstValue("retry-after");
+            long retryAfterMillis = retryAfter.map(value -> retryAfterMillis(value, now)).orElse(-1L);
+            if (retryAfterMillis >= 0) {
+                delayMillis = retryAfterMillis;
+            } else if ((remaining == 0 || retryAfter.isPresent()) && resetEpochSecond * 1000 > now) {
+                // an exhausted budget, or a retry-after that could not be read, waits for the reset
+                delayMillis = resetEpochSecond * 1000 - now + RESET_MARGIN_MILLIS;
+            } else {
+                delayMillis = Math.min(MAX_BACKOFF_MILLIS, SECONDARY_BACKOFF_MILLIS << Math.min(consecutiveLimits, 4));
+            }
+
+            // jitter spreads retries of concurrent callers over a quarter of the delay
+            delayMillis += (long) (delayMillis * 0.25 * ThreadLocalRandom.current().nextDouble());
+            consecutiveLimits++;
+            backoffUntilMillis = Math.max(backoffUntilMillis, now + delayMillis);
+            changed.signalAll();
+            return Instant.ofEpochMilli(backoffUntilMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // a 304 is not charged: gives back the permit acquire() took, unless the response already brought the
+    // server's count
+    public void onNotModified(HttpHeaders headers) {
+        lock.lock();
+        try {
+            if (headers.firstValue("x-ratelimit-remaining").isEmpty() && remaining >= 0
+                    && (limit < 0 || remaining < limit)) {
+                remaining++;
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            consecutiveLimits = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Snapshot snapshot() {
+        lock.lock();
+        try {
+            Map<RequestPriority, Integer> queued = new EnumMap<>(RequestPriority.class);
+            for (RequestPriority priority : RequestPriority.values()) {
+                queued.put(priority, 0);
+            }
+            for (Ticket ticket : waiting) {
+                queued.merge(ticket.priority(), 1, Integer::sum);
+            }
+            return new Snapshot(limit, remaining, used, Instant.ofEpochSecond(resetEpochSecond),
+                    Instant.ofEpochMilli(backoffUntilMillis), queued);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long readyAt(long now) {
+        long readyAt = Math.max(backoffUntilMillis, nextPermitMillis);
+        if (remaining == 0 && resetEpochSecond * 1000 > now) {
+            readyAt = Math.max(readyAt, resetEpochSecond * 1000);
+        }
+        return readyAt;
+    }
+
+    // bursts freely until spend runs a tenth of the limit ahead of the straight line, then paces the rest evenly
+    long pacingIntervalMillis(long now) {
+        if (limit <= 0 || remaining < 0) {
+            return 0;
+        }
+        long secondsToReset = resetEpochSecond - now / 1000;
+        if (secondsToReset <= 0) {
+            return 0;
+        }
+        double fairShare = (double) limit * Math.min(secondsToReset, WINDOW_SECONDS) / WINDOW_SECONDS;
+        double burstAllowance = Math.max(1, limit / BURST_DIVISOR);
+        if (remaining > fairShare - burstAllowance) {
+            return 0;
+        }
+        return secondsToReset * 1000 / Math.max(1, remaining);
+    }
+
+    // retry-after is either a number of seconds or an HTTP date; -1 when it is neither
+    private static long retryAfterMillis(String value, long now) {
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(trimmed) * 1000);
+        } catch (NumberFormatException e) {
+            // not seconds, maybe a date
+        }
+        try {
+            return Math.max(0, ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+                    .toEpochMilli() - now);
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    // a header that cannot be read keeps the last value, rather than failing the response it came with
+    private static int intHeader(HttpHeaders headers, String name, int fallback) {
+        long value = longHeader(headers, name, fallback);
+        return value == (int) value ? (int) value : fallback;
+    }
+
+    private static long longHeader(HttpHeaders headers, String name, long fallback) {
+        String value = headers.firstValue(name).orElse(null);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package dev.ruby.client;
+
+import java.time.Instant;
+
+public class RateLimitedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Instant retryAt;
+
+    public RateLimitedException(Instant retryAt) {
+        super("Rate limited until " + retryAt);
+        this.retryAt = retryAt;
+    }
+
+    public Instant getRetryAt() {
+        return retryAt;
+    }
+}
@@ -0,0 +1,6 @@
+package dev.ruby.client;
+
+// lower ordinal is served first when requests queue for rate budget
+public enum RequestPriority {
+    ACTIVE, LIVE, BACKFILL
+}
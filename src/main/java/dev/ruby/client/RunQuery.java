@@ -0,0 +1,51 @@
+package dev.ruby.client;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+// server-side filters for the workflow runs list; null components are left out. createdTo is exclusive
+public record RunQuery(String branch, String event, Long workflowId, String status, Instant createdFrom,
+        Instant createdTo) {
+
+    public static final RunQuery ALL = new RunQuery(null, null, null, null, null, null);
+
+    public static RunQuery of(String branch, String event, Long workflowId) {
+        return new RunQuery(branch, event, workflowId, null, null, null);
+    }
+
+    public RunQuery withStatus(String status) {
+        return new RunQuery(branch, event, workflowId, status, createdFrom, createdTo);
+    }
+
+    public RunQuery withCreated(Instant createdFrom, Instant createdTo) {
+        return new RunQuery(branch, event, workflowId, status, createdFrom, createdTo);
+    }
+
+    public boolean isFiltered() {
+        return branch != null || event != null || workflowId != null;
+    }
+
+    // path and query below /repos/{owner}/{repo}
+    String path(int page, int perPage) {
+        StringBuilder path = new StringBuilder(workflowId != null ? "/actions/workflows/" + workflowId + "/runs"
+                : "/actions/runs");
+        path.append("?");
+        append(path, "branch", branch);
+        append(path, "event", event);
+        append(path, "status", status);
+        if (createdFrom != null && createdTo != null) {
+            // the range is inclusive on both ends and has a resolution of one second
+            append(path, "created", createdFrom + ".." + createdTo.minusSeconds(1));
+        } else if (createdFrom != null) {
+            append(path, "created", ">=" + createdFrom);
+        }
+        return path.append("page=").append(page).append("&per_page=").append(perPage).toString();
+    }
+
+    private static void append(StringBuilder path, String name, String value) {
+        if (value != null) {
+            path.append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8)).append('&');
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package dev.ruby.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowRunsPage;
+import dev.ruby.client.dto.WorkflowStep;
+
+// decodes straight from the response stream into DTO records; unknown subtrees are skipped token by token
+public class StreamingWorkflowDecoder implements WorkflowDecoder {
+    private final JsonFactory jsonFactory;
+
+    public StreamingWorkflowDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    public List<WorkflowRun> decodeRuns(InputStream body) throws IOException {
+        return decodeRunsPage(body).runs();
+    }
+
+    @Override
+    public WorkflowRunsPage decodeRunsPage(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            List<WorkflowRun> runs = new ArrayList<>();
+            int totalCount = 0;
+            expectStartObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("workflow_runs".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        runs.add(readRun(parser));
+                    }
+                } else if ("total_count".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    totalCount = parser.getIntValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new WorkflowRunsPage(totalCount, runs);
+        }
+    }
+
+    @Override
+    public List<WorkflowJob> decodeJobs(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            List<WorkflowJob> jobs = new ArrayList<>();
+            expectStartObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("jobs".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        jobs.add(readJob(parser));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return jobs;
+        }
+    }
+
+    @Override
+    public WorkflowRun decodeRun(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            expectStartObject(parser);
+            return readRun(parser);
+        }
+    }
+
+    private WorkflowRun readRun(JsonParser parser) throws IOException {
+        long id = 0;
+        String name = null;
+        String status = null;
+        String conclusion = null;
+        String headBranch = null;
+        String headSha = null;
+        Instant createdAt = null;
+        Instant updatedAt = null;
+        Instant runStartedAt = null;
+        int runAttempt = 1;
+        WorkflowRun.Actor actor = null;
+        long workflowId = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getValueAsLong();
+                case "name" -> name = readString(parser);
+                case "status" -> status = readString(parser);
+                case "conclusion" -> conclusion = readString(parser);
+                case "head_branch" -> headBranch = readString(parser);
+                case "head_sha" -> headSha = readString(parser);
+                case "created_at" -> createdAt = readInstant(parser);
+                case "updated_at" -> updatedAt = readInstant(parser);
+                case "run_started_at" -> runStartedAt = readInstant(parser);
+                case "run_attempt" -> runAttempt = parser.getValueAsInt(1);
+                case "actor" -> actor = readActor(parser);
+                case "workflow_id" -> workflowId = parser.getValueAsLong();
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new WorkflowRun(id, name, status, conclusion, headBranch, headSha, createdAt, updatedAt,
+                runStartedAt, runAttempt, actor, workflowId);
+    }
+
+    // only the login of the nested user object is kept
+    private WorkflowRun.Actor readActor(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String login = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("login".equals(field)) {
+                login = readString(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new WorkflowRun.Actor(login);
+    }
+
+    private WorkflowJob readJob(JsonParser parser) throws IOException {
+        long id = 0;
+        String name = null;
+        String status = null;
+        String conclusion = null;
+        Instant startedAt = null;
+        Instant completedAt = null;
+        List<WorkflowStep> steps = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getValueAsLong();
+                case "name" -> name = readString(parser);
+                case "status" -> status = readString(parser);
+                case "conclusion" -> conclusion = readString(parser);
+                case "started_at" -> startedAt = readInstant(parser);
+                case "completed_at" -> completedAt = readInstant(parser);
+                case "steps" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        steps = new ArrayList<>();
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            steps.add(readStep(parser));
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new WorkflowJob(id, name, status, conclusion, startedAt, completedAt, steps);
+    }
+
+    private WorkflowStep readStep(JsonParser parser) throws IOException {
+        String name = null;
+        String status = null;
+        String conclusion = null;
+        int number = 0;
+        Instant startedAt = null;
+        Instant completedAt = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "name" -> name = readString(parser);
+                case "status" -> status = readString(parser);
+                case "conclusion" -> conclusion = readString(parser);
+                case "number" -> number = parser.getValueAsInt();
+                case "started_at" -> startedAt = readInstant(parser);
+                case "completed_at" -> completedAt = readInstant(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new WorkflowStep(name, status, conclusion, number, startedAt, completedAt);
+    }
+
+    private static void expectStartObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected JSON object but got " + parser.currentToken());
+        }
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!parser.currentToken().isScalarValue()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    private static Instant readInstant(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING && parser.getTextLength() == 20) {
+            Instant instant = parseUtcSeconds(parser.getTextCharacters(), parser.getTextOffset());
+            if (instant != null) {
+                return instant;
+            }
+        }
+        String text = readString(parser);
+        return (text == null || text.isEmpty()) ? null : Instant.parse(text);
+    }
+
+    // fast path for GitHub's "yyyy-MM-ddTHH:mm:ssZ" timestamps, parsed without building a String; null for
+    // anything else, which readInstant leaves to Instant.parse: it rejects dates that do not exist and reads
+    // 24:00:00 and leap seconds
+    static Instant parseUtcSeconds(char[] c, int o) {
+        if (c[o + 4] != '-' || c[o + 7] != '-' || c[o + 10] != 'T' || c[o + 13] != ':' || c[o + 16] != ':'
+                || c[o + 19] != 'Z') {
+            return null;
+        }
+        int year = digits(c, o, 4);
+        int month = digits(c, o + 5, 2);
+        int day = digits(c, o + 8, 2);
+        int hour = digits(c, o + 11, 2);
+        int minute = digits(c, o + 14, 2);
+        int second = digits(c, o + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) || hour < 0
+                || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        long epochDay = epochDay(year, month, day);
+        return Instant.ofEpochSecond(epochDay * 86_400 + hour * 3_600 + minute * 60 + second);
+    }
+
+    private static int digits(char[] c, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = c[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // same proleptic Gregorian arithmetic as LocalDate.toEpochDay
+    private static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - 719_528;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+}
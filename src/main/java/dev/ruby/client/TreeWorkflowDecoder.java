@@ -0,0 +1,50 @@
+package dev.ruby.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowRunsPage;
+
+// reads the whole body, builds a JsonNode tree and binds it; kept as the reference path for benchmarks
+public class TreeWorkflowDecoder implements WorkflowDecoder {
+    private final ObjectMapper objectMapper;
+
+    public TreeWorkflowDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<WorkflowRun> decodeRuns(InputStream body) throws IOException {
+        JsonNode root = objectMapper.readTree(readString(body));
+        WorkflowRun[] runs = objectMapper.treeToValue(root.path("workflow_runs"), WorkflowRun[].class);
+        return runs == null ? List.of() : List.of(runs);
+    }
+
+    @Override
+    public WorkflowRunsPage decodeRunsPage(InputStream body) throws IOException {
+        return objectMapper.readValue(readString(body), WorkflowRunsPage.class);
+    }
+
+    @Override
+    public List<WorkflowJob> decodeJobs(InputStream body) throws IOException {
+        JsonNode root = objectMapper.readTree(readString(body));
+        WorkflowJob[] jobs = objectMapper.treeToValue(root.path("jobs"), WorkflowJob[].class);
+        return jobs == null ? List.of() : List.of(jobs);
+    }
+
+    @Override
+    public WorkflowRun decodeRun(InputStream body) throws IOException {
+        return objectMapper.readValue(readString(body), WorkflowRun.class);
+    }
+
+    private String readString(InputStream body) throws IOException {
+        return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,19 @@
+package dev.ruby.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowRunsPage;
+
+public interface WorkflowDecoder {
+    List<WorkflowRun> decodeRuns(InputStream body) throws IOException;
+
+    WorkflowRunsPage decodeRunsPage(InputStream body) throws IOException;
+
+    List<WorkflowJob> decodeJobs(InputStream body) throws IOException;
+
+    WorkflowRun decodeRun(InputStream body) throws IOException;
+}
@@ -2,6 +2,7 @@ package dev.ruby.client.dto;
 
 import java.time.Instant;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -16,5 +17,35 @@ public record WorkflowRun(
     @JsonProperty("head_sha") String headSha,
     @JsonProperty("created_at") Instant createdAt,
     @JsonProperty("updated_at") Instant updatedAt,
-    @JsonProperty("run_started_at") Instant runStartedAt
-) {}
+    @JsonProperty("run_started_at") Instant runStartedAt,
+    @JsonProperty("run_attempt") int runAttempt,
+    Actor actor,
+    @JsonProperty("workflow_id") long workflowId
+) {
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public record Actor(String login) {
+  }
+
+  @JsonCreator
+  public WorkflowRun {
+    // absent on old payloads; every run has at least its first attempt
+    if (runAttempt < 1) {
+      runAttempt = 1;
+    }
+  }
+
+  public WorkflowRun(long id, String name, String status, String conclusion, String headBranch, String headSha,
+      Instant createdAt, Instant updatedAt, Instant runStartedAt, int runAttempt) {
+    this(id, name, status, conclusion, headBranch, headSha, createdAt, updatedAt, runStartedAt, runAttempt, null, 0);
+  }
+
+  public WorkflowRun(long id, String name, String status, String conclusion, String headBranch, String headSha,
+      Instant createdAt, Instant updatedAt, Instant runStartedAt) {
+    this(id, name, status, conclusion, headBranch, headSha, createdAt, updatedAt, runStartedAt, 1);
+  }
+
+  // login of the user who triggered the run, null when the payload has none
+  public String actorLogin() {
+    return actor != null ? actor.login() : null;
+  }
+}
@@ -0,0 +1,18 @@
+package dev.ruby.client.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// one page of a runs list; totalCount is every run the query matches, also those past the pages the API returns
+// @formatter:off
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record WorkflowRunsPage(
+    @JsonProperty("total_count") int totalCount,
+    @JsonProperty("workflow_runs") List<WorkflowRun> runs
+) {
+  public WorkflowRunsPage {
+    runs = runs == null ? List.of() : runs;
+  }
+}
@@ -0,0 +1,133 @@
+package dev.ruby.cluster;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+// shared directory that replaces an external coordinator:
+//   cluster.lock        guards every read-modify-write of the files below
+//   nodes/<node>.json   heartbeat of each live node
+//   leases/<repo>.json  which node owns a repository, and until when
+//   state/              MonitorState files, read by whichever node holds the lease
+public class ClusterDirectory {
+    public record NodeRecord(String nodeId, Instant expiresAt) {
+    }
+
+    // generation goes up with every new owner, so that a node can tell its own lease from a later one
+    public record Lease(String repository, String owner, Instant expiresAt, long generation) {
+    }
+
+    @FunctionalInterface
+    public interface LockedAction<T> {
+        T run() throws IOException;
+    }
+
+    // file locks are held per JVM, so threads of the same JVM also need to exclude each other
+    private static final ConcurrentHashMap<Path, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final Path root;
+    private final Path nodes;
+    private final Path leases;
+    private final Path state;
+    private final Path lockFile;
+
+    public ClusterDirectory(File directory) throws IOException {
+        this.root = directory.toPath().toAbsolutePath().normalize();
+        this.nodes = root.resolve("nodes");
+        this.leases = root.resolve("leases");
+        this.state = root.resolve("state");
+        this.lockFile = root.resolve("cluster.lock");
+        Files.createDirectories(nodes);
+        Files.createDirectories(leases);
+        Files.createDirectories(state);
+    }
+
+    public File stateDirectory() {
+        return state.toFile();
+    }
+
+    public <T> T locked(LockedAction<T> action) throws IOException {
+        ReentrantLock jvmLock = JVM_LOCKS.computeIfAbsent(lockFile, path -> new ReentrantLock());
+        jvmLock.lock();
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock fileLock = channel.lock();
+            try {
+                return action.run();
+            } finally {
+                fileLock.release();
+            }
+        } finally {
+            jvmLock.unlock();
+        }
+    }
+
+    public void writeNode(NodeRecord node) throws IOException {
+        write(nodes.resolve(fileName(node.nodeId())), node);
+    }
+
+    public List<NodeRecord> readNodes() throws IOException {
+        List<NodeRecord> records = new ArrayList<>();
+        try (var files = Files.list(nodes)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".json")).toList()) {
+                NodeRecord node = read(file, NodeRecord.class);
+                if (node != null) {
+                    records.add(node);
+                }
+            }
+        }
+        return records;
+    }
+
+    public void deleteNode(String nodeId) throws IOException {
+        Files.deleteIfExists(nodes.resolve(fileName(nodeId)));
+    }
+
+    public Lease readLease(String repository) throws IOException {
+        return read(leases.resolve(fileName(repository)), Lease.class);
+    }
+
+    public void writeLease(Lease lease) throws IOException {
+        write(leases.resolve(fileName(lease.repository())), lease);
+    }
+
+    public void deleteLease(String repository) throws IOException {
+        Files.deleteIfExists(leases.resolve(fileName(repository)));
+    }
+
+    private static <T> T read(Path file, Class<T> type) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return mapper.readValue(file.toFile(), type);
+        } catch (IOException e) {
+            // a record left half-written by a crashed node counts as absent
+            System.err.println("Ignoring unreadable cluster file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void write(Path file, Object value) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        mapper.writeValue(tempFile.toFile(), value);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String fileName(String name) {
+        return name.replace('/', '-').replaceAll("[^A-Za-z0-9._-]", "_") + ".json";
+    }
+}
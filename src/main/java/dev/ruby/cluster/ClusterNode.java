@@ -0,0 +1,255 @@
+package dev.ruby.cluster;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// one member of a monitoring cluster. every tick it renews its heartbeat, works out the live nodes, and for
+// each repository the rendezvous owner among them takes or renews the lease. a node that is no longer the
+// owner hands the repository over: it stops monitoring, saves state and only then deletes its lease, so
+// the next owner always loads the final state. handoffs run beside the ticks, which keep renewing every lease
+// still held, the handed-over ones included. leases of a dead node expire and are taken over.
+// every acquisition bumps the lease's generation; the Fence handed to the listener is valid while this node
+// holds that generation and its last renewal has not run out, so a node that missed its renewals stops writing
+// state and reporting events before another node can take the repository
+public class ClusterNode implements AutoCloseable {
+    public interface Listener {
+        // start monitoring; the repository's state is in the shared state directory. check the fence before
+        // every save and event
+        void acquired(String repository, Fence fence);
+
+        // stop monitoring and save state; the lease is deleted afterwards
+        void released(String repository);
+
+        // the lease expired or another node took it over: stop monitoring without saving
+        void lost(String repository);
+    }
+
+    public final class Fence {
+        private final String repository;
+        private final long generation;
+        private volatile Instant validUntil;
+
+        private Fence(String repository, long generation, Instant validUntil) {
+            this.repository = repository;
+            this.generation = generation;
+            this.validUntil = validUntil;
+        }
+
+        public long generation() {
+            return generation;
+        }
+
+        public boolean isValid() {
+            return owned.get(repository) == this && clock.instant().isBefore(validUntil);
+        }
+    }
+
+    private final ClusterDirectory directory;
+    private final String nodeId;
+    private final Duration leaseDuration;
+    // a fence runs out this much before its lease, for a save or an event already under way
+    private final Duration fenceMargin;
+    private final List<String> repositories;
+    private final Listener listener;
+    private final Clock clock;
+    private final Executor handoffs;
+    private final Map<String, Fence> owned = new ConcurrentHashMap<>();
+    private final Set<String> releasing = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<Void>> pendingHandoffs = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    public ClusterNode(ClusterDirectory directory, String nodeId, Duration leaseDuration, List<String> repositories,
+            Listener listener) {
+        this(directory, nodeId, leaseDuration, repositories, listener, Clock.systemUTC(),
+                Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    // hands over on the ticking thread
+    ClusterNode(ClusterDirectory directory, String nodeId, Duration leaseDuration, List<String> repositories,
+            Listener listener, Clock clock) {
+        this(directory, nodeId, leaseDuration, repositories, listener, clock, Runnable::run);
+    }
+
+    ClusterNode(ClusterDirectory directory, String nodeId, Duration leaseDuration, List<String> repositories,
+            Listener listener, Clock clock, Executor handoffs) {
+        this.directory = directory;
+        this.nodeId = nodeId;
+        this.leaseDuration = leaseDuration;
+        this.fenceMargin = leaseDuration.dividedBy(10);
+        this.repositories = List.copyOf(repositories);
+        this.listener = listener;
+        this.clock = clock;
+        this.handoffs = handoffs;
+    }
+
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        // renew well before the lease runs out
+        long periodMillis = Math.max(1, leaseDuration.toMillis() / 3);
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                tick();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Cluster tick failed: " + e.getMessage());
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Set<String> getOwned() {
+        return Set.copyOf(owned.keySet());
+    }
+
+    // the current fence of a repository this node holds, null otherwise
+    public Fence fence(String repository) {
+        return owned.get(repository);
+    }
+
+    public synchronized void tick() throws IOException {
+        Instant now = clock.instant();
+        Instant expiresAt = now.plus(leaseDuration);
+        Map<String, Fence> acquired = new LinkedHashMap<>();
+        List<String> released = new ArrayList<>();
+        List<String> lost = new ArrayList<>();
+
+        directory.locked(() -> {
+            directory.writeNode(new ClusterDirectory.NodeRecord(nodeId, expiresAt));
+            List<String> liveNodes = new ArrayList<>();
+            for (ClusterDirectory.NodeRecord node : directory.readNodes()) {
+                if (node.expiresAt().isAfter(now)) {
+                    liveNodes.add(node.nodeId());
+                } else if (node.expiresAt().plus(leaseDuration).isBefore(now)) {
+                    directory.deleteNode(node.nodeId());
+                }
+            }
+
+            for (String repository : repositories) {
+                ClusterDirectory.Lease lease = directory.readLease(repository);
+                boolean mine = lease != null && lease.owner().equals(nodeId);
+                boolean free = lease == null || !lease.expiresAt().isAfter(now);
+                Fence fence = owned.get(repository);
+
+                // renewals came too late: the fence ran out, whoever holds the lease now
+                if (fence != null && (!mine || lease.generation() != fence.generation
+                        || !now.isBefore(fence.validUntil))) {
+                    owned.remove(repository);
+                    releasing.remove(repository);
+                    lost.add(repository);
+                    fence = null;
+                }
+
+                if (fence != null && releasing.contains(repository)) {
+                    // keep the lease until the handoff has saved the state
+                    renew(lease, expiresAt, fence);
+                } else if (nodeId.equals(Rendezvous.owner(repository, liveNodes))) {
+                    if (fence != null) {
+                        renew(lease, expiresAt, fence);
+                    } else if (mine || free) {
+                        long generation = (lease == null ? 0 : lease.generation()) + 1;
+                        directory.writeLease(new ClusterDirectory.Lease(repository, nodeId, expiresAt, generation));
+                        acquired.put(repository, new Fence(repository, generation, expiresAt.minus(fenceMargin)));
+                    }
+                    // otherwise a live node still holds it and hands it over on its next tick
+                } else if (fence != null) {
+                    renew(lease, expiresAt, fence);
+                    releasing.add(repository);
+                    released.add(repository);
+                } else if (mine) {
+                    directory.deleteLease(repository);
+                }
+            }
+            return null;
+        });
+
+        for (String repository : lost) {
+            listener.lost(repository);
+        }
+        for (String repository : released) {
+            CompletableFuture<Void> handoff = CompletableFuture.runAsync(() -> {
+                try {
+                    release(repository);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Handoff of " + repository + " failed: " + e.getMessage());
+                }
+            }, handoffs);
+            pendingHandoffs.put(repository, handoff);
+            handoff.thenRun(() -> pendingHandoffs.remove(repository, handoff));
+        }
+        for (Map.Entry<String, Fence> entry : acquired.entrySet()) {
+            owned.put(entry.getKey(), entry.getValue());
+            listener.acquired(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void renew(ClusterDirectory.Lease lease, Instant expiresAt, Fence fence) throws IOException {
+        directory.writeLease(new ClusterDirectory.Lease(lease.repository(), nodeId, expiresAt, fence.generation));
+        fence.validUntil = expiresAt.minus(fenceMargin);
+    }
+
+    // hands every repository back and leaves the cluster; the others pick them up on their next tick
+    @Override
+    public void close() throws IOException {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(leaseDuration.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (CompletableFuture<Void> handoff : List.copyOf(pendingHandoffs.values())) {
+            handoff.join();
+        }
+        for (String repository : List.copyOf(owned.keySet())) {
+            if (releasing.add(repository)) {
+                release(repository);
+            }
+        }
+        synchronized (this) {
+            directory.locked(() -> {
+                directory.deleteNode(nodeId);
+                return null;
+            });
+        }
+    }
+
+    // the listener saves while the fence is still valid; the lease goes once the state is on disk
+    private void release(String repository) throws IOException {
+        Fence fence = owned.get(repository);
+        if (fence == null) {
+            return;
+        }
+        listener.released(repository);
+        synchronized (this) {
+            owned.remove(repository, fence);
+            releasing.remove(repository);
+            directory.locked(() -> {
+                ClusterDirectory.Lease lease = directory.readLease(repository);
+                if (lease != null && lease.owner().equals(nodeId) && lease.generation() == fence.generation) {
+                    directory.deleteLease(repository);
+                }
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package dev.ruby.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+// highest-random-weight hashing: every node scores every repository and the highest score owns it. when a node
+// joins or leaves, only the repositories it wins or held move; everything else stays where it is
+final class Rendezvous {
+    private Rendezvous() {
+    }
+
+    static String owner(String repository, Collection<String> nodeIds) {
+        String best = null;
+        long bestScore = 0;
+        for (String nodeId : nodeIds) {
+            long score = score(nodeId, repository);
+            if (best == null || Long.compareUnsigned(score, bestScore) > 0
+                    || score == bestScore && nodeId.compareTo(best) < 0) {
+                best = nodeId;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    static long score(String nodeId, String repository) {
+        // FNV-1a over "node\nrepo", then a splitmix64 finalizer to spread similar names
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : (nodeId + "\n" + repository).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,237 @@
+package dev.ruby.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.ruby.client.GitHubClient;
+import dev.ruby.client.ResponseCache;
+import dev.ruby.client.RunQuery;
+import dev.ruby.metrics.MetricsServer;
+import dev.ruby.output.AsyncEventSink;
+import dev.ruby.output.EventFormat;
+import dev.ruby.output.OutputOptions;
+import dev.ruby.persistence.StateFormat;
+import dev.ruby.service.EventFilter;
+import dev.ruby.service.MonitorOptions;
+import dev.ruby.service.PollLane;
+import dev.ruby.service.RunQueryPlanner;
+
+// everything needed to run one process over many repositories; loaded from a JSON file:
+// {
+//   "apiUrl": "https://api.github.com", "stateDir": "state", "token": "env:GITHUB_TOKEN",
+//   "slots": 8, "cacheEntries": 16384, "concurrency": 8, "jobRefreshSeconds": 30,
+//   "minIntervalSeconds": 2, "maxIntervalSeconds": 300, "retentionDays": 7, "stateFormat": "journal",
+//   "branch": "main", "event": "push", "workflowId": 42, "runQueries": "auto",
+//   "filter": "workflow!=Nightly*; actor!=dependabot[bot]; level=RUN,JOB",
+//   "lanes": [{"name": "deploy", "workflowIds": [1021, 1022], "intervalSeconds": 3, "priority": "high"}],
+//   "output": {"format": "jsonl", "file": "events.jsonl", "queue": 8192, "backpressure": "spill",
+//              "spillDir": "/var/tmp"},
+//   "metrics": "0.0.0.0:9464", "serve": "127.0.0.1:8080",
+//   "repositories": ["octo/api", {"repository": "octo/web", "token": "env:WEB_TOKEN"}],
+//   "cluster": {"directory": "/mnt/shared/monitor", "nodeId": "node-a", "leaseSeconds": 30}
+// }
+// tokens are either literal or "env:NAME"; a repository without its own token uses the top-level one.
+// with a cluster section, nodes sharing the directory split the repositories and stateDir defaults to
+// <directory>/state
+public record MonitorConfig(
+        String apiUrl,
+        File stateDir,
+        int slots,
+        int cacheEntries,
+        MonitorOptions options,
+        List<Repository> repositories,
+        Cluster cluster) {
+
+    public static final int DEFAULT_SLOTS = 8;
+    public static final int DEFAULT_CACHE_ENTRIES = 16_384;
+    public static final Duration DEFAULT_LEASE_DURATION = Duration.ofSeconds(30);
+
+    public record Repository(String owner, String repo, String token) {
+        public String fullName() {
+            return owner + "/" + repo;
+        }
+    }
+
+    public record Cluster(File directory, String nodeId, Duration leaseDuration) {
+        public Cluster {
+            if (leaseDuration.toMillis() < 3) {
+                throw new IllegalArgumentException("leaseDuration is too short: " + leaseDuration);
+            }
+        }
+    }
+
+    public MonitorConfig {
+        if (slots < 1) {
+            throw new IllegalArgumentException("slots must be at least 1: " + slots);
+        }
+        if (cacheEntries < 1) {
+            throw new IllegalArgumentException("cacheEntries must be at least 1: " + cacheEntries);
+        }
+        if (repositories.isEmpty()) {
+            throw new IllegalArgumentException("at least one repository is required");
+        }
+        repositories = List.copyOf(repositories);
+    }
+
+    public static MonitorConfig single(String apiUrl, String owner, String repo, String token,
+            MonitorOptions options) {
+        return new MonitorConfig(apiUrl, null, 1, ResponseCache.DEFAULT_MAX_ENTRIES, options,
+                List.of(new Repository(owner, repo, token)), null);
+    }
+
+    public static MonitorConfig load(File file) throws IOException {
+        return parse(new ObjectMapper().readTree(file), System::getenv);
+    }
+
+    static MonitorConfig parse(JsonNode root, UnaryOperator<String> env) {
+        MonitorOptions options = MonitorOptions.defaults().withShowRepository(true)
+                .withFetchConcurrency(root.path("concurrency").asInt(MonitorOptions.DEFAULT_FETCH_CONCURRENCY))
+                .withJobRefreshInterval(seconds(root, "jobRefreshSeconds",
+                        MonitorOptions.DEFAULT_JOB_REFRESH_INTERVAL));
+        Duration min = seconds(root, "minIntervalSeconds", options.minPollInterval());
+        Duration max = seconds(root, "maxIntervalSeconds", options.maxPollInterval());
+        options = options.withPollIntervals(min, clamp(options.basePollInterval(), min, max), max)
+                .withRetention(root.hasNonNull("retentionDays") ? Duration.ofDays(root.get("retentionDays").asLong())
+                        : MonitorOptions.DEFAULT_RETENTION);
+        if (root.hasNonNull("stateFormat")) {
+            options = options.withStateFormat(StateFormat.parse(root.get("stateFormat").asText()));
+        }
+        options = options.withSaveThresholds(seconds(root, "saveDelaySeconds", MonitorOptions.DEFAULT_SAVE_DELAY),
+                root.path("saveChanges").asInt(MonitorOptions.DEFAULT_SAVE_CHANGES));
+        if (root.hasNonNull("backfillFrom")) {
+            options = options.withBackfillFrom(Instant.parse(root.get("backfillFrom").asText()));
+        }
+        options = options.withRunFilter(RunQuery.of(root.path("branch").asText(null), root.path("event").asText(null),
+                root.hasNonNull("workflowId") ? root.get("workflowId").asLong() : null));
+        if (root.hasNonNull("runQueries")) {
+            options = options.withRunQueries(RunQueryPlanner.Strategy.parse(root.get("runQueries").asText()));
+        }
+        if (root.hasNonNull("filter")) {
+            options = options.withEventFilter(EventFilter.parse(root.get("filter").asText()));
+        }
+        List<PollLane> lanes = new ArrayList<>();
+        for (JsonNode node : root.path("lanes")) {
+            Set<Long> workflowIds = new LinkedHashSet<>();
+            node.path("workflowIds").forEach(id -> workflowIds.add(id.asLong()));
+            if (!node.hasNonNull("intervalSeconds")) {
+                throw new IllegalArgumentException("lane without intervalSeconds: " + node);
+            }
+            lanes.add(new PollLane(node.path("name").asText(null), workflowIds,
+                    Duration.ofSeconds(node.get("intervalSeconds").asLong()),
+                    PollLane.parsePriority(node.path("priority").asText("normal"))));
+        }
+        options = options.withLanes(lanes);
+        JsonNode outputNode = root.path("output");
+        if (outputNode.isObject()) {
+            OutputOptions output = options.output();
+            if (outputNode.hasNonNull("format")) {
+                output = output.withFormat(EventFormat.parse(outputNode.get("format").asText()));
+            }
+            if (outputNode.hasNonNull("file")) {
+                output = output.withFile(new File(outputNode.get("file").asText()));
+            }
+            output = output.withQueue(outputNode.path("queue").asInt(output.queueCapacity()),
+                    outputNode.hasNonNull("backpressure")
+                            ? AsyncEventSink.Backpressure.parse(outputNode.get("backpressure").asText())
+                            : output.backpressure());
+            if (outputNode.hasNonNull("spillDir")) {
+                output = output.withSpillDir(new File(outputNode.get("spillDir").asText()));
+            }
+            options = options.withOutput(output);
+        }
+        if (root.hasNonNull("metrics")) {
+            options = options.withMetricsAddress(MetricsServer.parseAddress(root.get("metrics").asText()));
+        }
+        if (root.hasNonNull("serve")) {
+            options = options.withServeAddress(MetricsServer.parseAddress(root.get("serve").asText()));
+        }
+
+        String defaultToken = root.hasNonNull("token") ? resolveToken(root.get("token").asText(), env) : null;
+        List<Repository> repositories = new ArrayList<>();
+        for (JsonNode node : root.path("repositories")) {
+            String fullName = node.isTextual() ? node.asText() : node.path("repository").asText(null);
+            String token = node.hasNonNull("token") ? resolveToken(node.get("token").asText(), env) : defaultToken;
+            if (fullName == null) {
+                throw new IllegalArgumentException("repository entry without a name: " + node);
+            }
+            String[] parts = fullName.split("/");
+            if (parts.length != 2 || parts[0].isEmpty() || parts[1].isEmpty()) {
+                throw new IllegalArgumentException("Invalid repository format. Use 'owner/repo': " + fullName);
+            }
+            if (token == null) {
+                throw new IllegalArgumentException("no token for " + fullName);
+            }
+            repositories.add(new Repository(parts[0], parts[1], token));
+        }
+
+        Cluster cluster = null;
+        JsonNode clusterNode = root.path("cluster");
+        if (clusterNode.isObject()) {
+            String directory = clusterNode.path("directory").asText(null);
+            if (directory == null) {
+                throw new IllegalArgumentException("cluster.directory is required");
+            }
+            String nodeId = clusterNode.hasNonNull("nodeId") ? clusterNode.get("nodeId").asText() : defaultNodeId();
+            cluster = new Cluster(new File(directory), nodeId,
+                    seconds(clusterNode, "leaseSeconds", DEFAULT_LEASE_DURATION));
+        }
+
+        String stateDir = root.path("stateDir").asText(null);
+        File stateDirectory = stateDir != null ? new File(stateDir)
+                : cluster != null ? new File(cluster.directory(), "state") : null;
+        return new MonitorConfig(
+                root.path("apiUrl").asText(GitHubClient.DEFAULT_API_URL),
+                stateDirectory,
+                root.path("slots").asInt(DEFAULT_SLOTS),
+                root.path("cacheEntries").asInt(DEFAULT_CACHE_ENTRIES),
+                options,
+                repositories,
+                cluster);
+    }
+
+    // unique per process, so several nodes can run on one machine
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    private static String resolveToken(String value, UnaryOperator<String> env) {
+        if (!value.startsWith("env:")) {
+            return value;
+        }
+        String name = value.substring(4);
+        String token = env.apply(name);
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("environment variable " + name + " is not set");
+        }
+        return token;
+    }
+
+    private static Duration seconds(JsonNode root, String field, Duration defaultValue) {
+        return root.hasNonNull(field) ? Duration.ofSeconds(root.get(field).asLong()) : defaultValue;
+    }
+
+    static Duration clamp(Duration value, Duration min, Duration max) {
+        if (value.compareTo(min) < 0) {
+            return min;
+        }
+        return value.compareTo(max) > 0 ? max : value;
+    }
+}
@@ -0,0 +1,42 @@
+package dev.ruby.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// one GitHubClient call, from the first permit to the decoded body; retries are part of it
+@Name("dev.ruby.ApiRequest")
+@Label("API Request")
+@Category("GitHub Actions Monitor")
+@StackTrace(false)
+public class ApiRequestEvent extends jdk.jfr.Event {
+    @Label("Repository")
+    public String repository;
+
+    @Label("Endpoint")
+    @Description("runs, workflow_runs, run or jobs")
+    public String endpoint;
+
+    @Label("Priority")
+    public String priority;
+
+    @Label("Status")
+    @Description("Status code of the last response, 0 without one")
+    public int status;
+
+    @Label("Response Bytes")
+    @DataAmount
+    public long responseBytes;
+
+    @Label("Attempts")
+    public int attempts;
+
+    @Label("Budget Wait")
+    @Description("Time spent waiting for the rate budget, over all attempts")
+    @Timespan
+    public long budgetWait;
+}
@@ -0,0 +1,27 @@
+package dev.ruby.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// the events one run reported in a cycle, from their transitions to the event sink
+@Name("dev.ruby.EventBurst")
+@Label("Event Burst")
+@Category("GitHub Actions Monitor")
+@StackTrace(false)
+public class EventBurstEvent extends jdk.jfr.Event {
+    @Label("Repository")
+    public String repository;
+
+    @Label("Lane")
+    @Description("Empty for the repository-wide cycle")
+    public String lane;
+
+    @Label("Run Id")
+    public long runId;
+
+    @Label("Events")
+    public int events;
+}
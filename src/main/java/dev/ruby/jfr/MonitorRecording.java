@@ -0,0 +1,45 @@
+package dev.ruby.jfr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+// a flight recording with the bundled monitor.jfc, written to its destination when stopped
+public final class MonitorRecording {
+    public static final String SETTINGS = "monitor.jfc";
+
+    private MonitorRecording() {
+    }
+
+    public static Configuration configuration() {
+        try (InputStream in = MonitorRecording.class.getResourceAsStream(SETTINGS)) {
+            if (in == null) {
+                throw new IllegalStateException(SETTINGS + " is missing from the classpath");
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + SETTINGS, e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid " + SETTINGS + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static Recording start(Path destination) throws IOException {
+        Recording recording = new Recording(configuration());
+        recording.setName("github-actions-monitor");
+        recording.setToDisk(true);
+        recording.setDestination(destination);
+        recording.start();
+        return recording;
+    }
+}
@@ -0,0 +1,52 @@
+package dev.ruby.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// one cycle of a WorkflowMonitor, the repository-wide one or a lane's
+@Name("dev.ruby.PollCycle")
+@Label("Poll Cycle")
+@Category("GitHub Actions Monitor")
+@StackTrace(false)
+public class PollCycleEvent extends jdk.jfr.Event {
+    @Label("Repository")
+    public String repository;
+
+    @Label("Lane")
+    @Description("Empty for the repository-wide cycle")
+    public String lane;
+
+    @Label("Plan")
+    @Description("How the runs were listed: SCAN, CREATED, CREATED_AND_LIVE or LANE")
+    public String plan;
+
+    @Label("Outcome")
+    @Description("ok, rate_limited or error")
+    public String outcome;
+
+    @Label("Pages")
+    @Description("Run list pages requested")
+    public int pages;
+
+    @Label("Runs Fetched")
+    @Description("Runs listed or fetched one by one")
+    public int runsFetched;
+
+    @Label("Runs Processed")
+    public int runsProcessed;
+
+    @Label("Job Fetches")
+    public int jobFetches;
+
+    @Label("Events Emitted")
+    public int eventsEmitted;
+
+    @Label("Active Runs")
+    public int activeRuns;
+
+    @Label("Requests Charged")
+    public long requestsCharged;
+}
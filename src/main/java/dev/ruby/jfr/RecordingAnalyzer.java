@@ -0,0 +1,224 @@
+package dev.ruby.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+// summarizes a recording offline: where each repository's and lane's cycles spent their time, how the
+// endpoints answered, and how long states took to save and load.
+// a cycle's requests are those of its repository that overlap it; backfill requests run beside the cycles and
+// are left out. api is the time any of them was in flight, budget the part of it spent waiting for the rate
+// budget (counted from each request's start), emit the time its runs took to report their events and other
+// what remains: listing the runs, transitions, the cycle's save hand-off
+public class RecordingAnalyzer {
+    private static final String PRIORITY_BACKFILL = "BACKFILL";
+
+    private record Interval(long start, long end) {
+    }
+
+    private record Request(String repository, String endpoint, String priority, int status, long bytes,
+            int attempts, long start, long end, long budgetWait) {
+    }
+
+    private record Cycle(String repository, String lane, String outcome, long start, long end) {
+        String key() {
+            return repository + " [" + (lane.isEmpty() ? "repository" : lane) + "]";
+        }
+    }
+
+    private record Burst(String repository, String lane, long start, long end) {
+    }
+
+    private record Save(String kind, long storedBytes, long duration) {
+    }
+
+    // per cycle, in nanoseconds
+    public record Breakdown(long duration, long api, long budget, long emit, long other, int requests) {
+    }
+
+    private final List<Cycle> cycles = new ArrayList<>();
+    private final List<Request> requests = new ArrayList<>();
+    private final List<Burst> bursts = new ArrayList<>();
+    private final List<Save> saves = new ArrayList<>();
+    private final List<Long> loads = new ArrayList<>();
+
+    public static RecordingAnalyzer read(Path recording) throws IOException {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                analyzer.add(file.readEvent());
+            }
+        }
+        return analyzer;
+    }
+
+    private void add(RecordedEvent event) {
+        long start = nanos(event.getStartTime());
+        long end = nanos(event.getEndTime());
+        switch (event.getEventType().getName()) {
+            case "dev.ruby.PollCycle" -> cycles.add(new Cycle(event.getString("repository"),
+                    event.getString("lane"), event.getString("outcome"), start, end));
+            case "dev.ruby.ApiRequest" -> requests.add(new Request(event.getString("repository"),
+                    event.getString("endpoint"), event.getString("priority"), event.getInt("status"),
+                    event.getLong("responseBytes"), event.getInt("attempts"), start, end,
+                    event.getLong("budgetWait")));
+            case "dev.ruby.EventBurst" -> bursts.add(new Burst(event.getString("repository"),
+                    event.getString("lane"), start, end));
+            case "dev.ruby.StateSave" -> saves.add(new Save(event.getString("kind"), event.getLong("storedBytes"),
+                    end - start));
+            case "dev.ruby.StateLoad" -> loads.add(end - start);
+            default -> {
+            }
+        }
+    }
+
+    // cycle breakdowns by "owner/repo [lane]", in the order the cycles started
+    public Map<String, List<Breakdown>> cycleBreakdowns() {
+        Map<String, List<Breakdown>> breakdowns = new TreeMap<>();
+        List<Cycle> sorted = new ArrayList<>(cycles);
+        sorted.sort((a, b) -> Long.compare(a.start, b.start));
+        for (Cycle cycle : sorted) {
+            breakdowns.computeIfAbsent(cycle.key(), key -> new ArrayList<>()).add(breakdown(cycle));
+        }
+        return breakdowns;
+    }
+
+    private Breakdown breakdown(Cycle cycle) {
+        List<Interval> inFlight = new ArrayList<>();
+        List<Interval> waiting = new ArrayList<>();
+        for (Request request : requests) {
+            if (!request.repository.equals(cycle.repository) || PRIORITY_BACKFILL.equals(request.priority)
+                    || request.end <= cycle.start || request.start >= cycle.end) {
+                continue;
+            }
+            inFlight.add(clip(request.start, request.end, cycle));
+            if (request.budgetWait > 0) {
+                waiting.add(clip(request.start, request.start + request.budgetWait, cycle));
+            }
+        }
+        long emit = 0;
+        for (Burst burst : bursts) {
+            if (burst.repository.equals(cycle.repository) && burst.lane.equals(cycle.lane)
+                    && burst.start >= cycle.start && burst.end <= cycle.end) {
+                emit += burst.end - burst.start;
+            }
+        }
+        long duration = cycle.end - cycle.start;
+        long api = union(inFlight);
+        return new Breakdown(duration, api, union(waiting), emit, Math.max(0, duration - api - emit),
+                inFlight.size());
+    }
+
+    public String summary() {
+        StringBuilder out = new StringBuilder();
+        out.append("Cycles (p50 / p99 / max)\n");
+        Map<String, List<Breakdown>> breakdowns = cycleBreakdowns();
+        for (Map.Entry<String, List<Breakdown>> entry : breakdowns.entrySet()) {
+            List<Breakdown> list = entry.getValue();
+            Map<String, Integer> outcomes = new TreeMap<>();
+            for (Cycle cycle : cycles) {
+                if (cycle.key().equals(entry.getKey())) {
+                    outcomes.merge(cycle.outcome, 1, Integer::sum);
+                }
+            }
+            out.append(String.format("  %s: %d cycles %s%n", entry.getKey(), list.size(), outcomes));
+            appendLine(out, "duration", list.stream().mapToLong(Breakdown::duration).toArray());
+            appendLine(out, "api", list.stream().mapToLong(Breakdown::api).toArray());
+            appendLine(out, "budget", list.stream().mapToLong(Breakdown::budget).toArray());
+            appendLine(out, "emit", list.stream().mapToLong(Breakdown::emit).toArray());
+            appendLine(out, "other", list.stream().mapToLong(Breakdown::other).toArray());
+            Breakdown slowest = list.stream().max((a, b) -> Long.compare(a.duration, b.duration)).orElseThrow();
+            out.append(String.format("    slowest %s = api %s (%d requests, budget %s) + emit %s + other %s%n",
+                    millis(slowest.duration), millis(slowest.api), slowest.requests, millis(slowest.budget),
+                    millis(slowest.emit), millis(slowest.other)));
+        }
+
+        out.append("Requests by endpoint (p50 / p99 / max)\n");
+        Map<String, List<Request>> byEndpoint = new TreeMap<>();
+        for (Request request : requests) {
+            byEndpoint.computeIfAbsent(request.endpoint, key -> new ArrayList<>()).add(request);
+        }
+        for (Map.Entry<String, List<Request>> entry : byEndpoint.entrySet()) {
+            List<Request> list = entry.getValue();
+            Map<Integer, Integer> statuses = new TreeMap<>();
+            long bytes = 0;
+            long retried = 0;
+            long budgetWait = 0;
+            for (Request request : list) {
+                statuses.merge(request.status, 1, Integer::sum);
+                bytes += request.bytes;
+                retried += request.attempts > 1 ? 1 : 0;
+                budgetWait += request.budgetWait;
+            }
+            out.append(String.format("  %s: %d requests %s, %d KiB, %d retried, budget wait %s%n", entry.getKey(),
+                    list.size(), statuses, bytes / 1024, retried, millis(budgetWait)));
+            appendLine(out, "duration", list.stream().mapToLong(request -> request.end - request.start).toArray());
+        }
+
+        out.append("State (p50 / p99 / max)\n");
+        Map<String, List<Save>> byKind = new TreeMap<>();
+        for (Save save : saves) {
+            byKind.computeIfAbsent(save.kind, key -> new ArrayList<>()).add(save);
+        }
+        for (Map.Entry<String, List<Save>> entry : byKind.entrySet()) {
+            List<Save> list = entry.getValue();
+            out.append(String.format("  save %s: %d, last %d KiB%n", entry.getKey(), list.size(),
+                    list.get(list.size() - 1).storedBytes / 1024));
+            appendLine(out, "duration", list.stream().mapToLong(Save::duration).toArray());
+        }
+        if (!loads.isEmpty()) {
+            out.append(String.format("  load: %d%n", loads.size()));
+            appendLine(out, "duration", loads.stream().mapToLong(Long::longValue).toArray());
+        }
+        return out.toString();
+    }
+
+    private static void appendLine(StringBuilder out, String label, long[] values) {
+        Arrays.sort(values);
+        out.append(String.format("    %-9s %s / %s / %s%n", label, millis(percentile(values, 0.5)),
+                millis(percentile(values, 0.99)), millis(values.length == 0 ? 0 : values[values.length - 1])));
+    }
+
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    // total length of the intervals, overlaps counted once
+    static long union(List<Interval> intervals) {
+        intervals.sort((a, b) -> Long.compare(a.start, b.start));
+        long total = 0;
+        long coveredTo = Long.MIN_VALUE;
+        for (Interval interval : intervals) {
+            long start = Math.max(interval.start, coveredTo);
+            if (interval.end > start) {
+                total += interval.end - start;
+                coveredTo = interval.end;
+            }
+        }
+        return total;
+    }
+
+    private static Interval clip(long start, long end, Cycle cycle) {
+        return new Interval(Math.max(start, cycle.start), Math.min(end, cycle.end));
+    }
+
+    private static long nanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,24 @@
+package dev.ruby.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// a state read by a StateStore or JournalStateStore, journal replay included
+@Name("dev.ruby.StateLoad")
+@Label("State Load")
+@Category("GitHub Actions Monitor")
+@StackTrace(false)
+public class StateLoadEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("Stored Bytes")
+    @DataAmount
+    public long storedBytes;
+
+    @Label("Seen Events")
+    public int seenEvents;
+}
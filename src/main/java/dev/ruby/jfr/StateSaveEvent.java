@@ -0,0 +1,30 @@
+package dev.ruby.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// a state written by a StateStore or JournalStateStore
+@Name("dev.ruby.StateSave")
+@Label("State Save")
+@Category("GitHub Actions Monitor")
+@StackTrace(false)
+public class StateSaveEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("Kind")
+    @Description("file, snapshot, journal, unchanged or failed")
+    public String kind;
+
+    @Label("Stored Bytes")
+    @Description("Size on disk after the save")
+    @DataAmount
+    public long storedBytes;
+
+    @Label("Seen Events")
+    public int seenEvents;
+}
@@ -14,13 +14,15 @@ public class EventMapper {
     EventStatus status = toStatus(run.status(), run.conclusion());
     Instant timestamp = status.isFinished() ? run.updatedAt() : run.createdAt();
 
-    return new WorkflowEvent(String.valueOf(run.id()), timestamp, WorkflowLevel.RUN, status, run.headBranch(),
-        run.headSha(), run.name());
+    return new WorkflowEvent(runId(run), timestamp, WorkflowLevel.RUN, status, run.headBranch(), run.headSha(),
+        run.name(), run.name());
   }
 
   public static WorkflowEvent toRunStartedEvent(WorkflowRun run) {
-    return new WorkflowEvent(String.valueOf(run.id()), run.createdAt(), WorkflowLevel.RUN, EventStatus.STARTED,
-        run.headBranch(), run.headSha(), run.name());
+    // a re-run keeps its id and created_at, so later attempts start at run_started_at
+    Instant timestamp = run.runAttempt() > 1 && run.runStartedAt() != null ? run.runStartedAt() : run.createdAt();
+    return new WorkflowEvent(runId(run), timestamp, WorkflowLevel.RUN, EventStatus.STARTED, run.headBranch(),
+        run.headSha(), run.name(), run.name());
   }
 
   public static WorkflowEvent toJobEvent(WorkflowRun run, WorkflowJob job) {
@@ -28,12 +30,12 @@ public class EventMapper {
     Instant timestamp = status.isFinished() ? job.completedAt() : job.startedAt();
 
     return new WorkflowEvent(String.valueOf(job.id()), timestamp, WorkflowLevel.JOB, status, run.headBranch(),
-        run.headSha(), job.name());
+        run.headSha(), job.name(), run.name());
   }
 
   public static WorkflowEvent toJobStartedEvent(WorkflowRun run, WorkflowJob job) {
     return new WorkflowEvent(String.valueOf(job.id()), job.startedAt(), WorkflowLevel.JOB, EventStatus.STARTED,
-        run.headBranch(), run.headSha(), job.name());
+        run.headBranch(), run.headSha(), job.name(), run.name());
   }
 
   public static WorkflowEvent toStepEvent(WorkflowRun run, WorkflowJob job, WorkflowStep step) {
@@ -41,19 +43,30 @@ public class EventMapper {
     Instant timestamp = status.isFinished() ? step.completedAt() : step.startedAt();
 
     return new WorkflowEvent(job.id() + ":" + step.number(), timestamp, WorkflowLevel.STEP, status, run.headBranch(),
-        run.headSha(), step.name());
+        run.headSha(), step.name(), run.name());
   }
 
   public static WorkflowEvent toStepStartedEvent(WorkflowRun run, WorkflowJob job, WorkflowStep step) {
     return new WorkflowEvent(job.id() + ":" + step.number(), step.startedAt(), WorkflowLevel.STEP, EventStatus.STARTED,
-        run.headBranch(), run.headSha(), step.name());
+        run.headBranch(), run.headSha(), step.name(), run.name());
   }
 
   public static EventStatus toStatus(String status, String conclusion) {
     if (status == null)
       return EventStatus.UNKNOWN;
 
-    return switch (status.toLowerCase()) {
+    // the API sends lowercase values; only fall back to toLowerCase (and its copy) when it does not
+    EventStatus exact = fromStatus(status, conclusion);
+    return exact != EventStatus.UNKNOWN ? exact : fromStatus(status.toLowerCase(), conclusion);
+  }
+
+  // first attempts keep the plain id so that keys recorded by earlier versions still match
+  private static String runId(WorkflowRun run) {
+    return run.runAttempt() > 1 ? run.id() + "#" + run.runAttempt() : String.valueOf(run.id());
+  }
+
+  private static EventStatus fromStatus(String status, String conclusion) {
+    return switch (status) {
       case "queued", "requested", "waiting", "pending" -> EventStatus.QUEUED;
       case "in_progress" -> EventStatus.STARTED;
       case "completed" -> fromConclusion(conclusion);
@@ -65,12 +78,13 @@ public class EventMapper {
     if (conclusion == null)
       return EventStatus.SUCCESS;
 
-    return switch (conclusion.toLowerCase()) {
+    return switch (conclusion) {
       case "success" -> EventStatus.SUCCESS;
       case "failure", "timed_out", "action_required", "stale" -> EventStatus.FAILURE;
       case "cancelled" -> EventStatus.CANCELLED;
       case "skipped" -> EventStatus.SKIPPED;
-      default -> EventStatus.SUCCESS;
+      default -> conclusion.equals(conclusion.toLowerCase()) ? EventStatus.SUCCESS
+          : fromConclusion(conclusion.toLowerCase());
     };
   }
 }
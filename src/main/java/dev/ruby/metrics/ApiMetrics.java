@@ -0,0 +1,152 @@
+package dev.ruby.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+// what GitHubClient sends: requests by endpoint and outcome, response bytes by endpoint and how long the API
+// took to answer (until the headers arrived; the body is decoded while it streams in)
+public class ApiMetrics {
+    public enum Endpoint {
+        // /actions/runs, also with a created filter
+        RUNS,
+        // /actions/workflows/{id}/runs
+        WORKFLOW_RUNS,
+        // /actions/runs/{id}
+        RUN,
+        // /actions/runs/{id}/jobs
+        JOBS;
+
+        private final String label = name().toLowerCase(Locale.ROOT);
+
+        public String label() {
+            return label;
+        }
+    }
+
+    public enum Outcome {
+        OK("200"), NOT_MODIFIED("304"), RATE_LIMITED("rate_limited"), CLIENT_ERROR("4xx"), SERVER_ERROR("5xx"),
+        // no response at all
+        FAILED("error");
+
+        final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+
+        public static Outcome of(int statusCode) {
+            return switch (statusCode) {
+                case 200 -> OK;
+                case 304 -> NOT_MODIFIED;
+                default -> statusCode >= 500 ? SERVER_ERROR : CLIENT_ERROR;
+            };
+        }
+    }
+
+    private final LongAdder[][] requests = new LongAdder[Endpoint.values().length][Outcome.values().length];
+    private final LongAdder[] responseBytes = new LongAdder[Endpoint.values().length];
+    private final Histogram latency = Histogram.durations();
+
+    public ApiMetrics() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            for (Outcome outcome : Outcome.values()) {
+                requests[endpoint.ordinal()][outcome.ordinal()] = new LongAdder();
+            }
+            responseBytes[endpoint.ordinal()] = new LongAdder();
+        }
+    }
+
+    public void request(Endpoint endpoint, Outcome outcome, long nanos) {
+        requests[endpoint.ordinal()][outcome.ordinal()].increment();
+        if (outcome != Outcome.FAILED) {
+            latency.observe(nanos);
+        }
+    }
+
+    // counts the body as it is read and adds the total when it is closed; the one allocation metrics make per
+    // response, a 32-byte wrapper next to the body and the objects decoded from it
+    public CountingInputStream countBytes(Endpoint endpoint, InputStream body) {
+        return new CountingInputStream(body, responseBytes[endpoint.ordinal()]);
+    }
+
+    public long requests(Endpoint endpoint, Outcome outcome) {
+        return requests[endpoint.ordinal()][outcome.ordinal()].sum();
+    }
+
+    public long responseBytes(Endpoint endpoint) {
+        return responseBytes[endpoint.ordinal()].sum();
+    }
+
+    public Histogram latency() {
+        return latency;
+    }
+
+    public static final class CountingInputStream extends FilterInputStream {
+        private final LongAdder total;
+        private long bytes;
+        private boolean closed;
+
+        private CountingInputStream(InputStream in, LongAdder total) {
+            super(in);
+            this.total = total;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                total.add(bytes);
+            }
+            super.close();
+        }
+    }
+
+    void writeTo(PrometheusText out) {
+        out.metric("github_monitor_api_requests_total", "counter", "GitHub API requests by endpoint and outcome");
+        for (Endpoint endpoint : Endpoint.values()) {
+            for (Outcome outcome : Outcome.values()) {
+                out.sample("github_monitor_api_requests_total", "endpoint=\"" + endpoint.label + "\",code=\""
+                        + outcome.label + "\"", requests(endpoint, outcome));
+            }
+        }
+        out.metric("github_monitor_api_response_bytes_total", "counter", "Response body bytes read by endpoint");
+        for (Endpoint endpoint : Endpoint.values()) {
+            out.sample("github_monitor_api_response_bytes_total", "endpoint=\"" + endpoint.label + "\"",
+                    responseBytes(endpoint));
+        }
+        out.metric("github_monitor_api_request_duration_seconds", "histogram",
+                "Time until the API answered, rate limit waits excluded");
+        latency.writeTo(out, "github_monitor_api_request_duration_seconds", "");
+        out.metric("github_monitor_api_request_latency_seconds", "gauge",
+                "Request duration quantiles estimated from the histogram");
+        for (double quantile : new double[] { 0.5, 0.9, 0.99 }) {
+            out.sample("github_monitor_api_request_latency_seconds", "quantile=\"" + quantile + "\"",
+                    latency.quantile(quantile));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package dev.ruby.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// a Prometheus histogram over fixed upper bounds. observe() takes the value in base units (nanoseconds, bytes),
+// finds its bucket by binary search and bumps two LongAdders: no allocation, no lock. buckets are kept
+// per bucket and summed up to the cumulative counts Prometheus wants when scraped
+public class Histogram {
+    private final long[] bounds;
+    // base units per exported unit, e.g. 1e9 to export nanoseconds as seconds
+    private final double scale;
+    private final LongAdder[] counts;
+    private final LongAdder sum = new LongAdder();
+
+    public Histogram(double scale, long... bounds) {
+        if (bounds.length == 0) {
+            throw new IllegalArgumentException("a histogram needs at least one bound");
+        }
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("bounds must increase: " + Arrays.toString(bounds));
+            }
+        }
+        this.bounds = bounds.clone();
+        this.scale = scale;
+        this.counts = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    // 1ms to 60s, for request and cycle durations in nanoseconds
+    public static Histogram durations() {
+        return new Histogram(1e9, 1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+                100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L, 5_000_000_000L,
+                10_000_000_000L, 30_000_000_000L, 60_000_000_000L);
+    }
+
+    public void observe(long value) {
+        int index = Arrays.binarySearch(bounds, value);
+        counts[index >= 0 ? index : -index - 1].increment();
+        sum.add(value);
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    // estimated like histogram_quantile(): linear within the bucket the quantile falls into, in exported units.
+    // values above the largest bound are reported as that bound
+    public double quantile(double quantile) {
+        long[] snapshot = new long[counts.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            snapshot[i] = counts[i].sum();
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        double rank = quantile * total;
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            if (cumulative + snapshot[i] >= rank && snapshot[i] > 0) {
+                double lower = i == 0 ? 0 : bounds[i - 1];
+                return (lower + (bounds[i] - lower) * (rank - cumulative) / snapshot[i]) / scale;
+            }
+            cumulative += snapshot[i];
+        }
+        return bounds[bounds.length - 1] / scale;
+    }
+
+    void writeTo(PrometheusText out, String name, String labels) {
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts[i].sum();
+            out.sample(name + "_bucket", join(labels, "le=\"" + PrometheusText.number(bounds[i] / scale) + "\""),
+                    cumulative);
+        }
+        cumulative += counts[bounds.length].sum();
+        out.sample(name + "_bucket", join(labels, "le=\"+Inf\""), cumulative);
+        out.sample(name + "_sum", labels, sum.sum() / scale);
+        out.sample(name + "_count", labels, cumulative);
+    }
+
+    private static String join(String labels, String label) {
+        return labels.isEmpty() ? label : labels + "," + label;
+    }
+}
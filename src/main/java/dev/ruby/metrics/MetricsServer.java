@@ -0,0 +1,63 @@
+package dev.ruby.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// serves GET /metrics in the Prometheus text format from the JDK's built-in HTTP server, one request at a time
+public class MetricsServer implements AutoCloseable {
+    private final HttpServer server;
+
+    public MetricsServer(MonitorMetrics metrics, InetSocketAddress address) throws IOException {
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    respond(exchange, 405, "text/plain; charset=utf-8", "Method Not Allowed\n");
+                    return;
+                }
+                respond(exchange, 200, PrometheusText.CONTENT_TYPE, metrics.scrape());
+            }
+        });
+        server.start();
+    }
+
+    // [HOST:]PORT; without a host only local clients can connect
+    public static InetSocketAddress parseAddress(String value) {
+        int colon = value.lastIndexOf(':');
+        String host = colon < 0 ? "127.0.0.1" : value.substring(0, colon);
+        int port;
+        try {
+            port = Integer.parseInt(value.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("address must be [HOST:]PORT: " + value);
+        }
+        if (port < 0 || port > 65535 || host.isEmpty()) {
+            throw new IllegalArgumentException("address must be [HOST:]PORT: " + value);
+        }
+        return new InetSocketAddress(host, port);
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
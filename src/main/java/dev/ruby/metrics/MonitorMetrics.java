@@ -0,0 +1,117 @@
+package dev.ruby.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowLevel;
+import dev.ruby.output.EventSink;
+import dev.ruby.persistence.MonitorState;
+import dev.ruby.persistence.StateBackend;
+
+// every metric of one fleet. counters and histograms are recorded on the hot paths without allocating, and
+// counting a response's bytes costs one small stream wrapper per response; values that already exist elsewhere
+// (active runs, seen events, rate limits, file sizes) are read by collectors when /metrics is scraped
+public class MonitorMetrics {
+    private final ApiMetrics api = new ApiMetrics();
+    private final Histogram repositoryCycles = Histogram.durations();
+    private final Histogram laneCycles = Histogram.durations();
+    private final Histogram saves = Histogram.durations();
+    private final LongAdder[][] events = new LongAdder[WorkflowLevel.values().length][EventStatus.values().length];
+    private final List<Consumer<PrometheusText>> collectors = new CopyOnWriteArrayList<>();
+
+    public MonitorMetrics() {
+        for (LongAdder[] byStatus : events) {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new LongAdder();
+            }
+        }
+    }
+
+    public ApiMetrics api() {
+        return api;
+    }
+
+    public void cycle(boolean lane, long nanos) {
+        (lane ? laneCycles : repositoryCycles).observe(nanos);
+    }
+
+    public long events(WorkflowLevel level, EventStatus status) {
+        return events[level.ordinal()][status.ordinal()].sum();
+    }
+
+    // counts what the monitors report before it goes to the sink
+    public EventSink countingEvents(EventSink sink) {
+        return new EventSink() {
+            @Override
+            public void accept(dev.ruby.model.WorkflowEvent event, String repository) {
+                events[event.getLevel().ordinal()][event.getStatus().ordinal()].increment();
+                sink.accept(event, repository);
+            }
+
+            @Override
+            public void close() {
+                sink.close();
+            }
+        };
+    }
+
+    // times the saves that reach the backend, which are the writes to disk when it sits under an
+    // AsyncStatePersister
+    public StateBackend timingSaves(StateBackend backend) {
+        return new StateBackend() {
+            @Override
+            public MonitorState load() {
+                return backend.load();
+            }
+
+            @Override
+            public void save(MonitorState state) {
+                long start = System.nanoTime();
+                try {
+                    backend.save(state);
+                } finally {
+                    saves.observe(System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public long storedBytes() {
+                return backend.storedBytes();
+            }
+
+            @Override
+            public void close() {
+                backend.close();
+            }
+        };
+    }
+
+    // adds samples read at scrape time; a collector writes whole metrics, HELP and TYPE included
+    public void addCollector(Consumer<PrometheusText> collector) {
+        collectors.add(collector);
+    }
+
+    public String scrape() {
+        PrometheusText out = new PrometheusText();
+        out.metric("github_monitor_cycle_duration_seconds", "histogram", "Poll cycle duration by kind of cycle");
+        repositoryCycles.writeTo(out, "github_monitor_cycle_duration_seconds", "cycle=\"repository\"");
+        laneCycles.writeTo(out, "github_monitor_cycle_duration_seconds", "cycle=\"lane\"");
+        api.writeTo(out);
+        out.metric("github_monitor_events_total", "counter", "Events reported by level and status");
+        for (WorkflowLevel level : WorkflowLevel.values()) {
+            for (EventStatus status : EventStatus.values()) {
+                out.sample("github_monitor_events_total", "level=\"" + level + "\",status=\"" + status + "\"",
+                        events(level, status));
+            }
+        }
+        out.metric("github_monitor_state_save_duration_seconds", "histogram", "Time to write a state to disk");
+        saves.writeTo(out, "github_monitor_state_save_duration_seconds", "");
+        for (Consumer<PrometheusText> collector : collectors) {
+            collector.accept(out);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package dev.ruby.metrics;
+
+// the Prometheus text exposition format (version 0.0.4): a HELP and a TYPE line per metric, then its samples.
+// labels are passed preformatted, e.g. repository="octo/api",code="200"; label() escapes a value
+public class PrometheusText {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder text = new StringBuilder(4096);
+
+    public PrometheusText metric(String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    public PrometheusText sample(String name, String labels, double value) {
+        text.append(name);
+        if (!labels.isEmpty()) {
+            text.append('{').append(labels).append('}');
+        }
+        text.append(' ').append(number(value)).append('\n');
+        return this;
+    }
+
+    public static String label(String name, String value) {
+        StringBuilder label = new StringBuilder(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> label.append("\\\\");
+                case '"' -> label.append("\\\"");
+                case '\n' -> label.append("\\n");
+                default -> label.append(c);
+            }
+        }
+        return label.append('"').toString();
+    }
+
+    static String number(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+}
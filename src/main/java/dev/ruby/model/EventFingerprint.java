@@ -0,0 +1,72 @@
+package dev.ruby.model;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+// 64-bit fingerprint of an event's identity (id, time, level, status), computed from the parts without building
+// the "id_time_level_status" key string. a legacy key parses back into the same parts, so state files written
+// with string keys keep deduplicating after an upgrade. 0 is never returned, it marks an empty slot
+public final class EventFingerprint {
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private EventFingerprint() {
+  }
+
+  public static long of(String id, Instant time, WorkflowLevel level, EventStatus status) {
+    long hash = chars(FNV_OFFSET, id);
+    if (time == null) {
+      hash = mix(hash, -1L);
+      hash = mix(hash, -1L);
+    } else {
+      hash = mix(hash, time.getEpochSecond());
+      hash = mix(hash, time.getNano());
+    }
+    hash = chars(hash, level.name());
+    hash = chars(hash, status.name());
+    return finish(hash);
+  }
+
+  // fingerprint of a key in the "id_time_level_status" format; anything else is fingerprinted as plain text
+  public static long of(String key) {
+    int statusAt = key.lastIndexOf('_');
+    int levelAt = statusAt > 0 ? key.lastIndexOf('_', statusAt - 1) : -1;
+    int timeAt = levelAt > 0 ? key.lastIndexOf('_', levelAt - 1) : -1;
+    if (timeAt > 0) {
+      try {
+        String time = key.substring(timeAt + 1, levelAt);
+        return of(key.substring(0, timeAt), "null".equals(time) ? null : Instant.parse(time),
+            WorkflowLevel.valueOf(key.substring(levelAt + 1, statusAt)),
+            EventStatus.valueOf(key.substring(statusAt + 1)));
+      } catch (DateTimeParseException | IllegalArgumentException e) {
+        // not an event key
+      }
+    }
+    return finish(chars(mix(FNV_OFFSET, -2L), key));
+  }
+
+  // FNV-1a over the UTF-16 chars, followed by the length so that adjacent strings cannot run into each other
+  private static long chars(long hash, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return mix(hash, value.length());
+  }
+
+  private static long mix(long hash, long value) {
+    for (int shift = 0; shift < 64; shift += 8) {
+      hash ^= (value >>> shift) & 0xff;
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  // splitmix64 finalizer, so that fingerprints are spread evenly over the hash table
+  private static long finish(long hash) {
+    hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+    hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+    hash ^= hash >>> 31;
+    return hash != 0 ? hash : 1;
+  }
+}
@@ -0,0 +1,15 @@
+package dev.ruby.model;
+
+import java.time.Instant;
+import java.util.List;
+
+// what TransitionEngine knows about an unfinished run, persisted so that a restarted monitor carries on from it.
+// jobsFinished is true once the run has started jobs and all of them have finished; absent from older states,
+// where it reads false. steps holds the status of each started step by step number, from step 1; steps that have
+// not started are null or missing
+public record RunSnapshot(int attempt, EventStatus status, boolean started, boolean jobsFinished, Instant updatedAt,
+    List<Job> jobs) {
+
+  public record Job(long id, EventStatus status, boolean started, List<EventStatus> steps) {
+  }
+}
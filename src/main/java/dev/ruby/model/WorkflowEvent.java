@@ -3,35 +3,72 @@ package dev.ruby.model;
 import java.time.Instant;
 
 public class WorkflowEvent {
-  private final String key;
+  private final String id;
+  private final long fingerprint;
   private final Instant time;
   private final WorkflowLevel level;
   private final EventStatus status;
   private final String branch;
   private final String sha;
   private final String name;
+  // name of the workflow the run, job or step belongs to; null when not known
+  private final String workflow;
 
   public WorkflowEvent(String id, Instant time, WorkflowLevel level, EventStatus status, String branch, String sha,
       String name) {
-    this.key = String.format("%s_%s_%s_%s", id, time, level, status);
+    this(id, time, level, status, branch, sha, name, null);
+  }
+
+  public WorkflowEvent(String id, Instant time, WorkflowLevel level, EventStatus status, String branch, String sha,
+      String name, String workflow) {
+    this.id = id;
+    this.fingerprint = EventFingerprint.of(id, time, level, status);
     this.time = time;
     this.level = level;
     this.status = status;
     this.branch = branch;
     this.sha = sha;
     this.name = name;
+    this.workflow = workflow;
   }
 
   public String getKey() {
-    return key;
+    return id + "_" + time + "_" + level + "_" + status;
+  }
+
+  public long getFingerprint() {
+    return fingerprint;
   }
 
   public Instant getTime() {
     return time;
   }
 
-  public void print() {
-    System.out.printf("%-24s | %-5s | %-14s | %-10s | %-8s | %s%n", time, level, status, branch,
-        (sha != null && sha.length() > 7) ? sha.substring(0, 7) : sha, name);
+  public WorkflowLevel getLevel() {
+    return level;
+  }
+
+  public EventStatus getStatus() {
+    return status;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getBranch() {
+    return branch;
+  }
+
+  public String getSha() {
+    return sha;
+  }
+
+  public String getWorkflow() {
+    return workflow;
+  }
+
+  public String getName() {
+    return name;
   }
 }
@@ -0,0 +1,319 @@
+package dev.ruby.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import dev.ruby.model.WorkflowEvent;
+
+// polling threads only queue their events in a bounded EventRing; one writer thread encodes whatever is queued
+// into a large buffer and hands it to the channel in one write, so a burst of events costs the cycle a few
+// CASes instead of a synchronized write each. when the ring is full:
+// - BLOCK: the polling thread waits for room, nothing is lost
+// - DROP_OLDEST: the oldest queued event makes room and is counted as dropped
+// - SPILL: the polling thread encodes the event into a spill file, and so do all threads after it until the
+//   writer has copied the file out; the writer empties the ring first, which keeps the order
+public class AsyncEventSink implements EventSink {
+    public static final int DEFAULT_CAPACITY = 8192;
+    static final int BUFFER_BYTES = 256 * 1024;
+    // how long an idle writer sleeps before looking again; producers wake it up sooner
+    private static final long IDLE_PARK_NANOS = 10_000_000;
+    private static final long BLOCKED_PARK_NANOS = 50_000;
+
+    public enum Backpressure {
+        BLOCK, DROP_OLDEST, SPILL;
+
+        public static Backpressure parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown backpressure: " + value);
+            }
+        }
+    }
+
+    // written counts events the writer encoded, spilled those that went through the spill file; blocked counts
+    // events whose polling thread had to wait for room. maxQueueDepth is sampled by the writer
+    public record Stats(long accepted, long written, long spilled, long dropped, long blocked, int queueDepth,
+            int maxQueueDepth, int capacity, long batches, long bytes, Duration elapsed) {
+
+        public double eventsPerSecond() {
+            double seconds = elapsed.toNanos() / 1e9;
+            return seconds > 0 ? (written + spilled) / seconds : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d events (%.0f/s, %d spilled, %d dropped, %d waited for room) in %d writes"
+                    + " of %.2f MB, queue depth %d, max %d of %d", written + spilled, eventsPerSecond(), spilled,
+                    dropped, blocked, batches, bytes / 1e6, queueDepth, maxQueueDepth, capacity);
+        }
+    }
+
+    private record Entry(WorkflowEvent event, String repository) {
+    }
+
+    private final EventEncoder encoder;
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+    private final Backpressure backpressure;
+    private final File spillDir;
+    private final EventRing<Entry> ring;
+    // set by start(); producers read it to wake the writer up
+    private volatile Thread writer;
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private volatile boolean closed;
+    private volatile boolean failed;
+    private volatile boolean writerParked;
+    // written by the writer only
+    private volatile long written;
+    private volatile long batches;
+    private volatile long bytes;
+    private volatile int maxQueueDepth;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    // the spill file, its end and the buffer events are encoded into on their way there, all under spillLock
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private volatile boolean spilling;
+    private Path spillPath;
+    private FileChannel spillFile;
+    private long spillEnd;
+    private ByteBuffer spillBuffer;
+
+    // closeChannel is false for channels the sink does not own, like stdout
+    public AsyncEventSink(EventEncoder encoder, boolean withRepository, WritableByteChannel channel,
+            boolean closeChannel, int capacity, Backpressure backpressure, File spillDir) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2: " + capacity);
+        }
+        this.encoder = encoder;
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.backpressure = backpressure;
+        this.spillDir = spillDir;
+        this.ring = new EventRing<>(Integer.highestOneBit(capacity - 1) << 1);
+        buffer.put(encoder.header(withRepository));
+    }
+
+    // starts the writer; events accepted before wait in the ring
+    public void start() {
+        writer = Thread.ofPlatform().name("event-writer").daemon().start(this::write);
+    }
+
+    @Override
+    public void accept(WorkflowEvent event, String repository) {
+        if (closed || failed) {
+            dropped.increment();
+            return;
+        }
+        accepted.increment();
+        Entry entry = new Entry(event, repository);
+        if (spilling) {
+            spill(entry);
+        } else if (!ring.offer(entry)) {
+            maxQueueDepth = ring.capacity();
+            switch (backpressure) {
+                case BLOCK -> block(entry);
+                case DROP_OLDEST -> {
+                    while (!ring.offer(entry)) {
+                        if (ring.poll() != null) {
+                            dropped.increment();
+                        }
+                    }
+                }
+                case SPILL -> spill(entry);
+            }
+        }
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void block(Entry entry) {
+        blocked.increment();
+        while (!ring.offer(entry)) {
+            if (closed || failed) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+        }
+    }
+
+    private void spill(Entry entry) {
+        spillLock.lock();
+        try {
+            if (spillFile == null) {
+                spillPath = Files.createTempFile(spillDir.toPath(), "events-", ".spill");
+                spillFile = FileChannel.open(spillPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                spillBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            }
+            spillBuffer.clear();
+            spillBuffer = encode(entry, spillBuffer);
+            spillBuffer.flip();
+            while (spillBuffer.hasRemaining()) {
+                spillEnd += spillFile.write(spillBuffer, spillEnd);
+            }
+            spilling = true;
+            spilled.increment();
+        } catch (IOException | IllegalArgumentException e) {
+            dropped.increment();
+            System.err.println("Cannot spill event: " + e.getMessage());
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    // encodes into an empty buffer, growing it for events that do not fit
+    private ByteBuffer encode(Entry entry, ByteBuffer into) {
+        while (true) {
+            try {
+                encoder.encode(entry.event(), entry.repository(), into);
+                return into;
+            } catch (BufferOverflowException e) {
+                into = ByteBuffer.allocateDirect(into.capacity() * 2);
+            }
+        }
+    }
+
+    private void write() {
+        try {
+            while (true) {
+                maxQueueDepth = Math.max(maxQueueDepth, ring.size());
+                Entry entry;
+                while ((entry = ring.poll()) != null) {
+                    append(entry);
+                }
+                flush();
+                // events queued while the write was running are older than anything spilled meanwhile
+                if (ring.size() > 0) {
+                    continue;
+                }
+                if (spilling) {
+                    copySpill();
+                    continue;
+                }
+                if (closed && ring.size() == 0) {
+                    return;
+                }
+                writerParked = true;
+                if (ring.size() == 0 && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+            }
+        } catch (IOException e) {
+            failed = true;
+            System.err.println("Event output failed, further events are dropped: " + e.getMessage());
+        }
+    }
+
+    private void append(Entry entry) throws IOException {
+        int start = buffer.position();
+        try {
+            encoder.encode(entry.event(), entry.repository(), buffer);
+            written++;
+            return;
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+        } catch (IllegalArgumentException e) {
+            buffer.position(start);
+            dropped.increment();
+            System.err.println("Cannot encode event: " + e.getMessage());
+            return;
+        }
+        flush();
+        buffer = encode(entry, buffer);
+        written++;
+    }
+
+    private void flush() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        bytes += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        batches++;
+    }
+
+    // copies the spill file out while producers keep appending to it, until it is caught up
+    private void copySpill() throws IOException {
+        long from = 0;
+        while (true) {
+            long end;
+            spillLock.lock();
+            try {
+                end = spillEnd;
+                if (from == end) {
+                    spillFile.truncate(0);
+                    spillEnd = 0;
+                    spilling = false;
+                    return;
+                }
+            } finally {
+                spillLock.unlock();
+            }
+            bytes += end - from;
+            batches++;
+            while (from < end) {
+                from += spillFile.transferTo(from, end - from, channel);
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(accepted.sum(), written, spilled.sum(), dropped.sum(), blocked.sum(), ring.size(),
+                maxQueueDepth, ring.capacity(), batches, bytes, Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (closeChannel) {
+                channel.close();
+            }
+            spillLock.lock();
+            try {
+                if (spillFile != null) {
+                    spillFile.close();
+                    Files.deleteIfExists(spillPath);
+                }
+            } finally {
+                spillLock.unlock();
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot close event output: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package dev.ruby.output;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+
+// a compact stream for other programs to read, all big-endian:
+//   header: int magic | int version
+//   event: long epoch second | int nanos | byte level | byte status | repository | id | branch | sha | name
+// levels and statuses are ordinals; strings are an unsigned short byte length (0xffff for null) and UTF-8
+public class BinaryEventEncoder implements EventEncoder {
+    public static final int MAGIC = 0x47414d45;
+    public static final int VERSION = 1;
+    private static final int NULL_LENGTH = 0xffff;
+
+    public record Entry(String repository, WorkflowEvent event) {
+    }
+
+    @Override
+    public byte[] header(boolean withRepository) {
+        return ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION).array();
+    }
+
+    @Override
+    public void encode(WorkflowEvent event, String repository, ByteBuffer out) {
+        out.putLong(event.getTime().getEpochSecond());
+        out.putInt(event.getTime().getNano());
+        out.put((byte) event.getLevel().ordinal());
+        out.put((byte) event.getStatus().ordinal());
+        putString(out, repository);
+        putString(out, event.getId());
+        putString(out, event.getBranch());
+        putString(out, event.getSha());
+        putString(out, event.getName());
+    }
+
+    // checks the header and leaves the buffer at the first event
+    public static void readHeader(ByteBuffer in) {
+        if (in.remaining() < 8 || in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("not a binary event stream");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported binary event version: " + version);
+        }
+    }
+
+    public static Entry read(ByteBuffer in) {
+        Instant time = Instant.ofEpochSecond(in.getLong(), in.getInt());
+        WorkflowLevel level = WorkflowLevel.values()[in.get()];
+        EventStatus status = EventStatus.values()[in.get()];
+        String repository = getString(in);
+        String id = getString(in);
+        String branch = getString(in);
+        String sha = getString(in);
+        String name = getString(in);
+        return new Entry(repository, new WorkflowEvent(id, time, level, status, branch, sha, name));
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putShort((short) NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IllegalArgumentException("string too long for a binary event: " + bytes.length + " bytes");
+        }
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
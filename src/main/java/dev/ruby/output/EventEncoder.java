@@ -0,0 +1,16 @@
+package dev.ruby.output;
+
+import java.nio.ByteBuffer;
+
+import dev.ruby.model.WorkflowEvent;
+
+// turns events into bytes for an EventSink. encode() puts one whole event into the buffer or throws
+// BufferOverflowException, after which the caller makes room and encodes it again. encoders keep no state,
+// so writer and spilling threads share one
+public interface EventEncoder {
+    // written once when the sink opens, e.g. the table header
+    byte[] header(boolean withRepository);
+
+    // repository is null when events are not labelled with one
+    void encode(WorkflowEvent event, String repository, ByteBuffer out);
+}
@@ -0,0 +1,26 @@
+package dev.ruby.output;
+
+public enum EventFormat {
+    // the console table
+    TABLE,
+    // one JSON object per line, for log shippers and jq
+    JSONL,
+    // compact binary records, see BinaryEventEncoder
+    BINARY;
+
+    public EventEncoder encoder() {
+        return switch (this) {
+            case TABLE -> new TableEncoder();
+            case JSONL -> new JsonLinesEncoder();
+            case BINARY -> new BinaryEventEncoder();
+        };
+    }
+
+    public static EventFormat parse(String value) {
+        try {
+            return valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown output format: " + value);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package dev.ruby.output;
+
+import java.io.PrintStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import dev.ruby.model.WorkflowEvent;
+
+// where monitors report their events; called by every polling thread
+public interface EventSink extends AutoCloseable {
+
+    // repository is null when events are not labelled with one
+    void accept(WorkflowEvent event, String repository);
+
+    // writes what is still queued and releases the output
+    @Override
+    default void close() {
+    }
+
+    // encodes on the calling thread and prints to whatever System.out is at the time, without a header; for a
+    // monitor used on its own, outside a fleet (tests, load runners)
+    static EventSink stdout(EventEncoder encoder) {
+        return (event, repository) -> {
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+            while (true) {
+                try {
+                    encoder.encode(event, repository, buffer);
+                    break;
+                } catch (BufferOverflowException e) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                }
+            }
+            PrintStream out = System.out;
+            out.write(buffer.array(), 0, buffer.position());
+            out.flush();
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package dev.ruby.output;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import dev.ruby.model.WorkflowEvent;
+
+// one JSON object per line:
+// {"time":"2024-01-15T10:30:00Z","repository":"octo/api","id":"123","level":"RUN","status":"STARTED",
+//  "branch":"main","sha":"abc1234...","name":"Build","workflow":"CI"}
+// repository and workflow are left out when the event has none, other null values are written as null
+public class JsonLinesEncoder implements EventEncoder {
+
+    @Override
+    public byte[] header(boolean withRepository) {
+        return new byte[0];
+    }
+
+    @Override
+    public void encode(WorkflowEvent event, String repository, ByteBuffer out) {
+        StringBuilder line = new StringBuilder(160);
+        line.append("{\"time\":");
+        string(line, event.getTime() == null ? null : event.getTime().toString());
+        if (repository != null) {
+            line.append(",\"repository\":");
+            string(line, repository);
+        }
+        line.append(",\"id\":");
+        string(line, event.getId());
+        line.append(",\"level\":\"").append(event.getLevel()).append("\",\"status\":\"").append(event.getStatus())
+                .append("\",\"branch\":");
+        string(line, event.getBranch());
+        line.append(",\"sha\":");
+        string(line, event.getSha());
+        line.append(",\"name\":");
+        string(line, event.getName());
+        if (event.getWorkflow() != null) {
+            line.append(",\"workflow\":");
+            string(line, event.getWorkflow());
+        }
+        line.append("}\n");
+        out.put(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void string(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,63 @@
+package dev.ruby.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+// how a fleet writes its events: the format, a file to append to (null for stdout), how many events may wait
+// for the writer and what happens when that many do; spilled events go to spillDir
+public record OutputOptions(EventFormat format, File file, int queueCapacity,
+        AsyncEventSink.Backpressure backpressure, File spillDir) {
+
+    public OutputOptions {
+        if (format == null) {
+            throw new IllegalArgumentException("output format is required");
+        }
+        if (queueCapacity < 2) {
+            throw new IllegalArgumentException("output queue must hold at least 2 events: " + queueCapacity);
+        }
+        if (backpressure == null) {
+            throw new IllegalArgumentException("output backpressure is required");
+        }
+    }
+
+    public static OutputOptions defaults() {
+        return new OutputOptions(EventFormat.TABLE, null, AsyncEventSink.DEFAULT_CAPACITY,
+                AsyncEventSink.Backpressure.BLOCK, null);
+    }
+
+    public OutputOptions withFormat(EventFormat format) {
+        return new OutputOptions(format, file, queueCapacity, backpressure, spillDir);
+    }
+
+    public OutputOptions withFile(File file) {
+        return new OutputOptions(format, file, queueCapacity, backpressure, spillDir);
+    }
+
+    public OutputOptions withQueue(int queueCapacity, AsyncEventSink.Backpressure backpressure) {
+        return new OutputOptions(format, file, queueCapacity, backpressure, spillDir);
+    }
+
+    public OutputOptions withSpillDir(File spillDir) {
+        return new OutputOptions(format, file, queueCapacity, backpressure, spillDir);
+    }
+
+    // the sink comes back started
+    public AsyncEventSink open(boolean withRepository) throws IOException {
+        File spillDirectory = spillDir != null ? spillDir : new File(System.getProperty("java.io.tmpdir"));
+        AsyncEventSink sink;
+        if (file == null) {
+            sink = new AsyncEventSink(format.encoder(), withRepository, Channels.newChannel(System.out), false,
+                    queueCapacity, backpressure, spillDirectory);
+        } else {
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            sink = new AsyncEventSink(format.encoder(), withRepository, channel, true, queueCapacity, backpressure,
+                    spillDirectory);
+        }
+        sink.start();
+        return sink;
+    }
+}
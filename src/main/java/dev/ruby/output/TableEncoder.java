@@ -0,0 +1,40 @@
+package dev.ruby.output;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import dev.ruby.model.WorkflowEvent;
+
+// the console table the monitor has always printed
+public class TableEncoder implements EventEncoder {
+    private static final String ROW = "%-24s | %-5s | %-14s | %-10s | %-8s | %s%n";
+    private static final String REPOSITORY_ROW = "%-24s | %-30s | %-5s | %-14s | %-10s | %-8s | %s%n";
+
+    @Override
+    public byte[] header(boolean withRepository) {
+        String header;
+        if (withRepository) {
+            header = String.format(REPOSITORY_ROW, "Date Time", "Repository", "Level", "Status", "Branch", "SHA",
+                    "Name")
+                    + "-".repeat(24) + "-+-" + "-".repeat(30) + "-+-" + "-".repeat(5) + "-+-" + "-".repeat(14)
+                    + "-+-" + "-".repeat(10) + "-+-" + "-".repeat(8) + "-+-" + "-".repeat(30) + System.lineSeparator();
+        } else {
+            header = String.format(ROW, "Date Time", "Level", "Status", "Branch", "SHA", "Name")
+                    + "-".repeat(24) + "-+-" + "-".repeat(5) + "-+-" + "-".repeat(14) + "-+-" + "-".repeat(10)
+                    + "-+-" + "-".repeat(8) + "-+-" + "-".repeat(30) + System.lineSeparator();
+        }
+        return header.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void encode(WorkflowEvent event, String repository, ByteBuffer out) {
+        String sha = event.getSha();
+        String shortSha = sha != null && sha.length() > 7 ? sha.substring(0, 7) : sha;
+        String row = repository == null
+                ? String.format(ROW, event.getTime(), event.getLevel(), event.getStatus(), event.getBranch(),
+                        shortSha, event.getName())
+                : String.format(REPOSITORY_ROW, event.getTime(), repository, event.getLevel(), event.getStatus(),
+                        event.getBranch(), shortSha, event.getName());
+        out.put(row.getBytes(StandardCharsets.UTF_8));
+    }
+}
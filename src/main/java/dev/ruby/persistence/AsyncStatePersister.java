@@ -0,0 +1,222 @@
+package dev.ruby.persistence;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import dev.ruby.model.RunSnapshot;
+
+// saves a monitor's state on a writer thread instead of at the end of its cycle. save() only records that the
+// state changed; once the changes are old enough or numerous enough, a snapshot of the state (seen events
+// shared copy-on-write, see SeenEventSet) is handed to the backend on the executor. at most one write is in
+// flight: whatever changes while it runs goes into the next one. the backend only ever sees snapshots, so the
+// monitor never waits for the disk and the disk never reads a state that is being changed. changes count as
+// saved only once the backend wrote them; after a failed write they stay dirty and go into the next one.
+// save() and flush() are called by the thread that changes the state, or with the state held still; a monitor
+// that goes quiet gets save() called on a timer (WorkflowMonitor.checkSave()), so that its changes do not wait
+// for its next cycle
+public class AsyncStatePersister implements StateBackend {
+    private final StateBackend delegate;
+    private final Executor executor;
+    private final Duration retention;
+    private final long maxDelayNanos;
+    private final int maxChanges;
+    // save() waits for the write it starts
+    private final boolean writesThrough;
+
+    private MonitorState state;
+    // the backend's own listener (a journal's), told about the events of a snapshot before it is saved
+    private MonitorState.SeenEventListener downstream;
+    // (fingerprint, epoch second) pairs seen since the last successful write; the first writingLength of them
+    // are in the write in flight, the first deliveredLength were passed on to the backend's listener
+    private long[] unsaved = new long[64];
+    private int unsavedLength;
+    private int writingLength;
+    private int deliveredLength;
+    private Instant savedLastRunTime;
+    private Set<Long> savedActiveRunIds = Set.of();
+    private Map<Long, RunSnapshot> savedRunSnapshots = Map.of();
+    private Map<String, Instant> savedLaneRunTimes = Map.of();
+    private long dirtySinceNanos = -1;
+    // the snapshot in flight and when it was taken; the future completes with whether the backend wrote it
+    private MonitorState writing;
+    private long writingSinceNanos;
+    private CompletableFuture<Boolean> inFlight = CompletableFuture.completedFuture(true);
+
+    public AsyncStatePersister(StateBackend delegate, Executor executor, Duration retention, Duration maxDelay,
+            int maxChanges) {
+        this(delegate, executor, retention, maxDelay, maxChanges, false);
+    }
+
+    private AsyncStatePersister(StateBackend delegate, Executor executor, Duration retention, Duration maxDelay,
+            int maxChanges, boolean writesThrough) {
+        if (maxDelay.isNegative()) {
+            throw new IllegalArgumentException("maxDelay must not be negative: " + maxDelay);
+        }
+        if (maxChanges < 1) {
+            throw new IllegalArgumentException("maxChanges must be at least 1: " + maxChanges);
+        }
+        this.delegate = delegate;
+        this.executor = executor;
+        this.retention = retention;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxChanges = maxChanges;
+        this.writesThrough = writesThrough;
+    }
+
+    // writes every change before save() returns, for a state that another node takes over when this one dies:
+    // the events of a finished cycle are then never reported twice
+    public static AsyncStatePersister writeThrough(StateBackend delegate, Executor executor, Duration retention) {
+        return new AsyncStatePersister(delegate, executor, retention, Duration.ZERO, 1, true);
+    }
+
+    @Override
+    public synchronized MonitorState load() {
+        awaitWrite();
+        follow(delegate.load());
+        return state;
+    }
+
+    @Override
+    public synchronized void save(MonitorState state) {
+        if (state != this.state) {
+            // not loaded through this persister: write it as it is and follow it from now on
+            awaitWrite();
+            delegate.save(state);
+            follow(state);
+            return;
+        }
+        adoptWritten();
+        // the backend expires the snapshots, the state it is taken from is expired here
+        state.cleanupOldKeys(retention);
+        if (!isDirty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (dirtySinceNanos < 0) {
+            dirtySinceNanos = now;
+        }
+        if (writing == null && (unsavedLength / 2 >= maxChanges || now - dirtySinceNanos >= maxDelayNanos)) {
+            startWrite();
+            if (writesThrough) {
+                awaitWrite();
+            }
+        }
+    }
+
+    // writes whatever changed and waits for it, e.g. on shutdown
+    public synchronized void flush() {
+        awaitWrite();
+        if (state != null && isDirty()) {
+            startWrite();
+            awaitWrite();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        delegate.close();
+    }
+
+    @Override
+    public long storedBytes() {
+        return delegate.storedBytes();
+    }
+
+    // true while changes wait for a write, or for the write they are in to succeed
+    public synchronized boolean isDirty() {
+        return state != null && (unsavedLength > 0 || !state.getLastRunTime().equals(savedLastRunTime)
+                || !state.getActiveRunIds().equals(savedActiveRunIds)
+                || state.getRunSnapshots() != savedRunSnapshots || state.getLaneRunTimes() != savedLaneRunTimes);
+    }
+
+    private void follow(MonitorState state) {
+        this.state = state;
+        downstream = state.getSeenEventListener();
+        state.listenForSeenEvents(this::seen);
+        unsavedLength = 0;
+        writingLength = 0;
+        deliveredLength = 0;
+        savedLastRunTime = state.getLastRunTime();
+        savedActiveRunIds = Set.copyOf(state.getActiveRunIds());
+        savedRunSnapshots = state.getRunSnapshots();
+        savedLaneRunTimes = state.getLaneRunTimes();
+        dirtySinceNanos = -1;
+        writing = null;
+    }
+
+    private void seen(long fingerprint, long epochSecond) {
+        if (unsavedLength + 2 > unsaved.length) {
+            unsaved = Arrays.copyOf(unsaved, unsaved.length * 2);
+        }
+        unsaved[unsavedLength++] = fingerprint;
+        unsaved[unsavedLength++] = epochSecond;
+    }
+
+    private void startWrite() {
+        MonitorState snapshot = state.snapshot();
+        // the backend's listener already has the events of an earlier write that failed
+        long[] events = Arrays.copyOfRange(unsaved, deliveredLength, unsavedLength);
+        MonitorState.SeenEventListener listener = downstream;
+        writing = snapshot;
+        writingLength = unsavedLength;
+        deliveredLength = unsavedLength;
+        writingSinceNanos = System.nanoTime();
+        inFlight = CompletableFuture.supplyAsync(() -> {
+            try {
+                if (listener != null) {
+                    for (int i = 0; i < events.length; i += 2) {
+                        listener.seen(events[i], events[i + 1]);
+                    }
+                }
+                delegate.save(snapshot);
+                return true;
+            } catch (RuntimeException e) {
+                System.err.println("Save error " + e.getMessage());
+                return false;
+            }
+        }, executor);
+    }
+
+    private void awaitWrite() {
+        inFlight.join();
+        adoptWritten();
+    }
+
+    // once the write in flight is done: what it wrote counts as saved, or after a failure stays dirty
+    private void adoptWritten() {
+        MonitorState snapshot = writing;
+        if (snapshot == null || !inFlight.isDone()) {
+            return;
+        }
+        writing = null;
+        if (!inFlight.join()) {
+            return;
+        }
+        System.arraycopy(unsaved, writingLength, unsaved, 0, unsavedLength - writingLength);
+        unsavedLength -= writingLength;
+        deliveredLength -= writingLength;
+        writingLength = 0;
+        savedLastRunTime = snapshot.getLastRunTime();
+        savedActiveRunIds = Set.copyOf(snapshot.getActiveRunIds());
+        savedRunSnapshots = snapshot.getRunSnapshots();
+        savedLaneRunTimes = snapshot.getLaneRunTimes();
+        // what changed since the snapshot was taken is at most as old as the snapshot
+        dirtySinceNanos = isDirty() ? writingSinceNanos : -1;
+
+        // a binary journal maps what it compacted and drops the snapshot's heap copies; the state follows suit,
+        // keeping in its buckets only the events seen after the snapshot was taken
+        SeenEventSet seenEvents = state.getSeenEvents();
+        if (snapshot.getSeenEvents().isMapped() && !snapshot.getSeenEvents().hasSameBase(seenEvents)) {
+            seenEvents.rebase(snapshot.getSeenEvents());
+            for (int i = 0; i < unsavedLength; i += 2) {
+                seenEvents.add(unsaved[i], unsaved[i + 1]);
+            }
+        }
+    }
+}
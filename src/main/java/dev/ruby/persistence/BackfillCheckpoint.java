@@ -0,0 +1,133 @@
+package dev.ruby.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+// which created-date windows of a backfill are done, so that a restarted backfill only walks the rest.
+// rewritten (then renamed, as StateStore does) every time a window completes
+public class BackfillCheckpoint {
+    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    public record Window(Instant from, Instant to) {
+        public Duration length() {
+            return Duration.between(from, to);
+        }
+    }
+
+    record Content(Instant from, Instant to, List<Window> completed) {
+    }
+
+    private final File file;
+    private final Instant from;
+    private final Instant to;
+    // sorted by start, adjacent windows merged
+    private final List<Window> completed;
+
+    private BackfillCheckpoint(File file, Instant from, Instant to, List<Window> completed) {
+        this.file = file;
+        this.from = from;
+        this.to = to;
+        this.completed = new ArrayList<>(completed);
+        merge();
+    }
+
+    // resumes the backfill in the file when it started at the same point, keeping the end it had then
+    public static BackfillCheckpoint open(File file, Instant from, Instant to) {
+        if (file.exists()) {
+            try {
+                Content content = mapper.readValue(file, Content.class);
+                if (from.equals(content.from())) {
+                    return new BackfillCheckpoint(file, content.from(), content.to(), content.completed());
+                }
+                System.err.println("Backfill from " + from + " replaces the one from " + content.from());
+            } catch (IOException e) {
+                System.err.println("Cannot load backfill checkpoint: " + e.getMessage());
+            }
+        }
+        return new BackfillCheckpoint(file, from, to, List.of());
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    // what is left, cut into windows of at most windowLength, newest first
+    public synchronized List<Window> remaining(Duration windowLength) {
+        List<Window> windows = new ArrayList<>();
+        Instant cursor = from;
+        for (Window done : completed) {
+            cut(cursor, done.from(), windowLength, windows);
+            if (done.to().isAfter(cursor)) {
+                cursor = done.to();
+            }
+        }
+        cut(cursor, to, windowLength, windows);
+        Collections.reverse(windows);
+        return windows;
+    }
+
+    public synchronized boolean isComplete() {
+        Instant cursor = from;
+        for (Window done : completed) {
+            if (done.from().isAfter(cursor)) {
+                return false;
+            }
+            if (done.to().isAfter(cursor)) {
+                cursor = done.to();
+            }
+        }
+        return !cursor.isBefore(to);
+    }
+
+    public synchronized void complete(Window window) throws IOException {
+        completed.add(window);
+        merge();
+        File tempFile = new File(file.getPath() + ".tmp");
+        mapper.writerWithDefaultPrettyPrinter().writeValue(tempFile, new Content(from, to, completed));
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void merge() {
+        completed.sort(Comparator.comparing(Window::from));
+        List<Window> merged = new ArrayList<>();
+        for (Window window : completed) {
+            Window last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && !window.from().isAfter(last.to())) {
+                if (window.to().isAfter(last.to())) {
+                    merged.set(merged.size() - 1, new Window(last.from(), window.to()));
+                }
+            } else {
+                merged.add(window);
+            }
+        }
+        completed.clear();
+        completed.addAll(merged);
+    }
+
+    private static void cut(Instant start, Instant end, Duration windowLength, List<Window> windows) {
+        while (start.isBefore(end)) {
+            Instant next = start.plus(windowLength);
+            if (next.isAfter(end)) {
+                next = end;
+            }
+            windows.add(new Window(start, next));
+            start = next;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package dev.ruby.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.RunSnapshot;
+
+// MonitorState as a versioned binary file, all big-endian:
+//   int magic | int version | long lastRunTime seconds | int nanos
+//   int active run count | long run id...
+//   run snapshots (since version 2): int run count | (long run id | int attempt | byte status | byte flags |
+//     long updatedAt seconds | int nanos | int job count | (long job id | byte status | byte started |
+//     int step count | byte step status...)...)...; statuses are EventStatus ordinals, -1 for none. the flags
+//     are 1 for started and 2 for jobs finished, which older files do not set
+//   lane cursors (since version 3): int lane count | (short name length | UTF-8 name | long seconds | int nanos)...
+//   int section count | (long hour | int record count)...
+//   records: (long fingerprint | long epoch second)..., by section, sorted by fingerprint within a section
+// read() maps the file and leaves the records where they are (see MappedSeenEvents); the mapping stays valid
+// after the file is replaced, so a state keeps working while a newer file is written next to it
+final class BinaryStateFile {
+    private static final int MAGIC = 0x47414d53;
+    private static final int VERSION = 3;
+    // a ByteBuffer is indexed by int
+    private static final long MAX_RECORDS = Integer.MAX_VALUE / MappedSeenEvents.RECORD_BYTES;
+
+    private BinaryStateFile() {
+    }
+
+    static MonitorState read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new IOException("not a binary state file: " + file);
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("unsupported binary state version " + version + ": " + file);
+            }
+            Instant lastRunTime = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            int activeCount = buffer.getInt();
+            Set<Long> activeRunIds = new HashSet<>();
+            for (int i = 0; i < activeCount; i++) {
+                activeRunIds.add(buffer.getLong());
+            }
+            Map<Long, RunSnapshot> runSnapshots = version >= 2 ? readRuns(buffer) : Map.of();
+            Map<String, Instant> laneRunTimes = version >= 3 ? readLaneRunTimes(buffer) : Map.of();
+
+            int sectionCount = buffer.getInt();
+            long[] hours = new long[sectionCount];
+            int[] counts = new int[sectionCount];
+            long records = 0;
+            for (int i = 0; i < sectionCount; i++) {
+                hours[i] = buffer.getLong();
+                counts[i] = buffer.getInt();
+                records += counts[i];
+            }
+            if (buffer.remaining() != records * MappedSeenEvents.RECORD_BYTES) {
+                throw new IOException("truncated binary state file: " + file);
+            }
+            MappedSeenEvents seenEvents = new MappedSeenEvents(buffer.slice(), hours, counts);
+            MonitorState state = new MonitorState(lastRunTime, new SeenEventSet(seenEvents), activeRunIds);
+            state.setRunSnapshots(runSnapshots);
+            state.setLaneRunTimes(laneRunTimes);
+            return state;
+        } catch (RuntimeException e) {
+            throw new IOException("corrupt binary state file " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    // write then rename, as StateStore does
+    static void write(File file, MonitorState state) throws IOException {
+        SeenEventSet seenEvents = state.getSeenEvents();
+        long[] hours = seenEvents.hours();
+        if (seenEvents.size() > MAX_RECORDS) {
+            throw new IOException("too many seen events for one binary state file: " + seenEvents.size());
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(tempFile);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(state.getLastRunTime().getEpochSecond());
+            out.writeInt(state.getLastRunTime().getNano());
+            Set<Long> activeRunIds = state.getActiveRunIds();
+            out.writeInt(activeRunIds.size());
+            for (long runId : activeRunIds) {
+                out.writeLong(runId);
+            }
+            writeRuns(out, state.getRunSnapshots());
+            writeLaneRunTimes(out, state.getLaneRunTimes());
+
+            out.writeInt(hours.length);
+            for (long hour : hours) {
+                out.writeLong(hour);
+                out.writeInt(seenEvents.count(hour));
+            }
+            for (long hour : hours) {
+                long time = hour * SeenEventSet.BUCKET_SECONDS;
+                for (long fingerprint : seenEvents.sortedFingerprints(hour)) {
+                    out.writeLong(fingerprint);
+                    out.writeLong(time);
+                }
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // also the payload of a journal record
+    static void writeRuns(DataOutput out, Map<Long, RunSnapshot> runSnapshots) throws IOException {
+        out.writeInt(runSnapshots.size());
+        for (Map.Entry<Long, RunSnapshot> entry : runSnapshots.entrySet()) {
+            RunSnapshot run = entry.getValue();
+            out.writeLong(entry.getKey());
+            out.writeInt(run.attempt());
+            out.writeByte(ordinal(run.status()));
+            out.writeByte((run.started() ? 1 : 0) | (run.jobsFinished() ? 2 : 0));
+            out.writeLong(run.updatedAt().getEpochSecond());
+            out.writeInt(run.updatedAt().getNano());
+            out.writeInt(run.jobs().size());
+            for (RunSnapshot.Job job : run.jobs()) {
+                out.writeLong(job.id());
+                out.writeByte(ordinal(job.status()));
+                out.writeBoolean(job.started());
+                out.writeInt(job.steps().size());
+                for (EventStatus step : job.steps()) {
+                    out.writeByte(ordinal(step));
+                }
+            }
+        }
+    }
+
+    static Map<Long, RunSnapshot> readRuns(ByteBuffer buffer) {
+        int runCount = buffer.getInt();
+        Map<Long, RunSnapshot> runSnapshots = new HashMap<>();
+        for (int i = 0; i < runCount; i++) {
+            long runId = buffer.getLong();
+            int attempt = buffer.getInt();
+            EventStatus status = status(buffer.get());
+            byte flags = buffer.get();
+            Instant updatedAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            int jobCount = buffer.getInt();
+            List<RunSnapshot.Job> jobs = new ArrayList<>(jobCount);
+            for (int j = 0; j < jobCount; j++) {
+                long jobId = buffer.getLong();
+                EventStatus jobStatus = status(buffer.get());
+                boolean jobStarted = buffer.get() != 0;
+                int stepCount = buffer.getInt();
+                List<EventStatus> steps = new ArrayList<>(stepCount);
+                for (int k = 0; k < stepCount; k++) {
+                    steps.add(status(buffer.get()));
+                }
+                jobs.add(new RunSnapshot.Job(jobId, jobStatus, jobStarted, steps));
+            }
+            runSnapshots.put(runId, new RunSnapshot(attempt, status, (flags & 1) != 0, (flags & 2) != 0, updatedAt,
+                    jobs));
+        }
+        return runSnapshots;
+    }
+
+    // also the payload of a journal record
+    static void writeLaneRunTimes(DataOutput out, Map<String, Instant> laneRunTimes) throws IOException {
+        out.writeInt(laneRunTimes.size());
+        for (Map.Entry<String, Instant> entry : laneRunTimes.entrySet()) {
+            byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeLong(entry.getValue().getEpochSecond());
+            out.writeInt(entry.getValue().getNano());
+        }
+    }
+
+    static Map<String, Instant> readLaneRunTimes(ByteBuffer buffer) {
+        int laneCount = buffer.getInt();
+        Map<String, Instant> laneRunTimes = new HashMap<>();
+        for (int i = 0; i < laneCount; i++) {
+            byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(name);
+            laneRunTimes.put(new String(name, StandardCharsets.UTF_8),
+                    Instant.ofEpochSecond(buffer.getLong(), buffer.getInt()));
+        }
+        return laneRunTimes;
+    }
+
+    private static int ordinal(EventStatus status) {
+        return status != null ? status.ordinal() : -1;
+    }
+
+    private static EventStatus status(byte ordinal) {
+        return ordinal >= 0 ? EventStatus.values()[ordinal] : null;
+    }
+}
@@ -0,0 +1,427 @@
+package dev.ruby.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+import dev.ruby.jfr.StateLoadEvent;
+import dev.ruby.jfr.StateSaveEvent;
+import dev.ruby.model.RunSnapshot;
+
+// MonitorState as a snapshot (the JSON file StateStore writes, or a BinaryStateFile) plus an append-only log of
+// what changed since:
+// newly seen events, lastRunTime advances, the active run ids, the run snapshots and the lane cursors. a save
+// appends one batch of records and fsyncs once, so the bytes written follow the number of new events instead of
+// the size of the state. once the log outgrows the snapshot, the state is compacted into a new snapshot and the
+// log starts over. a binary snapshot is mapped and searched in place, and after compaction the state switches
+// over to the new file.
+//
+// log: int magic | int version, then records of int payload length | byte type | payload | int CRC32C of type
+// and payload. replay stops at the first record that is cut short or fails its checksum (a write torn by a
+// crash) and truncates the log there. replaying is idempotent, so a crash between writing a snapshot and
+// truncating the log only replays records the snapshot already holds
+public class JournalStateStore implements StateBackend {
+    private static final int MAGIC = 0x47414d4a;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    // length, type and checksum around every payload
+    private static final int RECORD_OVERHEAD = 9;
+    private static final byte SEEN_EVENTS = 1;
+    private static final byte LAST_RUN_TIME = 2;
+    private static final byte ACTIVE_RUN_IDS = 3;
+    // every run snapshot, encoded as in BinaryStateFile
+    private static final byte RUN_SNAPSHOTS = 4;
+    // every lane cursor, encoded as in BinaryStateFile
+    private static final byte LANE_RUN_TIMES = 5;
+    private static final long DEFAULT_MIN_COMPACTION_BYTES = 1 << 20;
+
+    private final SnapshotFormat snapshotFormat;
+    private final File snapshotFile;
+    private final File jsonFile;
+    private final File logFile;
+    private final Duration retention;
+    private final long minCompactionBytes;
+
+    private FileChannel log;
+    // end of the last complete record; anything after it is left over from a failed write
+    private long committedBytes;
+    private long snapshotBytes;
+    private boolean snapshotMissing;
+    private MonitorState attached;
+    // (fingerprint, epoch second) pairs seen since the last save
+    private long[] pending = new long[64];
+    private int pendingLength;
+    private Instant writtenLastRunTime;
+    private Set<Long> writtenActiveRunIds = Set.of();
+    private Map<Long, RunSnapshot> writtenRunSnapshots = Map.of();
+    private Map<String, Instant> writtenLaneRunTimes = Map.of();
+
+    public JournalStateStore(File directory, String repo, Duration retention) {
+        this(directory, repo, retention, SnapshotFormat.JSON, DEFAULT_MIN_COMPACTION_BYTES);
+    }
+
+    JournalStateStore(File directory, String repo, Duration retention, SnapshotFormat snapshotFormat) {
+        this(directory, repo, retention, snapshotFormat, DEFAULT_MIN_COMPACTION_BYTES);
+    }
+
+    JournalStateStore(File directory, String repo, Duration retention, SnapshotFormat snapshotFormat,
+            long minCompactionBytes) {
+        this.snapshotFormat = snapshotFormat;
+        this.snapshotFile = snapshotFormat.file(directory, repo);
+        this.jsonFile = StateStore.stateFile(directory, repo);
+        this.logFile = new File(directory, repo + "-workflow-state.log");
+        this.retention = retention;
+        this.minCompactionBytes = minCompactionBytes;
+    }
+
+    @Override
+    public synchronized MonitorState load() {
+        StateLoadEvent event = new StateLoadEvent();
+        event.begin();
+        MonitorState state = loadAndReplay();
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = snapshotFile.getPath();
+            event.storedBytes = storedBytes();
+            event.seenEvents = state.getSeenEvents().size();
+            event.commit();
+        }
+        return state;
+    }
+
+    private MonitorState loadAndReplay() {
+        MonitorState state = null;
+        writtenLastRunTime = null;
+        // a binary store without its snapshot yet starts from the JSON state file and converts it on first save
+        File source = snapshotFile.exists() || !jsonFile.exists() ? snapshotFile : jsonFile;
+        if (source.exists()) {
+            try {
+                state = source == snapshotFile ? snapshotFormat.read(source) : StateStore.read(source);
+                snapshotBytes = snapshotFile.length();
+                snapshotMissing = source != snapshotFile;
+                writtenLastRunTime = state.getLastRunTime();
+            } catch (IOException e) {
+                System.err.println("Cannot load file: " + e.getMessage());
+            }
+        }
+        if (state == null) {
+            state = new MonitorState();
+        }
+
+        try {
+            openLog();
+            replay(state);
+        } catch (IOException e) {
+            System.err.println("Cannot replay journal " + logFile + ": " + e.getMessage());
+        }
+        state.cleanupOldKeys(retention);
+        writtenActiveRunIds = Set.copyOf(state.getActiveRunIds());
+        writtenRunSnapshots = state.getRunSnapshots();
+        writtenLaneRunTimes = state.getLaneRunTimes();
+        attach(state);
+        return state;
+    }
+
+    @Override
+    public synchronized void save(MonitorState state) {
+        StateSaveEvent event = new StateSaveEvent();
+        event.begin();
+        String kind = "failed";
+        IOException failure = null;
+        try {
+            kind = write(state);
+        } catch (IOException e) {
+            // pending records stay queued for the next save
+            failure = e;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = logFile.getPath();
+            event.kind = kind;
+            event.storedBytes = storedBytes();
+            event.seenEvents = state.getSeenEvents().size();
+            event.commit();
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Save error " + failure.getMessage(), failure);
+        }
+    }
+
+    // what the save wrote: a snapshot, records appended to the journal, or nothing
+    private String write(MonitorState state) throws IOException {
+        state.cleanupOldKeys(retention);
+        if (log == null) {
+            openLog();
+        }
+        if (state.getOrigin() != attached) {
+            // not the state this journal has been following (or a snapshot of it): only a snapshot captures all
+            // of it
+            compact(state);
+            attach(state);
+            return "snapshot";
+        }
+        if (snapshotMissing) {
+            compact(state);
+            return "snapshot";
+        }
+
+        ByteBuffer batch = encode(state);
+        if (batch == null) {
+            return "unchanged";
+        }
+        if (log.size() != committedBytes) {
+            log.truncate(committedBytes);
+        }
+        log.position(committedBytes);
+        while (batch.hasRemaining()) {
+            log.write(batch);
+        }
+        log.force(false);
+        committedBytes = log.position();
+        markWritten(state);
+
+        if (committedBytes - HEADER_BYTES > Math.max(minCompactionBytes, snapshotBytes)) {
+            compact(state);
+            return "snapshot";
+        }
+        return "journal";
+    }
+
+    @Override
+    public synchronized void close() {
+        if (attached != null) {
+            attached.listenForSeenEvents(null);
+            attached = null;
+        }
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Cannot close journal " + logFile + ": " + e.getMessage());
+            }
+            log = null;
+        }
+    }
+
+    @Override
+    public long storedBytes() {
+        return snapshotFile.length() + logFile.length();
+    }
+
+    // bytes of log records since the last snapshot
+    public synchronized long getLogBytes() {
+        return Math.max(0, committedBytes - HEADER_BYTES);
+    }
+
+    private void attach(MonitorState state) {
+        if (attached != null && attached != state) {
+            attached.listenForSeenEvents(null);
+        }
+        attached = state;
+        pendingLength = 0;
+        state.listenForSeenEvents(this::seen);
+    }
+
+    private void seen(long fingerprint, long epochSecond) {
+        if (pendingLength + 2 > pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingLength++] = fingerprint;
+        pending[pendingLength++] = epochSecond;
+    }
+
+    private void openLog() throws IOException {
+        log = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (log.size() < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+            log.truncate(0);
+            log.write(header, 0);
+            log.force(true);
+        }
+        committedBytes = HEADER_BYTES;
+    }
+
+    private void replay(MonitorState state) throws IOException {
+        long size = log.size();
+        ByteBuffer buffer = log.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("not a state journal");
+        }
+
+        CRC32C crc = new CRC32C();
+        long good = HEADER_BYTES;
+        while (buffer.remaining() >= RECORD_OVERHEAD) {
+            int length = buffer.getInt();
+            int start = buffer.position();
+            if (length < 0 || length > buffer.remaining() - 5) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(start, length + 1));
+            if ((int) crc.getValue() != buffer.getInt(start + length + 1)) {
+                break;
+            }
+            apply(state, buffer.get(start), buffer.slice(start + 1, length));
+            buffer.position(start + length + 5);
+            good = buffer.position();
+        }
+
+        if (good < size) {
+            System.err.println("Dropping " + (size - good) + " bytes of torn journal tail in " + logFile);
+            log.truncate(good);
+            log.force(true);
+        }
+        committedBytes = good;
+    }
+
+    private void apply(MonitorState state, byte type, ByteBuffer payload) {
+        switch (type) {
+            case SEEN_EVENTS -> {
+                SeenEventSet seenEvents = state.getSeenEvents();
+                while (payload.remaining() >= 16) {
+                    seenEvents.add(payload.getLong(), payload.getLong());
+                }
+            }
+            case LAST_RUN_TIME -> {
+                Instant lastRunTime = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+                // only forward, so that records older than the snapshot cannot move it back
+                if (lastRunTime.isAfter(state.getLastRunTime()) || writtenLastRunTime == null) {
+                    state.setLastRunTime(lastRunTime);
+                }
+                writtenLastRunTime = state.getLastRunTime();
+            }
+            case ACTIVE_RUN_IDS -> {
+                Set<Long> activeRunIds = state.getActiveRunIds();
+                activeRunIds.clear();
+                int count = payload.getInt();
+                for (int i = 0; i < count; i++) {
+                    activeRunIds.add(payload.getLong());
+                }
+            }
+            case RUN_SNAPSHOTS -> state.setRunSnapshots(BinaryStateFile.readRuns(payload));
+            case LANE_RUN_TIMES -> state.setLaneRunTimes(BinaryStateFile.readLaneRunTimes(payload));
+            default -> System.err.println("Skipping unknown journal record type " + type + " in " + logFile);
+        }
+    }
+
+    // the records for everything that changed since the last save, or null when nothing did
+    private ByteBuffer encode(MonitorState state) throws IOException {
+        boolean lastRunTimeChanged = !state.getLastRunTime().equals(writtenLastRunTime);
+        Set<Long> activeRunIds = state.getActiveRunIds();
+        boolean activeRunIdsChanged = !activeRunIds.equals(writtenActiveRunIds);
+        byte[] runSnapshots = null;
+        if (state.getRunSnapshots() != writtenRunSnapshots) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BinaryStateFile.writeRuns(new DataOutputStream(bytes), state.getRunSnapshots());
+            runSnapshots = bytes.toByteArray();
+        }
+        byte[] laneRunTimes = null;
+        if (state.getLaneRunTimes() != writtenLaneRunTimes) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BinaryStateFile.writeLaneRunTimes(new DataOutputStream(bytes), state.getLaneRunTimes());
+            laneRunTimes = bytes.toByteArray();
+        }
+
+        int bytes = 0;
+        if (pendingLength > 0) {
+            bytes += RECORD_OVERHEAD + pendingLength * 8;
+        }
+        if (lastRunTimeChanged) {
+            bytes += RECORD_OVERHEAD + 12;
+        }
+        if (activeRunIdsChanged) {
+            bytes += RECORD_OVERHEAD + 4 + activeRunIds.size() * 8;
+        }
+        if (runSnapshots != null) {
+            bytes += RECORD_OVERHEAD + runSnapshots.length;
+        }
+        if (laneRunTimes != null) {
+            bytes += RECORD_OVERHEAD + laneRunTimes.length;
+        }
+        if (bytes == 0) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        CRC32C crc = new CRC32C();
+        if (pendingLength > 0) {
+            int start = beginRecord(buffer, SEEN_EVENTS);
+            for (int i = 0; i < pendingLength; i++) {
+                buffer.putLong(pending[i]);
+            }
+            endRecord(buffer, start, crc);
+        }
+        if (lastRunTimeChanged) {
+            int start = beginRecord(buffer, LAST_RUN_TIME);
+            buffer.putLong(state.getLastRunTime().getEpochSecond()).putInt(state.getLastRunTime().getNano());
+            endRecord(buffer, start, crc);
+        }
+        if (activeRunIdsChanged) {
+            int start = beginRecord(buffer, ACTIVE_RUN_IDS);
+            buffer.putInt(activeRunIds.size());
+            for (long runId : activeRunIds) {
+                buffer.putLong(runId);
+            }
+            endRecord(buffer, start, crc);
+        }
+        if (runSnapshots != null) {
+            int start = beginRecord(buffer, RUN_SNAPSHOTS);
+            buffer.put(runSnapshots);
+            endRecord(buffer, start, crc);
+        }
+        if (laneRunTimes != null) {
+            int start = beginRecord(buffer, LANE_RUN_TIMES);
+            buffer.put(laneRunTimes);
+            endRecord(buffer, start, crc);
+        }
+        return buffer.flip();
+    }
+
+    private static int beginRecord(ByteBuffer buffer, byte type) {
+        int start = buffer.position();
+        buffer.putInt(0).put(type);
+        return start;
+    }
+
+    private static void endRecord(ByteBuffer buffer, int start, CRC32C crc) {
+        int length = buffer.position() - start - 5;
+        buffer.putInt(start, length);
+        crc.reset();
+        crc.update(buffer.slice(start + 4, length + 1));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private void compact(MonitorState state) throws IOException {
+        snapshotFormat.write(snapshotFile, state);
+        snapshotBytes = snapshotFile.length();
+        snapshotMissing = false;
+        if (snapshotFormat == SnapshotFormat.BINARY) {
+            // drop the in-memory copies of what the new file now holds
+            state.getSeenEvents().rebase(BinaryStateFile.read(snapshotFile).getSeenEvents());
+        }
+        log.truncate(HEADER_BYTES);
+        log.force(true);
+        committedBytes = HEADER_BYTES;
+        markWritten(state);
+    }
+
+    private void markWritten(MonitorState state) {
+        pendingLength = 0;
+        writtenLastRunTime = state.getLastRunTime();
+        writtenActiveRunIds = Set.copyOf(state.getActiveRunIds());
+        writtenRunSnapshots = state.getRunSnapshots();
+        writtenLaneRunTimes = state.getLaneRunTimes();
+    }
+}
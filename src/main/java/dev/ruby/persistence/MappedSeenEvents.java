@@ -0,0 +1,90 @@
+package dev.ruby.persistence;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// the seen events of a binary state file, searched where they lie in the mapped file instead of being loaded.
+// records are (fingerprint, epoch second) pairs of 16 bytes, grouped in sections of one hour each, sorted by
+// fingerprint within a section; a lookup binary-searches the section index, then the section
+final class MappedSeenEvents {
+    static final int RECORD_BYTES = 16;
+
+    private final ByteBuffer records;
+    private final long[] hours;
+    // index of the first record of each section, plus the total at the end
+    private final int[] starts;
+
+    MappedSeenEvents(ByteBuffer records, long[] hours, int[] counts) {
+        this.records = records;
+        this.hours = hours;
+        this.starts = new int[hours.length + 1];
+        for (int i = 0; i < hours.length; i++) {
+            starts[i + 1] = starts[i] + counts[i];
+        }
+    }
+
+    boolean contains(long fingerprint, long hour) {
+        int section = sectionOf(hour);
+        return section >= 0 && indexOf(fingerprint, starts[section], starts[section + 1]) >= 0;
+    }
+
+    int size() {
+        return starts[hours.length];
+    }
+
+    // the section of the hour, or a negative number when there is none
+    int sectionOf(long hour) {
+        return Arrays.binarySearch(hours, hour);
+    }
+
+    // number of records in sections of the given hour or later
+    int sizeFrom(long hour) {
+        return size() - starts[firstSectionFrom(hour)];
+    }
+
+    int firstSectionFrom(long hour) {
+        int section = sectionOf(hour);
+        return section >= 0 ? section : -section - 1;
+    }
+
+    int sectionCount() {
+        return hours.length;
+    }
+
+    long hour(int section) {
+        return hours[section];
+    }
+
+    int start(int section) {
+        return starts[section];
+    }
+
+    int end(int section) {
+        return starts[section + 1];
+    }
+
+    long fingerprint(int record) {
+        return records.getLong(record * RECORD_BYTES);
+    }
+
+    long time(int record) {
+        return records.getLong(record * RECORD_BYTES + 8);
+    }
+
+    private int indexOf(long fingerprint, int from, int to) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = fingerprint(middle);
+            if (value < fingerprint) {
+                low = middle + 1;
+            } else if (value > fingerprint) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
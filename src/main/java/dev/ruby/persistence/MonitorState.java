@@ -3,25 +3,79 @@ package dev.ruby.persistence;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import dev.ruby.model.EventFingerprint;
+import dev.ruby.model.RunSnapshot;
+
 public class MonitorState {
+    // the epoch second events without a time are filed under
+    public static final long NO_TIME = Long.MAX_VALUE;
+
     private Instant lastRunTime;
-    private final Map<String, Instant> alreadySeenKeys;
+    private final SeenEventSet seenEvents;
+    private final Set<Long> activeRunIds;
+    private Map<Long, RunSnapshot> runSnapshots = Map.of();
+    private Map<String, Instant> laneRunTimes = Map.of();
+    private SeenEventListener seenEventListener;
+    // the state a snapshot was taken from, or this state itself
+    private final MonitorState origin;
+
+    // told about every newly seen event, so that a journal can append it instead of rewriting the state
+    public interface SeenEventListener {
+        void seen(long fingerprint, long epochSecond);
+    }
+
+    public MonitorState(Instant lastRunTime, SeenEventSet seenEvents, Set<Long> activeRunIds) {
+        this.lastRunTime = (lastRunTime != null) ? lastRunTime : Instant.now();
+        this.seenEvents = (seenEvents != null) ? seenEvents : new SeenEventSet();
+        this.activeRunIds = (activeRunIds != null) ? activeRunIds : new HashSet<>();
+        this.origin = this;
+    }
+
+    private MonitorState(MonitorState origin) {
+        this.lastRunTime = origin.lastRunTime;
+        this.seenEvents = origin.seenEvents.snapshot();
+        this.activeRunIds = new HashSet<>(origin.activeRunIds);
+        this.runSnapshots = origin.runSnapshots;
+        this.laneRunTimes = origin.laneRunTimes;
+        this.origin = origin.origin;
+    }
 
+    // seenFingerprints/seenTimes is the current format; alreadySeenKeys is read from older state files
     @JsonCreator
-    public MonitorState(
+    static MonitorState fromJson(
             @JsonProperty("lastRunTime") Instant lastRunTime,
-            @JsonProperty("alreadySeenKeys") Map<String, Instant> alreadySeenKeys) {
-        this.lastRunTime = (lastRunTime != null) ? lastRunTime : Instant.now();
-        this.alreadySeenKeys = (alreadySeenKeys != null) ? alreadySeenKeys : new HashMap<>();
+            @JsonProperty("seenFingerprints") long[] seenFingerprints,
+            @JsonProperty("seenTimes") long[] seenTimes,
+            @JsonProperty("alreadySeenKeys") Map<String, Instant> alreadySeenKeys,
+            @JsonProperty("activeRunIds") Set<Long> activeRunIds,
+            @JsonProperty("runSnapshots") Map<Long, RunSnapshot> runSnapshots,
+            @JsonProperty("laneRunTimes") Map<String, Instant> laneRunTimes) {
+        SeenEventSet seenEvents = (seenFingerprints != null && seenTimes != null)
+                ? new SeenEventSet(seenFingerprints, seenTimes)
+                : new SeenEventSet();
+        if (alreadySeenKeys != null) {
+            alreadySeenKeys.forEach((key, time) -> seenEvents.add(EventFingerprint.of(key), epochSecond(time)));
+        }
+        MonitorState state = new MonitorState(lastRunTime, seenEvents, activeRunIds);
+        if (runSnapshots != null) {
+            state.setRunSnapshots(runSnapshots);
+        }
+        if (laneRunTimes != null) {
+            state.setLaneRunTimes(laneRunTimes);
+        }
+        return state;
     }
 
     public MonitorState() {
-        this(Instant.now(), new HashMap<>());
+        this(Instant.now(), new SeenEventSet(), null);
     }
 
     public Instant getLastRunTime() {
@@ -32,20 +86,98 @@ public class MonitorState {
         this.lastRunTime = lastRunTime;
     }
 
-    public boolean isNewEvent(String key, Instant time) {
-        if (alreadySeenKeys.containsKey(key)) {
+    public boolean isNewEvent(long fingerprint, Instant time) {
+        long epochSecond = epochSecond(time);
+        if (!seenEvents.add(fingerprint, epochSecond)) {
             return false;
         }
-        alreadySeenKeys.put(key, time);
+        if (seenEventListener != null) {
+            seenEventListener.seen(fingerprint, epochSecond);
+        }
         return true;
     }
 
-    public Map<String, Instant> getAlreadySeenKeys() {
-        return alreadySeenKeys;
+    // a key does not carry the time, so it is looked up in every bucket before it is filed under this one
+    public boolean isNewEvent(String key, Instant time) {
+        long fingerprint = EventFingerprint.of(key);
+        return !seenEvents.contains(fingerprint) && isNewEvent(fingerprint, time);
+    }
+
+    public boolean hasSeen(String key) {
+        return seenEvents.contains(EventFingerprint.of(key));
+    }
+
+    @JsonIgnore
+    public SeenEventSet getSeenEvents() {
+        return seenEvents;
+    }
+
+    public long[] getSeenFingerprints() {
+        return seenEvents.fingerprints();
+    }
+
+    public long[] getSeenTimes() {
+        return seenEvents.times();
+    }
+
+    public void listenForSeenEvents(SeenEventListener listener) {
+        this.seenEventListener = listener;
+    }
+
+    SeenEventListener getSeenEventListener() {
+        return seenEventListener;
+    }
+
+    // a copy to save on another thread while this state keeps changing; seen events are shared copy-on-write
+    public MonitorState snapshot() {
+        return new MonitorState(this);
+    }
+
+    MonitorState getOrigin() {
+        return origin;
+    }
+
+    // unfinished runs being tracked; persisted so that whoever loads the state keeps polling them
+    public Set<Long> getActiveRunIds() {
+        return activeRunIds;
+    }
+
+    // what the TransitionEngine knew about each tracked run, so that a restart carries on without re-emitting
+    public Map<Long, RunSnapshot> getRunSnapshots() {
+        return runSnapshots;
+    }
+
+    // replaced as a whole and never changed in place, so that snapshots of this state can share it
+    public void setRunSnapshots(Map<Long, RunSnapshot> runSnapshots) {
+        this.runSnapshots = Map.copyOf(runSnapshots);
+    }
+
+    // where each poll lane's own cursor stands, by lane name
+    public Map<String, Instant> getLaneRunTimes() {
+        return laneRunTimes;
+    }
+
+    // replaced as a whole like the run snapshots, and only when the lane's cursor moved
+    public void setLaneRunTime(String lane, Instant lastRunTime) {
+        if (lastRunTime.equals(laneRunTimes.get(lane))) {
+            return;
+        }
+        Map<String, Instant> times = new HashMap<>(laneRunTimes);
+        times.put(lane, lastRunTime);
+        this.laneRunTimes = Map.copyOf(times);
+    }
+
+    public void setLaneRunTimes(Map<String, Instant> laneRunTimes) {
+        this.laneRunTimes = Map.copyOf(laneRunTimes);
     }
 
     public void cleanupOldKeys(Duration ageLimit) {
-        Instant threshold = Instant.now().minus(ageLimit);
-        this.alreadySeenKeys.entrySet().removeIf(entry -> entry.getValue().isBefore(threshold));
+        seenEvents.removeOlderThan(Instant.now().minus(ageLimit).getEpochSecond());
+    }
+
+    // events without a time all go into one bucket that every cutoff is before, so that such an event is found
+    // again however long after it was first seen; retention never drops them
+    private static long epochSecond(Instant time) {
+        return time != null ? time.getEpochSecond() : NO_TIME;
     }
 }
@@ -0,0 +1,395 @@
+package dev.ruby.persistence;
+
+import java.util.Arrays;
+
+// set of event fingerprints grouped into hourly buckets by event time. the time is part of an event's identity
+// (see EventFingerprint), so a lookup only probes the bucket of that hour, and expiry drops whole buckets
+// instead of scanning every entry. buckets and the hour index are open-addressing long tables: no entry
+// objects, no boxing, and add/contains allocate nothing until a table grows.
+// 0 marks an empty slot (EventFingerprint never returns it).
+// a set loaded from a binary state file keeps the file's events mapped as its base and only holds what was
+// seen since in buckets; the base is immutable, so its expired hours are skipped rather than removed.
+// snapshot() shares the buckets copy-on-write: a bucket is only changed in place by the set that owns it,
+// any other set copies it first, so a snapshot can be read on another thread while this set keeps adding
+public final class SeenEventSet {
+    public static final long BUCKET_SECONDS = 3600;
+
+    private static final int MIN_CAPACITY = 16;
+    // resize at 2/3 full, probe sequences stay short without wasting half the table
+    private static final int LOAD_NUMERATOR = 2;
+    private static final int LOAD_DENOMINATOR = 3;
+
+    // hour index: bucketHours[i] is the hour (epoch second / 3600) of buckets[i]; null marks an empty slot
+    private long[] bucketHours = new long[MIN_CAPACITY];
+    private Bucket[] buckets = new Bucket[MIN_CAPACITY];
+    private int bucketCount;
+    private int size;
+
+    private MappedSeenEvents base;
+    private long baseCutoffHour = Long.MIN_VALUE;
+    private int baseSize;
+
+    private static final class Bucket {
+        private long[] fingerprints;
+        private int size;
+        // the set allowed to change this bucket in place, null once it is shared with a snapshot
+        private SeenEventSet owner;
+
+        private Bucket(int expectedSize, SeenEventSet owner) {
+            this.fingerprints = new long[capacityFor(expectedSize)];
+            this.owner = owner;
+        }
+
+        private Bucket(Bucket shared, SeenEventSet owner) {
+            this.fingerprints = shared.fingerprints.clone();
+            this.size = shared.size;
+            this.owner = owner;
+        }
+
+        private boolean add(long fingerprint) {
+            int mask = fingerprints.length - 1;
+            int slot = slot(fingerprint, mask);
+            while (fingerprints[slot] != 0) {
+                if (fingerprints[slot] == fingerprint) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            fingerprints[slot] = fingerprint;
+            size++;
+            if (isOverloaded(size, fingerprints.length)) {
+                long[] old = fingerprints;
+                fingerprints = new long[old.length * 2];
+                for (long existing : old) {
+                    if (existing != 0) {
+                        insert(existing);
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean contains(long fingerprint) {
+            int mask = fingerprints.length - 1;
+            int slot = slot(fingerprint, mask);
+            while (fingerprints[slot] != 0) {
+                if (fingerprints[slot] == fingerprint) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        // for rehashing: the fingerprint is known to be absent and the table to have room
+        private void insert(long fingerprint) {
+            int mask = fingerprints.length - 1;
+            int slot = slot(fingerprint, mask);
+            while (fingerprints[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            fingerprints[slot] = fingerprint;
+        }
+    }
+
+    public SeenEventSet() {
+    }
+
+    SeenEventSet(MappedSeenEvents base) {
+        rebase(base);
+    }
+
+    // index-aligned arrays as written by fingerprints() and times()
+    public SeenEventSet(long[] fingerprints, long[] times) {
+        if (fingerprints.length != times.length) {
+            throw new IllegalArgumentException(
+                    "fingerprints and times differ in length: " + fingerprints.length + " != " + times.length);
+        }
+        for (int i = 0; i < fingerprints.length; i++) {
+            add(fingerprints[i], times[i]);
+        }
+    }
+
+    // true when the fingerprint was not in the set yet. the hours on either side are checked too: a caller whose
+    // key does not carry the time may pass the same key again a few seconds later, across an hour boundary
+    public boolean add(long fingerprint, long epochSecond) {
+        checkFingerprint(fingerprint);
+        long hour = hour(epochSecond);
+        if (inBase(fingerprint, hour) || inHour(fingerprint, hour - 1) || inHour(fingerprint, hour + 1)) {
+            return false;
+        }
+        int index = indexOf(hour);
+        if (buckets[index] == null) {
+            bucketHours[index] = hour;
+            buckets[index] = new Bucket(0, this);
+            bucketCount++;
+            if (isOverloaded(bucketCount, buckets.length)) {
+                resizeIndex(buckets.length * 2);
+            }
+            index = indexOf(hour);
+        } else if (buckets[index].owner != this) {
+            if (buckets[index].contains(fingerprint)) {
+                return false;
+            }
+            buckets[index] = new Bucket(buckets[index], this);
+        }
+        if (!buckets[index].add(fingerprint)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    public boolean contains(long fingerprint, long epochSecond) {
+        checkFingerprint(fingerprint);
+        long hour = hour(epochSecond);
+        Bucket bucket = buckets[indexOf(hour)];
+        return bucket != null && bucket.contains(fingerprint) || inBase(fingerprint, hour);
+    }
+
+    // for callers that do not know the event time: probes every bucket
+    public boolean contains(long fingerprint) {
+        checkFingerprint(fingerprint);
+        for (Bucket bucket : buckets) {
+            if (bucket != null && bucket.contains(fingerprint)) {
+                return true;
+            }
+        }
+        if (base != null) {
+            for (int section = base.firstSectionFrom(baseCutoffHour); section < base.sectionCount(); section++) {
+                if (base.contains(fingerprint, base.hour(section))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size + baseSize;
+    }
+
+    public int bucketCount() {
+        return bucketCount;
+    }
+
+    // drops every bucket that ends at or before the given epoch second. the cost depends on the number of
+    // buckets, not entries; a bucket that straddles the cutoff is kept whole, so entries may outlive the
+    // retention period by up to one bucket
+    public void removeOlderThan(long epochSecond) {
+        long cutoff = hour(epochSecond);
+        if (base != null && cutoff > baseCutoffHour) {
+            baseCutoffHour = cutoff;
+            baseSize = base.sizeFrom(cutoff);
+        }
+        boolean removed = false;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != null && bucketHours[i] < cutoff) {
+                size -= buckets[i].size;
+                buckets[i] = null;
+                bucketCount--;
+                removed = true;
+            }
+        }
+        if (removed) {
+            // emptied slots would break linear probe sequences, rebuild the (small) index
+            resizeIndex(capacityFor(bucketCount));
+        }
+    }
+
+    // compact copies for persistence; fingerprints()[i] happened in the hour starting at times()[i]
+    public long[] fingerprints() {
+        long[] result = new long[size()];
+        int next = 0;
+        if (base != null) {
+            for (int record = base.start(base.firstSectionFrom(baseCutoffHour)); record < base.size(); record++) {
+                result[next++] = base.fingerprint(record);
+            }
+        }
+        for (Bucket bucket : buckets) {
+            if (bucket != null) {
+                for (long fingerprint : bucket.fingerprints) {
+                    if (fingerprint != 0) {
+                        result[next++] = fingerprint;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public long[] times() {
+        long[] result = new long[size()];
+        int next = 0;
+        if (base != null) {
+            for (int record = base.start(base.firstSectionFrom(baseCutoffHour)); record < base.size(); record++) {
+                result[next++] = base.time(record);
+            }
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != null) {
+                long start = bucketHours[i] * BUCKET_SECONDS;
+                for (int j = 0; j < buckets[i].size; j++) {
+                    result[next++] = start;
+                }
+            }
+        }
+        return result;
+    }
+
+    // a copy that shares every bucket until one of the two sets adds to it
+    public SeenEventSet snapshot() {
+        SeenEventSet copy = new SeenEventSet();
+        copy.bucketHours = bucketHours.clone();
+        copy.buckets = buckets.clone();
+        copy.bucketCount = bucketCount;
+        copy.size = size;
+        copy.base = base;
+        copy.baseCutoffHour = baseCutoffHour;
+        copy.baseSize = baseSize;
+        for (Bucket bucket : buckets) {
+            if (bucket != null) {
+                bucket.owner = null;
+            }
+        }
+        return copy;
+    }
+
+    // hours that hold at least one event, ascending
+    long[] hours() {
+        long[] result = new long[bucketCount + (base != null ? base.sectionCount() : 0)];
+        int next = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != null) {
+                result[next++] = bucketHours[i];
+            }
+        }
+        if (base != null) {
+            for (int section = base.firstSectionFrom(baseCutoffHour); section < base.sectionCount(); section++) {
+                result[next++] = base.hour(section);
+            }
+        }
+        return Arrays.stream(result, 0, next).sorted().distinct().toArray();
+    }
+
+    int count(long hour) {
+        Bucket bucket = buckets[indexOf(hour)];
+        int count = bucket != null ? bucket.size : 0;
+        if (base != null && hour >= baseCutoffHour) {
+            int section = base.sectionOf(hour);
+            if (section >= 0) {
+                count += base.end(section) - base.start(section);
+            }
+        }
+        return count;
+    }
+
+    // every fingerprint seen in the hour, ascending
+    long[] sortedFingerprints(long hour) {
+        long[] result = new long[count(hour)];
+        int next = 0;
+        Bucket bucket = buckets[indexOf(hour)];
+        if (bucket != null) {
+            for (long fingerprint : bucket.fingerprints) {
+                if (fingerprint != 0) {
+                    result[next++] = fingerprint;
+                }
+            }
+        }
+        if (base != null && hour >= baseCutoffHour) {
+            int section = base.sectionOf(hour);
+            if (section >= 0) {
+                for (int record = base.start(section); record < base.end(section); record++) {
+                    result[next++] = base.fingerprint(record);
+                }
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    // everything in this set is now in the base, e.g. after it was written to and mapped from a new file
+    void rebase(MappedSeenEvents base) {
+        this.base = base;
+        this.baseCutoffHour = Long.MIN_VALUE;
+        this.baseSize = base.sizeFrom(Long.MIN_VALUE);
+        this.bucketHours = new long[MIN_CAPACITY];
+        this.buckets = new Bucket[MIN_CAPACITY];
+        this.bucketCount = 0;
+        this.size = 0;
+    }
+
+    void rebase(SeenEventSet mapped) {
+        rebase(mapped.base);
+    }
+
+    // true when every event is in the mapped base, as right after a rebase
+    boolean isMapped() {
+        return base != null && bucketCount == 0;
+    }
+
+    boolean hasSameBase(SeenEventSet other) {
+        return base == other.base;
+    }
+
+    private boolean inHour(long fingerprint, long hour) {
+        Bucket bucket = buckets[indexOf(hour)];
+        return bucket != null && bucket.contains(fingerprint) || inBase(fingerprint, hour);
+    }
+
+    private boolean inBase(long fingerprint, long hour) {
+        return base != null && hour >= baseCutoffHour && base.contains(fingerprint, hour);
+    }
+
+    // slot of the hour in the index: either its bucket or the empty slot where it belongs
+    private int indexOf(long hour) {
+        int mask = buckets.length - 1;
+        int slot = slot(hour * 0x9e3779b97f4a7c15L, mask);
+        while (buckets[slot] != null && bucketHours[slot] != hour) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resizeIndex(int capacity) {
+        long[] oldHours = bucketHours;
+        Bucket[] oldBuckets = buckets;
+        bucketHours = new long[capacity];
+        buckets = new Bucket[capacity];
+        for (int i = 0; i < oldBuckets.length; i++) {
+            if (oldBuckets[i] != null) {
+                int index = indexOf(oldHours[i]);
+                bucketHours[index] = oldHours[i];
+                buckets[index] = oldBuckets[i];
+            }
+        }
+    }
+
+    private static long hour(long epochSecond) {
+        return Math.floorDiv(epochSecond, BUCKET_SECONDS);
+    }
+
+    // folds the high bits into the slot; fingerprints are already mixed, hours are spread by the caller
+    private static int slot(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static boolean isOverloaded(int size, int capacity) {
+        return (long) size * LOAD_DENOMINATOR > (long) capacity * LOAD_NUMERATOR;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) expectedSize * LOAD_DENOMINATOR / LOAD_NUMERATOR + 1;
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static void checkFingerprint(long fingerprint) {
+        if (fingerprint == 0) {
+            throw new IllegalArgumentException("0 is not a valid fingerprint");
+        }
+    }
+}
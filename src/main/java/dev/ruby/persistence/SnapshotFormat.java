@@ -0,0 +1,32 @@
+package dev.ruby.persistence;
+
+import java.io.File;
+import java.io.IOException;
+
+// how JournalStateStore writes the snapshot its log starts from
+enum SnapshotFormat {
+    JSON(".json"),
+    BINARY(".bin");
+
+    private final String extension;
+
+    SnapshotFormat(String extension) {
+        this.extension = extension;
+    }
+
+    File file(File directory, String repo) {
+        return new File(directory, repo + "-workflow-state" + extension);
+    }
+
+    MonitorState read(File file) throws IOException {
+        return this == JSON ? StateStore.read(file) : BinaryStateFile.read(file);
+    }
+
+    void write(File file, MonitorState state) throws IOException {
+        if (this == JSON) {
+            StateStore.write(file, state);
+        } else {
+            BinaryStateFile.write(file, state);
+        }
+    }
+}
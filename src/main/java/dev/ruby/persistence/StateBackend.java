@@ -0,0 +1,19 @@
+package dev.ruby.persistence;
+
+// where a monitor keeps its state between cycles and across restarts
+public interface StateBackend {
+    MonitorState load();
+
+    // throws UncheckedIOException when the state could not be written, so that the caller keeps it for the next
+    // save
+    void save(MonitorState state);
+
+    // size of what is on disk, 0 when nothing is
+    default long storedBytes() {
+        return 0;
+    }
+
+    // releases anything held open between saves; the state is not saved
+    default void close() {
+    }
+}
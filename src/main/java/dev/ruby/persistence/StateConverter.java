@@ -0,0 +1,21 @@
+package dev.ruby.persistence;
+
+import java.io.File;
+import java.io.IOException;
+
+// rewrites a JSON state file as the binary snapshot of the BINARY state format, next to it. a BINARY store
+// converts on its own at the first save; this is for doing it ahead of time, e.g. to measure startup
+public final class StateConverter {
+    private StateConverter() {
+    }
+
+    public static File jsonToBinary(File jsonFile) throws IOException {
+        String path = jsonFile.getPath();
+        if (!path.endsWith(".json")) {
+            throw new IllegalArgumentException("not a JSON state file: " + jsonFile);
+        }
+        File binaryFile = new File(path.substring(0, path.length() - ".json".length()) + ".bin");
+        BinaryStateFile.write(binaryFile, StateStore.read(jsonFile));
+        return binaryFile;
+    }
+}
@@ -0,0 +1,29 @@
+package dev.ruby.persistence;
+
+import java.io.File;
+import java.time.Duration;
+
+public enum StateFormat {
+    // the whole state as one JSON file, rewritten on every save
+    JSON,
+    // the same JSON file as a snapshot, plus an append-only log of what changed since
+    JOURNAL,
+    // the journal over a binary snapshot that is memory-mapped and searched in place instead of loaded
+    BINARY;
+
+    public StateBackend open(File directory, String repo, Duration retention) {
+        return switch (this) {
+            case JSON -> new StateStore(directory, repo, retention);
+            case JOURNAL -> new JournalStateStore(directory, repo, retention);
+            case BINARY -> new JournalStateStore(directory, repo, retention, SnapshotFormat.BINARY);
+        };
+    }
+
+    public static StateFormat parse(String value) {
+        try {
+            return valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown state format: " + value);
+        }
+    }
+}
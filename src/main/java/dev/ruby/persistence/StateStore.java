@@ -2,39 +2,109 @@ package dev.ruby.persistence;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
-public class StateStore {
-    private final Duration DEFAULT_RETENTION_PERIOD = Duration.ofDays(7);
+import dev.ruby.jfr.StateLoadEvent;
+import dev.ruby.jfr.StateSaveEvent;
+
+public class StateStore implements StateBackend {
+    public static final Duration DEFAULT_RETENTION_PERIOD = Duration.ofDays(7);
     private final File stateFile;
+    private final Duration retention;
 
-    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    // shared by every store in the process; ObjectMapper is thread-safe once configured
+    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
     public StateStore(String repo) {
-        this.stateFile = new File(repo + "-workflow-state.json");
+        this(null, repo);
+    }
+
+    public StateStore(File directory, String repo) {
+        this(directory, repo, DEFAULT_RETENTION_PERIOD);
+    }
+
+    public StateStore(File directory, String repo, Duration retention) {
+        this.stateFile = stateFile(directory, repo);
+        this.retention = retention;
     }
 
+    @Override
     public MonitorState load() {
+        StateLoadEvent event = new StateLoadEvent();
+        event.begin();
+        MonitorState state = loadFile();
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = stateFile.getPath();
+            event.storedBytes = stateFile.length();
+            event.seenEvents = state.getSeenEvents().size();
+            event.commit();
+        }
+        return state;
+    }
+
+    private MonitorState loadFile() {
         if (!this.stateFile.exists())
             return new MonitorState();
 
         try {
-            return mapper.readValue(this.stateFile, MonitorState.class);
+            return read(stateFile);
         } catch (IOException e) {
             System.err.println("Cannot load file: " + e.getMessage());
             return new MonitorState();
         }
     }
 
+    @Override
     public void save(MonitorState state) {
+        StateSaveEvent event = new StateSaveEvent();
+        event.begin();
+        String kind = "file";
+        IOException failure = null;
         try {
-            state.cleanupOldKeys(DEFAULT_RETENTION_PERIOD);
-            mapper.writerWithDefaultPrettyPrinter().writeValue(this.stateFile, state);
+            state.cleanupOldKeys(retention);
+            write(stateFile, state);
         } catch (IOException e) {
-            System.err.println("Save error " + e.getMessage());
+            kind = "failed";
+            failure = e;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = stateFile.getPath();
+            event.kind = kind;
+            event.storedBytes = stateFile.length();
+            event.seenEvents = state.getSeenEvents().size();
+            event.commit();
         }
+        if (failure != null) {
+            throw new UncheckedIOException("Save error " + failure.getMessage(), failure);
+        }
+    }
+
+    @Override
+    public long storedBytes() {
+        return stateFile.length();
+    }
+
+    static File stateFile(File directory, String repo) {
+        return new File(directory, repo + "-workflow-state.json");
+    }
+
+    static MonitorState read(File file) throws IOException {
+        return mapper.readValue(file, MonitorState.class);
+    }
+
+    // write then rename, so a reader (or the next owner in cluster mode) never sees a partial file
+    static void write(File file, MonitorState state) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        mapper.writerWithDefaultPrettyPrinter().writeValue(tempFile, state);
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
     }
 }
@@ -0,0 +1,177 @@
+package dev.ruby.server;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.output.EventSink;
+import dev.ruby.output.JsonLinesEncoder;
+
+// the last events of the fleet, numbered from 0 in the order they were reported, for the subscribers of an
+// SseServer. a polling thread encodes its event once and stores it in the ring; every subscriber reads the ring
+// at its own offset on its own thread, so one that cannot keep up falls behind and loses what was overwritten
+// instead of holding up a cycle. a publisher never waits for subscribers: it only takes the lock the other
+// publishers take, and leaves waking the waiting subscribers to one notifier thread, so publishing costs the same
+// with one subscriber or thousands. offsets start over when the process does
+public class EventBroadcaster implements EventSink {
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    // json is the event as one JSONL object, without the line break
+    public record Entry(long offset, String repository, WorkflowEvent event, byte[] json) {
+    }
+
+    private final JsonLinesEncoder encoder = new JsonLinesEncoder();
+    private final AtomicReferenceArray<Entry> ring;
+    private final int mask;
+    // taken by publishers only, to number their events one after the other
+    private final ReentrantLock publishing = new ReentrantLock();
+    // subscribers parked in await(), unparked by the notifier after every publish
+    private final Set<Thread> waiting = ConcurrentHashMap.newKeySet();
+    // set by start()
+    private volatile Thread notifier;
+    // the offset the next event gets; written under the publishing lock, after its entry is in the ring
+    private volatile long next;
+    private volatile boolean closed;
+
+    public EventBroadcaster() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EventBroadcaster(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    // starts the notifier; until then waiting subscribers only see new events when their wait times out
+    public void start() {
+        notifier = Thread.ofVirtual().name("event-broadcaster").start(this::notifyWaiting);
+    }
+
+    @Override
+    public void accept(WorkflowEvent event, String repository) {
+        byte[] json = encode(event, repository);
+        publishing.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            long offset = next;
+            ring.set((int) (offset & mask), new Entry(offset, repository, event, json));
+            next = offset + 1;
+        } finally {
+            publishing.unlock();
+        }
+        // a subscriber registers before it checks next, and next was written before this check: one of the two
+        // sees the other
+        Thread thread = notifier;
+        if (thread != null && !waiting.isEmpty()) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    // wakes every waiting subscriber once per burst of publishes: an unpark while it is busy leaves a permit, so
+    // the next park returns right away and the subscribers that started waiting meanwhile are woken too
+    private void notifyWaiting() {
+        while (!closed) {
+            LockSupport.park(this);
+            for (Thread thread : waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+        for (Thread thread : waiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private byte[] encode(WorkflowEvent event, String repository) {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        while (true) {
+            try {
+                encoder.encode(event, repository, buffer);
+                // leave out the line break
+                return Arrays.copyOf(buffer.array(), buffer.position() - 1);
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    public long next() {
+        return next;
+    }
+
+    // the lowest offset still in the ring
+    public long oldest() {
+        return Math.max(0, next - ring.length());
+    }
+
+    // the entry at offset, or null when it has been overwritten or not been published yet
+    public Entry get(long offset) {
+        if (offset < 0 || offset >= next) {
+            return null;
+        }
+        Entry entry = ring.get((int) (offset & mask));
+        return entry != null && entry.offset() == offset ? entry : null;
+    }
+
+    // waits until an event at offset or later is published, the timeout passes or the broadcaster is closed;
+    // returns next()
+    public long await(long offset, long timeout, TimeUnit unit) throws InterruptedException {
+        long current = next;
+        if (current > offset || closed) {
+            return current;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Thread thread = Thread.currentThread();
+        waiting.add(thread);
+        try {
+            // checked again after registering, so that a publish in between is not missed
+            while (next <= offset && !closed) {
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(this, nanos);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return next;
+        } finally {
+            waiting.remove(thread);
+        }
+    }
+
+    public int capacity() {
+        return ring.length();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // wakes every waiting subscriber; later events are dropped
+    @Override
+    public void close() {
+        publishing.lock();
+        try {
+            closed = true;
+        } finally {
+            publishing.unlock();
+        }
+        Thread thread = notifier;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package dev.ruby.server;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import dev.ruby.service.EventFilter;
+
+// streams the broadcaster's events as Server-Sent Events on GET /events, each subscriber on its own virtual
+// thread:
+//   id: 42
+//   event: workflow
+//   data: {"time":"2024-01-15T10:30:00Z","repository":"octo/api","id":"123","level":"RUN",...}
+// query parameters pick the events: branch, workflow, level and status each take the values of an EventFilter
+// clause (/events?branch=main&level=RUN,JOB), filter a whole expression (for '!=') and repository a
+// comma-separated list of owner/repo. a subscriber's filter runs on its own thread, never on a poller's.
+// a subscriber starts with new events, from=OFFSET replays from an offset and a Last-Event-ID header resumes
+// after the last event a reconnecting client received. events that were overwritten before a subscriber read
+// them are reported as one "event: gap" with their count, and the stream goes on from the oldest one left.
+// a stream that wrote nothing for the keepalive interval gets a ": keepalive" comment, also while events go by
+// that its filter drops
+public class SseServer implements AutoCloseable {
+    public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofSeconds(15);
+    public static final String CONTENT_TYPE = "text/event-stream; charset=utf-8";
+
+    private static final List<String> CLAUSE_PARAMETERS = List.of("branch", "workflow", "level", "status");
+
+    private record Subscription(EventFilter filter, Set<String> repositories, long from) {
+        boolean matches(EventBroadcaster.Entry entry) {
+            return (repositories.isEmpty() || repositories.contains(entry.repository()))
+                    && filter.matches(entry.event());
+        }
+    }
+
+    private final EventBroadcaster broadcaster;
+    private final Duration keepAlive;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public SseServer(EventBroadcaster broadcaster, InetSocketAddress address) throws IOException {
+        this(broadcaster, address, DEFAULT_KEEP_ALIVE);
+    }
+
+    public SseServer(EventBroadcaster broadcaster, InetSocketAddress address, Duration keepAlive)
+            throws IOException {
+        this.broadcaster = broadcaster;
+        this.keepAlive = keepAlive;
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/events", exchange -> {
+            try (exchange) {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    respond(exchange, 405, "Method Not Allowed\n");
+                    return;
+                }
+                Subscription subscription;
+                try {
+                    subscription = subscription(exchange);
+                } catch (IllegalArgumentException e) {
+                    respond(exchange, 400, e.getMessage() + "\n");
+                    return;
+                }
+                stream(exchange, subscription);
+            }
+        });
+        server.start();
+    }
+
+    private Subscription subscription(HttpExchange exchange) {
+        Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+        List<String> clauses = new ArrayList<>();
+        for (String name : CLAUSE_PARAMETERS) {
+            if (parameters.containsKey(name)) {
+                clauses.add(name + "=" + parameters.get(name));
+            }
+        }
+        if (parameters.containsKey("filter")) {
+            clauses.add(parameters.get("filter"));
+        }
+        EventFilter filter = EventFilter.parse(String.join(";", clauses));
+        for (EventFilter.Clause clause : filter.clauses()) {
+            if (clause.field() == EventFilter.Field.ACTOR) {
+                throw new IllegalArgumentException("events do not carry the actor: " + clause);
+            }
+        }
+
+        Set<String> repositories = new HashSet<>();
+        if (parameters.containsKey("repository")) {
+            for (String repository : parameters.get("repository").split(",")) {
+                if (!repository.isBlank()) {
+                    repositories.add(repository.trim());
+                }
+            }
+        }
+
+        String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        long from;
+        try {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                from = Long.parseLong(lastEventId.trim()) + 1;
+            } else if (parameters.containsKey("from")) {
+                from = Long.parseLong(parameters.get("from"));
+            } else {
+                from = broadcaster.next();
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("offset must be a number: " + e.getMessage());
+        }
+        if (from < 0) {
+            throw new IllegalArgumentException("offset must not be negative: " + from);
+        }
+        // beyond what was published, the offset is from before a restart: replay what this process has
+        if (from > broadcaster.next()) {
+            from = broadcaster.oldest();
+        }
+        return new Subscription(filter, repositories, from);
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    private void stream(HttpExchange exchange, Subscription subscription) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        subscribers.incrementAndGet();
+        try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), 16 * 1024)) {
+            // sent right away, so that the client sees the stream open before the first event
+            write(out, ": offset " + subscription.from() + "\n\n");
+            out.flush();
+            long position = subscription.from();
+            long keepAliveNanos = keepAlive.toNanos();
+            long lastWrite = System.nanoTime();
+            while (!broadcaster.isClosed()) {
+                long idle = keepAliveNanos - (System.nanoTime() - lastWrite);
+                if (idle <= 0) {
+                    write(out, ": keepalive\n\n");
+                    out.flush();
+                    lastWrite = System.nanoTime();
+                    continue;
+                }
+                long next = broadcaster.await(position, idle, TimeUnit.NANOSECONDS);
+                boolean wrote = false;
+                while (position < next) {
+                    EventBroadcaster.Entry entry = broadcaster.get(position);
+                    if (entry == null) {
+                        long oldest = Math.max(broadcaster.oldest(), position + 1);
+                        write(out, "event: gap\ndata: {\"missed\":" + (oldest - position) + "}\n\n");
+                        position = oldest;
+                        wrote = true;
+                        continue;
+                    }
+                    if (subscription.matches(entry)) {
+                        write(out, "id: " + entry.offset() + "\nevent: workflow\ndata: ");
+                        out.write(entry.json());
+                        out.write('\n');
+                        out.write('\n');
+                        wrote = true;
+                    }
+                    position++;
+                }
+                if (wrote) {
+                    out.flush();
+                    lastWrite = System.nanoTime();
+                }
+            }
+        } catch (IOException e) {
+            // the subscriber went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscribers.decrementAndGet();
+        }
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public int getSubscribers() {
+        return subscribers.get();
+    }
+
+    // ends every stream; the broadcaster is closed first so that waiting subscribers return
+    @Override
+    public void close() {
+        broadcaster.close();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
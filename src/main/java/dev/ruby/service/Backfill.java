@@ -0,0 +1,287 @@
+package dev.ruby.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dev.ruby.client.GitHubClient;
+import dev.ruby.client.RateBudget;
+import dev.ruby.client.RateLimitedException;
+import dev.ruby.client.RequestPriority;
+import dev.ruby.client.RunQuery;
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowRunsPage;
+import dev.ruby.mapper.EventMapper;
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.persistence.BackfillCheckpoint;
+import dev.ruby.persistence.BackfillCheckpoint.Window;
+
+// walks the runs created in [from, to), past the 10 pages live polling reads. the range is cut into windows by
+// created date, so the pages of a window do not shift while new runs come in, and `concurrency` workers take
+// windows newest first. the API returns at most 1000 runs per created filter, so a window whose first page counts
+// more is split in half before its other pages are read. requests go out at BACKFILL priority and only while the
+// token's remaining budget is above what is left for live polling. each run's events go to the WorkflowMonitor,
+// which reports them after its live events; a window is checkpointed by a worker once all of its runs were
+// reported, so a restart picks up where it stopped
+public class Backfill {
+    public static final Duration DEFAULT_WINDOW = Duration.ofHours(6);
+    public static final int DEFAULT_CONCURRENCY = 4;
+    // of the token's hourly limit; the rest is kept for live polling
+    public static final double DEFAULT_BUDGET_SHARE = 0.25;
+
+    private static final int PER_PAGE = 100;
+    private static final int MAX_PAGES = 10;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 5_000;
+
+    private final GitHubClient client;
+    private final WorkflowMonitor monitor;
+    private final RunQuery filter;
+    private final BackfillCheckpoint checkpoint;
+    private final Duration windowLength;
+    private final int concurrency;
+    private final double budgetShare;
+    private final ConcurrentFetcher fetcher;
+    private final BlockingDeque<Window> windows = new LinkedBlockingDeque<>();
+    // windows queued or being worked on
+    private final AtomicInteger outstanding = new AtomicInteger();
+    // windows whose runs were all reported, for a worker to checkpoint
+    private final Queue<Window> reported = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger windowsDone = new AtomicInteger();
+    private final AtomicLong runsDone = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+    private long startedAtNanos;
+
+    // a backfilled run and its events; onReported is called by the monitor, under its state lock, once it reported
+    // them
+    public record Batch(WorkflowRun run, List<WorkflowEvent> events, Runnable onReported) {
+    }
+
+    public record Progress(int windowsDone, int windowsLeft, long runs, double runsPerMinute) {
+    }
+
+    // from and to are cut to whole seconds, the resolution of the created filter
+    public Backfill(GitHubClient client, WorkflowMonitor monitor, RunQuery filter, File checkpointFile,
+            Instant from, Instant to) {
+        this(client, monitor, filter, BackfillCheckpoint.open(checkpointFile, from.truncatedTo(ChronoUnit.SECONDS),
+                to.truncatedTo(ChronoUnit.SECONDS)), DEFAULT_WINDOW, DEFAULT_CONCURRENCY, DEFAULT_BUDGET_SHARE);
+    }
+
+    // filter: the monitor's own branch, event and workflow filters
+    public Backfill(GitHubClient client, WorkflowMonitor monitor, RunQuery filter, BackfillCheckpoint checkpoint,
+            Duration windowLength, int concurrency, double budgetShare) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1: " + concurrency);
+        }
+        if (budgetShare <= 0 || budgetShare > 1) {
+            throw new IllegalArgumentException("budgetShare must be in (0, 1]: " + budgetShare);
+        }
+        this.client = client;
+        this.monitor = monitor;
+        this.filter = filter;
+        this.checkpoint = checkpoint;
+        this.windowLength = windowLength;
+        this.concurrency = concurrency;
+        this.budgetShare = budgetShare;
+        this.fetcher = new ConcurrentFetcher(concurrency);
+    }
+
+    public synchronized void start() {
+        if (checkpoint.isComplete()) {
+            return;
+        }
+        List<Window> remaining = checkpoint.remaining(windowLength);
+        outstanding.set(remaining.size());
+        windows.addAll(remaining);
+        startedAtNanos = System.nanoTime();
+        System.err.println("Backfilling " + client.getRepository() + " from " + checkpoint.getFrom() + " to "
+                + checkpoint.getTo() + " in " + remaining.size() + " windows");
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().name("backfill-" + client.getRepository() + "-" + i).start(this::work));
+        }
+    }
+
+    // the checkpoint keeps what was done; windows in progress are walked again next time
+    public synchronized void stop() throws InterruptedException {
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        workers.clear();
+        checkpointReported();
+    }
+
+    public boolean isComplete() {
+        return checkpoint.isComplete();
+    }
+
+    public Progress getProgress() {
+        double minutes = (System.nanoTime() - startedAtNanos) / 60e9;
+        long runs = runsDone.get();
+        return new Progress(windowsDone.get(), outstanding.get(), runs, minutes > 0 ? runs / minutes : 0);
+    }
+
+    private void work() {
+        try {
+            while (outstanding.get() > 0) {
+                checkpointReported();
+                Window window = windows.poll(100, TimeUnit.MILLISECONDS);
+                if (window != null) {
+                    process(window);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(Window window) throws InterruptedException {
+        for (int attempt = 1;; attempt++) {
+            try {
+                List<WorkflowRun> runs = fetchRuns(window);
+                if (runs == null) {
+                    // split: the halves replace this window
+                    return;
+                }
+                // excluded runs still count for the window, they are just not reported
+                List<WorkflowRun> admitted = new ArrayList<>(runs);
+                admitted.removeIf(run -> !monitor.admits(run));
+                handOver(window, admitted, fetchJobs(admitted));
+                return;
+            } catch (RateLimitedException e) {
+                attempt--;
+                Thread.sleep(Math.max(1, Duration.between(Instant.now(), e.getRetryAt()).toMillis()));
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    // left out of the checkpoint, so the next start tries it again
+                    System.err.println("Backfill of " + window + " failed: " + e.getMessage());
+                    outstanding.decrementAndGet();
+                    return;
+                }
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    // every run created in the window, or null when there are more than one filter returns and it was split
+    private List<WorkflowRun> fetchRuns(Window window) throws Exception {
+        List<WorkflowRun> runs = new ArrayList<>();
+        for (int page = 1; page <= MAX_PAGES; page++) {
+            awaitShare();
+            WorkflowRunsPage runsPage = client.getWorkflowRunsCreated(filter, window.from(), window.to(), page,
+                    PER_PAGE);
+            if (page == 1 && runsPage.totalCount() > MAX_PAGES * PER_PAGE) {
+                if (window.length().getSeconds() >= 2) {
+                    Instant middle = window.from().plusSeconds(window.length().getSeconds() / 2);
+                    outstanding.incrementAndGet();
+                    windows.addFirst(new Window(window.from(), middle));
+                    windows.addFirst(new Window(middle, window.to()));
+                    return null;
+                }
+                System.err.println("Backfill of " + window + " is capped at " + MAX_PAGES * PER_PAGE + " of "
+                        + runsPage.totalCount() + " runs");
+            }
+            runs.addAll(runsPage.runs());
+            // a page short of full is the last one, and so is the one that reaches the count
+            int totalCount = runsPage.totalCount();
+            if (runsPage.runs().size() < PER_PAGE || totalCount > 0 && runs.size() >= totalCount) {
+                return runs;
+            }
+        }
+        return runs;
+    }
+
+    private Map<Long, List<WorkflowJob>> fetchJobs(List<WorkflowRun> runs) throws Exception {
+        List<Long> runIds = new ArrayList<>();
+        for (WorkflowRun run : runs) {
+            EventStatus status = EventMapper.toStatus(run.status(), run.conclusion());
+            if (status == EventStatus.QUEUED || status == EventStatus.UNKNOWN) {
+                continue;
+            }
+            if (monitor.getEventFilter().fetchesJobs()) {
+                runIds.add(run.id());
+            } else {
+                monitor.jobsSkipped();
+            }
+        }
+        return fetcher.fetchAll(runIds, runId -> {
+            awaitShare();
+            return client.getJobsForRun(runId, RequestPriority.BACKFILL);
+        });
+    }
+
+    private void handOver(Window window, List<WorkflowRun> runs, Map<Long, List<WorkflowJob>> jobsByRun)
+            throws InterruptedException {
+        if (runs.isEmpty()) {
+            complete(window);
+            return;
+        }
+        runs.sort(Comparator.comparing(WorkflowRun::createdAt).thenComparingLong(WorkflowRun::id));
+        AtomicInteger unreported = new AtomicInteger(runs.size());
+        // a throwaway engine: every run is a first sighting and produces all of its events
+        TransitionEngine transitions = new TransitionEngine(Duration.ZERO, monitor.getEventFilter().mapsSteps());
+        for (WorkflowRun run : runs) {
+            List<WorkflowEvent> events = new ArrayList<>();
+            transitions.process(run, EventMapper.toStatus(run.status(), run.conclusion()),
+                    jobsByRun.getOrDefault(run.id(), List.of()), 0, events::add);
+            // the checkpoint is written by a worker, not the monitor thread, which holds its state lock here
+            monitor.offerBackfill(new Batch(run, events, () -> {
+                runsDone.incrementAndGet();
+                if (unreported.decrementAndGet() == 0) {
+                    reported.add(window);
+                }
+            }));
+        }
+    }
+
+    private void checkpointReported() {
+        for (Window window = reported.poll(); window != null; window = reported.poll()) {
+            complete(window);
+        }
+    }
+
+    private void complete(Window window) {
+        try {
+            checkpoint.complete(window);
+        } catch (IOException e) {
+            System.err.println("Cannot save backfill checkpoint: " + e.getMessage());
+        }
+        windowsDone.incrementAndGet();
+        outstanding.decrementAndGet();
+        Progress progress = getProgress();
+        System.err.printf("Backfill %s: %d windows done, %d left, %d runs, %.0f runs/min%n", client.getRepository(),
+                progress.windowsDone(), progress.windowsLeft(), progress.runs(), progress.runsPerMinute());
+    }
+
+    // waits while the token's remaining budget is inside the part kept for live polling
+    private void awaitShare() throws InterruptedException {
+        while (true) {
+            RateBudget.Snapshot budget = client.getRateBudget().snapshot();
+            if (budget.limit() <= 0 || budget.remaining() < 0
+                    || budget.remaining() > budget.limit() * (1 - budgetShare)) {
+                return;
+            }
+            long untilReset = Duration.between(Instant.now(), budget.resetAt()).toMillis();
+            Thread.sleep(Math.min(Math.max(1_000, untilReset), 60_000));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package dev.ruby.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+// runs blocking API calls on virtual threads, at most `concurrency` in flight at a time
+class ConcurrentFetcher {
+    private final int concurrency;
+
+    @FunctionalInterface
+    interface Fetch<K, V> {
+        V apply(K key) throws Exception;
+    }
+
+    ConcurrentFetcher(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    <K, V> Map<K, V> fetchAll(Collection<K> keys, Fetch<K, V> fetch) throws Exception {
+        Map<K, V> results = new HashMap<>();
+        if (keys.isEmpty()) {
+            return results;
+        }
+
+        if (concurrency == 1 || keys.size() == 1) {
+            for (K key : keys) {
+                results.put(key, fetch.apply(key));
+            }
+            return results;
+        }
+
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<K> order = new ArrayList<>(keys);
+            List<Future<V>> futures = new ArrayList<>(order.size());
+            for (K key : order) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return fetch.apply(key);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.put(order.get(i), futures.get(i).get());
+                } catch (ExecutionException e) {
+                    futures.forEach(future -> future.cancel(true));
+                    throw unwrap(e);
+                }
+            }
+        }
+        return results;
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception exception) {
+            return exception;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return e;
+    }
+}
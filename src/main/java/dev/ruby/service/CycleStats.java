@@ -0,0 +1,16 @@
+package dev.ruby.service;
+
+import java.time.Duration;
+
+public record CycleStats(
+        int runsSeen,
+        int runsProcessed,
+        int jobFetches,
+        int jobFetchesSkipped,
+        int eventsEmitted,
+        int activeRuns,
+        long requestsCharged,
+        Duration duration) {
+
+    public static final CycleStats EMPTY = new CycleStats(0, 0, 0, 0, 0, 0, 0, Duration.ZERO);
+}
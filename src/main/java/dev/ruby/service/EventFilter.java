@@ -0,0 +1,218 @@
+package dev.ruby.service;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+
+// which runs are monitored and which of their events are reported, compiled once from an expression like
+//   branch=main,release/*; workflow!=Nightly*; actor!=dependabot[bot]; level=RUN,JOB; status!=STARTED
+// clauses are separated by ';' and all have to match. a clause matches when the value matches one of its
+// comma-separated patterns ('*' matches anything, case is ignored), or none of them for '!='.
+// branch, workflow and actor are checked on the listed run, before it is tracked or its jobs are fetched;
+// level and status on every event. without JOB and STEP no jobs are fetched, without STEP steps are not mapped.
+// matches checks every clause on an event alone, for subscribers filtering events that were already reported;
+// events do not carry the actor, an actor clause only matches through '!='
+public class EventFilter {
+    public static final EventFilter ALL = new EventFilter("", List.of());
+
+    public enum Field {
+        BRANCH, WORKFLOW, ACTOR, LEVEL, STATUS;
+
+        boolean isRunField() {
+            return this == BRANCH || this == WORKFLOW || this == ACTOR;
+        }
+    }
+
+    // index numbers the clauses of one filter, for per-clause counters
+    public record Clause(int index, String text, Field field, Predicate<String> matcher) {
+        boolean matches(String value) {
+            return matcher.test(value);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private final String expression;
+    private final List<Clause> clauses;
+    private final List<Clause> runClauses = new ArrayList<>();
+    private final List<Clause> eventClauses = new ArrayList<>();
+    private final Set<WorkflowLevel> levels = EnumSet.allOf(WorkflowLevel.class);
+    // the level clause that leaves out both JOB and STEP, null when jobs are needed
+    private Clause jobsExcludedBy;
+
+    private EventFilter(String expression, List<Clause> clauses) {
+        this.expression = expression;
+        this.clauses = List.copyOf(clauses);
+        for (Clause clause : clauses) {
+            if (clause.field().isRunField()) {
+                runClauses.add(clause);
+                continue;
+            }
+            eventClauses.add(clause);
+            if (clause.field() == Field.LEVEL) {
+                levels.removeIf(level -> !clause.matches(level.name()));
+                // JOB and STEP may also be left out by two clauses together, then the second one gets the credit
+                if (jobsExcludedBy == null && !levels.contains(WorkflowLevel.JOB)
+                        && !levels.contains(WorkflowLevel.STEP)) {
+                    jobsExcludedBy = clause;
+                }
+            }
+        }
+    }
+
+    public static EventFilter parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            return ALL;
+        }
+        List<Clause> clauses = new ArrayList<>();
+        for (String text : expression.split(";")) {
+            text = text.trim();
+            if (!text.isEmpty()) {
+                clauses.add(compile(clauses.size(), text));
+            }
+        }
+        return new EventFilter(expression.trim(), clauses);
+    }
+
+    private static Clause compile(int index, String text) {
+        int eq = text.indexOf('=');
+        if (eq < 1) {
+            throw new IllegalArgumentException("filter clause must be field=values or field!=values: " + text);
+        }
+        boolean negated = text.charAt(eq - 1) == '!';
+        String name = text.substring(0, negated ? eq - 1 : eq).trim();
+        Field field;
+        try {
+            field = Field.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown filter field: " + name);
+        }
+
+        List<Pattern> patterns = new ArrayList<>();
+        for (String value : text.substring(eq + 1).split(",", -1)) {
+            value = value.trim();
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("empty value in filter clause: " + text);
+            }
+            if (field == Field.LEVEL) {
+                checkName(WorkflowLevel.class, value);
+            } else if (field == Field.STATUS) {
+                checkName(EventStatus.class, value);
+            }
+            patterns.add(glob(value));
+        }
+
+        Predicate<String> any = value -> {
+            if (value == null) {
+                return false;
+            }
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(value).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        };
+        return new Clause(index, text, field, negated ? any.negate() : any);
+    }
+
+    private static <E extends Enum<E>> void checkName(Class<E> type, String value) {
+        if (value.contains("*")) {
+            return;
+        }
+        try {
+            Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown " + type.getSimpleName() + " in filter: " + value);
+        }
+    }
+
+    private static Pattern glob(String value) {
+        StringBuilder regex = new StringBuilder();
+        for (String part : value.split("\\*", -1)) {
+            if (!regex.isEmpty()) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(part));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    // the first clause the run fails, or null when it is monitored
+    public Clause rejecting(WorkflowRun run) {
+        for (Clause clause : runClauses) {
+            String value = switch (clause.field()) {
+                case BRANCH -> run.headBranch();
+                case WORKFLOW -> run.name();
+                default -> run.actorLogin();
+            };
+            if (!clause.matches(value)) {
+                return clause;
+            }
+        }
+        return null;
+    }
+
+    public boolean accepts(WorkflowEvent event) {
+        for (Clause clause : eventClauses) {
+            String value = clause.field() == Field.LEVEL ? event.getLevel().name() : event.getStatus().name();
+            if (!clause.matches(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean matches(WorkflowEvent event) {
+        for (Clause clause : clauses) {
+            String value = switch (clause.field()) {
+                case BRANCH -> event.getBranch();
+                case WORKFLOW -> event.getWorkflow();
+                case LEVEL -> event.getLevel().name();
+                case STATUS -> event.getStatus().name();
+                case ACTOR -> null;
+            };
+            if (!clause.matches(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean fetchesJobs() {
+        return jobsExcludedBy == null;
+    }
+
+    public Clause jobsExcludedBy() {
+        return jobsExcludedBy;
+    }
+
+    public boolean mapsSteps() {
+        return levels.contains(WorkflowLevel.STEP);
+    }
+
+    public List<Clause> clauses() {
+        return clauses;
+    }
+
+    public boolean isEmpty() {
+        return clauses.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
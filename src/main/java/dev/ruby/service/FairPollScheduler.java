@@ -0,0 +1,229 @@
+package dev.ruby.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import dev.ruby.client.RateBudget;
+
+// polls many repositories from a fixed number of slots. each repository's next due time comes from its own
+// PollingPolicy, and a free slot always goes to the repository that has been due the longest: busy
+// repositories come due more often and get more cycles, quiet ones still run once their turn is overdue.
+// urgent targets (HIGH priority lanes) do not wait for a slot: they run as soon as they are due
+public class FairPollScheduler {
+    // repository is the key the target was added under, owner/repo or owner/repo#lane
+    public record Status(String repository, long cycles, PollingPolicy.Decision lastDecision) {
+    }
+
+    private static final class Target {
+        private final String repository;
+        private final Pollable monitor;
+        private final RateBudget rateBudget;
+        private final PollingPolicy policy;
+        private final boolean urgent;
+        private long dueAtNanos;
+        private long sequence;
+        private long cycles;
+        private boolean running;
+        private boolean removed;
+        private PollingPolicy.Decision lastDecision = new PollingPolicy.Decision(Duration.ZERO,
+                PollingPolicy.Reason.IDLE);
+
+        private Target(String repository, Pollable monitor, RateBudget rateBudget, PollingPolicy policy,
+                boolean urgent) {
+            this.repository = repository;
+            this.monitor = monitor;
+            this.rateBudget = rateBudget;
+            this.policy = policy;
+            this.urgent = urgent;
+        }
+    }
+
+    private static final Comparator<Target> BY_DUE_TIME = Comparator.<Target>comparingLong(t -> t.dueAtNanos)
+            .thenComparingLong(t -> t.sequence);
+
+    private final int slots;
+    private final Map<String, Target> targets = new LinkedHashMap<>();
+    private final PriorityQueue<Target> due = new PriorityQueue<>(BY_DUE_TIME);
+    private final PriorityQueue<Target> urgentDue = new PriorityQueue<>(BY_DUE_TIME);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private Thread dispatcher;
+    private long nextSequence;
+    private int running;
+    // of the running cycles, those of urgent targets; they do not hold a slot
+    private int runningUrgent;
+    private boolean stopped;
+
+    public FairPollScheduler(int slots) {
+        if (slots < 1) {
+            throw new IllegalArgumentException("slots must be at least 1: " + slots);
+        }
+        this.slots = slots;
+    }
+
+    public void add(String repository, Pollable monitor, RateBudget rateBudget, PollingPolicy policy) {
+        add(repository, monitor, rateBudget, policy, false);
+    }
+
+    public void add(String repository, Pollable monitor, RateBudget rateBudget, PollingPolicy policy,
+            boolean urgent) {
+        Target target = new Target(repository, monitor, rateBudget, policy, urgent);
+        lock.lock();
+        try {
+            if (targets.putIfAbsent(repository, target) != null) {
+                throw new IllegalArgumentException("already scheduled: " + repository);
+            }
+            enqueue(target, System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // takes a repository out of rotation, waiting for its running cycle (if any) to finish
+    public boolean remove(String repository) throws InterruptedException {
+        lock.lock();
+        try {
+            Target target = targets.remove(repository);
+            if (target == null) {
+                return false;
+            }
+            target.removed = true;
+            queue(target).remove(target);
+            while (target.running) {
+                changed.await();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void start() {
+        dispatcher = Thread.ofPlatform().name("poll-dispatcher").start(this::dispatch);
+    }
+
+    // stops handing out slots; cycles already running finish
+    public void shutdown() {
+        lock.lock();
+        try {
+            stopped = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean awaitTermination(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        lock.lock();
+        try {
+            while (running > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                changed.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+        workers.shutdown();
+        if (dispatcher != null) {
+            dispatcher.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+        return workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    public List<Status> getStatuses() {
+        lock.lock();
+        try {
+            List<Status> statuses = new ArrayList<>(targets.size());
+            for (Target target : targets.values()) {
+                statuses.add(new Status(target.repository, target.cycles, target.lastDecision));
+            }
+            return statuses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch() {
+        lock.lock();
+        try {
+            while (!stopped) {
+                Target next = urgentDue.peek();
+                Target regular = running - runningUrgent < slots ? due.peek() : null;
+                if (next == null || regular != null && BY_DUE_TIME.compare(regular, next) < 0) {
+                    next = regular;
+                }
+                if (next == null) {
+                    changed.await();
+                    continue;
+                }
+                long wait = next.dueAtNanos - System.nanoTime();
+                if (wait > 0) {
+                    changed.awaitNanos(wait);
+                    continue;
+                }
+                Target target = queue(next).poll();
+                target.running = true;
+                running++;
+                runningUrgent += target.urgent ? 1 : 0;
+                workers.execute(() -> cycle(target));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cycle(Target target) {
+        PollingPolicy.Decision decision = target.lastDecision;
+        try {
+            target.monitor.run();
+            decision = target.policy.next(target.monitor.getLastCycleStats(), target.rateBudget.snapshot(),
+                    Instant.now());
+        } catch (RuntimeException e) {
+            System.err.println("Error polling " + target.repository + ": " + e.getMessage());
+        } finally {
+            lock.lock();
+            try {
+                running--;
+                runningUrgent -= target.urgent ? 1 : 0;
+                target.running = false;
+                target.cycles++;
+                target.lastDecision = decision;
+                if (!stopped && !target.removed) {
+                    enqueue(target, System.nanoTime() + decision.interval().toNanos());
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void enqueue(Target target, long dueAtNanos) {
+        target.dueAtNanos = dueAtNanos;
+        target.sequence = nextSequence++;
+        queue(target).add(target);
+        changed.signalAll();
+    }
+
+    private PriorityQueue<Target> queue(Target target) {
+        return target.urgent ? urgentDue : due;
+    }
+}
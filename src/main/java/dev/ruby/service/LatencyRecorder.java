@@ -0,0 +1,49 @@
+package dev.ruby.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+// the most recent latencies in a ring; percentiles are computed on read, which happens rarely
+public class LatencyRecorder {
+    public static final int DEFAULT_SAMPLES = 4096;
+
+    public record Summary(long count, Duration p50, Duration p99) {
+        @Override
+        public String toString() {
+            return String.format("p50 %.1fs, p99 %.1fs (%d events)", p50.toMillis() / 1000.0, p99.toMillis() / 1000.0,
+                    count);
+        }
+    }
+
+    private final long[] millis;
+    private long count;
+
+    public LatencyRecorder() {
+        this(DEFAULT_SAMPLES);
+    }
+
+    public LatencyRecorder(int samples) {
+        this.millis = new long[samples];
+    }
+
+    public synchronized void record(Duration latency) {
+        millis[(int) (count++ % millis.length)] = Math.max(0, latency.toMillis());
+    }
+
+    // percentiles over the retained samples, count over everything recorded
+    public synchronized Summary summary() {
+        int size = (int) Math.min(count, millis.length);
+        if (size == 0) {
+            return new Summary(0, Duration.ZERO, Duration.ZERO);
+        }
+        long[] sorted = Arrays.copyOf(millis, size);
+        Arrays.sort(sorted);
+        return new Summary(count, Duration.ofMillis(percentile(sorted, 0.50)),
+                Duration.ofMillis(percentile(sorted, 0.99)));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
@@ -0,0 +1,490 @@
+package dev.ruby.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import dev.ruby.client.GitHubClient;
+import dev.ruby.client.RateBudget;
+import dev.ruby.client.ResponseCache;
+import dev.ruby.cluster.ClusterDirectory;
+import dev.ruby.cluster.ClusterNode;
+import dev.ruby.config.MonitorConfig;
+import dev.ruby.metrics.MetricsServer;
+import dev.ruby.metrics.MonitorMetrics;
+import dev.ruby.metrics.PrometheusText;
+import dev.ruby.output.AsyncEventSink;
+import dev.ruby.output.EventSink;
+import dev.ruby.persistence.AsyncStatePersister;
+import dev.ruby.persistence.MonitorState;
+import dev.ruby.persistence.StateBackend;
+import dev.ruby.server.EventBroadcaster;
+import dev.ruby.server.SseServer;
+
+// one WorkflowMonitor per configured repository. the HttpClient (and its connection pool) and the response
+// cache are shared by all of them, there is one RateBudget per token, and state stays per repository. states
+// are written by a shared pool of writer threads, off the polling threads, and events by one AsyncEventSink.
+// with backfillFrom set, every repository also gets a Backfill, checkpointed next to its state.
+// in cluster mode the ClusterNode decides which repositories this process monitors, and a member only saves
+// and reports while its lease's fence is valid: the first save or event after that drops it.
+// every cycle, request, save and event is counted in one MonitorMetrics, served on /metrics when a metrics
+// address is set. with a serve address, every event is also published to an EventBroadcaster and streamed to
+// subscribers by an SseServer; they share the fleet's polling, so subscribers add no API calls
+public class MonitorFleet {
+    // fence is null outside a cluster
+    public record Member(MonitorConfig.Repository repository, GitHubClient client, AsyncStatePersister stateStore,
+            WorkflowMonitor monitor, Backfill backfill, ClusterNode.Fence fence) {
+    }
+
+    private final MonitorConfig config;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ResponseCache responseCache;
+    private final Map<String, RateBudget> budgetsByToken = new HashMap<>();
+    private final Map<String, Integer> reposPerToken = new HashMap<>();
+    private final Map<String, MonitorConfig.Repository> repositories = new LinkedHashMap<>();
+    private final Map<String, Member> members = new LinkedHashMap<>();
+    private final FairPollScheduler scheduler;
+    private final ExecutorService stateWriters = Executors.newVirtualThreadPerTaskExecutor();
+    // checks every repository's save delay between cycles, and retries writes that failed
+    private final ScheduledExecutorService saveTimer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofVirtual().name("save-timer").factory());
+    private final AsyncEventSink eventSink;
+    private final MonitorMetrics metrics = new MonitorMetrics();
+    private final EventSink countedSink;
+    private final ClusterNode clusterNode;
+    private final EventBroadcaster broadcaster;
+    private MetricsServer metricsServer;
+    private SseServer sseServer;
+    private final Set<ClusterNode.Fence> fencing = ConcurrentHashMap.newKeySet();
+
+    public MonitorFleet(MonitorConfig config) {
+        this.config = config;
+        this.responseCache = new ResponseCache(config.cacheEntries());
+        this.scheduler = new FairPollScheduler(config.slots());
+        if (config.stateDir() != null) {
+            config.stateDir().mkdirs();
+        }
+        try {
+            this.eventSink = config.options().output().open(config.options().showRepository());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open event output " + config.options().output().file(), e);
+        }
+        this.countedSink = metrics.countingEvents(eventSink);
+        this.broadcaster = config.options().serveAddress() != null ? new EventBroadcaster() : null;
+
+        for (MonitorConfig.Repository repository : config.repositories()) {
+            repositories.put(repository.fullName(), repository);
+            // shares count every repository on the token, including those other cluster nodes monitor
+            reposPerToken.merge(repository.token(), 1, Integer::sum);
+        }
+
+        if (config.cluster() == null) {
+            this.clusterNode = null;
+            for (MonitorConfig.Repository repository : config.repositories()) {
+                add(repository, null);
+            }
+        } else {
+            this.clusterNode = createClusterNode(config.cluster());
+        }
+    }
+
+    public void start() {
+        metrics.addCollector(this::collectGauges);
+        InetSocketAddress metricsAddress = config.options().metricsAddress();
+        if (metricsAddress != null) {
+            try {
+                metricsServer = new MetricsServer(metrics, metricsAddress);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot serve metrics on " + metricsAddress, e);
+            }
+            System.err.println("Serving metrics on http://" + metricsServer.getAddress().getHostString() + ":"
+                    + metricsServer.getAddress().getPort() + "/metrics");
+        }
+        InetSocketAddress serveAddress = config.options().serveAddress();
+        if (serveAddress != null) {
+            broadcaster.start();
+            try {
+                sseServer = new SseServer(broadcaster, serveAddress);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot serve events on " + serveAddress, e);
+            }
+            System.err.println("Serving events on http://" + sseServer.getAddress().getHostString() + ":"
+                    + sseServer.getAddress().getPort() + "/events");
+        }
+        scheduler.start();
+        long savePeriodMillis = Math.max(1000, config.options().saveDelay().toMillis());
+        saveTimer.scheduleWithFixedDelay(this::checkSaves, savePeriodMillis, savePeriodMillis, TimeUnit.MILLISECONDS);
+        if (clusterNode != null) {
+            clusterNode.start();
+        }
+    }
+
+    private void checkSaves() {
+        for (Member member : getMembers()) {
+            try {
+                member.monitor().checkSave();
+            } catch (RuntimeException e) {
+                System.err.println("Save error for " + member.repository().fullName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // stops scheduling, waits for running cycles and saves every repository's state; cluster nodes also
+    // release their leases so that the remaining nodes take over right away
+    public void shutdown(Duration timeout) throws InterruptedException {
+        if (clusterNode != null) {
+            try {
+                clusterNode.close();
+            } catch (IOException e) {
+                System.err.println("Cannot leave cluster: " + e.getMessage());
+            }
+        }
+        scheduler.shutdown();
+        saveTimer.shutdownNow();
+        try {
+            if (!scheduler.awaitTermination(timeout)) {
+                System.err.println("Shutdown timed out waiting for running cycles");
+            }
+        } finally {
+            // close() flushes what is still waiting for the writers
+            for (Member member : getMembers()) {
+                stopBackfill(member);
+                reportSavedCalls(member);
+                reportDetectionLatencies(member);
+                member.stateStore().save(member.monitor().getState());
+                member.stateStore().close();
+            }
+            stateWriters.shutdown();
+            eventSink.close();
+            System.err.println("Event output: " + eventSink.stats());
+            if (sseServer != null) {
+                sseServer.close();
+            }
+            if (metricsServer != null) {
+                metricsServer.close();
+            }
+        }
+    }
+
+    public synchronized List<Member> getMembers() {
+        return new ArrayList<>(members.values());
+    }
+
+    public FairPollScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public AsyncEventSink getEventSink() {
+        return eventSink;
+    }
+
+    public MonitorMetrics getMetrics() {
+        return metrics;
+    }
+
+    // null without a serve address
+    public EventBroadcaster getBroadcaster() {
+        return broadcaster;
+    }
+
+    private synchronized void add(MonitorConfig.Repository repository, ClusterNode.Fence fence) {
+        if (members.containsKey(repository.fullName())) {
+            return;
+        }
+        MonitorOptions options = config.options();
+        RateBudget rateBudget = budgetsByToken.computeIfAbsent(repository.token(), token -> new RateBudget());
+        GitHubClient client = new GitHubClient(config.apiUrl(), repository.owner(), repository.repo(),
+                repository.token(), httpClient, responseCache, rateBudget, metrics.api());
+        StateBackend backend = metrics.timingSaves(options.stateFormat().open(config.stateDir(),
+                repository.owner() + "-" + repository.repo(), options.retention()));
+        if (fence != null) {
+            backend = new FencedBackend(backend, repository.fullName(), fence);
+        }
+        // a cluster member's state is what the next owner starts from after a crash, so it is written at the end of
+        // every cycle instead of after the save delay
+        AsyncStatePersister stateStore = fence != null
+                ? AsyncStatePersister.writeThrough(backend, stateWriters, options.retention())
+                : new AsyncStatePersister(backend, stateWriters, options.retention(), options.saveDelay(),
+                        options.saveChanges());
+        WorkflowMonitor monitor = new WorkflowMonitor(client, stateStore, options, memberSink(repository, fence));
+        PollingPolicy policy = new PollingPolicy(options.minPollInterval(), options.basePollInterval(),
+                options.maxPollInterval(), reposPerToken.get(repository.token()));
+
+        Backfill backfill = null;
+        if (options.backfillFrom() != null) {
+            File checkpointFile = new File(config.stateDir(),
+                    repository.owner() + "-" + repository.repo() + "-backfill.json");
+            backfill = new Backfill(client, monitor, options.runFilter(), checkpointFile, options.backfillFrom(),
+                    Instant.now());
+        }
+
+        members.put(repository.fullName(), new Member(repository, client, stateStore, monitor, backfill,
+                fence));
+        scheduler.add(repository.fullName(), new MeteredCycle(monitor, false), rateBudget, policy);
+        // a lane polls at its own fixed interval, only a rate limit backoff delays it
+        for (PollLane lane : options.lanes()) {
+            scheduler.add(laneKey(repository.fullName(), lane), new MeteredCycle(monitor.getLane(lane.name()), true),
+                    rateBudget,
+                    new PollingPolicy(lane.interval(), lane.interval(), lane.interval()),
+                    lane.priority() == PollLane.Priority.HIGH);
+        }
+        if (backfill != null) {
+            backfill.start();
+        }
+    }
+
+    // subscribers always get the repository, whether or not the output shows it
+    private EventSink memberSink(MonitorConfig.Repository repository, ClusterNode.Fence fence) {
+        if (broadcaster == null && fence == null) {
+            return countedSink;
+        }
+        return (event, label) -> {
+            if (fence != null && !fence.isValid()) {
+                fencedOut(repository.fullName(), fence);
+                return;
+            }
+            countedSink.accept(event, label);
+            if (broadcaster != null) {
+                broadcaster.accept(event, repository.fullName());
+            }
+        };
+    }
+
+    // the lease ran out under a running member: drop it off the polling thread, unless it was replaced already
+    private void fencedOut(String fullName, ClusterNode.Fence fence) {
+        Member member;
+        synchronized (this) {
+            member = members.get(fullName);
+        }
+        if (member == null || member.fence() != fence || !fencing.add(fence)) {
+            return;
+        }
+        System.err.println("Lease of " + fullName + " ran out, dropping it");
+        Thread.ofVirtual().start(() -> {
+            try {
+                remove(fullName, false, fence);
+            } finally {
+                fencing.remove(fence);
+            }
+        });
+    }
+
+    private void remove(String fullName, boolean saveState) {
+        remove(fullName, saveState, null);
+    }
+
+    // with a fence, only the member holding it is removed
+    private void remove(String fullName, boolean saveState, ClusterNode.Fence fence) {
+        Member member;
+        synchronized (this) {
+            member = members.get(fullName);
+            if (member == null || (fence != null && member.fence() != fence)) {
+                return;
+            }
+            members.remove(fullName);
+        }
+        stopBackfill(member);
+        reportSavedCalls(member);
+        reportDetectionLatencies(member);
+        try {
+            for (PollLane lane : config.options().lanes()) {
+                scheduler.remove(laneKey(fullName, lane));
+            }
+            scheduler.remove(fullName);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (saveState) {
+            member.stateStore().save(member.monitor().getState());
+        }
+        member.stateStore().close();
+    }
+
+    private void stopBackfill(Member member) {
+        if (member.backfill() == null) {
+            return;
+        }
+        try {
+            member.backfill().stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reportSavedCalls(Member member) {
+        Map<String, Long> saved = member.monitor().getSavedCalls();
+        if (saved.isEmpty()) {
+            return;
+        }
+        long total = saved.values().stream().mapToLong(Long::longValue).sum();
+        StringBuilder line = new StringBuilder("Filter saved " + total + " API calls for " +
+                member.repository().fullName() + ":");
+        saved.forEach((clause, calls) -> line.append(" [").append(clause).append("] ").append(calls));
+        System.err.println(line);
+    }
+
+    private void reportDetectionLatencies(Member member) {
+        if (config.options().lanes().isEmpty()) {
+            return;
+        }
+        StringBuilder line = new StringBuilder("Detection latency for " + member.repository().fullName() + ":");
+        member.monitor().getDetectionLatencies().forEach((lane, summary) -> line.append(" [")
+                .append(lane.isEmpty() ? "repository" : lane).append("] ").append(summary));
+        System.err.println(line);
+    }
+
+    // values kept by the monitors, clients and stores, read when /metrics is scraped
+    private void collectGauges(PrometheusText out) {
+        List<Member> current = getMembers();
+        out.metric("github_monitor_active_runs", "gauge", "Runs in progress at the end of the last cycle");
+        for (Member member : current) {
+            out.sample("github_monitor_active_runs", repositoryLabel(member),
+                    member.monitor().getLastCycleStats().activeRuns());
+        }
+        out.metric("github_monitor_seen_events", "gauge", "Event keys remembered to suppress duplicates");
+        for (Member member : current) {
+            out.sample("github_monitor_seen_events", repositoryLabel(member),
+                    member.monitor().getSeenEventCount());
+        }
+        out.metric("github_monitor_rate_limit_remaining", "gauge",
+                "Requests left in the rate limit window of the repository's token, -1 until the first response");
+        for (Member member : current) {
+            out.sample("github_monitor_rate_limit_remaining", repositoryLabel(member),
+                    member.client().getRateBudget().snapshot().remaining());
+        }
+        out.metric("github_monitor_state_bytes", "gauge", "Size of the state files on disk");
+        for (Member member : current) {
+            out.sample("github_monitor_state_bytes", repositoryLabel(member), member.stateStore().storedBytes());
+        }
+        AsyncEventSink.Stats sinkStats = eventSink.stats();
+        out.metric("github_monitor_event_queue_depth", "gauge", "Events waiting for the output writer");
+        out.sample("github_monitor_event_queue_depth", "", sinkStats.queueDepth());
+        out.metric("github_monitor_events_dropped_total", "counter", "Events dropped by a full output queue");
+        out.sample("github_monitor_events_dropped_total", "", sinkStats.dropped());
+        if (sseServer != null) {
+            out.metric("github_monitor_subscribers", "gauge", "Clients streaming events");
+            out.sample("github_monitor_subscribers", "", sseServer.getSubscribers());
+            out.metric("github_monitor_broadcast_events_total", "counter", "Events published to subscribers");
+            out.sample("github_monitor_broadcast_events_total", "", broadcaster.next());
+        }
+    }
+
+    private static String repositoryLabel(Member member) {
+        return PrometheusText.label("repository", member.repository().fullName());
+    }
+
+    // times a repository's or a lane's cycles for the cycle duration histograms
+    private final class MeteredCycle implements Pollable {
+        private final Pollable cycle;
+        private final boolean lane;
+
+        private MeteredCycle(Pollable cycle, boolean lane) {
+            this.cycle = cycle;
+            this.lane = lane;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                cycle.run();
+            } finally {
+                metrics.cycle(lane, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public CycleStats getLastCycleStats() {
+            return cycle.getLastCycleStats();
+        }
+    }
+
+    // saves only while the fence is valid; what a lost lease leaves unsaved is the new owner's to redo
+    private final class FencedBackend implements StateBackend {
+        private final StateBackend backend;
+        private final String fullName;
+        private final ClusterNode.Fence fence;
+
+        private FencedBackend(StateBackend backend, String fullName, ClusterNode.Fence fence) {
+            this.backend = backend;
+            this.fullName = fullName;
+            this.fence = fence;
+        }
+
+        @Override
+        public MonitorState load() {
+            return backend.load();
+        }
+
+        @Override
+        public void save(MonitorState state) {
+            if (!fence.isValid()) {
+                System.err.println("Not saving " + fullName + ": lease generation " + fence.generation()
+                        + " is no longer held");
+                fencedOut(fullName, fence);
+                return;
+            }
+            backend.save(state);
+        }
+
+        @Override
+        public long storedBytes() {
+            return backend.storedBytes();
+        }
+
+        @Override
+        public void close() {
+            backend.close();
+        }
+    }
+
+    private static String laneKey(String fullName, PollLane lane) {
+        return fullName + "#" + lane.name();
+    }
+
+    private ClusterNode createClusterNode(MonitorConfig.Cluster cluster) {
+        try {
+            ClusterDirectory directory = new ClusterDirectory(cluster.directory());
+            return new ClusterNode(directory, cluster.nodeId(), cluster.leaseDuration(),
+                    List.copyOf(repositories.keySet()), new ClusterNode.Listener() {
+                        @Override
+                        public void acquired(String repository, ClusterNode.Fence fence) {
+                            System.err.println("Node " + cluster.nodeId() + " monitoring " + repository);
+                            add(repositories.get(repository), fence);
+                        }
+
+                        @Override
+                        public void released(String repository) {
+                            remove(repository, true);
+                        }
+
+                        @Override
+                        public void lost(String repository) {
+                            System.err.println("Node " + cluster.nodeId() + " lost the lease for " + repository);
+                            remove(repository, false);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cluster directory " + cluster.directory(), e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package dev.ruby.service;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import dev.ruby.client.RunQuery;
+import dev.ruby.output.OutputOptions;
+import dev.ruby.persistence.StateFormat;
+
+public record MonitorOptions(
+        int fetchConcurrency,
+        Duration jobRefreshInterval,
+        Duration minPollInterval,
+        Duration basePollInterval,
+        Duration maxPollInterval,
+        boolean showRepository,
+        Duration retention,
+        StateFormat stateFormat,
+        Duration saveDelay,
+        int saveChanges,
+        Instant backfillFrom,
+        RunQuery runFilter,
+        RunQueryPlanner.Strategy runQueries,
+        EventFilter eventFilter,
+        List<PollLane> lanes,
+        OutputOptions output,
+        InetSocketAddress metricsAddress,
+        InetSocketAddress serveAddress) {
+
+    public static final int DEFAULT_FETCH_CONCURRENCY = 8;
+    public static final Duration DEFAULT_JOB_REFRESH_INTERVAL = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_MIN_POLL_INTERVAL = Duration.ofSeconds(2);
+    public static final Duration DEFAULT_BASE_POLL_INTERVAL = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_MAX_POLL_INTERVAL = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_RETENTION = Duration.ofDays(7);
+    public static final Duration DEFAULT_SAVE_DELAY = Duration.ofSeconds(10);
+    public static final int DEFAULT_SAVE_CHANGES = 1000;
+
+    public MonitorOptions {
+        if (fetchConcurrency < 1) {
+            throw new IllegalArgumentException("fetchConcurrency must be at least 1: " + fetchConcurrency);
+        }
+        if (jobRefreshInterval.isNegative()) {
+            throw new IllegalArgumentException("jobRefreshInterval must not be negative: " + jobRefreshInterval);
+        }
+        if (minPollInterval.isNegative() || minPollInterval.compareTo(basePollInterval) > 0
+                || basePollInterval.compareTo(maxPollInterval) > 0) {
+            throw new IllegalArgumentException("poll intervals must satisfy 0 <= min <= base <= max: "
+                    + minPollInterval + ", " + basePollInterval + ", " + maxPollInterval);
+        }
+        if (retention.compareTo(Duration.ofHours(1)) < 0) {
+            throw new IllegalArgumentException("retention must be at least one hour: " + retention);
+        }
+        if (stateFormat == null) {
+            throw new IllegalArgumentException("stateFormat is required");
+        }
+        if (saveDelay.isNegative()) {
+            throw new IllegalArgumentException("saveDelay must not be negative: " + saveDelay);
+        }
+        if (saveChanges < 1) {
+            throw new IllegalArgumentException("saveChanges must be at least 1: " + saveChanges);
+        }
+        if (runFilter == null || runFilter.status() != null || runFilter.createdFrom() != null) {
+            throw new IllegalArgumentException("runFilter may only set branch, event and workflowId: " + runFilter);
+        }
+        if (runQueries == null) {
+            throw new IllegalArgumentException("runQueries is required");
+        }
+        if (eventFilter == null) {
+            throw new IllegalArgumentException("eventFilter is required");
+        }
+        lanes = List.copyOf(lanes);
+        Set<String> laneNames = new HashSet<>();
+        Set<Long> laneWorkflows = new HashSet<>();
+        for (PollLane lane : lanes) {
+            if (!laneNames.add(lane.name())) {
+                throw new IllegalArgumentException("duplicate lane: " + lane.name());
+            }
+            for (long workflowId : lane.workflowIds()) {
+                if (!laneWorkflows.add(workflowId)) {
+                    throw new IllegalArgumentException("workflow " + workflowId + " is in more than one lane");
+                }
+            }
+        }
+        if (!lanes.isEmpty() && runFilter.workflowId() != null) {
+            throw new IllegalArgumentException("lanes cannot be combined with a workflowId filter");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("output is required");
+        }
+    }
+
+    public static MonitorOptions defaults() {
+        return new MonitorOptions(DEFAULT_FETCH_CONCURRENCY, DEFAULT_JOB_REFRESH_INTERVAL, DEFAULT_MIN_POLL_INTERVAL,
+                DEFAULT_BASE_POLL_INTERVAL, DEFAULT_MAX_POLL_INTERVAL, false, DEFAULT_RETENTION,
+                StateFormat.JOURNAL, DEFAULT_SAVE_DELAY, DEFAULT_SAVE_CHANGES, null,
+                RunQuery.ALL, RunQueryPlanner.Strategy.SCAN, EventFilter.ALL, List.of(),
+                OutputOptions.defaults(), null, null);
+    }
+
+    public MonitorOptions withFetchConcurrency(int fetchConcurrency) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    public MonitorOptions withJobRefreshInterval(Duration jobRefreshInterval) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    public MonitorOptions withPollIntervals(Duration minPollInterval, Duration basePollInterval,
+            Duration maxPollInterval) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    // prefix every event with owner/repo, for processes that monitor more than one repository
+    public MonitorOptions withShowRepository(boolean showRepository) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    // how long seen events are remembered, so that a restart does not report them again
+    public MonitorOptions withRetention(Duration retention) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    public MonitorOptions withStateFormat(StateFormat stateFormat) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    // the state is written in the background once it has changed for saveDelay or by saveChanges events
+    public MonitorOptions withSaveThresholds(Duration saveDelay, int saveChanges) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    // also walk the runs created since backfillFrom, beyond what live polling reads; null for none
+    public MonitorOptions withBackfillFrom(Instant backfillFrom) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    // only runs matching the filter are monitored; the filter is applied by the server
+    public MonitorOptions withRunFilter(RunQuery runFilter) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    public MonitorOptions withRunQueries(RunQueryPlanner.Strategy runQueries) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    // runs and events outside the filter are dropped before they cost API calls, see EventFilter
+    public MonitorOptions withEventFilter(EventFilter eventFilter) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    // workflows polled on their own interval, see PollLane
+    public MonitorOptions withLanes(List<PollLane> lanes) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    // how the fleet writes events, see AsyncEventSink
+    public MonitorOptions withOutput(OutputOptions output) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    // where /metrics is served, see MetricsServer; null for nowhere
+    public MonitorOptions withMetricsAddress(InetSocketAddress metricsAddress) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+
+    // where events are streamed to subscribers, see SseServer; null for nowhere
+    public MonitorOptions withServeAddress(InetSocketAddress serveAddress) {
+        return new MonitorOptions(fetchConcurrency, jobRefreshInterval, minPollInterval, basePollInterval,
+                maxPollInterval, showRepository, retention, stateFormat, saveDelay, saveChanges, backfillFrom,
+                runFilter, runQueries, eventFilter, lanes, output, metricsAddress, serveAddress);
+    }
+}
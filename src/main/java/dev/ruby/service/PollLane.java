@@ -0,0 +1,59 @@
+package dev.ruby.service;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import dev.ruby.client.RequestPriority;
+
+// a set of workflows polled on their own fixed interval through /actions/workflows/{id}/runs, next to the
+// repository-wide cycle, which leaves their runs to the lane. HIGH lanes are dispatched without waiting for a
+// free scheduler slot and their requests are served first when the rate budget queues them
+public record PollLane(String name, Set<Long> workflowIds, Duration interval, Priority priority) {
+    public enum Priority {
+        HIGH, NORMAL;
+
+        RequestPriority requestPriority() {
+            return this == HIGH ? RequestPriority.ACTIVE : RequestPriority.LIVE;
+        }
+    }
+
+    public PollLane {
+        if (name == null || name.isBlank() || name.contains("#")) {
+            throw new IllegalArgumentException("lane name must not be blank or contain '#': " + name);
+        }
+        if (workflowIds == null || workflowIds.isEmpty()) {
+            throw new IllegalArgumentException("lane " + name + " needs at least one workflow id");
+        }
+        if (interval == null || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("lane " + name + " needs a positive interval: " + interval);
+        }
+        if (priority == null) {
+            throw new IllegalArgumentException("lane " + name + " needs a priority");
+        }
+        workflowIds = Set.copyOf(workflowIds);
+    }
+
+    // NAME:ID[,ID...]:SECONDS[:high|normal], e.g. deploy:1021,1022:3:high
+    public static PollLane parse(String value) {
+        String[] parts = value.split(":");
+        if (parts.length < 3 || parts.length > 4) {
+            throw new IllegalArgumentException("lane must be NAME:IDS:SECONDS[:PRIORITY]: " + value);
+        }
+        Set<Long> workflowIds = new LinkedHashSet<>();
+        for (String id : parts[1].split(",")) {
+            workflowIds.add(Long.parseLong(id.trim()));
+        }
+        return new PollLane(parts[0], workflowIds, Duration.ofSeconds(Long.parseLong(parts[2])),
+                parts.length == 4 ? parsePriority(parts[3]) : Priority.NORMAL);
+    }
+
+    public static Priority parsePriority(String value) {
+        try {
+            return Priority.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown lane priority: " + value);
+        }
+    }
+}
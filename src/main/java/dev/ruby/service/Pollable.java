@@ -0,0 +1,6 @@
+package dev.ruby.service;
+
+// what the FairPollScheduler runs: a repository's WorkflowMonitor or one of its lanes
+public interface Pollable extends Runnable {
+    CycleStats getLastCycleStats();
+}
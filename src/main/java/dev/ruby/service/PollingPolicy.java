@@ -0,0 +1,98 @@
+package dev.ruby.service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import dev.ruby.client.RateBudget;
+
+// picks the delay before the next cycle: short while runs are active, exponential backoff while idle,
+// never faster than this repository's share of the remaining rate-limit budget can sustain
+public class PollingPolicy {
+    public enum Reason {
+        ACTIVE_RUNS, EVENTS, IDLE, RATE_BUDGET, RATE_LIMITED
+    }
+
+    public record Decision(Duration interval, Reason reason) {
+    }
+
+    private final Duration minInterval;
+    private final Duration baseInterval;
+    private final Duration maxInterval;
+    private final int budgetShares;
+    private int idleCycles;
+
+    public PollingPolicy(Duration minInterval, Duration baseInterval, Duration maxInterval) {
+        this(minInterval, baseInterval, maxInterval, 1);
+    }
+
+    // budgetShares: how many repositories spend the same token's budget
+    public PollingPolicy(Duration minInterval, Duration baseInterval, Duration maxInterval, int budgetShares) {
+        if (budgetShares < 1) {
+            throw new IllegalArgumentException("budgetShares must be at least 1: " + budgetShares);
+        }
+        this.minInterval = minInterval;
+        this.baseInterval = baseInterval;
+        this.maxInterval = maxInterval;
+        this.budgetShares = budgetShares;
+    }
+
+    public Decision next(CycleStats stats, RateBudget.Snapshot budget, Instant now) {
+        Duration interval;
+        Reason reason;
+
+        if (stats.activeRuns() > 0) {
+            idleCycles = 0;
+            interval = minInterval;
+            reason = Reason.ACTIVE_RUNS;
+        } else if (stats.eventsEmitted() > 0) {
+            idleCycles = 0;
+            interval = minInterval;
+            reason = Reason.EVENTS;
+        } else {
+            interval = idleInterval(idleCycles);
+            idleCycles++;
+            reason = Reason.IDLE;
+        }
+
+        if (budget.backoffUntil().isAfter(now)) {
+            Duration untilBackoff = Duration.between(now, budget.backoffUntil());
+            if (untilBackoff.compareTo(interval) > 0) {
+                interval = untilBackoff;
+                reason = Reason.RATE_LIMITED;
+            }
+        }
+
+        Duration sustainable = sustainableInterval(stats.requestsCharged(), budget, now);
+        if (sustainable.compareTo(interval) > 0) {
+            interval = sustainable;
+            reason = Reason.RATE_BUDGET;
+        }
+
+        if (interval.compareTo(maxInterval) > 0 && reason != Reason.RATE_LIMITED) {
+            interval = maxInterval;
+        }
+        return new Decision(interval, reason);
+    }
+
+    private Duration idleInterval(int idleCycles) {
+        // base, 2x base, 4x base ... capped at max
+        long millis = baseInterval.toMillis() << Math.min(idleCycles, 20);
+        return millis > maxInterval.toMillis() || millis < 0 ? maxInterval : Duration.ofMillis(millis);
+    }
+
+    // the interval at which the calls charged per cycle, spent from an equal share of the remaining budget,
+    // last until the budget resets
+    private Duration sustainableInterval(long chargedCalls, RateBudget.Snapshot budget, Instant now) {
+        if (budget.limit() <= 0 || chargedCalls <= 0) {
+            return Duration.ZERO;
+        }
+        Duration untilReset = Duration.between(now, budget.resetAt());
+        if (untilReset.isNegative() || untilReset.isZero()) {
+            return Duration.ZERO;
+        }
+        if (budget.remaining() <= 0) {
+            return untilReset;
+        }
+        return untilReset.multipliedBy(chargedCalls * budgetShares).dividedBy(budget.remaining());
+    }
+}
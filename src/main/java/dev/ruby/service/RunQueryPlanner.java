@@ -0,0 +1,111 @@
+package dev.ruby.service;
+
+// picks the run list queries of a cycle:
+// - SCAN reads the unfiltered list newest first until a page holds nothing updated since the last cycle
+// - CREATED asks the server for the runs created since the last cycle only
+// - CREATED_AND_LIVE also lists the runs queued and in progress, which is how re-runs of older runs are found
+// tracked runs that none of the lists returned are fetched one by one, usually as free 304s.
+// the plan expected to transfer the fewest runs wins, then the one with fewer requests, estimated from what the
+// previous cycle saw. a list page comes back whole once anything on it moved, a single run only when it moved.
+// only SCAN sees a re-run of an older run that was queued and finished between two cycles, so only SCAN moves the
+// repository-wide cursor and every DISCOVERY_CYCLES-th cycle scans: such a re-run is reported late, never lost
+public class RunQueryPlanner {
+    public enum Strategy {
+        AUTO, SCAN;
+
+        public static Strategy parse(String value) {
+            try {
+                return valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown run query strategy: " + value);
+            }
+        }
+    }
+
+    public enum Plan {
+        SCAN, CREATED, CREATED_AND_LIVE
+    }
+
+    static final int PER_PAGE = 100;
+    static final int MAX_PAGES = 10;
+    // re-runs are only seen for sure by SCAN, so one runs at least this often
+    static final int DISCOVERY_CYCLES = 6;
+
+    private final Strategy strategy;
+    private boolean firstCycle = true;
+    private int cyclesSinceDiscovery;
+    // from the previous cycle: runs that were new to the monitor, tracked runs that moved, runs the created
+    // filter matches (new ones and those just before them) and tracked runs that a CREATED_AND_LIVE cycle still
+    // had to fetch one by one
+    private int newRuns;
+    private int movedActiveRuns;
+    private int createdRuns;
+    private int unlistedActiveRuns;
+
+    public RunQueryPlanner(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public Plan plan(int activeRuns) {
+        // the first scan also finds runs that were already in flight before the monitor started
+        if (strategy == Strategy.SCAN || firstCycle) {
+            return Plan.SCAN;
+        }
+        if (cyclesSinceDiscovery + 1 >= DISCOVERY_CYCLES) {
+            return Plan.SCAN;
+        }
+        return cheaper(cheaper(Plan.CREATED, Plan.CREATED_AND_LIVE, activeRuns), Plan.SCAN, activeRuns);
+    }
+
+    public void observe(Plan plan, int newRuns, int movedActiveRuns, int createdRuns, int fetchedActiveRuns) {
+        firstCycle = false;
+        cyclesSinceDiscovery = plan == Plan.SCAN ? 0 : cyclesSinceDiscovery + 1;
+        this.newRuns = newRuns;
+        this.movedActiveRuns = movedActiveRuns;
+        this.createdRuns = Math.max(newRuns, createdRuns);
+        if (plan == Plan.CREATED_AND_LIVE) {
+            unlistedActiveRuns = fetchedActiveRuns;
+        }
+    }
+
+    private Plan cheaper(Plan a, Plan b, int activeRuns) {
+        long byRuns = Long.compare(transferredRuns(a, activeRuns), transferredRuns(b, activeRuns));
+        if (byRuns != 0) {
+            return byRuns < 0 ? a : b;
+        }
+        return requests(b, activeRuns) < requests(a, activeRuns) ? b : a;
+    }
+
+    long transferredRuns(Plan plan, int activeRuns) {
+        boolean moved = newRuns + movedActiveRuns > 0;
+        return switch (plan) {
+            case SCAN -> (moved ? (long) scanPages() * PER_PAGE : 0) + movedActiveRuns;
+            case CREATED -> (moved ? createdRuns : 0) + movedActiveRuns;
+            case CREATED_AND_LIVE -> (moved ? createdRuns : 0)
+                    + (movedActiveRuns > 0 ? Math.min(activeRuns, MAX_PAGES * PER_PAGE) : 0)
+                    + Math.min(movedActiveRuns, unlistedActiveRuns);
+        };
+    }
+
+    int requests(Plan plan, int activeRuns) {
+        return switch (plan) {
+            case SCAN -> scanPages() + activeRuns;
+            case CREATED -> createdPages() + activeRuns;
+            case CREATED_AND_LIVE -> createdPages() + pages(activeRuns) + 1
+                    + Math.min(activeRuns, unlistedActiveRuns);
+        };
+    }
+
+    // a scan reads one page past the new runs, or just the first one when nothing happened
+    private int scanPages() {
+        return newRuns == 0 ? 1 : Math.min(MAX_PAGES, newRuns / PER_PAGE + 2);
+    }
+
+    private int createdPages() {
+        return pages(createdRuns);
+    }
+
+    private static int pages(int runs) {
+        return Math.max(1, Math.min(MAX_PAGES, (runs + PER_PAGE - 1) / PER_PAGE));
+    }
+}
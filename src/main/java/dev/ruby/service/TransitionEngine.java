@@ -0,0 +1,225 @@
+package dev.ruby.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowStep;
+import dev.ruby.mapper.EventMapper;
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.RunSnapshot;
+import dev.ruby.model.WorkflowEvent;
+
+// last known status of every unfinished run and of its jobs and steps. a fetched run is turned into events
+// only for what moved since the previous cycle (QUEUED -> STARTED, STARTED -> SUCCESS, a new run_attempt),
+// so unchanged jobs and steps cost a status comparison instead of an event, a key and a hash lookup.
+// the tracked runs are exported as RunSnapshots for MonitorState and restored from them after a restart
+public class TransitionEngine {
+    private static final EventStatus[] NO_STEPS = new EventStatus[0];
+
+    private final long jobRefreshNanos;
+    // false when no step events are wanted; steps are then neither mapped nor tracked
+    private final boolean mapSteps;
+    private final Map<Long, RunState> runs = new HashMap<>();
+    // whether anything a RunSnapshot holds changed since the last snapshot()
+    private boolean modified;
+
+    private static final class RunState {
+        private final int attempt;
+        private EventStatus status;
+        private boolean started;
+        private Instant updatedAt;
+        private long jobsFetchedAtNanos;
+        // true until a fetch shows started jobs that have all finished; no jobs, or only queued ones, are not done
+        private boolean hasUnfinishedJobs = true;
+        private final Map<Long, JobState> jobs = new HashMap<>();
+
+        private RunState(int attempt) {
+            this.attempt = attempt;
+        }
+    }
+
+    private static final class JobState {
+        private EventStatus status;
+        private boolean started;
+        // status of each started step by step number, from step 1; null until the step starts
+        private EventStatus[] steps = NO_STEPS;
+    }
+
+    public TransitionEngine(Duration jobRefreshInterval) {
+        this(jobRefreshInterval, true);
+    }
+
+    public TransitionEngine(Duration jobRefreshInterval, boolean mapSteps) {
+        this.jobRefreshNanos = jobRefreshInterval.toNanos();
+        this.mapSteps = mapSteps;
+    }
+
+    // a run is worth processing when it changed since the last cycle or its unfinished jobs are due a refresh
+    public boolean isChanged(WorkflowRun run, EventStatus status) {
+        RunState state = runs.get(run.id());
+        return state == null || state.attempt != run.runAttempt() || state.status != status
+                || !run.updatedAt().equals(state.updatedAt);
+    }
+
+    public boolean isJobRefreshDue(long runId, long nowNanos) {
+        RunState state = runs.get(runId);
+        return state == null || state.hasUnfinishedJobs && nowNanos - state.jobsFetchedAtNanos >= jobRefreshNanos;
+    }
+
+    // emits the transitions in run, jobs, steps order and records the new state; finished runs are dropped
+    public void process(WorkflowRun run, EventStatus runStatus, List<WorkflowJob> jobs, long nowNanos,
+            Consumer<WorkflowEvent> sink) {
+        RunState state = runs.get(run.id());
+        if (state == null || state.attempt != run.runAttempt()) {
+            // a re-run starts over with fresh jobs
+            state = new RunState(run.runAttempt());
+        }
+        EventStatus previous = state.status;
+
+        if (runStatus == EventStatus.QUEUED || runStatus == EventStatus.UNKNOWN) {
+            if (previous != runStatus) {
+                sink.accept(EventMapper.toRunEvent(run));
+            }
+        } else {
+            if (!state.started) {
+                sink.accept(EventMapper.toRunStartedEvent(run));
+                state.started = true;
+                modified = true;
+            }
+            boolean hasUnfinishedJobs = false;
+            boolean anyJobStarted = false;
+            for (WorkflowJob job : jobs) {
+                hasUnfinishedJobs |= !processJob(state, run, job, sink).isFinished();
+                anyJobStarted |= job.startedAt() != null;
+            }
+            // a run that has started but shows no started job yet is about to get some
+            hasUnfinishedJobs |= !anyJobStarted;
+            modified |= state.hasUnfinishedJobs != hasUnfinishedJobs;
+            state.hasUnfinishedJobs = hasUnfinishedJobs;
+            if (runStatus.isFinished() && (previous == null || !previous.isFinished())) {
+                sink.accept(EventMapper.toRunEvent(run));
+            }
+        }
+
+        if (runStatus.isFinished()) {
+            modified |= runs.remove(run.id()) != null;
+            return;
+        }
+        modified |= previous != runStatus || !run.updatedAt().equals(state.updatedAt);
+        state.status = runStatus;
+        state.updatedAt = run.updatedAt();
+        state.jobsFetchedAtNanos = nowNanos;
+        runs.put(run.id(), state);
+    }
+
+    // stops following a run without reporting anything, as for one the filter excludes
+    public void forget(long runId) {
+        modified |= runs.remove(runId) != null;
+    }
+
+    public int size() {
+        return runs.size();
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
+
+    public Map<Long, RunSnapshot> snapshot() {
+        Map<Long, RunSnapshot> snapshots = new HashMap<>();
+        for (Map.Entry<Long, RunState> entry : runs.entrySet()) {
+            RunState state = entry.getValue();
+            List<RunSnapshot.Job> jobs = new ArrayList<>();
+            for (Map.Entry<Long, JobState> job : state.jobs.entrySet()) {
+                JobState jobState = job.getValue();
+                jobs.add(new RunSnapshot.Job(job.getKey(), jobState.status, jobState.started,
+                        Collections.unmodifiableList(Arrays.asList(jobState.steps.clone()))));
+            }
+            snapshots.put(entry.getKey(), new RunSnapshot(state.attempt, state.status, state.started,
+                    !state.hasUnfinishedJobs, state.updatedAt, jobs));
+        }
+        modified = false;
+        return snapshots;
+    }
+
+    // runs tracked before a restart; their unfinished jobs are due a refresh right away, since steps may have moved
+    // since
+    public void restore(Map<Long, RunSnapshot> snapshots, long nowNanos) {
+        for (Map.Entry<Long, RunSnapshot> entry : snapshots.entrySet()) {
+            RunSnapshot snapshot = entry.getValue();
+            RunState state = new RunState(snapshot.attempt());
+            state.status = snapshot.status();
+            state.started = snapshot.started();
+            state.updatedAt = snapshot.updatedAt();
+            state.jobsFetchedAtNanos = nowNanos - jobRefreshNanos;
+            state.hasUnfinishedJobs = !snapshot.jobsFinished();
+            for (RunSnapshot.Job job : snapshot.jobs()) {
+                JobState jobState = new JobState();
+                jobState.status = job.status();
+                jobState.started = job.started();
+                jobState.steps = job.steps().toArray(EventStatus[]::new);
+                state.jobs.put(job.id(), jobState);
+            }
+            runs.put(entry.getKey(), state);
+        }
+    }
+
+    private EventStatus processJob(RunState runState, WorkflowRun run, WorkflowJob job,
+            Consumer<WorkflowEvent> sink) {
+        EventStatus jobStatus = EventMapper.toStatus(job.status(), job.conclusion());
+        JobState state = runState.jobs.get(job.id());
+        if (state == null) {
+            state = new JobState();
+            runState.jobs.put(job.id(), state);
+        }
+        EventStatus previous = state.status;
+        state.status = jobStatus;
+        modified |= previous != jobStatus;
+
+        if (job.startedAt() == null) {
+            return jobStatus;
+        }
+        if (!state.started) {
+            sink.accept(EventMapper.toJobStartedEvent(run, job));
+            state.started = true;
+            modified = true;
+        }
+
+        // steps are keyed by their number, not their place in the list, which is not stable across fetches; a
+        // step without a number cannot be told apart from the others and is left out
+        List<WorkflowStep> steps = mapSteps ? job.steps() : List.of();
+        for (WorkflowStep step : steps) {
+            int i = step.number() - 1;
+            if (step.startedAt() == null || i < 0) {
+                continue;
+            }
+            if (i >= state.steps.length) {
+                state.steps = Arrays.copyOf(state.steps, Math.max(i + 1, steps.size()));
+            }
+            EventStatus stepStatus = EventMapper.toStatus(step.status(), step.conclusion());
+            EventStatus previousStep = state.steps[i];
+            if (previousStep == null) {
+                sink.accept(EventMapper.toStepStartedEvent(run, job, step));
+            }
+            if (stepStatus.isFinished() && (previousStep == null || !previousStep.isFinished())) {
+                sink.accept(EventMapper.toStepEvent(run, job, step));
+            }
+            modified |= previousStep != stepStatus;
+            state.steps[i] = stepStatus;
+        }
+
+        if (jobStatus.isFinished() && (previous == null || !previous.isFinished())) {
+            sink.accept(EventMapper.toJobEvent(run, job));
+        }
+        return jobStatus;
+    }
+}
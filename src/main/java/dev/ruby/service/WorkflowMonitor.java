@@ -1,160 +1,581 @@
 package dev.ruby.service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
 
 import dev.ruby.client.GitHubClient;
+import dev.ruby.client.RateLimitedException;
+import dev.ruby.client.RequestPriority;
+import dev.ruby.client.RunQuery;
 import dev.ruby.client.dto.WorkflowJob;
 import dev.ruby.client.dto.WorkflowRun;
-import dev.ruby.client.dto.WorkflowStep;
+import dev.ruby.jfr.EventBurstEvent;
+import dev.ruby.jfr.PollCycleEvent;
 import dev.ruby.mapper.EventMapper;
 import dev.ruby.model.EventStatus;
 import dev.ruby.model.WorkflowEvent;
+import dev.ruby.output.EventSink;
 import dev.ruby.persistence.MonitorState;
-import dev.ruby.persistence.StateStore;
+import dev.ruby.persistence.StateBackend;
+
+// polls one repository. run() is the repository-wide cycle; each PollLane has its own cycle over its workflows,
+// which the repository-wide cycle leaves alone. cycles of one monitor list and fetch side by side and take turns
+// only where they read or change the seen set, the TransitionEngine and the tracked runs
+public class WorkflowMonitor implements Pollable {
+    // backfilled runs waiting to be reported, and at most how many are reported per cycle
+    private static final int BACKFILL_CAPACITY = 1000;
+    // how far before the newest run seen created filters reach back, for runs that show up in the list late
+    private static final Duration CREATED_LOOKBACK = Duration.ofSeconds(10);
 
-public class WorkflowMonitor implements Runnable {
     private final GitHubClient client;
-    private final StateStore stateStore;
+    private final StateBackend stateStore;
     private final MonitorState state;
-    private boolean isFirstRun = true;
-    private final Set<Long> activeRunIds = new HashSet<>();
+    private final String repositoryLabel;
+    private final EventSink sink;
+    private final Set<Long> activeRunIds;
+    private final ConcurrentFetcher fetcher;
+    private final TransitionEngine transitions;
+    private final RunQuery runFilter;
+    private final RunQueryPlanner planner;
+    private final EventFilter eventFilter;
+    // API calls each filter clause saved, by clause index; backfill workers count here as well
+    private final AtomicLongArray savedCalls;
+    // unfinished runs the filter excluded, whose saved job fetch is already counted
+    private final Set<Long> excludedRunIds = ConcurrentHashMap.newKeySet();
+    // creation time of the newest run listed so far, where created filters start
+    private Instant newestCreatedAt;
+    // runs the created filter matched in the last cycle, also counted on scanned pages
+    private int createdWindowRuns;
+    // read by the scheduler and the metrics scrape on other threads
+    private volatile CycleStats lastCycleStats = CycleStats.EMPTY;
+    // the size of the seen set as of the last save, for readers that must not touch the set while a cycle changes it
+    private volatile int seenEventCount;
+    // events from before the start are history and say nothing about detection latency
+    private final Instant startedAt = Instant.now();
+    private final LatencyRecorder latency = new LatencyRecorder();
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private final Map<Long, Lane> laneByWorkflow = new HashMap<>();
+    // held by the running repository-wide cycle; a ReentrantLock rather than synchronized, which pins virtual
+    // threads while the cycle waits on the network
+    private final ReentrantLock cycleLock = new ReentrantLock();
+    // held by any cycle while it reads or changes the seen set, the TransitionEngine, the tracked runs or the
+    // cursors; never across a request
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final BlockingQueue<Backfill.Batch> backfilled = new LinkedBlockingQueue<>(BACKFILL_CAPACITY);
+
+    public WorkflowMonitor(GitHubClient client, StateBackend stateStore) {
+        this(client, stateStore, MonitorOptions.defaults());
+    }
 
-    public WorkflowMonitor(GitHubClient client, StateStore stateStore) {
+    public WorkflowMonitor(GitHubClient client, StateBackend stateStore, MonitorOptions options) {
+        this(client, stateStore, options, EventSink.stdout(options.output().format().encoder()));
+    }
+
+    public WorkflowMonitor(GitHubClient client, StateBackend stateStore, MonitorOptions options, EventSink sink) {
         this.client = client;
+        this.sink = sink;
         this.stateStore = stateStore;
+        this.fetcher = new ConcurrentFetcher(options.fetchConcurrency());
+        this.eventFilter = options.eventFilter();
+        this.savedCalls = new AtomicLongArray(eventFilter.clauses().size());
+        this.transitions = new TransitionEngine(options.jobRefreshInterval(), eventFilter.mapsSteps());
+        this.runFilter = options.runFilter();
+        this.planner = new RunQueryPlanner(options.runQueries());
+        this.repositoryLabel = options.showRepository() ? client.getRepository() : null;
         this.state = stateStore.load();
+        this.activeRunIds = state.getActiveRunIds();
+        this.seenEventCount = state.getSeenEvents().size();
         if (this.state.getLastRunTime() == null) {
             this.state.setLastRunTime(Instant.now());
         }
+        // a warm restart: runs tracked before go straight to targeted polling and only report what moved since
+        transitions.restore(state.getRunSnapshots(), System.nanoTime());
+        for (PollLane pollLane : options.lanes()) {
+            Lane lane = new Lane(pollLane, state.getLaneRunTimes().getOrDefault(pollLane.name(),
+                    state.getLastRunTime()));
+            lanes.put(pollLane.name(), lane);
+            for (long workflowId : pollLane.workflowIds()) {
+                laneByWorkflow.put(workflowId, lane);
+            }
+        }
+    }
+
+    // a lane's cursor and tracked runs; the events, seen set and TransitionEngine are the monitor's
+    private final class Lane implements Pollable {
+        private final PollLane lane;
+        private final Set<Long> activeRunIds = new HashSet<>();
+        private final LatencyRecorder latency = new LatencyRecorder();
+        // held by the lane's running cycle, so that one lane cycle runs at a time
+        private final ReentrantLock cycleLock = new ReentrantLock();
+        // persisted in the state by lane name; a lane new to the state starts from the repository's lastRunTime
+        private Instant lastRunTime;
+        private volatile CycleStats lastCycleStats = CycleStats.EMPTY;
+
+        private Lane(PollLane lane, Instant lastRunTime) {
+            this.lane = lane;
+            this.lastRunTime = lastRunTime;
+        }
+
+        @Override
+        public void run() {
+            runLane(this);
+        }
+
+        @Override
+        public CycleStats getLastCycleStats() {
+            return lastCycleStats;
+        }
+    }
+
+    // what one cycle counts as it goes; each cycle has its own, since lane cycles run beside the repository-wide one
+    private static final class Cycle {
+        private final LatencyRecorder latency;
+        private int pages;
+        private int eventsEmitted;
+        // false for a cycle whose lists can miss runs updated since the cursor: the repository-wide cursor then
+        // stays where the last scan left it, so that the next scan lists them
+        private boolean movesCursor = true;
+
+        private Cycle(LatencyRecorder latency) {
+            this.latency = latency;
+        }
     }
 
     @Override
     public void run() {
+        cycleLock.lock();
+        PollCycleEvent event = new PollCycleEvent();
+        event.begin();
+        Cycle cycle = new Cycle(latency);
+        long chargedBefore = client.getChargedRequests();
+        RunQueryPlanner.Plan plan = null;
+        int runsFetched = 0;
+        String outcome = "ok";
+        CycleStats stats = CycleStats.EMPTY;
         try {
-            List<WorkflowRun> runs = pollRuns(state.getLastRunTime());
-            runs.sort(Comparator.comparing(run -> run.updatedAt()));
-
-            if (isFirstRun) {
-                printTableHeader();
-                isFirstRun = false;
+            Instant lastRunTime;
+            Set<Long> tracked;
+            // poll incomplete runs to avoid waiting for the next updatedAt sync; lanes poll their own
+            List<Long> pendingRunIds = new ArrayList<>();
+            stateLock.lock();
+            try {
+                lastRunTime = state.getLastRunTime();
+                tracked = new HashSet<>(activeRunIds);
+                for (long runId : activeRunIds) {
+                    if (!isLaneRun(runId)) {
+                        pendingRunIds.add(runId);
+                    }
+                }
+            } finally {
+                stateLock.unlock();
             }
 
+            plan = planner.plan(tracked.size());
+            cycle.movesCursor = plan == RunQueryPlanner.Plan.SCAN;
+            Instant createdFrom = (newestCreatedAt != null ? newestCreatedAt : lastRunTime).minus(CREATED_LOOKBACK);
+            List<WorkflowRun> runs = plan == RunQueryPlanner.Plan.SCAN ? scanRuns(cycle, lastRunTime, createdFrom)
+                    : queryRuns(cycle, lastRunTime, createdFrom, tracked,
+                            plan == RunQueryPlanner.Plan.CREATED_AND_LIVE);
+
             // avoid duplicate fetch in one round
             Set<Long> processedInFirstIteration = new HashSet<>();
-
             for (WorkflowRun run : runs) {
-                processRun(run);
-
                 processedInFirstIteration.add(run.id());
+            }
+            pendingRunIds.removeIf(processedInFirstIteration::contains);
+            runs.addAll(fetcher.fetchAll(pendingRunIds, client::getWorkflowRun).values());
+            runsFetched = runs.size();
 
-                if (EventMapper.toStatus(run.status(), run.conclusion()).isFinished()) {
-                    activeRunIds.remove(run.id());
-                } else {
-                    activeRunIds.add(run.id());
+            int newRuns = 0;
+            int movedActiveRuns = 0;
+            for (WorkflowRun run : runs) {
+                if (newestCreatedAt == null || run.createdAt().isAfter(newestCreatedAt)) {
+                    newestCreatedAt = run.createdAt();
                 }
-
-                if (run.updatedAt().isAfter(state.getLastRunTime())) {
-                    state.setLastRunTime(run.updatedAt());
+                if (run.updatedAt().isAfter(lastRunTime)) {
+                    if (tracked.contains(run.id())) {
+                        movedActiveRuns++;
+                    } else {
+                        newRuns++;
+                    }
+                }
+            }
+            planner.observe(plan, newRuns, movedActiveRuns, createdWindowRuns, pendingRunIds.size());
+
+            // runs of lane workflows are left to their lane, which also finds them after a restart
+            List<WorkflowRun> laneRuns = new ArrayList<>();
+            runs.removeIf(run -> laneByWorkflow.containsKey(run.workflowId()) && laneRuns.add(run));
+            stateLock.lock();
+            try {
+                for (WorkflowRun run : laneRuns) {
+                    if (!EventMapper.toStatus(run.status(), run.conclusion()).isFinished()) {
+                        activeRunIds.add(run.id());
+                        laneByWorkflow.get(run.workflowId()).activeRunIds.add(run.id());
+                    }
+                    advance(cycle, null, run);
                 }
+            } finally {
+                stateLock.unlock();
+            }
+
+            stats = processRuns(cycle, runs, null, client::getJobsForRun, chargedBefore);
+
+            stateLock.lock();
+            try {
+                // history goes after what is happening now
+                reportBackfilled();
+                lastCycleStats = stats;
+                saveState();
+            } finally {
+                stateLock.unlock();
+            }
+        } catch (RateLimitedException e) {
+            // a failed cycle leaves lastCycleStats as they were: the runs it found active are still active, and
+            // the rate budget's backoff already holds the next cycle back
+            outcome = "rate_limited";
+            System.err.println("Skipping cycle: " + e.getMessage());
+        } catch (Exception e) {
+            outcome = "error";
+            System.err.println("Error processing RUN: " + e.getMessage());
+        } finally {
+            commitCycle(cycle, event, "", plan != null ? plan.name() : "", outcome, runsFetched, stats);
+            cycleLock.unlock();
+        }
+    }
+
+    // a lane cycle: its workflows' run lists down to the lane's own cursor, then its tracked runs one by one. it
+    // takes the state lock only to process what it fetched, so it never waits for the repository-wide listing
+    private void runLane(Lane lane) {
+        lane.cycleLock.lock();
+        PollCycleEvent event = new PollCycleEvent();
+        event.begin();
+        Cycle cycle = new Cycle(lane.latency);
+        long chargedBefore = client.getChargedRequests();
+        RequestPriority priority = lane.lane.priority().requestPriority();
+        int runsFetched = 0;
+        String outcome = "ok";
+        CycleStats stats = CycleStats.EMPTY;
+        try {
+            Instant since;
+            List<Long> tracked;
+            stateLock.lock();
+            try {
+                since = lane.lastRunTime;
+                tracked = new ArrayList<>(lane.activeRunIds);
+            } finally {
+                stateLock.unlock();
             }
 
-            // poll incomplete runs to avoid waiting for the next updatedAt sync
-            var iterator = activeRunIds.iterator();
-            while (iterator.hasNext()) {
-                long runId = iterator.next();
-                if (processedInFirstIteration.contains(runId)) {
-                    continue;
+            Map<Long, WorkflowRun> listed = new LinkedHashMap<>();
+            for (long workflowId : lane.lane.workflowIds()) {
+                for (WorkflowRun run : scanWorkflow(cycle, workflowId, since, priority)) {
+                    listed.put(run.id(), run);
                 }
+            }
+            List<WorkflowRun> runs = new ArrayList<>(listed.values());
+            List<Long> pendingRunIds = new ArrayList<>();
+            for (long runId : tracked) {
+                if (!listed.containsKey(runId)) {
+                    pendingRunIds.add(runId);
+                }
+            }
+            runs.addAll(fetcher.fetchAll(pendingRunIds, client::getWorkflowRun).values());
+            runsFetched = runs.size();
+
+            stats = processRuns(cycle, runs, lane, runId -> client.getJobsForRun(runId, priority), chargedBefore);
+            lane.lastCycleStats = stats;
+            stateLock.lock();
+            try {
+                state.setLaneRunTime(lane.lane.name(), lane.lastRunTime);
+                saveState();
+            } finally {
+                stateLock.unlock();
+            }
+        } catch (RateLimitedException e) {
+            outcome = "rate_limited";
+            System.err.println("Skipping " + lane.lane.name() + " lane cycle: " + e.getMessage());
+        } catch (Exception e) {
+            outcome = "error";
+            System.err.println("Error processing " + lane.lane.name() + " lane: " + e.getMessage());
+        } finally {
+            commitCycle(cycle, event, lane.lane.name(), "LANE", outcome, runsFetched, stats);
+            lane.cycleLock.unlock();
+        }
+    }
+
+    private void commitCycle(Cycle cycle, PollCycleEvent event, String lane, String plan, String outcome,
+            int runsFetched, CycleStats stats) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.repository = client.getRepository();
+        event.lane = lane;
+        event.plan = plan;
+        event.outcome = outcome;
+        event.pages = cycle.pages;
+        event.runsFetched = runsFetched;
+        event.runsProcessed = stats.runsProcessed();
+        event.jobFetches = stats.jobFetches();
+        event.eventsEmitted = cycle.eventsEmitted;
+        event.activeRuns = stats.activeRuns();
+        event.requestsCharged = stats.requestsCharged();
+        event.commit();
+    }
+
+    // what a cycle does with the runs it listed: drops those the filter excludes, fetches the jobs that are due
+    // and reports what moved. lane is null for the repository-wide cycle. the jobs are fetched between two turns
+    // of the state lock, so that other cycles are not held up by the requests
+    private CycleStats processRuns(Cycle cycle, List<WorkflowRun> runs, Lane lane,
+            ConcurrentFetcher.Fetch<Long, List<WorkflowJob>> fetchJobs, long chargedBefore) throws Exception {
+        long now = System.nanoTime();
+        Set<Long> changedRunIds = new HashSet<>();
+        List<Long> jobRunIds = new ArrayList<>();
+        int jobFetchesSkipped = 0;
+        stateLock.lock();
+        try {
+            // excluded runs are not tracked and cost no job fetches; they still move the cursor on. one tracked
+            // from before the filter is dropped without a report
+            List<WorkflowRun> excluded = new ArrayList<>();
+            runs.removeIf(run -> !admits(run) && excluded.add(run));
+            for (WorkflowRun run : excluded) {
+                untrack(lane, run.id());
+                transitions.forget(run.id());
+                advance(cycle, lane, run);
+            }
 
-                WorkflowRun run = client.getWorkflowRun(runId);
-                processRun(run);
+            // fetch jobs in parallel, only for runs that moved or whose unfinished jobs are due a refresh
+            for (WorkflowRun run : runs) {
+                EventStatus runStatus = EventMapper.toStatus(run.status(), run.conclusion());
+                boolean changed = transitions.isChanged(run, runStatus);
+                boolean jobsNeeded = needsJobs(run);
+                if (changed || jobsNeeded && transitions.isJobRefreshDue(run.id(), now)) {
+                    changedRunIds.add(run.id());
+                    if (jobsNeeded && eventFilter.fetchesJobs()) {
+                        jobRunIds.add(run.id());
+                    } else if (jobsNeeded) {
+                        jobsSkipped();
+                    }
+                } else if (jobsNeeded) {
+                    jobFetchesSkipped++;
+                }
+            }
+        } finally {
+            stateLock.unlock();
+        }
+        Map<Long, List<WorkflowJob>> jobsByRun = fetcher.fetchAll(jobRunIds, fetchJobs);
 
-                if (EventMapper.toStatus(run.status(), run.conclusion()).isFinished()) {
-                    iterator.remove();
+        stateLock.lock();
+        try {
+            // report in a deterministic order
+            runs.sort(Comparator.comparing(WorkflowRun::updatedAt).thenComparingLong(WorkflowRun::id));
+            for (WorkflowRun run : runs) {
+                EventStatus runStatus = EventMapper.toStatus(run.status(), run.conclusion());
+                if (changedRunIds.contains(run.id())) {
+                    List<WorkflowJob> jobs = jobsByRun.getOrDefault(run.id(), List.of());
+                    processTransitions(cycle, lane, run, runStatus, jobs, now);
                 }
 
-                if (run.updatedAt().isAfter(state.getLastRunTime())) {
-                    state.setLastRunTime(run.updatedAt());
+                if (runStatus.isFinished()) {
+                    untrack(lane, run.id());
+                } else {
+                    activeRunIds.add(run.id());
+                    if (lane != null) {
+                        lane.activeRunIds.add(run.id());
+                    }
                 }
+                advance(cycle, lane, run);
             }
 
-            stateStore.save(state);
-        } catch (Exception e) {
-            System.err.println("Error processing RUN: " + e.getMessage());
+            int activeRuns = lane != null ? lane.activeRunIds.size() : activeRunIds.size() - laneActiveRuns();
+            return new CycleStats(runs.size(), changedRunIds.size(), jobRunIds.size(), jobFetchesSkipped,
+                    cycle.eventsEmitted, activeRuns, client.getChargedRequests() - chargedBefore,
+                    Duration.ofNanos(System.nanoTime() - now));
+        } finally {
+            stateLock.unlock();
         }
     }
 
-    public MonitorState getState() {
-        return state;
+    private void processTransitions(Cycle cycle, Lane lane, WorkflowRun run, EventStatus runStatus,
+            List<WorkflowJob> jobs, long now) {
+        EventBurstEvent burst = new EventBurstEvent();
+        burst.begin();
+        int emittedBefore = cycle.eventsEmitted;
+        transitions.process(run, runStatus, jobs, now, event -> report(cycle, event));
+        burst.end();
+        if (cycle.eventsEmitted > emittedBefore && burst.shouldCommit()) {
+            burst.repository = client.getRepository();
+            burst.lane = lane != null ? lane.lane.name() : "";
+            burst.runId = run.id();
+            burst.events = cycle.eventsEmitted - emittedBefore;
+            burst.commit();
+        }
     }
 
-    private void processRun(WorkflowRun run) throws Exception {
-        EventStatus runStatus = EventMapper.toStatus(run.status(), run.conclusion());
+    // saves between cycles, for a backend that writes on a delay (see AsyncStatePersister): changes of a monitor
+    // that went quiet are written once their delay runs out, not at its next cycle
+    public void checkSave() {
+        stateLock.lock();
+        try {
+            saveState();
+        } finally {
+            stateLock.unlock();
+        }
+    }
 
-        if (runStatus == EventStatus.QUEUED || runStatus == EventStatus.UNKNOWN) {
-            report(EventMapper.toRunEvent(run));
-            return;
+    private void saveState() {
+        if (transitions.isModified()) {
+            state.setRunSnapshots(transitions.snapshot());
         }
+        seenEventCount = state.getSeenEvents().size();
+        stateStore.save(state);
+    }
 
-        report(EventMapper.toRunStartedEvent(run));
+    // lanes move their own cursor; the repository-wide one must not pass runs its own list has not reached
+    private void advance(Cycle cycle, Lane lane, WorkflowRun run) {
+        if (lane != null) {
+            if (run.updatedAt().isAfter(lane.lastRunTime)) {
+                lane.lastRunTime = run.updatedAt();
+            }
+        } else if (cycle.movesCursor && run.updatedAt().isAfter(state.getLastRunTime())) {
+            state.setLastRunTime(run.updatedAt());
+        }
+    }
 
-        List<WorkflowJob> jobs = client.getJobsForRun(run.id());
-        for (WorkflowJob job : jobs) {
-            if (job.startedAt() == null) {
-                continue;
+    private void untrack(Lane lane, long runId) {
+        activeRunIds.remove(runId);
+        if (lane != null) {
+            lane.activeRunIds.remove(runId);
+        }
+    }
+
+    private boolean isLaneRun(long runId) {
+        for (Lane lane : lanes.values()) {
+            if (lane.activeRunIds.contains(runId)) {
+                return true;
             }
-            processJob(run, job);
         }
+        return false;
+    }
 
-        if (runStatus.isFinished()) {
-            report(EventMapper.toRunEvent(run));
+    private int laneActiveRuns() {
+        int count = 0;
+        for (Lane lane : lanes.values()) {
+            count += lane.activeRunIds.size();
         }
+        return count;
     }
 
-    private void processJob(WorkflowRun run, WorkflowJob job) throws Exception {
-        EventStatus jobStatus = EventMapper.toStatus(job.status(), job.conclusion());
-        report(EventMapper.toJobStartedEvent(run, job));
+    // called by a Backfill; blocks while the monitor is behind
+    public void offerBackfill(Backfill.Batch batch) throws InterruptedException {
+        backfilled.put(batch);
+    }
 
-        for (WorkflowStep step : job.steps()) {
-            if (step.startedAt() == null) {
-                break;
-            }
-            processStep(run, job, step);
+    public MonitorState getState() {
+        return state;
+    }
+
+    public CycleStats getLastCycleStats() {
+        return lastCycleStats;
+    }
+
+    public int getSeenEventCount() {
+        return seenEventCount;
+    }
+
+    // the lane's cycle, for the scheduler
+    public Pollable getLane(String name) {
+        Lane lane = lanes.get(name);
+        if (lane == null) {
+            throw new IllegalArgumentException("no lane " + name);
         }
+        return lane;
+    }
 
-        if (jobStatus.isFinished()) {
-            report(EventMapper.toJobEvent(run, job));
+    // detection latency of the events reported so far, by lane; "" is the repository-wide cycle
+    public Map<String, LatencyRecorder.Summary> getDetectionLatencies() {
+        Map<String, LatencyRecorder.Summary> latencies = new LinkedHashMap<>();
+        latencies.put("", latency.summary());
+        for (Lane lane : lanes.values()) {
+            latencies.put(lane.lane.name(), lane.latency.summary());
         }
+        return latencies;
     }
 
-    private void processStep(WorkflowRun run, WorkflowJob job, WorkflowStep step) throws Exception {
-        EventStatus stepStatus = EventMapper.toStatus(step.status(), step.conclusion());
-        report(EventMapper.toStepStartedEvent(run, job, step));
+    public EventFilter getEventFilter() {
+        return eventFilter;
+    }
 
-        if (stepStatus.isFinished()) {
-            report(EventMapper.toStepEvent(run, job, step));
+    // API calls saved so far by each clause of the filter, in the order the clauses were written
+    public Map<String, Long> getSavedCalls() {
+        Map<String, Long> saved = new LinkedHashMap<>();
+        for (EventFilter.Clause clause : eventFilter.clauses()) {
+            saved.put(clause.text(), savedCalls.get(clause.index()));
         }
+        return saved;
+    }
+
+    // false for a run the filter excludes; the job fetch it would have needed is counted against the clause,
+    // once per run however many cycles list it. a run is remembered until it is listed finished, so one listed
+    // again after that counts again
+    boolean admits(WorkflowRun run) {
+        EventFilter.Clause clause = eventFilter.rejecting(run);
+        if (clause == null) {
+            return true;
+        }
+        if (needsJobs(run)) {
+            boolean counted = EventMapper.toStatus(run.status(), run.conclusion()).isFinished()
+                    ? excludedRunIds.remove(run.id())
+                    : !excludedRunIds.add(run.id());
+            if (!counted) {
+                savedCalls.incrementAndGet(clause.index());
+            }
+        }
+        return false;
+    }
+
+    // a job fetch left out because no job or step events are wanted
+    void jobsSkipped() {
+        savedCalls.incrementAndGet(eventFilter.jobsExcludedBy().index());
+    }
+
+    private boolean needsJobs(WorkflowRun run) {
+        EventStatus runStatus = EventMapper.toStatus(run.status(), run.conclusion());
+        return runStatus != EventStatus.QUEUED && runStatus != EventStatus.UNKNOWN;
     }
 
-    private List<WorkflowRun> pollRuns(Instant lastRunTime) throws Exception {
+    // SCAN: the runs list newest first, until a page holds nothing updated since the last cycle
+    private List<WorkflowRun> scanRuns(Cycle cycle, Instant lastRunTime, Instant createdFrom) throws Exception {
         int page = 1;
-        int MAX_PAGES = 10;
         boolean hasMore = true;
         List<WorkflowRun> runs = new ArrayList<>();
+        createdWindowRuns = 0;
 
         while (hasMore) {
-            List<WorkflowRun> pageRuns = client.getWorkflowRuns(page, 100);
+            List<WorkflowRun> pageRuns = client.getWorkflowRuns(runFilter, page, RunQueryPlanner.PER_PAGE);
+            cycle.pages++;
 
             if (pageRuns.isEmpty())
                 break;
 
             boolean pageContainsNewData = false;
             for (WorkflowRun run : pageRuns) {
+                if (!run.createdAt().isBefore(createdFrom)) {
+                    createdWindowRuns++;
+                }
                 if (run.updatedAt().isAfter(lastRunTime)) {
                     runs.add(run);
                     pageContainsNewData = true;
@@ -167,7 +588,7 @@ public class WorkflowMonitor implements Runnable {
                 page++;
             }
 
-            if (page > MAX_PAGES) {
+            if (page > RunQueryPlanner.MAX_PAGES) {
                 System.err.println("Warning: Too many new runs. Only the latest 1000 events are retrieved.");
                 break;
             }
@@ -176,18 +597,98 @@ public class WorkflowMonitor implements Runnable {
         return runs;
     }
 
-    private void report(WorkflowEvent event) {
-        if (!state.isNewEvent(event.getKey(), event.getTime())) {
-            return;
+    // runs created since the last cycle and, with live, the runs queued and in progress, merged by id. tracked
+    // runs in the live lists are kept even when nothing moved, so that they need no fetch of their own
+    private List<WorkflowRun> queryRuns(Cycle cycle, Instant lastRunTime, Instant createdFrom, Set<Long> tracked,
+            boolean live) throws Exception {
+        Map<Long, WorkflowRun> runs = new LinkedHashMap<>();
+        List<WorkflowRun> created = listAll(cycle, runFilter.withCreated(createdFrom, null));
+        createdWindowRuns = created.size();
+        for (WorkflowRun run : created) {
+            if (run.updatedAt().isAfter(lastRunTime)) {
+                runs.put(run.id(), run);
+            }
+        }
+        if (live) {
+            List<WorkflowRun> liveRuns = new ArrayList<>(listAll(cycle, runFilter.withStatus("queued")));
+            liveRuns.addAll(listAll(cycle, runFilter.withStatus("in_progress")));
+            for (WorkflowRun run : liveRuns) {
+                if (tracked.contains(run.id()) || run.updatedAt().isAfter(lastRunTime)) {
+                    runs.merge(run.id(), run, (listed, inProgress) -> inProgress.updatedAt().isAfter(
+                            listed.updatedAt()) ? inProgress : listed);
+                }
+            }
+        }
+        return new ArrayList<>(runs.values());
+    }
+
+    // one workflow's runs newest first, until a page holds nothing updated since the lane's cursor
+    private List<WorkflowRun> scanWorkflow(Cycle cycle, long workflowId, Instant since, RequestPriority priority)
+            throws Exception {
+        RunQuery query = RunQuery.of(runFilter.branch(), runFilter.event(), workflowId);
+        List<WorkflowRun> runs = new ArrayList<>();
+        for (int page = 1; page <= RunQueryPlanner.MAX_PAGES; page++) {
+            boolean pageContainsNewData = false;
+            cycle.pages++;
+            for (WorkflowRun run : client.getWorkflowRuns(query, page, RunQueryPlanner.PER_PAGE, priority)) {
+                if (run.updatedAt().isAfter(since)) {
+                    runs.add(run);
+                    pageContainsNewData = true;
+                }
+            }
+            if (!pageContainsNewData) {
+                break;
+            }
         }
-        event.print();
+        return runs;
     }
 
-    private void printTableHeader() {
-        System.out.printf("%-24s | %-5s | %-14s | %-10s | %-8s | %s%n",
-                "Date Time", "Level", "Status", "Branch", "SHA", "Name");
+    private List<WorkflowRun> listAll(Cycle cycle, RunQuery query) throws Exception {
+        List<WorkflowRun> runs = new ArrayList<>();
+        for (int page = 1; page <= RunQueryPlanner.MAX_PAGES; page++) {
+            List<WorkflowRun> pageRuns = client.getWorkflowRuns(query, page, RunQueryPlanner.PER_PAGE);
+            cycle.pages++;
+            runs.addAll(pageRuns);
+            if (pageRuns.size() < RunQueryPlanner.PER_PAGE) {
+                return runs;
+            }
+        }
+        System.err.println("Warning: More than 1000 runs match " + query + ". Only the latest 1000 are retrieved.");
+        return runs;
+    }
 
-        System.out.println("-".repeat(24) + "-+-" + "-".repeat(5) + "-+-" +
-                "-".repeat(14) + "-+-" + "-".repeat(10) + "-+-" + "-".repeat(8) + "-+-" + "-".repeat(30));
+    private void reportBackfilled() {
+        List<Backfill.Batch> batches = new ArrayList<>();
+        backfilled.drainTo(batches, BACKFILL_CAPACITY);
+        for (Backfill.Batch batch : batches) {
+            // not counted in the cycle's events: history is no reason to poll faster
+            batch.events().forEach(this::print);
+            WorkflowRun run = batch.run();
+            if (!EventMapper.toStatus(run.status(), run.conclusion()).isFinished()) {
+                activeRunIds.add(run.id());
+            }
+            batch.onReported().run();
+        }
+    }
+
+    private void report(Cycle cycle, WorkflowEvent event) {
+        if (print(event)) {
+            cycle.eventsEmitted++;
+            if (event.getTime().isAfter(startedAt)) {
+                cycle.latency.record(Duration.between(event.getTime(), Instant.now()));
+            }
+        }
+    }
+
+    private boolean print(WorkflowEvent event) {
+        // checked first, so that filtered events are not remembered as seen either
+        if (!eventFilter.accepts(event)) {
+            return false;
+        }
+        if (!state.isNewEvent(event.getFingerprint(), event.getTime())) {
+            return false;
+        }
+        sink.accept(event, repositoryLabel);
+        return true;
     }
 }
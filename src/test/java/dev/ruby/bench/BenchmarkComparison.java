@@ -0,0 +1,86 @@
+package dev.ruby.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// compares two JMH JSON result files, benchmark by benchmark and parameter set by parameter set, for the score
+// and gc.alloc.rate.norm. a change counts as a regression when it is worse by more than the threshold and by
+// more than both error margins together, so that noise does not fail a build. exits with 1 on a regression.
+// args: <baseline.json> <current.json> [thresholdPercent=10]
+public class BenchmarkComparison {
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    record Metric(double score, double error, String unit, boolean higherIsBetter) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, Metric> baseline = read(new File(args[0]));
+        Map<String, Metric> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %8s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Metric> entry : current.entrySet()) {
+            Metric now = entry.getValue();
+            Metric before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %8s  new%n", entry.getKey(), "-", now.score(), "");
+                continue;
+            }
+            double change = before.score() == 0 ? 0 : (now.score() - before.score()) / before.score() * 100;
+            double worse = now.higherIsBetter() ? -change : change;
+            boolean regressed = worse > threshold
+                    && Math.abs(now.score() - before.score()) > before.error() + now.error();
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+7.1f%%%s%n", entry.getKey(), before.score(), now.score(),
+                    change, regressed ? "  REGRESSION" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-90s  missing from %s%n", key, args[1]);
+            }
+        }
+        System.out.println(regressions + " regressions over " + threshold + "%");
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    // keyed by benchmark, parameters and metric, e.g. EventMapperBenchmark.toStatus{casing=lower,steps=100} us/op
+    static Map<String, Metric> read(File file) throws IOException {
+        Map<String, Metric> metrics = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            String benchmark = result.path("benchmark").asText().replaceFirst("^dev\\.ruby\\.bench\\.", "");
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(),
+                    param.getValue().asText()));
+            String name = benchmark + (params.isEmpty() ? "" : params.toString().replace(" ", ""));
+            JsonNode primary = result.path("primaryMetric");
+            boolean throughput = result.path("mode").asText().equals("thrpt");
+            metrics.put(name + " " + primary.path("scoreUnit").asText(), metric(primary, throughput));
+            JsonNode allocation = result.path("secondaryMetrics").path(ALLOCATION);
+            if (!allocation.isMissingNode()) {
+                metrics.put(name + " " + allocation.path("scoreUnit").asText(), metric(allocation, false));
+            }
+        }
+        return metrics;
+    }
+
+    private static Metric metric(JsonNode node, boolean higherIsBetter) {
+        double error = node.path("scoreError").asDouble(0);
+        return new Metric(node.path("score").asDouble(), Double.isNaN(error) ? 0 : error,
+                node.path("scoreUnit").asText(), higherIsBetter);
+    }
+}
@@ -0,0 +1,115 @@
+package dev.ruby.bench;
+
+import java.time.Instant;
+
+// synthetic payloads shaped like the GitHub REST responses, including the repository objects we ignore
+final class BenchmarkData {
+    private static final Instant BASE_TIME = Instant.parse("2024-01-15T10:00:00Z");
+
+    private BenchmarkData() {
+    }
+
+    static String runsPageJson(int runs) {
+        StringBuilder sb = new StringBuilder(runs * 8192);
+        sb.append("{\"total_count\":").append(runs).append(",\"workflow_runs\":[");
+        for (int i = 0; i < runs; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendRun(sb, 1_000_000L + i);
+        }
+        return sb.append("]}").toString();
+    }
+
+    static String jobsPageJson(int jobs, int stepsPerJob) {
+        StringBuilder sb = new StringBuilder(jobs * 4096);
+        sb.append("{\"total_count\":").append(jobs).append(",\"jobs\":[");
+        for (int i = 0; i < jobs; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendJob(sb, 5_000_000L + i, stepsPerJob);
+        }
+        return sb.append("]}").toString();
+    }
+
+    static void appendRun(StringBuilder sb, long id) {
+        Instant created = BASE_TIME.plusSeconds(id % 86_400);
+        sb.append("{\"id\":").append(id)
+                .append(",\"name\":\"Build\",\"node_id\":\"WFR_kwLO").append(id).append('"')
+                .append(",\"head_branch\":\"main\",\"head_sha\":\"0123456789abcdef0123456789abcdef01234567\"")
+                .append(",\"path\":\".github/workflows/build.yml\",\"display_title\":\"Fix the build\"")
+                .append(",\"run_number\":").append(id % 10_000)
+                .append(",\"event\":\"push\",\"status\":\"completed\",\"conclusion\":\"success\"")
+                .append(",\"workflow_id\":42,\"check_suite_id\":").append(id * 3)
+                .append(",\"url\":\"https://api.github.com/repos/octo/repo/actions/runs/").append(id).append('"')
+                .append(",\"html_url\":\"https://github.com/octo/repo/actions/runs/").append(id).append('"')
+                .append(",\"pull_requests\":[]")
+                .append(",\"created_at\":\"").append(created).append('"')
+                .append(",\"updated_at\":\"").append(created.plusSeconds(300)).append('"')
+                .append(",\"actor\":");
+        appendUser(sb, "octocat");
+        sb.append(",\"run_attempt\":1,\"run_started_at\":\"").append(created.plusSeconds(2)).append('"')
+                .append(",\"triggering_actor\":");
+        appendUser(sb, "octocat");
+        sb.append(",\"head_commit\":{\"id\":\"0123456789abcdef0123456789abcdef01234567\",")
+                .append("\"message\":\"Fix the build\",\"timestamp\":\"").append(created).append("\",")
+                .append("\"author\":{\"name\":\"Octo Cat\",\"email\":\"octo@example.com\"}}")
+                .append(",\"repository\":");
+        appendRepository(sb);
+        sb.append(",\"head_repository\":");
+        appendRepository(sb);
+        sb.append('}');
+    }
+
+    static void appendJob(StringBuilder sb, long id, int steps) {
+        Instant started = BASE_TIME.plusSeconds(id % 86_400);
+        sb.append("{\"id\":").append(id).append(",\"run_id\":").append(id / 10)
+                .append(",\"run_url\":\"https://api.github.com/repos/octo/repo/actions/runs/").append(id / 10)
+                .append("\",\"node_id\":\"CR_kwDO").append(id).append('"')
+                .append(",\"head_sha\":\"0123456789abcdef0123456789abcdef01234567\"")
+                .append(",\"status\":\"completed\",\"conclusion\":\"success\"")
+                .append(",\"created_at\":\"").append(started).append('"')
+                .append(",\"started_at\":\"").append(started).append('"')
+                .append(",\"completed_at\":\"").append(started.plusSeconds(600)).append('"')
+                .append(",\"name\":\"test (ubuntu-latest)\",\"steps\":[");
+        for (int n = 1; n <= steps; n++) {
+            if (n > 1) {
+                sb.append(',');
+            }
+            sb.append("{\"name\":\"Step ").append(n)
+                    .append("\",\"status\":\"completed\",\"conclusion\":\"success\",\"number\":").append(n)
+                    .append(",\"started_at\":\"").append(started.plusSeconds(n * 10L)).append('"')
+                    .append(",\"completed_at\":\"").append(started.plusSeconds(n * 10L + 9)).append("\"}");
+        }
+        sb.append("],\"check_run_url\":\"https://api.github.com/repos/octo/repo/check-runs/").append(id)
+                .append("\",\"labels\":[\"ubuntu-latest\"],\"runner_id\":7,\"runner_name\":\"GitHub Actions 7\"")
+                .append(",\"runner_group_id\":2,\"runner_group_name\":\"GitHub Actions\"")
+                .append(",\"workflow_name\":\"Build\",\"head_branch\":\"main\"}");
+    }
+
+    private static void appendUser(StringBuilder sb, String login) {
+        sb.append("{\"login\":\"").append(login).append("\",\"id\":583231,\"node_id\":\"MDQ6VXNlcjU4MzIzMQ==\"")
+                .append(",\"avatar_url\":\"https://avatars.githubusercontent.com/u/583231?v=4\"")
+                .append(",\"url\":\"https://api.github.com/users/").append(login).append('"')
+                .append(",\"html_url\":\"https://github.com/").append(login).append('"')
+                .append(",\"type\":\"User\",\"site_admin\":false}");
+    }
+
+    private static void appendRepository(StringBuilder sb) {
+        sb.append("{\"id\":1296269,\"node_id\":\"MDEwOlJlcG9zaXRvcnkxMjk2MjY5\",\"name\":\"repo\"")
+                .append(",\"full_name\":\"octo/repo\",\"private\":false,\"owner\":");
+        appendUser(sb, "octo");
+        sb.append(",\"description\":\"This your first repo!\",\"fork\":false");
+        String[] links = { "archive", "assignees", "blobs", "branches", "collaborators", "comments", "commits",
+                "compare", "contents", "contributors", "deployments", "downloads", "events", "forks", "git_commits",
+                "git_refs", "git_tags", "hooks", "issue_comment", "issue_events", "issues", "keys", "labels",
+                "languages", "merges", "milestones", "notifications", "pulls", "releases", "stargazers", "statuses",
+                "subscribers", "subscription", "tags", "teams", "trees" };
+        for (String link : links) {
+            sb.append(",\"").append(link).append("_url\":\"https://api.github.com/repos/octo/repo/").append(link)
+                    .append("{/number}\"");
+        }
+        sb.append('}');
+    }
+}
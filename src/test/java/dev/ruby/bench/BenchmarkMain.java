@@ -0,0 +1,29 @@
+package dev.ruby.bench;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// the bench profile's entry point: org.openjdk.jmh.Main with the gc profiler and a JSON result file under
+// target/jmh by default, named after the project version and the time, so that every run leaves numbers
+// BenchmarkComparison can hold against a later one. -prof, -rf or -rff in the arguments replace the defaults
+public class BenchmarkMain {
+    static final File RESULT_DIR = new File("target/jmh");
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(List.of(args));
+        if (!jmhArgs.contains("-prof")) {
+            jmhArgs.add("-prof");
+            jmhArgs.add("gc");
+        }
+        if (!jmhArgs.contains("-rf") && !jmhArgs.contains("-rff")) {
+            RESULT_DIR.mkdirs();
+            String name = System.getProperty("bench.version", "dev") + "-"
+                    + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+            jmhArgs.addAll(List.of("-rf", "json", "-rff", new File(RESULT_DIR, name).getPath()));
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(String[]::new));
+    }
+}
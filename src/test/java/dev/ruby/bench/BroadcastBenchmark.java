@@ -0,0 +1,89 @@
+package dev.ruby.bench;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+import dev.ruby.server.EventBroadcaster;
+
+// what publishing one event costs a polling thread while `subscribers` virtual threads wait on the broadcaster
+// and read every event, as SseServer's streams do. a poller that had to wait for woken subscribers would pay
+// more the more of them there are
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class BroadcastBenchmark {
+    @Param({ "0", "16", "256", "1024" })
+    public int subscribers;
+
+    private EventBroadcaster broadcaster;
+    private final List<Thread> readers = new ArrayList<>();
+    private final WorkflowEvent[] events = new WorkflowEvent[1024];
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        broadcaster = new EventBroadcaster();
+        broadcaster.start();
+        for (int i = 0; i < subscribers; i++) {
+            readers.add(Thread.ofVirtual().start(this::read));
+        }
+        Instant time = Instant.parse("2024-01-15T10:30:00Z");
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new WorkflowEvent(String.valueOf(1_000_000 + i), time.plusSeconds(i), WorkflowLevel.STEP,
+                    EventStatus.values()[i % 4], "main", "4f2d9a1c0be7d35e8a6f1b2c3d4e5f6a7b8c9d0e",
+                    "Run integration tests " + i, "CI");
+        }
+    }
+
+    private void read() {
+        long position = broadcaster.next();
+        try {
+            while (!broadcaster.isClosed()) {
+                long next = broadcaster.await(position, 1, TimeUnit.SECONDS);
+                for (; position < next; position++) {
+                    broadcaster.get(position);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        broadcaster.close();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        readers.clear();
+    }
+
+    @Benchmark
+    public void accept() {
+        broadcaster.accept(events[next++ & (events.length - 1)], "octo/api");
+    }
+}
@@ -0,0 +1,153 @@
+package dev.ruby.bench;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowStep;
+import dev.ruby.mapper.EventMapper;
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.persistence.MonitorState;
+import dev.ruby.service.TransitionEngine;
+
+// event generation for one monitoring cycle over `runs` active runs, where one more step of every job
+// finishes each cycle. legacy regenerates every event and filters it through the key set; transitions only
+// builds events for what moved. compare time and gc.alloc.rate.norm per cycle
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventEngineBenchmark {
+    private static final Instant BASE_TIME = Instant.parse("2024-01-15T10:00:00Z");
+
+    @Param({ "100" })
+    public int runs;
+
+    @Param({ "5" })
+    public int jobsPerRun;
+
+    @Param({ "10" })
+    public int stepsPerJob;
+
+    // cycles[c] holds every run as seen in cycle c: steps before c finished, step c in progress
+    private List<List<WorkflowRun>> runsByCycle;
+    private List<List<List<WorkflowJob>>> jobsByCycle;
+    private int cycle;
+    private MonitorState state;
+    private TransitionEngine engine;
+    private int emitted;
+
+    @Setup
+    public void setUp() {
+        runsByCycle = new ArrayList<>();
+        jobsByCycle = new ArrayList<>();
+        for (int c = 0; c < stepsPerJob; c++) {
+            List<WorkflowRun> cycleRuns = new ArrayList<>();
+            List<List<WorkflowJob>> cycleJobs = new ArrayList<>();
+            for (int r = 0; r < runs; r++) {
+                long runId = 1_000_000L + r;
+                cycleRuns.add(new WorkflowRun(runId, "Build", "in_progress", null, "main",
+                        "0123456789abcdef0123456789abcdef01234567", BASE_TIME, BASE_TIME.plusSeconds(c + 1),
+                        BASE_TIME));
+                List<WorkflowJob> jobs = new ArrayList<>();
+                for (int j = 0; j < jobsPerRun; j++) {
+                    jobs.add(job(runId * 100 + j, c));
+                }
+                cycleJobs.add(jobs);
+            }
+            runsByCycle.add(cycleRuns);
+            jobsByCycle.add(cycleJobs);
+        }
+        reset();
+    }
+
+    @Benchmark
+    public int legacy() {
+        List<WorkflowRun> cycleRuns = nextCycle();
+        List<List<WorkflowJob>> cycleJobs = jobsByCycle.get(cycle);
+        emitted = 0;
+        for (int r = 0; r < cycleRuns.size(); r++) {
+            WorkflowRun run = cycleRuns.get(r);
+            report(EventMapper.toRunStartedEvent(run));
+            for (WorkflowJob job : cycleJobs.get(r)) {
+                report(EventMapper.toJobStartedEvent(run, job));
+                for (WorkflowStep step : job.steps()) {
+                    if (step.startedAt() == null) {
+                        break;
+                    }
+                    report(EventMapper.toStepStartedEvent(run, job, step));
+                    if (EventMapper.toStatus(step.status(), step.conclusion()).isFinished()) {
+                        report(EventMapper.toStepEvent(run, job, step));
+                    }
+                }
+            }
+        }
+        return emitted;
+    }
+
+    @Benchmark
+    public int transitions() {
+        List<WorkflowRun> cycleRuns = nextCycle();
+        List<List<WorkflowJob>> cycleJobs = jobsByCycle.get(cycle);
+        emitted = 0;
+        for (int r = 0; r < cycleRuns.size(); r++) {
+            WorkflowRun run = cycleRuns.get(r);
+            engine.process(run, EventStatus.STARTED, cycleJobs.get(r), 0, this::report);
+        }
+        return emitted;
+    }
+
+    // wraps around to a fresh state, so every pass through the cycles includes a first sighting
+    private List<WorkflowRun> nextCycle() {
+        cycle = (cycle + 1) % stepsPerJob;
+        if (cycle == 0) {
+            reset();
+        }
+        return runsByCycle.get(cycle);
+    }
+
+    private void reset() {
+        state = new MonitorState();
+        engine = new TransitionEngine(Duration.ofSeconds(30));
+    }
+
+    private void report(WorkflowEvent event) {
+        if (state.isNewEvent(event.getFingerprint(), event.getTime())) {
+            emitted++;
+        }
+    }
+
+    private WorkflowJob job(long jobId, int cycle) {
+        List<WorkflowStep> steps = new ArrayList<>();
+        for (int s = 0; s < stepsPerJob; s++) {
+            Instant started = BASE_TIME.plusSeconds(s + 1);
+            if (s < cycle) {
+                steps.add(new WorkflowStep("step " + s, "completed", "success", s + 1, started, started.plusSeconds(1)));
+            } else if (s == cycle) {
+                steps.add(new WorkflowStep("step " + s, "in_progress", null, s + 1, started, null));
+            } else {
+                steps.add(new WorkflowStep("step " + s, "queued", null, s + 1, null, null));
+            }
+        }
+        return new WorkflowJob(jobId, "job " + jobId, "in_progress", null, BASE_TIME, null, steps);
+    }
+}
@@ -0,0 +1,89 @@
+package dev.ruby.bench;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowStep;
+import dev.ruby.mapper.EventMapper;
+import dev.ruby.model.WorkflowEvent;
+
+// the per-event work of a cycle, over the `steps` steps of one jobs page: toStatus for every step, the step
+// events EventMapper builds (the fingerprint is computed in the constructor) and the legacy string key.
+// casing=lower is what the API sends; mixed takes toStatus down its toLowerCase fallback.
+// per-op numbers cover all steps; with -prof gc, gc.alloc.rate.norm is bytes per page
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventMapperBenchmark {
+    private static final Instant BASE_TIME = Instant.parse("2024-01-15T10:00:00Z");
+    private static final String[][] STATUSES = {
+            { "completed", "success" }, { "completed", "failure" }, { "in_progress", null }, { "queued", null },
+            { "completed", "skipped" }, { "completed", "cancelled" }, { "waiting", null }, { "completed", null } };
+
+    @Param({ "100", "1000" })
+    public int steps;
+
+    @Param({ "lower", "mixed" })
+    public String casing;
+
+    private WorkflowRun run;
+    private WorkflowJob job;
+    private List<WorkflowStep> stepList;
+
+    @Setup
+    public void setUp() {
+        run = new WorkflowRun(1_000_000L, "Build", "in_progress", null, "main",
+                "0123456789abcdef0123456789abcdef01234567", BASE_TIME, BASE_TIME.plusSeconds(60), BASE_TIME);
+        stepList = new ArrayList<>(steps);
+        for (int s = 0; s < steps; s++) {
+            String[] status = STATUSES[s % STATUSES.length];
+            boolean upper = casing.equals("mixed") && s % 2 == 0;
+            Instant started = BASE_TIME.plusSeconds(s);
+            stepList.add(new WorkflowStep("step " + s, upper ? status[0].toUpperCase() : status[0], status[1],
+                    s + 1, started, started.plusSeconds(1)));
+        }
+        job = new WorkflowJob(5_000_000L, "test", "in_progress", null, BASE_TIME, null, stepList);
+    }
+
+    @Benchmark
+    public void toStatus(Blackhole blackhole) {
+        for (WorkflowStep step : stepList) {
+            blackhole.consume(EventMapper.toStatus(step.status(), step.conclusion()));
+        }
+    }
+
+    @Benchmark
+    public void toStepEvent(Blackhole blackhole) {
+        for (WorkflowStep step : stepList) {
+            blackhole.consume(EventMapper.toStepEvent(run, job, step));
+        }
+    }
+
+    @Benchmark
+    public void legacyKey(Blackhole blackhole) {
+        for (WorkflowStep step : stepList) {
+            WorkflowEvent event = EventMapper.toStepEvent(run, job, step);
+            blackhole.consume(event.getKey());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dev.ruby.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+import dev.ruby.output.AsyncEventSink;
+import dev.ruby.output.EventFormat;
+import dev.ruby.output.EventSink;
+import dev.ruby.output.OutputOptions;
+import dev.ruby.server.EventBroadcaster;
+
+// what reporting one event costs the polling thread, writing to a file. `printf` is how events used to be
+// printed: a formatted, autoflushed write to a PrintStream per event. the other sinks queue the event for an
+// AsyncEventSink that blocks when its writer falls behind, so in the long run this also measures the writer.
+// `broadcast` is what a poller pays to publish an event to the subscribers of a serving fleet
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(2)
+public class EventSinkBenchmark {
+    @Param({ "printf", "TABLE", "JSONL", "BINARY", "broadcast" })
+    public String sink;
+
+    private File file;
+    private PrintStream printStream;
+    private EventSink eventSink;
+    private final WorkflowEvent[] events = new WorkflowEvent[1024];
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("events", ".out").toFile();
+        if (sink.equals("printf")) {
+            PrintStream out = new PrintStream(new FileOutputStream(file), true);
+            printStream = out;
+            eventSink = (event, repository) -> {
+                synchronized (out) {
+                    out.printf("%-24s | %-30s | %-5s | %-14s | %-10s | %-8s | %s%n", event.getTime(), repository,
+                            event.getLevel(), event.getStatus(), event.getBranch(), event.getSha().substring(0, 7),
+                            event.getName());
+                }
+            };
+        } else if (sink.equals("broadcast")) {
+            EventBroadcaster broadcaster = new EventBroadcaster();
+            broadcaster.start();
+            eventSink = broadcaster;
+        } else {
+            eventSink = OutputOptions.defaults().withFormat(EventFormat.valueOf(sink)).withFile(file)
+                    .withQueue(AsyncEventSink.DEFAULT_CAPACITY, AsyncEventSink.Backpressure.BLOCK).open(true);
+        }
+        Instant time = Instant.parse("2024-01-15T10:30:00Z");
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new WorkflowEvent(String.valueOf(1_000_000 + i), time.plusSeconds(i), WorkflowLevel.STEP,
+                    EventStatus.values()[i % 4], "main", "4f2d9a1c0be7d35e8a6f1b2c3d4e5f6a7b8c9d0e",
+                    "Run integration tests " + i);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        eventSink.close();
+        if (printStream != null) {
+            printStream.close();
+        }
+        file.delete();
+    }
+
+    private int next;
+
+    @Benchmark
+    public void accept() {
+        eventSink.accept(events[next++ & (events.length - 1)], "octo/api");
+    }
+}
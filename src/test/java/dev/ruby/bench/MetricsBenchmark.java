@@ -0,0 +1,68 @@
+package dev.ruby.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ruby.metrics.ApiMetrics;
+import dev.ruby.metrics.Histogram;
+import dev.ruby.metrics.MonitorMetrics;
+
+// what instrumentation adds to the hot paths: a histogram observation, a request count with its duration,
+// both from two threads, and a full scrape of a fleet's metrics. with -prof gc, gc.alloc.rate.norm of the
+// recording benchmarks should stay at 0
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(2)
+public class MetricsBenchmark {
+    private final Histogram histogram = Histogram.durations();
+    private final MonitorMetrics metrics = new MonitorMetrics();
+
+    // each thread its own values, so that only the metrics are shared
+    @State(Scope.Thread)
+    public static class Values {
+        private long value;
+
+        long next() {
+            return value = (value + 1_234_567) % 70_000_000_000L;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < 10_000; i++) {
+            metrics.api().request(ApiMetrics.Endpoint.RUNS, ApiMetrics.Outcome.OK, i * 10_000L);
+        }
+    }
+
+    @Benchmark
+    public void observe(Values values) {
+        histogram.observe(values.next());
+    }
+
+    @Benchmark
+    public void request(Values values) {
+        metrics.api().request(ApiMetrics.Endpoint.JOBS, ApiMetrics.Outcome.OK, values.next());
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String scrape() {
+        return metrics.scrape();
+    }
+}
@@ -0,0 +1,68 @@
+package dev.ruby.bench;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ruby.persistence.MonitorState;
+
+// MonitorState.isNewEvent as a monitor calls it, against a state holding `entries` events of the last day.
+// known asks for events already in the state, as most of a cycle does; fresh adds new ones, so the state grows
+// during an iteration and is rebuilt for the next. SeenEventsBenchmark measures the set underneath
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonitorStateBenchmark {
+    @Param({ "100000", "1000000" })
+    public int entries;
+
+    private MonitorState state;
+    private long now;
+    private long[] known;
+    private int nextKnown;
+    private long nextFresh;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        state = new MonitorState();
+        now = Instant.now().getEpochSecond();
+        known = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            known[i] = fingerprint(i);
+            state.isNewEvent(known[i], Instant.ofEpochSecond(now - i % 86_400));
+        }
+        nextFresh = entries;
+    }
+
+    @Benchmark
+    public boolean known() {
+        int i = nextKnown++ % entries;
+        return state.isNewEvent(known[i], Instant.ofEpochSecond(now - i % 86_400));
+    }
+
+    @Benchmark
+    public boolean fresh() {
+        long i = nextFresh++;
+        return state.isNewEvent(fingerprint(i), Instant.ofEpochSecond(now - i % 86_400));
+    }
+
+    // spread like real fingerprints
+    private static long fingerprint(long i) {
+        return (i + 1) * 0x9e3779b97f4a7c15L;
+    }
+}
@@ -0,0 +1,117 @@
+package dev.ruby.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ruby.persistence.MonitorState;
+import dev.ruby.persistence.SeenEventSet;
+import dev.ruby.persistence.StateBackend;
+import dev.ruby.persistence.StateFormat;
+
+// the retention cleanup StateStore runs on every save, over a week of history. most saves expire nothing
+// new: buckets compares a few hundred bucket hours, scan walks the time of every entry, as the flat table and
+// the HashMap.removeIf before it had to. the cost of buckets should not move with entries. save is the whole
+// save around it with the binary format: `newEvents` events seen since the last save appended to the journal,
+// after the cleanup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RetentionBenchmark {
+    private static final long HOURS = 7 * 24;
+    private static final Duration RETENTION = Duration.ofDays(7);
+
+    @Param({ "1000000", "10000000" })
+    public int entries;
+
+    @Param({ "20" })
+    public int newEvents;
+
+    private File directory;
+    private StateBackend store;
+    private MonitorState state;
+    private SeenEventSet set;
+    private long[] times;
+    private long cutoff;
+    private long nextFingerprint = 1;
+
+    @Setup
+    public void setUp() throws IOException {
+        // the last week up to now, without the hour the retention period starts in, which the save would expire
+        long hour = Instant.now().getEpochSecond() / SeenEventSet.BUCKET_SECONDS * SeenEventSet.BUCKET_SECONDS;
+        long start = hour - (HOURS - 1) * SeenEventSet.BUCKET_SECONDS;
+        SplittableRandom random = new SplittableRandom(42);
+        state = new MonitorState();
+        set = state.getSeenEvents();
+        times = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            long time = start + random.nextLong(HOURS * SeenEventSet.BUCKET_SECONDS);
+            state.isNewEvent(random.nextLong() | 1, Instant.ofEpochSecond(time));
+            times[i] = time;
+        }
+        cutoff = start;
+
+        directory = Files.createTempDirectory("retention-bench").toFile();
+        store = StateFormat.BINARY.open(directory, "octo-api", RETENTION);
+        // not the state the store loaded, so this writes a snapshot of it and later saves append to the journal
+        store.save(state);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (var files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int buckets() {
+        set.removeOlderThan(cutoff);
+        return set.size();
+    }
+
+    @Benchmark
+    public int scan() {
+        int expired = 0;
+        for (long time : times) {
+            if (time < cutoff) {
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    @Benchmark
+    public MonitorState save() {
+        Instant now = Instant.now();
+        for (int i = 0; i < newEvents; i++) {
+            // even fingerprints, never among the odd ones of the setup
+            state.isNewEvent(nextFingerprint++ << 1, now);
+        }
+        store.save(state);
+        return state;
+    }
+}
@@ -0,0 +1,110 @@
+package dev.ruby.bench;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ruby.model.EventFingerprint;
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowLevel;
+import dev.ruby.persistence.SeenEventSet;
+
+// dedup of 100k step-level events: the former HashMap<String, Instant> keyed by the formatted event key against
+// SeenEventSet keyed by EventFingerprint. insert* fills an empty set (run with -prof gc: gc.alloc.rate.norm is
+// bytes per entry, table growth included), lookup* checks every event against a full set, as a cycle that only
+// sees known events does
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeenEventsBenchmark {
+    private static final int EVENTS = 100_000;
+    private static final Instant BASE_TIME = Instant.parse("2024-01-15T10:00:00Z");
+
+    private final String[] ids = new String[EVENTS];
+    private final Instant[] times = new Instant[EVENTS];
+    private final EventStatus[] statuses = new EventStatus[EVENTS];
+    private Map<String, Instant> fullMap;
+    private SeenEventSet fullSet;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < EVENTS; i++) {
+            // ten steps per job, every step seen as started and as finished
+            int step = i / 2;
+            ids[i] = (50_000_000_000L + step / 10) + ":" + (step % 10 + 1);
+            times[i] = BASE_TIME.plusSeconds(i);
+            statuses[i] = i % 2 == 0 ? EventStatus.STARTED : EventStatus.SUCCESS;
+        }
+        fullMap = insertMap();
+        fullSet = insertSet();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public Map<String, Instant> insertMap() {
+        Map<String, Instant> map = new HashMap<>();
+        for (int i = 0; i < EVENTS; i++) {
+            map.putIfAbsent(key(i), times[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public SeenEventSet insertSet() {
+        SeenEventSet set = new SeenEventSet();
+        for (int i = 0; i < EVENTS; i++) {
+            set.add(fingerprint(i), times[i].getEpochSecond());
+        }
+        return set;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public int lookupMap() {
+        int seen = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            if (fullMap.containsKey(key(i))) {
+                seen++;
+            }
+        }
+        return seen;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public int lookupSet() {
+        int seen = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            if (!fullSet.add(fingerprint(i), times[i].getEpochSecond())) {
+                seen++;
+            }
+        }
+        return seen;
+    }
+
+    // the key as WorkflowEvent used to build it for every event
+    private String key(int i) {
+        return String.format("%s_%s_%s_%s", ids[i], times[i], WorkflowLevel.STEP, statuses[i]);
+    }
+
+    private long fingerprint(int i) {
+        return EventFingerprint.of(ids[i], times[i], WorkflowLevel.STEP, statuses[i]);
+    }
+}
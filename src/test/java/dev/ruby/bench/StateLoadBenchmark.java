@@ -0,0 +1,86 @@
+package dev.ruby.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ruby.persistence.MonitorState;
+import dev.ruby.persistence.SeenEventSet;
+import dev.ruby.persistence.StateBackend;
+import dev.ruby.persistence.StateFormat;
+
+// startup: loading a state of `keys` seen events, plus one lookup so the loaded state is actually usable.
+// JSON parses and rebuilds the whole set, BINARY maps the snapshot and searches it in place.
+// run with -prof gc for the bytes allocated per load and a large -Xmx (bench.jvmArgs) for 10M keys
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StateLoadBenchmark {
+    private static final String REPO = "octo-api";
+
+    @Param({ "1000000", "10000000" })
+    public int keys;
+
+    @Param({ "JSON", "BINARY" })
+    public StateFormat format;
+
+    private File directory;
+    private long probe;
+    private long probeTime;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("state-load-bench").toFile();
+        long now = Instant.now().getEpochSecond();
+        SeenEventSet seenEvents = new SeenEventSet();
+        for (long i = 1; i <= keys; i++) {
+            // a week of events, spread like real fingerprints
+            seenEvents.add(i * 0x9e3779b97f4a7c15L, now - i % (7 * 86_400));
+        }
+        probe = keys / 2 * 0x9e3779b97f4a7c15L;
+        probeTime = now - keys / 2 % (7 * 86_400);
+
+        StateBackend store = format.open(directory, REPO, Duration.ofDays(7));
+        store.save(new MonitorState(Instant.now(), seenEvents, null));
+        store.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public boolean load() {
+        StateBackend store = format.open(directory, REPO, Duration.ofDays(7));
+        try {
+            MonitorState state = store.load();
+            return state.getSeenEvents().contains(probe, probeTime);
+        } finally {
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.ruby.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ruby.persistence.AsyncStatePersister;
+import dev.ruby.persistence.MonitorState;
+import dev.ruby.persistence.StateBackend;
+import dev.ruby.persistence.StateFormat;
+
+// one cycle's save: `newEvents` events were seen since the last save, on top of `entries` already in the state.
+// JSON rewrites everything, JOURNAL appends the new events and compacts now and then. with `async` the save
+// goes through an AsyncStatePersister writing on every cycle, and only the polling thread's share is measured
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateSaveBenchmark {
+    @Param({ "100000", "1000000" })
+    public int entries;
+
+    @Param({ "20" })
+    public int newEvents;
+
+    @Param({ "JSON", "JOURNAL" })
+    public StateFormat format;
+
+    @Param({ "false", "true" })
+    public boolean async;
+
+    private File directory;
+    private ExecutorService writer;
+    private StateBackend store;
+    private MonitorState state;
+    private long nextFingerprint = 1;
+    private long now;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("state-bench").toFile();
+        store = format.open(directory, "octo-api", Duration.ofDays(7));
+        if (async) {
+            writer = Executors.newSingleThreadExecutor();
+            store = new AsyncStatePersister(store, writer, Duration.ofDays(7), Duration.ZERO, 1);
+        }
+        state = store.load();
+        now = Instant.now().getEpochSecond();
+        for (int i = 0; i < entries; i++) {
+            seen();
+        }
+        store.save(state);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        if (writer != null) {
+            writer.shutdown();
+        }
+        try (var files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public MonitorState save() {
+        for (int i = 0; i < newEvents; i++) {
+            seen();
+        }
+        store.save(state);
+        return state;
+    }
+
+    private void seen() {
+        // spread like real fingerprints, recent enough to survive the retention cleanup
+        long fingerprint = nextFingerprint++ * 0x9e3779b97f4a7c15L;
+        state.isNewEvent(fingerprint, Instant.ofEpochSecond(now - nextFingerprint % 86_400));
+    }
+}
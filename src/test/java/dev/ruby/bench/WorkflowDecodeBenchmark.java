@@ -0,0 +1,73 @@
+package dev.ruby.bench;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import dev.ruby.client.StreamingWorkflowDecoder;
+import dev.ruby.client.TreeWorkflowDecoder;
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+
+// compares decode time and bytes allocated per page (gc.alloc.rate.norm) of the tree and streaming paths
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowDecodeBenchmark {
+
+    @Param({ "100" })
+    public int pageSize;
+
+    private byte[] runsPage;
+    private byte[] jobsPage;
+    private StreamingWorkflowDecoder streaming;
+    private TreeWorkflowDecoder tree;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        streaming = new StreamingWorkflowDecoder(objectMapper.getFactory());
+        tree = new TreeWorkflowDecoder(objectMapper);
+        runsPage = BenchmarkData.runsPageJson(pageSize).getBytes(StandardCharsets.UTF_8);
+        jobsPage = BenchmarkData.jobsPageJson(pageSize, 10).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<WorkflowRun> runsTree() throws Exception {
+        return tree.decodeRuns(new ByteArrayInputStream(runsPage));
+    }
+
+    @Benchmark
+    public List<WorkflowRun> runsStreaming() throws Exception {
+        return streaming.decodeRuns(new ByteArrayInputStream(runsPage));
+    }
+
+    @Benchmark
+    public List<WorkflowJob> jobsTree() throws Exception {
+        return tree.decodeJobs(new ByteArrayInputStream(jobsPage));
+    }
+
+    @Benchmark
+    public List<WorkflowJob> jobsStreaming() throws Exception {
+        return streaming.decodeJobs(new ByteArrayInputStream(jobsPage));
+    }
+}
@@ -0,0 +1,154 @@
+package dev.ruby.client;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.metrics.ApiMetrics.Endpoint;
+import dev.ruby.metrics.ApiMetrics.Outcome;
+import dev.ruby.simulator.GitHubApiSimulator;
+import dev.ruby.simulator.SimulatorConfig;
+
+class GitHubClientTest {
+
+    private GitHubApiSimulator simulator;
+    private GitHubClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new GitHubApiSimulator(SimulatorConfig.defaults().withRuns(5, 0).withShape(2, 3)
+                .withRateLimit(100, Duration.ofHours(1)));
+        client = new GitHubClient(simulator.baseUrl(), "octo", "simulated", "token", new ResponseCache(),
+                new RateBudget());
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulator.close();
+    }
+
+    @Test
+    void getWorkflowRuns_shouldDecodeRunsFromConfiguredBaseUrl() throws Exception {
+        List<WorkflowRun> runs = client.getWorkflowRuns(1, 100);
+
+        assertEquals(5, runs.size());
+        assertTrue(runs.get(0).id() > runs.get(4).id());
+        assertEquals("queued", runs.get(0).status());
+    }
+
+    @Test
+    void getWorkflowRuns_withQuery_shouldBeFilteredByTheServer() throws Exception {
+        List<WorkflowRun> release = client.getWorkflowRuns(RunQuery.of("release", "push", null), 1, 100);
+        assertEquals(1, release.size());
+        assertEquals("release", release.get(0).headBranch());
+
+        Instant created = release.get(0).createdAt();
+        assertEquals(5, client.getWorkflowRuns(RunQuery.ALL.withCreated(created, null), 1, 100).size());
+        assertEquals(0, client.getWorkflowRuns(RunQuery.ALL.withCreated(created.plusSeconds(1), null), 1, 100)
+                .size());
+        assertEquals(0, client.getWorkflowRuns(RunQuery.ALL.withStatus("in_progress"), 1, 100).size());
+    }
+
+    @Test
+    void getWorkflowRuns_unchanged_shouldBeServedFromCacheOn304() throws Exception {
+        List<WorkflowRun> first = client.getWorkflowRuns(1, 100);
+        List<WorkflowRun> second = client.getWorkflowRuns(1, 100);
+
+        assertSame(first, second);
+        assertEquals(1, simulator.notModified());
+        assertEquals(1, client.getResponseCache().getHits());
+        assertEquals(1, client.getResponseCache().getMisses());
+        // the 304 did not spend budget
+        assertEquals(99, client.getRateBudget().snapshot().remaining());
+    }
+
+    @Test
+    void getWorkflowRuns_shouldRevalidateCachedEntriesAndRefetchEvictedOnes() throws Exception {
+        GitHubClient small = new GitHubClient(simulator.baseUrl(), "octo", "simulated", "token",
+                new ResponseCache(1), new RateBudget());
+
+        List<WorkflowRun> first = small.getWorkflowRuns(1, 100);
+        assertNull(simulator.lastIfNoneMatch());
+        assertSame(first, small.getWorkflowRuns(1, 100));
+        String etag = simulator.lastIfNoneMatch();
+        assertTrue(etag != null && !etag.isEmpty());
+
+        // the jobs take the only cache slot; the runs list goes out without validators and a 304 to it is asked
+        // again
+        small.getJobsForRun(first.get(0).id());
+        simulator.forceNotModified();
+        List<WorkflowRun> refetched = small.getWorkflowRuns(1, 100);
+
+        assertNull(simulator.lastIfNoneMatch());
+        assertEquals(first, refetched);
+        assertEquals(2, simulator.notModified());
+        assertEquals(5, simulator.requests());
+        assertEquals(1, small.getResponseCache().getHits());
+    }
+
+    @Test
+    void getJobsForRun_afterTick_shouldSeeProgress() throws Exception {
+        long runId = client.getWorkflowRuns(1, 100).get(0).id();
+        for (int i = 0; i < 20; i++) {
+            simulator.tick();
+        }
+
+        List<WorkflowJob> jobs = client.getJobsForRun(runId);
+
+        assertEquals(2, jobs.size());
+        assertEquals(3, jobs.get(0).steps().size());
+        assertFalse("queued".equals(client.getWorkflowRun(runId).status()));
+    }
+
+    @Test
+    void exhaustedRateLimit_shouldFailFastWithRateLimitedException() throws Exception {
+        client.getWorkflowRuns(1, 100);
+        simulator.exhaustRateLimit();
+        simulator.tick();
+
+        long start = System.nanoTime();
+        assertThrows(RateLimitedException.class, () -> client.getWorkflowRuns(1, 100));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toSeconds() < 2);
+        assertEquals(0, client.getRateBudget().snapshot().remaining());
+    }
+
+    @Test
+    void secondaryRateLimit_withShortRetryAfter_shouldRetryAndSucceed() throws Exception {
+        simulator.triggerSecondaryLimit();
+
+        List<WorkflowRun> runs = client.getWorkflowRuns(1, 100);
+
+        assertEquals(5, runs.size());
+        assertEquals(1, simulator.rateLimited());
+        assertEquals(2, simulator.requests());
+    }
+
+    @Test
+    void requests_shouldBeCountedByEndpointAndOutcome() throws Exception {
+        simulator.triggerSecondaryLimit();
+        long runId = client.getWorkflowRuns(1, 100).get(0).id();
+        client.getWorkflowRuns(1, 100);
+        client.getJobsForRun(runId);
+
+        assertEquals(1, client.getMetrics().requests(Endpoint.RUNS, Outcome.RATE_LIMITED));
+        assertEquals(1, client.getMetrics().requests(Endpoint.RUNS, Outcome.OK));
+        assertEquals(1, client.getMetrics().requests(Endpoint.RUNS, Outcome.NOT_MODIFIED));
+        assertEquals(1, client.getMetrics().requests(Endpoint.JOBS, Outcome.OK));
+        assertEquals(0, client.getMetrics().requests(Endpoint.RUN, Outcome.OK));
+        assertEquals(4, client.getMetrics().latency().count());
+        assertTrue(client.getMetrics().responseBytes(Endpoint.RUNS) > 0);
+        assertTrue(client.getMetrics().responseBytes(Endpoint.JOBS) > 0);
+    }
+}
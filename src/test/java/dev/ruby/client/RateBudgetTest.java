@@ -0,0 +1,192 @@
+package dev.ruby.client;
+
+import java.net.http.HttpHeaders;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class RateBudgetTest {
+
+    @Test
+    void update_shouldTrackRateLimitHeaders() {
+        RateBudget budget = new RateBudget();
+        long reset = Instant.now().plusSeconds(1800).getEpochSecond();
+
+        budget.update(headers(Map.of("x-ratelimit-limit", "5000", "x-ratelimit-remaining", "4990",
+                "x-ratelimit-used", "10", "x-ratelimit-reset", String.valueOf(reset))));
+
+        RateBudget.Snapshot snapshot = budget.snapshot();
+        assertEquals(5000, snapshot.limit());
+        assertEquals(4990, snapshot.remaining());
+        assertEquals(10, snapshot.used());
+        assertEquals(Instant.ofEpochSecond(reset), snapshot.resetAt());
+    }
+
+    @Test
+    void update_withUnreadableHeaders_shouldKeepTheLastValues() {
+        RateBudget budget = new RateBudget();
+        long reset = Instant.now().plusSeconds(1800).getEpochSecond();
+        budget.update(headers(Map.of("x-ratelimit-limit", "5000", "x-ratelimit-remaining", "4990",
+                "x-ratelimit-used", "10", "x-ratelimit-reset", String.valueOf(reset))));
+
+        budget.update(headers(Map.of("x-ratelimit-limit", "", "x-ratelimit-remaining", "lots",
+                "x-ratelimit-used", "11", "x-ratelimit-reset", "soon")));
+
+        RateBudget.Snapshot snapshot = budget.snapshot();
+        assertEquals(5000, snapshot.limit());
+        assertEquals(4990, snapshot.remaining());
+        assertEquals(11, snapshot.used());
+        assertEquals(Instant.ofEpochSecond(reset), snapshot.resetAt());
+    }
+
+    @Test
+    void acquire_withBudgetAboveFairShare_shouldNotPace() throws Exception {
+        RateBudget budget = new RateBudget();
+        budget.update(budgetHeaders(5000, 4000, 1800));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            budget.acquire(RequestPriority.LIVE);
+        }
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+        assertEquals(3950, budget.snapshot().remaining());
+    }
+
+    @Test
+    void acquire_withExhaustedBudget_shouldFailFastInsteadOfSleeping() {
+        RateBudget budget = new RateBudget();
+        budget.update(budgetHeaders(5000, 0, 1800));
+
+        long start = System.nanoTime();
+        RateLimitedException e = assertThrows(RateLimitedException.class,
+                () -> budget.acquire(RequestPriority.ACTIVE));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+        assertTrue(e.getRetryAt().isAfter(Instant.now().plusSeconds(1700)));
+    }
+
+    @Test
+    void onRateLimited_shouldHonourRetryAfter() {
+        RateBudget budget = new RateBudget();
+
+        Instant retryAt = budget.onRateLimited(headers(Map.of("retry-after", "30")));
+
+        assertTrue(retryAt.isAfter(Instant.now().plusSeconds(29)));
+        assertTrue(retryAt.isBefore(Instant.now().plusSeconds(40)));
+        assertThrows(RateLimitedException.class, () -> budget.acquire(RequestPriority.ACTIVE));
+    }
+
+    @Test
+    void onRateLimited_shouldReadRetryAfterAsHttpDate() {
+        RateBudget budget = new RateBudget();
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(120));
+
+        Instant retryAt = budget.onRateLimited(headers(Map.of("retry-after", date)));
+
+        assertTrue(retryAt.isAfter(Instant.now().plusSeconds(110)));
+        assertTrue(retryAt.isBefore(Instant.now().plusSeconds(160)));
+    }
+
+    @Test
+    void onRateLimited_withUnreadableRetryAfter_shouldWaitForTheReset() {
+        RateBudget budget = new RateBudget();
+        long reset = Instant.now().plusSeconds(600).getEpochSecond();
+
+        Instant retryAt = budget.onRateLimited(headers(Map.of("retry-after", "soon", "x-ratelimit-limit", "5000",
+                "x-ratelimit-remaining", "100", "x-ratelimit-reset", String.valueOf(reset))));
+
+        assertTrue(retryAt.isAfter(Instant.ofEpochSecond(reset)));
+        assertTrue(retryAt.isBefore(Instant.ofEpochSecond(reset).plusSeconds(200)));
+    }
+
+    @Test
+    void onNotModified_shouldGiveBackThePermit() throws Exception {
+        RateBudget budget = new RateBudget();
+        budget.update(budgetHeaders(5000, 4000, 1800));
+
+        budget.acquire(RequestPriority.LIVE);
+        budget.onNotModified(headers(Map.of()));
+        assertEquals(4000, budget.snapshot().remaining());
+
+        // the server's own count wins over the refund
+        budget.acquire(RequestPriority.LIVE);
+        budget.update(budgetHeaders(5000, 3990, 1800));
+        budget.onNotModified(budgetHeaders(5000, 3990, 1800));
+        assertEquals(3990, budget.snapshot().remaining());
+    }
+
+    @Test
+    void onRateLimited_secondaryLimitWithoutHeaders_shouldBackOffExponentially() {
+        RateBudget budget = new RateBudget();
+
+        Instant first = budget.onRateLimited(headers(Map.of()));
+        Instant second = budget.onRateLimited(headers(Map.of()));
+
+        Duration firstDelay = Duration.between(Instant.now(), first);
+        Duration secondDelay = Duration.between(Instant.now(), second);
+        assertTrue(firstDelay.toSeconds() >= 59);
+        assertTrue(secondDelay.toSeconds() >= 119);
+    }
+
+    @Test
+    void acquire_whilePaced_shouldServeHigherPriorityFirst() throws Exception {
+        // half of a 36000/hour budget spent at the start of the window paces one request every 200ms
+        RateBudget budget = new RateBudget(Clock.systemUTC(), Duration.ofSeconds(5));
+        budget.update(budgetHeaders(36000, 18000, 3600));
+        budget.acquire(RequestPriority.LIVE);
+
+        List<RequestPriority> served = new CopyOnWriteArrayList<>();
+        Thread backfill = Thread.ofVirtual().start(() -> acquireQuietly(budget, RequestPriority.BACKFILL, served));
+        waitUntilQueued(budget, RequestPriority.BACKFILL);
+        Thread active = Thread.ofVirtual().start(() -> acquireQuietly(budget, RequestPriority.ACTIVE, served));
+
+        backfill.join();
+        active.join();
+
+        assertEquals(List.of(RequestPriority.ACTIVE, RequestPriority.BACKFILL), served);
+        assertFalse(budget.snapshot().queued().values().stream().anyMatch(count -> count > 0));
+    }
+
+    private static void acquireQuietly(RateBudget budget, RequestPriority priority, List<RequestPriority> served) {
+        try {
+            budget.acquire(priority);
+            served.add(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntilQueued(RateBudget budget, RequestPriority priority) throws InterruptedException {
+        while (budget.snapshot().queued().get(priority) == 0) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static HttpHeaders budgetHeaders(int limit, int remaining, long secondsToReset) {
+        long reset = Instant.now().getEpochSecond() + secondsToReset;
+        return headers(Map.of("x-ratelimit-limit", String.valueOf(limit),
+                "x-ratelimit-remaining", String.valueOf(remaining),
+                "x-ratelimit-reset", String.valueOf(reset)));
+    }
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        Map<String, List<String>> multi = new HashMap<>();
+        values.forEach((name, value) -> multi.put(name, List.of(value)));
+        return HttpHeaders.of(multi, (name, value) -> true);
+    }
+}
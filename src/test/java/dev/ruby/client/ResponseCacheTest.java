@@ -0,0 +1,43 @@
+package dev.ruby.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class ResponseCacheTest {
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedEntryWhenFull() {
+        ResponseCache cache = new ResponseCache(2);
+        cache.put("a", new ResponseCache.Entry("\"a\"", null, "A"));
+        cache.put("b", new ResponseCache.Entry("\"b\"", null, "B"));
+
+        // touch "a" so that "b" becomes the eldest entry
+        cache.get("a");
+        cache.put("c", new ResponseCache.Entry("\"c\"", null, "C"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void counters_shouldTrackHitsAndMisses() {
+        ResponseCache cache = new ResponseCache();
+
+        cache.recordMiss();
+        cache.recordHit();
+        cache.recordHit();
+
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCache(0));
+    }
+}
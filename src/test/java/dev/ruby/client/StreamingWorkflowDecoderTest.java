@@ -0,0 +1,204 @@
+package dev.ruby.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowRunsPage;
+
+class StreamingWorkflowDecoderTest {
+
+    private static final String RUNS_PAGE = """
+            {
+              "total_count": 2,
+              "workflow_runs": [
+                {
+                  "id": 1,
+                  "name": "Build",
+                  "status": "completed",
+                  "conclusion": "success",
+                  "head_branch": "main",
+                  "head_sha": "abcdef123456",
+                  "pull_requests": [{"id": 9, "head": {"ref": "x"}}],
+                  "created_at": "2024-01-15T10:30:00Z",
+                  "updated_at": "2024-01-15T10:35:00Z",
+                  "run_started_at": "2024-01-15T10:30:05Z",
+                  "run_attempt": 2,
+                  "actor": {"login": "octocat", "id": 1, "site_admin": false},
+                  "workflow_id": 42,
+                  "repository": {"id": 5, "owner": {"login": "octo"}, "topics": ["a", "b"]},
+                  "head_commit": {"message": "fix", "author": {"name": "x"}}
+                },
+                {
+                  "id": 2,
+                  "name": "Lint",
+                  "status": "queued",
+                  "conclusion": null,
+                  "head_branch": "feature",
+                  "head_sha": "123456abcdef",
+                  "created_at": "2024-01-15T11:00:00Z",
+                  "updated_at": "2024-01-15T11:00:00Z",
+                  "run_started_at": null
+                }
+              ]
+            }
+            """;
+
+    private static final String JOBS_PAGE = """
+            {
+              "total_count": 1,
+              "jobs": [
+                {
+                  "id": 10,
+                  "run_id": 1,
+                  "name": "test",
+                  "status": "completed",
+                  "conclusion": "failure",
+                  "started_at": "2024-01-15T10:31:00Z",
+                  "completed_at": "2024-01-15T10:34:00Z",
+                  "labels": ["ubuntu-latest"],
+                  "steps": [
+                    {"name": "checkout", "status": "completed", "conclusion": "success", "number": 1,
+                     "started_at": "2024-01-15T10:31:01Z", "completed_at": "2024-01-15T10:31:05Z"},
+                    {"name": "test", "status": "completed", "conclusion": "failure", "number": 2,
+                     "started_at": "2024-01-15T10:31:05Z", "completed_at": "2024-01-15T10:34:00Z"}
+                  ]
+                },
+                {
+                  "id": 11,
+                  "name": "pending",
+                  "status": "queued",
+                  "conclusion": null,
+                  "started_at": null,
+                  "completed_at": null
+                }
+              ]
+            }
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final StreamingWorkflowDecoder streaming = new StreamingWorkflowDecoder(objectMapper.getFactory());
+    private final TreeWorkflowDecoder tree = new TreeWorkflowDecoder(objectMapper);
+
+    @Test
+    void decodeRuns_shouldMatchTreeDecoder() throws Exception {
+        List<WorkflowRun> runs = streaming.decodeRuns(stream(RUNS_PAGE));
+
+        assertEquals(tree.decodeRuns(stream(RUNS_PAGE)), runs);
+        assertEquals(2, runs.size());
+        assertEquals(Instant.parse("2024-01-15T10:35:00Z"), runs.get(0).updatedAt());
+        assertEquals(2, runs.get(0).runAttempt());
+        assertEquals(1, runs.get(1).runAttempt());
+        assertEquals("octocat", runs.get(0).actorLogin());
+        assertNull(runs.get(1).actorLogin());
+        assertEquals(42, runs.get(0).workflowId());
+        assertNull(runs.get(1).conclusion());
+        assertNull(runs.get(1).runStartedAt());
+    }
+
+    @Test
+    void decodeRunsPage_shouldReadTheTotalCount() throws Exception {
+        WorkflowRunsPage page = streaming.decodeRunsPage(stream(RUNS_PAGE));
+
+        assertEquals(tree.decodeRunsPage(stream(RUNS_PAGE)), page);
+        assertEquals(2, page.totalCount());
+        assertEquals(streaming.decodeRuns(stream(RUNS_PAGE)), page.runs());
+    }
+
+    @Test
+    void decodeJobs_shouldMatchTreeDecoder() throws Exception {
+        List<WorkflowJob> jobs = streaming.decodeJobs(stream(JOBS_PAGE));
+
+        assertEquals(tree.decodeJobs(stream(JOBS_PAGE)), jobs);
+        assertEquals(2, jobs.get(0).steps().size());
+        assertEquals(2, jobs.get(0).steps().get(1).number());
+        assertTrue(jobs.get(1).steps().isEmpty());
+    }
+
+    @Test
+    void decodeJobs_withStepsObject_shouldSkipItAndKeepTheJobsAfter() throws Exception {
+        String body = """
+                {"jobs": [
+                  {"id": 1, "name": "build", "steps": {"id": 99, "name": "not a step"}, "status": "completed"},
+                  {"id": 2, "name": "test", "steps": null}
+                ]}
+                """;
+
+        List<WorkflowJob> jobs = streaming.decodeJobs(stream(body));
+
+        assertEquals(2, jobs.size());
+        assertEquals(1, jobs.get(0).id());
+        assertEquals("build", jobs.get(0).name());
+        assertEquals("completed", jobs.get(0).status());
+        assertTrue(jobs.get(0).steps().isEmpty());
+        assertEquals(2, jobs.get(1).id());
+    }
+
+    @Test
+    void decodeRun_shouldReadSingleRunObject() throws Exception {
+        String body = """
+                {"id": 7, "name": "Deploy", "status": "in_progress", "repository": {"id": 1},
+                 "created_at": "2024-01-15T10:30:00Z", "updated_at": "2024-01-15T10:31:00Z"}
+                """;
+
+        WorkflowRun run = streaming.decodeRun(stream(body));
+
+        assertEquals(tree.decodeRun(stream(body)), run);
+        assertEquals(7L, run.id());
+        assertEquals("in_progress", run.status());
+    }
+
+    @Test
+    void decodeRuns_withoutRunsField_shouldReturnEmptyList() throws Exception {
+        assertTrue(streaming.decodeRuns(stream("{\"total_count\": 0}")).isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "1970-01-01T00:00:00Z", "2024-02-29T23:59:59Z", "2023-03-01T00:00:00Z",
+            "2000-12-31T12:30:45Z", "2100-03-01T08:00:00Z" })
+    void parseUtcSeconds_shouldMatchInstantParse(String text) {
+        assertEquals(Instant.parse(text), StreamingWorkflowDecoder.parseUtcSeconds(text.toCharArray(), 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "2024-02-30T00:00:00Z", "2023-02-29T00:00:00Z", "2100-02-29T00:00:00Z",
+            "2024-04-31T00:00:00Z", "2024-13-01T00:00:00Z", "2024-00-10T00:00:00Z", "2024-01-00T00:00:00Z",
+            "2024-01-15T24:00:61Z", "2024-01-15T25:00:00Z", "2024-01-15T10:60:00Z", "2024-01-15T10:30:61Z",
+            "2024-01-15T1a:30:00Z" })
+    void parseUtcSeconds_withImpossibleDate_shouldBeRejectedLikeInstantParse(String text) {
+        assertThrows(DateTimeParseException.class, () -> Instant.parse(text));
+        assertNull(StreamingWorkflowDecoder.parseUtcSeconds(text.toCharArray(), 0));
+
+        String body = "{\"workflow_runs\": [{\"id\": 1, \"created_at\": \"" + text + "\"}]}";
+        assertThrows(DateTimeParseException.class, () -> streaming.decodeRuns(stream(body)));
+    }
+
+    @Test
+    void decodeRuns_withFractionalTimestamp_shouldFallBackToInstantParse() throws Exception {
+        String body = """
+                {"workflow_runs": [{"id": 1, "created_at": "2024-01-15T10:30:00.123Z"}]}
+                """;
+
+        assertEquals(Instant.parse("2024-01-15T10:30:00.123Z"), streaming.decodeRuns(stream(body)).get(0).createdAt());
+    }
+
+    private InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,327 @@
+package dev.ruby.cluster;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClusterNodeTest {
+
+    private static final Duration LEASE = Duration.ofSeconds(30);
+    private static final List<String> REPOSITORIES = repositories(40);
+
+    @TempDir
+    Path tempDir;
+
+    private ClusterDirectory directory;
+    private MutableClock clock;
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = new ClusterDirectory(tempDir.toFile());
+        clock = new MutableClock(Instant.parse("2024-01-15T10:00:00Z"));
+    }
+
+    @Test
+    void twoNodes_shouldSplitRepositoriesWithoutOverlap() throws IOException {
+        ClusterNode a = node("node-a");
+        ClusterNode b = node("node-b");
+
+        a.tick();
+        assertEquals(Set.copyOf(REPOSITORIES), a.getOwned());
+
+        // b joins: a hands over b's share on its next tick, b picks it up on the one after
+        b.tick();
+        assertTrue(b.getOwned().isEmpty());
+        a.tick();
+        b.tick();
+
+        assertPartition(a, b);
+        assertFalse(a.getOwned().isEmpty());
+        assertFalse(b.getOwned().isEmpty());
+        for (String repository : b.getOwned()) {
+            assertTrue(events.indexOf("node-a released " + repository) < events.indexOf(
+                    "node-b acquired " + repository), repository);
+        }
+    }
+
+    @Test
+    void deadNode_shouldFailOverAfterLeaseExpires() throws IOException {
+        ClusterNode a = node("node-a");
+        ClusterNode b = node("node-b");
+        a.tick();
+        b.tick();
+        a.tick();
+        b.tick();
+        Set<String> ownedByA = a.getOwned();
+
+        // a stops ticking; its heartbeat and leases are still valid, so nothing moves yet
+        clock.advance(LEASE.minusSeconds(1));
+        b.tick();
+        assertTrue(Collections.disjoint(ownedByA, b.getOwned()));
+
+        clock.advance(Duration.ofSeconds(2));
+        b.tick();
+        assertEquals(Set.copyOf(REPOSITORIES), b.getOwned());
+
+        // a comes back and finds its leases taken
+        a.tick();
+        assertTrue(a.getOwned().isEmpty());
+        for (String repository : ownedByA) {
+            assertTrue(events.contains("node-a lost " + repository), repository);
+        }
+    }
+
+    @Test
+    void close_shouldReleaseLeasesForOtherNodes() throws IOException {
+        ClusterNode a = node("node-a");
+        ClusterNode b = node("node-b");
+        a.tick();
+        b.tick();
+
+        a.close();
+        for (String repository : REPOSITORIES) {
+            assertNull(directory.readLease(repository));
+        }
+        b.tick();
+
+        assertEquals(Set.copyOf(REPOSITORIES), b.getOwned());
+    }
+
+    @Test
+    void fence_shouldRunOutWithTheLeaseAndNotComeBackOnReacquire() throws IOException {
+        ClusterNode a = node("node-a");
+        a.tick();
+        String repository = REPOSITORIES.get(0);
+        ClusterNode.Fence fence = a.fence(repository);
+        assertTrue(fence.isValid());
+
+        // a missed its renewals: its fence runs out before the lease does, so nothing is written past it
+        clock.advance(LEASE.minusSeconds(2));
+        assertFalse(fence.isValid());
+        assertEquals(a.fence(repository), fence);
+
+        clock.advance(Duration.ofSeconds(3));
+        a.tick();
+        assertTrue(events.contains("node-a lost " + repository));
+        ClusterNode.Fence reacquired = a.fence(repository);
+        assertEquals(fence.generation() + 1, reacquired.generation());
+        assertEquals(reacquired.generation(), directory.readLease(repository).generation());
+        assertTrue(reacquired.isValid());
+        assertFalse(fence.isValid());
+    }
+
+    @Test
+    void slowHandoff_shouldNotStopRenewals() throws Exception {
+        CountDownLatch saved = new CountDownLatch(1);
+        ExecutorService handoffs = Executors.newVirtualThreadPerTaskExecutor();
+        ClusterNode a = new ClusterNode(directory, "node-a", LEASE, REPOSITORIES, new ClusterNode.Listener() {
+            @Override
+            public void acquired(String repository, ClusterNode.Fence fence) {
+            }
+
+            @Override
+            public void released(String repository) {
+                try {
+                    saved.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void lost(String repository) {
+                events.add("node-a lost " + repository);
+            }
+        }, clock, handoffs);
+        ClusterNode b = node("node-b");
+        a.tick();
+        b.tick();
+        // a starts handing over b's share, which takes longer than a lease
+        a.tick();
+        Set<String> handedOver = new HashSet<>(REPOSITORIES);
+        for (int i = 0; i < 4; i++) {
+            clock.advance(LEASE.dividedBy(2));
+            a.tick();
+            b.tick();
+        }
+
+        assertTrue(events.stream().noneMatch(event -> event.startsWith("node-a lost")), events.toString());
+        assertEquals(Set.copyOf(REPOSITORIES), a.getOwned());
+        for (String repository : REPOSITORIES) {
+            assertTrue(a.fence(repository).isValid(), repository);
+            assertEquals("node-a", directory.readLease(repository).owner());
+        }
+        assertTrue(b.getOwned().isEmpty());
+
+        saved.countDown();
+        handoffs.shutdown();
+        assertTrue(handoffs.awaitTermination(10, TimeUnit.SECONDS));
+        b.tick();
+        handedOver.removeAll(a.getOwned());
+        assertFalse(handedOver.isEmpty());
+        assertEquals(handedOver, b.getOwned());
+        assertPartition(a, b);
+    }
+
+    @Test
+    void concurrentNodes_shouldNeverOwnTheSameRepositoryTwice() throws Exception {
+        Map<String, String> owners = new ConcurrentHashMap<>();
+        List<String> violations = Collections.synchronizedList(new ArrayList<>());
+        List<ClusterNode> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String nodeId = "node-" + i;
+            nodes.add(new ClusterNode(directory, nodeId, LEASE, REPOSITORIES, new ClusterNode.Listener() {
+                @Override
+                public void acquired(String repository, ClusterNode.Fence fence) {
+                    String previous = owners.putIfAbsent(repository, nodeId);
+                    if (previous != null) {
+                        violations.add(repository + " owned by " + previous + " and " + nodeId);
+                    }
+                }
+
+                @Override
+                public void released(String repository) {
+                    owners.remove(repository, nodeId);
+                }
+
+                @Override
+                public void lost(String repository) {
+                    owners.remove(repository, nodeId);
+                }
+            }, Clock.systemUTC()));
+        }
+
+        CyclicBarrier barrier = new CyclicBarrier(nodes.size());
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ClusterNode node : nodes) {
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    for (int i = 0; i < 20; i++) {
+                        node.tick();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (ClusterNode node : nodes) {
+            node.tick();
+        }
+
+        assertTrue(violations.isEmpty(), violations.toString());
+        assertPartition(nodes.toArray(ClusterNode[]::new));
+    }
+
+    @Test
+    void rendezvous_shouldOnlyMoveRepositoriesToTheJoiningNode() {
+        List<String> twoNodes = List.of("node-a", "node-b");
+        List<String> threeNodes = List.of("node-a", "node-b", "node-c");
+        int moved = 0;
+
+        for (String repository : REPOSITORIES) {
+            String before = Rendezvous.owner(repository, twoNodes);
+            String after = Rendezvous.owner(repository, threeNodes);
+            if (!before.equals(after)) {
+                assertEquals("node-c", after);
+                moved++;
+            }
+        }
+        assertTrue(moved > 0 && moved < REPOSITORIES.size(), "moved " + moved);
+    }
+
+    private ClusterNode node(String nodeId) {
+        return new ClusterNode(directory, nodeId, LEASE, REPOSITORIES, new ClusterNode.Listener() {
+            @Override
+            public void acquired(String repository, ClusterNode.Fence fence) {
+                events.add(nodeId + " acquired " + repository);
+            }
+
+            @Override
+            public void released(String repository) {
+                events.add(nodeId + " released " + repository);
+            }
+
+            @Override
+            public void lost(String repository) {
+                events.add(nodeId + " lost " + repository);
+            }
+        }, clock);
+    }
+
+    private static void assertPartition(ClusterNode... nodes) {
+        Set<String> all = new HashSet<>();
+        for (ClusterNode node : nodes) {
+            for (String repository : node.getOwned()) {
+                assertTrue(all.add(repository), repository + " owned twice");
+            }
+        }
+        assertEquals(Set.copyOf(REPOSITORIES), all);
+    }
+
+    private static List<String> repositories(int count) {
+        List<String> repositories = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            repositories.add("octo/repo-" + i);
+        }
+        return repositories;
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package dev.ruby.config;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.ruby.client.GitHubClient;
+import dev.ruby.client.RunQuery;
+import dev.ruby.output.AsyncEventSink;
+import dev.ruby.output.EventFormat;
+import dev.ruby.output.OutputOptions;
+import dev.ruby.service.MonitorOptions;
+import dev.ruby.service.PollLane;
+
+class MonitorConfigTest {
+
+    private static final Map<String, String> ENV = Map.of("GITHUB_TOKEN", "env-token", "WEB_TOKEN", "web-token");
+
+    @Test
+    void parse_shouldReadRepositoriesAndResolveTokens() throws Exception {
+        MonitorConfig config = parse("""
+                {
+                  "stateDir": "state",
+                  "token": "env:GITHUB_TOKEN",
+                  "slots": 4,
+                  "minIntervalSeconds": 5,
+                  "maxIntervalSeconds": 60,
+                  "retentionDays": 30,
+                  "saveDelaySeconds": 3,
+                  "branch": "main",
+                  "workflowId": 42,
+                  "filter": "actor!=dependabot[bot]; level=RUN",
+                  "repositories": ["octo/api", {"repository": "octo/web", "token": "env:WEB_TOKEN"},
+                                   {"repository": "octo/docs", "token": "literal"}]
+                }
+                """);
+
+        assertEquals(GitHubClient.DEFAULT_API_URL, config.apiUrl());
+        assertEquals(new File("state"), config.stateDir());
+        assertEquals(4, config.slots());
+        assertEquals(Duration.ofSeconds(5), config.options().minPollInterval());
+        assertEquals(Duration.ofSeconds(10), config.options().basePollInterval());
+        assertEquals(Duration.ofSeconds(60), config.options().maxPollInterval());
+        assertEquals(Duration.ofDays(30), config.options().retention());
+        assertEquals(Duration.ofSeconds(3), config.options().saveDelay());
+        assertEquals(MonitorOptions.DEFAULT_SAVE_CHANGES, config.options().saveChanges());
+        assertEquals(RunQuery.of("main", null, 42L), config.options().runFilter());
+        assertEquals("actor!=dependabot[bot]; level=RUN", config.options().eventFilter().toString());
+        assertTrue(config.options().showRepository());
+        assertEquals(new MonitorConfig.Repository("octo", "api", "env-token"), config.repositories().get(0));
+        assertEquals("web-token", config.repositories().get(1).token());
+        assertEquals("literal", config.repositories().get(2).token());
+    }
+
+    @Test
+    void parse_withLanes_shouldReadThemAndRejectSharedWorkflows() throws Exception {
+        MonitorConfig config = parse("""
+                {
+                  "token": "t",
+                  "lanes": [{"name": "deploy", "workflowIds": [7, 8], "intervalSeconds": 3, "priority": "high"},
+                            {"name": "lint", "workflowIds": [9], "intervalSeconds": 60}],
+                  "repositories": ["octo/api"]
+                }
+                """);
+
+        assertEquals(List.of(new PollLane("deploy", Set.of(7L, 8L), Duration.ofSeconds(3), PollLane.Priority.HIGH),
+                new PollLane("lint", Set.of(9L), Duration.ofSeconds(60), PollLane.Priority.NORMAL)),
+                config.options().lanes());
+        assertThrows(IllegalArgumentException.class, () -> parse("""
+                {
+                  "token": "t",
+                  "lanes": [{"name": "a", "workflowIds": [7], "intervalSeconds": 3},
+                            {"name": "b", "workflowIds": [7], "intervalSeconds": 60}],
+                  "repositories": ["octo/api"]
+                }
+                """));
+    }
+
+    @Test
+    void parse_withOutput_shouldReadFormatFileAndBackpressure() throws Exception {
+        MonitorConfig config = parse("""
+                {
+                  "token": "t",
+                  "output": {"format": "jsonl", "file": "events.jsonl", "queue": 1024, "backpressure": "spill"},
+                  "repositories": ["octo/api"]
+                }
+                """);
+
+        assertEquals(new OutputOptions(EventFormat.JSONL, new File("events.jsonl"), 1024,
+                AsyncEventSink.Backpressure.SPILL, null), config.options().output());
+        assertEquals(OutputOptions.defaults(), parse("""
+                {"token": "t", "repositories": ["octo/api"]}
+                """).options().output());
+    }
+
+    @Test
+    void parse_withMetrics_shouldReadTheAddress() throws Exception {
+        MonitorConfig config = parse("""
+                {"token": "t", "metrics": "0.0.0.0:9464", "repositories": ["octo/api"]}
+                """);
+
+        assertEquals(new InetSocketAddress("0.0.0.0", 9464), config.options().metricsAddress());
+        assertNull(parse("""
+                {"token": "t", "repositories": ["octo/api"]}
+                """).options().metricsAddress());
+    }
+
+    @Test
+    void parse_withServe_shouldReadTheAddress() throws Exception {
+        MonitorConfig config = parse("""
+                {"token": "t", "serve": "8080", "repositories": ["octo/api"]}
+                """);
+
+        assertEquals(new InetSocketAddress("127.0.0.1", 8080), config.options().serveAddress());
+        assertThrows(IllegalArgumentException.class, () -> parse("""
+                {"token": "t", "serve": "localhost:", "repositories": ["octo/api"]}
+                """));
+    }
+
+    @Test
+    void parse_withMaxBelowBaseInterval_shouldClampBase() throws Exception {
+        MonitorConfig config = parse("""
+                {"token": "t", "maxIntervalSeconds": 4, "repositories": ["octo/api"]}
+                """);
+
+        assertEquals(Duration.ofSeconds(4), config.options().basePollInterval());
+        assertEquals(MonitorOptions.DEFAULT_RETENTION, config.options().retention());
+    }
+
+    @Test
+    void parse_withoutToken_shouldFail() {
+        assertThrows(IllegalArgumentException.class, () -> parse("""
+                {"repositories": ["octo/api"]}
+                """));
+    }
+
+    @Test
+    void parse_withUnsetEnvironmentVariable_shouldFail() {
+        assertThrows(IllegalArgumentException.class, () -> parse("""
+                {"token": "env:MISSING", "repositories": ["octo/api"]}
+                """));
+    }
+
+    @Test
+    void parse_withInvalidRepositoryName_shouldFail() {
+        assertThrows(IllegalArgumentException.class, () -> parse("""
+                {"token": "t", "repositories": ["octo"]}
+                """));
+    }
+
+    private static MonitorConfig parse(String json) throws Exception {
+        JsonNode root = new ObjectMapper().readTree(json);
+        return MonitorConfig.parse(root, ENV::get);
+    }
+}
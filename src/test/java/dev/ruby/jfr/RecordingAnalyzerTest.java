@@ -0,0 +1,77 @@
+package dev.ruby.jfr;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+
+import dev.ruby.client.GitHubClient;
+import dev.ruby.client.RateBudget;
+import dev.ruby.client.ResponseCache;
+import dev.ruby.persistence.JournalStateStore;
+import dev.ruby.service.MonitorOptions;
+import dev.ruby.service.WorkflowMonitor;
+import dev.ruby.simulator.GitHubApiSimulator;
+import dev.ruby.simulator.SimulatorConfig;
+
+class RecordingAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bundledSettings_shouldEnableEveryMonitorEvent() {
+        Map<String, String> settings = MonitorRecording.configuration().getSettings();
+
+        for (String event : List.of("PollCycle", "ApiRequest", "StateSave", "StateLoad", "EventBurst")) {
+            assertEquals("true", settings.get("dev.ruby." + event + "#enabled"), event);
+            assertEquals("0 ms", settings.get("dev.ruby." + event + "#threshold"), event);
+        }
+    }
+
+    @Test
+    void read_shouldBreakCyclesDownIntoRequestsAndEmission() throws Exception {
+        Path destination = tempDir.resolve("monitor.jfr");
+        try (GitHubApiSimulator simulator = new GitHubApiSimulator(SimulatorConfig.defaults().withRuns(5, 0)
+                .withShape(2, 3).withRateLimit(1000, Duration.ofHours(1)))) {
+            Recording recording = MonitorRecording.start(destination);
+            GitHubClient client = new GitHubClient(simulator.baseUrl(), "octo", "simulated", "token",
+                    new ResponseCache(), new RateBudget());
+            JournalStateStore stateStore = new JournalStateStore(tempDir.toFile(), "octo-simulated",
+                    MonitorOptions.DEFAULT_RETENTION);
+            WorkflowMonitor monitor = new WorkflowMonitor(client, stateStore, MonitorOptions.defaults(),
+                    (event, repository) -> {
+                    });
+            for (int i = 0; i < 3; i++) {
+                simulator.tick();
+                monitor.run();
+            }
+            stateStore.close();
+            recording.stop();
+            recording.close();
+        }
+
+        RecordingAnalyzer analyzer = RecordingAnalyzer.read(destination);
+
+        List<RecordingAnalyzer.Breakdown> cycles = analyzer.cycleBreakdowns().get("octo/simulated [repository]");
+        assertEquals(3, cycles.size());
+        for (RecordingAnalyzer.Breakdown cycle : cycles) {
+            assertTrue(cycle.requests() > 0);
+            assertTrue(cycle.api() > 0 && cycle.api() <= cycle.duration());
+            assertEquals(cycle.duration(), cycle.api() + cycle.emit() + cycle.other());
+        }
+        assertTrue(cycles.get(0).emit() > 0);
+        String summary = analyzer.summary();
+        assertTrue(summary.contains("  runs: "), summary);
+        assertTrue(summary.contains("  jobs: "), summary);
+        assertTrue(summary.contains("  save "), summary);
+        assertTrue(summary.contains("  load: 1"), summary);
+    }
+}
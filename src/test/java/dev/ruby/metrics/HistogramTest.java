@@ -0,0 +1,48 @@
+package dev.ruby.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+    @Test
+    void observe_shouldCountValuesInTheFirstBucketTheyFit() {
+        Histogram histogram = new Histogram(1000, 10, 100, 1000);
+        histogram.observe(5);
+        histogram.observe(10);
+        histogram.observe(11);
+        histogram.observe(5000);
+
+        PrometheusText out = new PrometheusText();
+        histogram.writeTo(out, "latency_seconds", "code=\"200\"");
+
+        assertEquals("""
+                latency_seconds_bucket{code="200",le="0.01"} 2
+                latency_seconds_bucket{code="200",le="0.1"} 3
+                latency_seconds_bucket{code="200",le="1"} 3
+                latency_seconds_bucket{code="200",le="+Inf"} 4
+                latency_seconds_sum{code="200"} 5.026
+                latency_seconds_count{code="200"} 4
+                """, out.toString());
+    }
+
+    @Test
+    void quantile_shouldInterpolateWithinTheBucket() {
+        Histogram histogram = new Histogram(1, 100, 200);
+        for (int i = 0; i < 50; i++) {
+            histogram.observe(50);
+            histogram.observe(150);
+        }
+
+        assertEquals(100, histogram.quantile(0.5), 0.001);
+        assertEquals(180, histogram.quantile(0.9), 0.001);
+        assertEquals(0, new Histogram(1, 100).quantile(0.5));
+    }
+
+    @Test
+    void bounds_shouldIncrease() {
+        assertThrows(IllegalArgumentException.class, () -> new Histogram(1, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> new Histogram(1));
+    }
+}
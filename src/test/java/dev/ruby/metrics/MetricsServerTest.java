@@ -0,0 +1,58 @@
+package dev.ruby.metrics;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+import dev.ruby.output.EventSink;
+
+class MetricsServerTest {
+
+    @Test
+    void metrics_shouldBeServedInTheTextFormat() throws Exception {
+        MonitorMetrics metrics = new MonitorMetrics();
+        EventSink sink = metrics.countingEvents((event, repository) -> {
+        });
+        sink.accept(new WorkflowEvent("1", Instant.now(), WorkflowLevel.JOB, EventStatus.FAILURE, "main", "abc",
+                "build"), "octo/api");
+        metrics.cycle(false, 3_000_000);
+        metrics.api().request(ApiMetrics.Endpoint.JOBS, ApiMetrics.Outcome.OK, 20_000_000);
+        metrics.addCollector(out -> out.metric("github_monitor_seen_events", "gauge", "Seen")
+                .sample("github_monitor_seen_events", PrometheusText.label("repository", "octo/\"api\""), 42));
+
+        try (MetricsServer server = new MetricsServer(metrics, new InetSocketAddress("127.0.0.1", 0))) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(
+                    "http://127.0.0.1:" + server.getAddress().getPort() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertEquals(PrometheusText.CONTENT_TYPE, response.headers().firstValue("content-type").orElseThrow());
+            String body = response.body();
+            assertTrue(body.contains("# TYPE github_monitor_cycle_duration_seconds histogram\n"));
+            assertTrue(body.contains("github_monitor_cycle_duration_seconds_bucket{cycle=\"repository\",le=\"0.005\"} 1\n"));
+            assertTrue(body.contains("github_monitor_cycle_duration_seconds_count{cycle=\"lane\"} 0\n"));
+            assertTrue(body.contains("github_monitor_api_requests_total{endpoint=\"jobs\",code=\"200\"} 1\n"));
+            assertTrue(body.contains("github_monitor_events_total{level=\"JOB\",status=\"FAILURE\"} 1\n"));
+            assertTrue(body.contains("github_monitor_seen_events{repository=\"octo/\\\"api\\\"\"} 42\n"));
+        }
+    }
+
+    @Test
+    void parseAddress_shouldDefaultToLoopback() {
+        assertEquals(new InetSocketAddress("127.0.0.1", 9464), MetricsServer.parseAddress("9464"));
+        assertEquals(new InetSocketAddress("0.0.0.0", 9464), MetricsServer.parseAddress("0.0.0.0:9464"));
+        assertThrows(IllegalArgumentException.class, () -> MetricsServer.parseAddress("localhost"));
+        assertThrows(IllegalArgumentException.class, () -> MetricsServer.parseAddress("70000"));
+    }
+}
@@ -0,0 +1,40 @@
+package dev.ruby.model;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import org.junit.jupiter.api.Test;
+
+class EventFingerprintTest {
+
+  private static final Instant TIME = Instant.parse("2024-01-15T10:30:00Z");
+
+  @Test
+  void of_shouldMatchTheFingerprintOfTheLegacyKey() {
+    WorkflowEvent event = new WorkflowEvent("123#2", TIME, WorkflowLevel.RUN, EventStatus.STARTED, "main",
+        "abc1234", "Build");
+
+    assertEquals(EventFingerprint.of(event.getKey()), event.getFingerprint());
+    assertEquals(EventFingerprint.of("10:1_null_STEP_SUCCESS"),
+        EventFingerprint.of("10:1", null, WorkflowLevel.STEP, EventStatus.SUCCESS));
+  }
+
+  @Test
+  void of_shouldDifferInEveryPart() {
+    long fingerprint = EventFingerprint.of("123", TIME, WorkflowLevel.JOB, EventStatus.STARTED);
+
+    assertNotEquals(fingerprint, EventFingerprint.of("124", TIME, WorkflowLevel.JOB, EventStatus.STARTED));
+    assertNotEquals(fingerprint, EventFingerprint.of("123", TIME.plusNanos(1), WorkflowLevel.JOB,
+        EventStatus.STARTED));
+    assertNotEquals(fingerprint, EventFingerprint.of("123", TIME, WorkflowLevel.STEP, EventStatus.STARTED));
+    assertNotEquals(fingerprint, EventFingerprint.of("123", TIME, WorkflowLevel.JOB, EventStatus.SUCCESS));
+    assertNotEquals(fingerprint, EventFingerprint.of("123_" + TIME + "_JOB_STARTED_"));
+  }
+
+  @Test
+  void of_withArbitraryText_shouldBeStable() {
+    assertEquals(EventFingerprint.of("run_123_STARTED"), EventFingerprint.of("run_123_STARTED"));
+    assertNotEquals(EventFingerprint.of("run_123_STARTED"), EventFingerprint.of("run_124_STARTED"));
+  }
+}
@@ -0,0 +1,174 @@
+package dev.ruby.output;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+
+class AsyncEventSinkTest {
+
+    private static final Pattern ID = Pattern.compile("\"id\":\"(\\d+)\"");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void accept_shouldWriteEveryEventInOrderFromSeveralThreads() throws Exception {
+        GatedChannel channel = new GatedChannel(false);
+        AsyncEventSink sink = new AsyncEventSink(new JsonLinesEncoder(), false, channel, true, 16,
+                AsyncEventSink.Backpressure.BLOCK, tempDir.toFile());
+        sink.start();
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            producers.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 2500; i++) {
+                    sink.accept(event(producer * 10_000 + i), "octo/api");
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        sink.close();
+
+        List<Integer> ids = ids(channel.text());
+        assertEquals(10_000, ids.size());
+        // each producer's events keep their order
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            assertEquals(IntStream.range(0, 2500).map(i -> producer * 10_000 + i).boxed().toList(),
+                    ids.stream().filter(id -> id / 10_000 == producer).toList());
+        }
+        AsyncEventSink.Stats stats = sink.stats();
+        assertEquals(10_000, stats.accepted());
+        assertEquals(10_000, stats.written());
+        assertEquals(0, stats.dropped());
+        assertEquals(16, stats.capacity());
+        assertTrue(stats.batches() < 10_000);
+    }
+
+    @Test
+    void dropOldest_shouldMakeRoomAndCountWhatItDrops() throws Exception {
+        GatedChannel channel = new GatedChannel(true);
+        AsyncEventSink sink = new AsyncEventSink(new JsonLinesEncoder(), false, channel, true, 4,
+                AsyncEventSink.Backpressure.DROP_OLDEST, tempDir.toFile());
+        sink.start();
+
+        // the writer takes event 0 and then hangs in its write, so the ring fills up
+        sink.accept(event(0), null);
+        channel.entered.await();
+        for (int i = 1; i <= 10; i++) {
+            sink.accept(event(i), null);
+        }
+        channel.gate.countDown();
+        sink.close();
+
+        assertEquals(List.of(0, 7, 8, 9, 10), ids(channel.text()));
+        assertEquals(6, sink.stats().dropped());
+        assertEquals(4, sink.stats().maxQueueDepth());
+    }
+
+    @Test
+    void spill_shouldKeepTheOrderAndRemoveTheSpillFile() throws Exception {
+        GatedChannel channel = new GatedChannel(true);
+        AsyncEventSink sink = new AsyncEventSink(new JsonLinesEncoder(), false, channel, true, 4,
+                AsyncEventSink.Backpressure.SPILL, tempDir.toFile());
+        sink.start();
+
+        sink.accept(event(0), null);
+        channel.entered.await();
+        for (int i = 1; i <= 20; i++) {
+            sink.accept(event(i), null);
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+        channel.gate.countDown();
+        sink.close();
+
+        assertEquals(IntStream.rangeClosed(0, 20).boxed().toList(), ids(channel.text()));
+        assertEquals(16, sink.stats().spilled());
+        assertEquals(0, sink.stats().dropped());
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static WorkflowEvent event(int id) {
+        return new WorkflowEvent(String.valueOf(id), Instant.parse("2024-01-15T10:30:00Z"), WorkflowLevel.JOB,
+                EventStatus.SUCCESS, "main", "abc1234def", "Test");
+    }
+
+    private static List<Integer> ids(String text) {
+        List<Integer> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(text);
+        while (matcher.find()) {
+            ids.add(Integer.parseInt(matcher.group(1)));
+        }
+        return ids;
+    }
+
+    // collects what is written; a gated channel holds its first write until the gate opens
+    private static final class GatedChannel implements WritableByteChannel {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        private GatedChannel(boolean gated) {
+            if (!gated) {
+                gate.countDown();
+            }
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = new byte[src.remaining()];
+            src.get(bytes);
+            synchronized (out) {
+                out.write(bytes, 0, bytes.length);
+            }
+            return bytes.length;
+        }
+
+        private String text() {
+            synchronized (out) {
+                return out.toString(StandardCharsets.UTF_8);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package dev.ruby.output;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+
+class EventFormatTest {
+
+    private final WorkflowEvent event = new WorkflowEvent("123", Instant.parse("2024-01-15T10:30:00Z"),
+            WorkflowLevel.STEP, EventStatus.FAILURE, "main", "abc1234def567", "Run \"tests\"\n");
+
+    @Test
+    void table_shouldPrintTheConsoleRow() {
+        assertEquals(String.format("%-24s | %-5s | %-14s | %-10s | %-8s | %s%n", "2024-01-15T10:30:00Z", "STEP",
+                "FAILURE", "main", "abc1234", "Run \"tests\"\n"), encode(EventFormat.TABLE, null));
+        assertEquals(String.format("%-24s | %-30s | %-5s | %-14s | %-10s | %-8s | %s%n", "2024-01-15T10:30:00Z",
+                "octo/api", "STEP", "FAILURE", "main", "abc1234", "Run \"tests\"\n"),
+                encode(EventFormat.TABLE, "octo/api"));
+    }
+
+    @Test
+    void jsonLines_shouldEscapeStringsAndWriteOneLinePerEvent() {
+        assertEquals("{\"time\":\"2024-01-15T10:30:00Z\",\"repository\":\"octo/api\",\"id\":\"123\","
+                + "\"level\":\"STEP\",\"status\":\"FAILURE\",\"branch\":\"main\",\"sha\":\"abc1234def567\","
+                + "\"name\":\"Run \\\"tests\\\"\\n\"}\n", encode(EventFormat.JSONL, "octo/api"));
+    }
+
+    @Test
+    void binary_shouldReadBackWhatWasWritten() {
+        EventEncoder encoder = EventFormat.BINARY.encoder();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.put(encoder.header(false));
+        encoder.encode(event, null, buffer);
+        encoder.encode(new WorkflowEvent("7", event.getTime(), WorkflowLevel.RUN, EventStatus.QUEUED, null, null,
+                "Build"), "octo/api", buffer);
+        buffer.flip();
+
+        BinaryEventEncoder.readHeader(buffer);
+        BinaryEventEncoder.Entry first = BinaryEventEncoder.read(buffer);
+        assertNull(first.repository());
+        assertEquals(event.getKey(), first.event().getKey());
+        assertEquals("Run \"tests\"\n", first.event().getName());
+        assertEquals("abc1234def567", first.event().getSha());
+        BinaryEventEncoder.Entry second = BinaryEventEncoder.read(buffer);
+        assertEquals("octo/api", second.repository());
+        assertNull(second.event().getBranch());
+        assertEquals(EventStatus.QUEUED, second.event().getStatus());
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    void parse_shouldRejectUnknownFormats() {
+        assertEquals(EventFormat.JSONL, EventFormat.parse("jsonl"));
+        assertEquals(AsyncEventSink.Backpressure.DROP_OLDEST, AsyncEventSink.Backpressure.parse("drop-oldest"));
+        assertThrows(IllegalArgumentException.class, () -> EventFormat.parse("xml"));
+    }
+
+    private String encode(EventFormat format, String repository) {
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        format.encoder().encode(event, repository, buffer);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,168 @@
+package dev.ruby.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AsyncStatePersisterTest {
+
+    private static final Duration RETENTION = Duration.ofDays(7);
+
+    @TempDir
+    Path tempDir;
+
+    // runs the writes only when the test says so
+    private final Queue<Runnable> writes = new ArrayDeque<>();
+    private final List<MonitorState> saved = new ArrayList<>();
+    private boolean failing;
+
+    private final StateBackend backend = new StateBackend() {
+        @Override
+        public MonitorState load() {
+            return new MonitorState();
+        }
+
+        @Override
+        public void save(MonitorState state) {
+            if (failing) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+            saved.add(state);
+        }
+    };
+
+    @Test
+    void save_shouldWaitForEnoughChanges() {
+        AsyncStatePersister persister = new AsyncStatePersister(backend, writes::add, RETENTION,
+                Duration.ofHours(1), 3);
+        MonitorState state = persister.load();
+
+        state.isNewEvent("key1", Instant.now());
+        state.isNewEvent("key2", Instant.now());
+        persister.save(state);
+        assertTrue(writes.isEmpty());
+        assertTrue(persister.isDirty());
+
+        state.isNewEvent("key3", Instant.now());
+        persister.save(state);
+        assertEquals(1, writes.size());
+        // saved only once the backend wrote it
+        assertTrue(persister.isDirty());
+        writes.poll().run();
+        persister.save(state);
+        assertFalse(persister.isDirty());
+    }
+
+    @Test
+    void save_writeThrough_shouldReturnOnceTheStateIsWritten() {
+        // a writer that takes its time on another thread
+        AsyncStatePersister persister = AsyncStatePersister.writeThrough(backend, write -> Thread.ofVirtual()
+                .start(() -> {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    write.run();
+                }), RETENTION);
+        MonitorState state = persister.load();
+
+        state.isNewEvent("key1", Instant.now());
+        persister.save(state);
+
+        assertEquals(1, saved.size());
+        assertFalse(persister.isDirty());
+    }
+
+    @Test
+    void save_afterFailedWrite_shouldKeepTheChangesForTheNextWrite() {
+        AsyncStatePersister persister = new AsyncStatePersister(backend, writes::add, RETENTION, Duration.ZERO, 1);
+        MonitorState state = persister.load();
+        failing = true;
+        state.isNewEvent("key1", Instant.now());
+        state.getActiveRunIds().add(7L);
+        persister.save(state);
+        writes.poll().run();
+        assertTrue(saved.isEmpty());
+
+        failing = false;
+        state.isNewEvent("key2", Instant.now());
+        persister.save(state);
+        assertTrue(persister.isDirty());
+        writes.poll().run();
+        assertTrue(saved.get(0).hasSeen("key1"));
+        assertTrue(saved.get(0).hasSeen("key2"));
+        assertTrue(saved.get(0).getActiveRunIds().contains(7L));
+
+        persister.save(state);
+        assertFalse(persister.isDirty());
+        assertTrue(writes.isEmpty());
+    }
+
+    @Test
+    void save_shouldKeepOneWriteInFlightAndWriteSnapshots() {
+        AsyncStatePersister persister = new AsyncStatePersister(backend, writes::add, RETENTION, Duration.ZERO, 1);
+        MonitorState state = persister.load();
+        state.isNewEvent("key1", Instant.now());
+        persister.save(state);
+
+        // changes made while the first write is in flight are coalesced into the next one
+        state.isNewEvent("key2", Instant.now());
+        persister.save(state);
+        state.getActiveRunIds().add(7L);
+        persister.save(state);
+        assertEquals(1, writes.size());
+
+        writes.poll().run();
+        assertEquals(1, saved.size());
+        assertTrue(saved.get(0).hasSeen("key1"));
+        assertFalse(saved.get(0).hasSeen("key2"));
+        assertTrue(saved.get(0).getActiveRunIds().isEmpty());
+
+        persister.save(state);
+        writes.poll().run();
+        assertTrue(saved.get(1).hasSeen("key2"));
+        assertTrue(saved.get(1).getActiveRunIds().contains(7L));
+
+        persister.save(state);
+        assertTrue(writes.isEmpty());
+    }
+
+    @Test
+    void close_shouldFlushToTheJournal() {
+        JournalStateStore journal = new JournalStateStore(tempDir.toFile(), "octo-api", RETENTION,
+                SnapshotFormat.BINARY, 64);
+        AsyncStatePersister persister = new AsyncStatePersister(journal, Runnable::run, RETENTION,
+                Duration.ofHours(1), 50);
+        MonitorState state = persister.load();
+        for (int i = 0; i < 1000; i++) {
+            state.isNewEvent("key" + i, Instant.now());
+            persister.save(state);
+        }
+        state.isNewEvent("last", Instant.now());
+        persister.save(state);
+        assertTrue(persister.isDirty());
+        // compactions mapped the binary snapshot: the state only keeps what was seen since in the heap
+        assertTrue(state.getSeenEvents().bucketCount() <= 2, String.valueOf(state.getSeenEvents().bucketCount()));
+        persister.close();
+
+        MonitorState loaded = new JournalStateStore(tempDir.toFile(), "octo-api", RETENTION, SnapshotFormat.BINARY)
+                .load();
+        assertEquals(1001, loaded.getSeenEvents().size());
+        assertTrue(loaded.hasSeen("key0"));
+        assertTrue(loaded.hasSeen("key999"));
+        assertTrue(loaded.hasSeen("last"));
+    }
+}
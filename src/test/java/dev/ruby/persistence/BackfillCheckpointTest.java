@@ -0,0 +1,56 @@
+package dev.ruby.persistence;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.ruby.persistence.BackfillCheckpoint.Window;
+
+class BackfillCheckpointTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-15T00:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void remaining_shouldCutTheGapsNewestFirst() throws Exception {
+        BackfillCheckpoint checkpoint = BackfillCheckpoint.open(file(), T0, T0.plus(Duration.ofHours(10)));
+        checkpoint.complete(new Window(T0.plus(Duration.ofHours(2)), T0.plus(Duration.ofHours(7))));
+
+        assertEquals(List.of(
+                new Window(T0.plus(Duration.ofHours(7)), T0.plus(Duration.ofHours(10))),
+                new Window(T0, T0.plus(Duration.ofHours(2)))),
+                checkpoint.remaining(Duration.ofHours(4)));
+        assertEquals(5, checkpoint.remaining(Duration.ofHours(1)).size());
+        assertFalse(checkpoint.isComplete());
+    }
+
+    @Test
+    void open_shouldResumeOnlyTheSameBackfill() throws Exception {
+        BackfillCheckpoint checkpoint = BackfillCheckpoint.open(file(), T0, T0.plus(Duration.ofHours(2)));
+        checkpoint.complete(new Window(T0.plus(Duration.ofHours(1)), T0.plus(Duration.ofHours(2))));
+        checkpoint.complete(new Window(T0, T0.plus(Duration.ofHours(1))));
+        assertTrue(checkpoint.isComplete());
+
+        BackfillCheckpoint resumed = BackfillCheckpoint.open(file(), T0, T0.plus(Duration.ofDays(1)));
+        assertEquals(T0.plus(Duration.ofHours(2)), resumed.getTo());
+        assertTrue(resumed.isComplete());
+
+        BackfillCheckpoint replaced = BackfillCheckpoint.open(file(), T0.minus(Duration.ofHours(1)), T0);
+        assertEquals(List.of(new Window(T0.minus(Duration.ofHours(1)), T0)),
+                replaced.remaining(Duration.ofHours(6)));
+    }
+
+    private File file() {
+        return tempDir.resolve("octo-repo-backfill.json").toFile();
+    }
+}
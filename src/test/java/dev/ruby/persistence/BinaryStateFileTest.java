@@ -0,0 +1,123 @@
+package dev.ruby.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BinaryStateFileTest {
+
+    private static final String REPO = "octo-api";
+    private static final Duration RETENTION = Duration.ofDays(7);
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_shouldQueryTheMappedFileInPlace() throws IOException {
+        MonitorState state = new MonitorState(NOW.minusSeconds(30), new SeenEventSet(), Set.of(5L, 6L));
+        for (int i = 0; i < 500; i++) {
+            state.isNewEvent(i * 7919L + 1, NOW.minus(Duration.ofMinutes(i * 7L)));
+        }
+        File file = new File(tempDir.toFile(), "state.bin");
+
+        BinaryStateFile.write(file, state);
+        MonitorState loaded = BinaryStateFile.read(file);
+
+        assertEquals(NOW.minusSeconds(30), loaded.getLastRunTime());
+        assertEquals(Set.of(5L, 6L), loaded.getActiveRunIds());
+        assertEquals(500, loaded.getSeenEvents().size());
+        assertEquals(0, loaded.getSeenEvents().bucketCount());
+        for (int i = 0; i < 500; i++) {
+            Instant time = NOW.minus(Duration.ofMinutes(i * 7L));
+            assertTrue(loaded.getSeenEvents().contains(i * 7919L + 1, time.getEpochSecond()));
+            assertFalse(loaded.isNewEvent(i * 7919L + 1, time));
+        }
+        assertTrue(loaded.isNewEvent(2L, NOW));
+        assertEquals(1, loaded.getSeenEvents().bucketCount());
+    }
+
+    @Test
+    void cleanup_shouldSkipExpiredHoursOfTheFile() throws IOException {
+        MonitorState state = new MonitorState();
+        state.isNewEvent(1L, NOW.minus(Duration.ofDays(10)));
+        state.isNewEvent(2L, NOW.minus(Duration.ofDays(1)));
+        File file = new File(tempDir.toFile(), "state.bin");
+        BinaryStateFile.write(file, state);
+        MonitorState loaded = BinaryStateFile.read(file);
+
+        loaded.cleanupOldKeys(RETENTION);
+
+        assertEquals(1, loaded.getSeenEvents().size());
+        assertFalse(loaded.getSeenEvents().contains(1L));
+        assertTrue(loaded.getSeenEvents().contains(2L));
+        assertArrayEquals(new long[] { 2L }, loaded.getSeenFingerprints());
+    }
+
+    @Test
+    void read_withTruncatedFile_shouldFail() throws IOException {
+        MonitorState state = new MonitorState();
+        state.isNewEvent(1L, NOW);
+        File file = new File(tempDir.toFile(), "state.bin");
+        BinaryStateFile.write(file, state);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 4);
+        }
+
+        assertThrows(IOException.class, () -> BinaryStateFile.read(file));
+    }
+
+    @Test
+    void binaryStore_shouldConvertJsonAndKeepWorkingAcrossCompactions() {
+        MonitorState json = new MonitorState();
+        json.isNewEvent("from-json", NOW);
+        json.getActiveRunIds().add(7L);
+        new StateStore(tempDir.toFile(), REPO).save(json);
+
+        JournalStateStore store = new JournalStateStore(tempDir.toFile(), REPO, RETENTION, SnapshotFormat.BINARY, 64);
+        MonitorState state = store.load();
+        assertTrue(state.hasSeen("from-json"));
+        store.save(state);
+        File binaryFile = new File(tempDir.toFile(), REPO + "-workflow-state.bin");
+        assertTrue(binaryFile.exists());
+
+        for (int i = 0; i < 20; i++) {
+            state.isNewEvent("key" + i, NOW);
+            store.save(state);
+        }
+        store.close();
+
+        MonitorState loaded = new JournalStateStore(tempDir.toFile(), REPO, RETENTION, SnapshotFormat.BINARY, 64)
+                .load();
+        assertEquals(21, loaded.getSeenEvents().size());
+        assertTrue(loaded.hasSeen("from-json"));
+        assertTrue(loaded.hasSeen("key19"));
+        assertEquals(Set.of(7L), loaded.getActiveRunIds());
+    }
+
+    @Test
+    void converter_shouldWriteTheBinaryFileNextToTheJson() throws IOException {
+        MonitorState state = new MonitorState();
+        state.isNewEvent("converted", NOW);
+        new StateStore(tempDir.toFile(), REPO).save(state);
+
+        File binaryFile = StateConverter.jsonToBinary(new File(tempDir.toFile(), REPO + "-workflow-state.json"));
+
+        assertEquals(new File(tempDir.toFile(), REPO + "-workflow-state.bin"), binaryFile);
+        assertTrue(BinaryStateFile.read(binaryFile).hasSeen("converted"));
+    }
+}
@@ -0,0 +1,212 @@
+package dev.ruby.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.RunSnapshot;
+
+class JournalStateStoreTest {
+
+    private static final String REPO = "octo-api";
+    private static final Duration RETENTION = Duration.ofDays(7);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void loadAfterSave_shouldReplayTheLog() {
+        JournalStateStore store = store(1 << 20);
+        MonitorState state = store.load();
+        Instant lastRunTime = Instant.now().minusSeconds(60);
+        state.setLastRunTime(lastRunTime);
+        state.isNewEvent("key1", Instant.now());
+        state.getActiveRunIds().add(42L);
+        store.save(state);
+        state.isNewEvent("key2", Instant.now());
+        state.getActiveRunIds().remove(42L);
+        state.getActiveRunIds().add(43L);
+        store.save(state);
+        store.close();
+
+        MonitorState loaded = store(1 << 20).load();
+
+        assertEquals(lastRunTime, loaded.getLastRunTime());
+        assertTrue(loaded.hasSeen("key1"));
+        assertTrue(loaded.hasSeen("key2"));
+        assertEquals(Set.of(43L), loaded.getActiveRunIds());
+        assertFalse(snapshotFile().exists());
+    }
+
+    @Test
+    void save_shouldOnlyAppendWhatChanged() {
+        JournalStateStore store = store(1 << 20);
+        MonitorState state = store.load();
+        for (int i = 0; i < 1000; i++) {
+            state.isNewEvent("key" + i, Instant.now());
+        }
+        store.save(state);
+        long before = store.getLogBytes();
+
+        store.save(state);
+        assertEquals(before, store.getLogBytes());
+
+        state.isNewEvent("one-more", Instant.now());
+        store.save(state);
+        // one record: length, type, fingerprint and time, checksum
+        assertEquals(before + 25, store.getLogBytes());
+    }
+
+    @Test
+    void load_withTornLastRecord_shouldKeepEverythingBeforeIt() throws IOException {
+        JournalStateStore store = store(1 << 20);
+        MonitorState state = store.load();
+        state.isNewEvent("complete", Instant.now());
+        store.save(state);
+        state.isNewEvent("torn", Instant.now());
+        store.save(state);
+        store.close();
+        long intact = logFile().length();
+
+        // cut the last record in half, as a crash in the middle of the write would
+        try (RandomAccessFile file = new RandomAccessFile(logFile(), "rw")) {
+            file.setLength(intact - 12);
+        }
+        JournalStateStore reopened = store(1 << 20);
+        MonitorState loaded = reopened.load();
+
+        assertTrue(loaded.hasSeen("complete"));
+        assertFalse(loaded.hasSeen("torn"));
+        assertEquals(intact - 25, logFile().length());
+
+        // appending after the truncated tail keeps the log readable
+        loaded.isNewEvent("after", Instant.now());
+        reopened.save(loaded);
+        reopened.close();
+        assertTrue(store(1 << 20).load().hasSeen("after"));
+    }
+
+    @Test
+    void load_withCorruptedRecord_shouldStopReplayingThere() throws IOException {
+        JournalStateStore store = store(1 << 20);
+        MonitorState state = store.load();
+        state.isNewEvent("first", Instant.now());
+        store.save(state);
+        long firstEnd = logFile().length();
+        state.isNewEvent("second", Instant.now());
+        store.save(state);
+        store.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(logFile(), "rw")) {
+            file.seek(firstEnd + 10);
+            file.write(0xff);
+        }
+        MonitorState loaded = store(1 << 20).load();
+
+        assertTrue(loaded.hasSeen("first"));
+        assertFalse(loaded.hasSeen("second"));
+    }
+
+    @Test
+    void save_withLogLargerThanTheSnapshot_shouldCompact() {
+        JournalStateStore store = store(100);
+        MonitorState state = store.load();
+        for (int i = 0; i < 10; i++) {
+            state.isNewEvent("key" + i, Instant.now());
+        }
+        store.save(state);
+
+        assertTrue(snapshotFile().exists());
+        assertEquals(0, store.getLogBytes());
+
+        state.isNewEvent("after-compaction", Instant.now());
+        store.save(state);
+        store.close();
+        MonitorState loaded = store(100).load();
+        assertEquals(11, loaded.getSeenEvents().size());
+        assertTrue(loaded.hasSeen("after-compaction"));
+    }
+
+    @Test
+    void load_withJsonStateFile_shouldUseItAsSnapshot() {
+        MonitorState state = new MonitorState();
+        state.isNewEvent("from-json", Instant.now());
+        state.getActiveRunIds().add(7L);
+        new StateStore(tempDir.toFile(), REPO).save(state);
+
+        MonitorState loaded = store(1 << 20).load();
+
+        assertTrue(loaded.hasSeen("from-json"));
+        assertEquals(Set.of(7L), loaded.getActiveRunIds());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StateFormat.class)
+    void loadAfterSave_shouldRestoreRunSnapshots(StateFormat format) {
+        RunSnapshot.Job job = new RunSnapshot.Job(10L, EventStatus.STARTED, true,
+                Arrays.asList(EventStatus.SUCCESS, EventStatus.STARTED, null));
+        RunSnapshot run = new RunSnapshot(2, EventStatus.STARTED, true, false,
+                Instant.parse("2024-01-15T10:00:05Z"), List.of(job));
+        RunSnapshot jobsDone = new RunSnapshot(1, EventStatus.STARTED, true, true,
+                Instant.parse("2024-01-15T10:00:00Z"), List.of(new RunSnapshot.Job(20L, EventStatus.SUCCESS, true,
+                        List.of(EventStatus.SUCCESS))));
+        StateBackend store = format.open(tempDir.toFile(), REPO, RETENTION);
+        MonitorState state = store.load();
+        state.setRunSnapshots(Map.of(1L, run, 2L, jobsDone, 3L, new RunSnapshot(1, EventStatus.QUEUED, false,
+                false, Instant.parse("2024-01-15T10:00:00Z"), List.of())));
+        store.save(state);
+        state.setRunSnapshots(Map.of(1L, run, 2L, jobsDone));
+        store.save(state);
+        store.close();
+
+        MonitorState loaded = format.open(tempDir.toFile(), REPO, RETENTION).load();
+
+        assertEquals(Map.of(1L, run, 2L, jobsDone), loaded.getRunSnapshots());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StateFormat.class)
+    void loadAfterSave_shouldRestoreLaneCursors(StateFormat format) {
+        StateBackend store = format.open(tempDir.toFile(), REPO, RETENTION);
+        MonitorState state = store.load();
+        state.setLaneRunTime("deploy", Instant.parse("2024-01-15T10:00:00Z"));
+        state.setLaneRunTime("release", Instant.parse("2024-01-15T09:00:00Z"));
+        store.save(state);
+        state.setLaneRunTime("deploy", Instant.parse("2024-01-15T10:00:05.5Z"));
+        store.save(state);
+        store.close();
+
+        MonitorState loaded = format.open(tempDir.toFile(), REPO, RETENTION).load();
+
+        assertEquals(Map.of("deploy", Instant.parse("2024-01-15T10:00:05.5Z"), "release",
+                Instant.parse("2024-01-15T09:00:00Z")), loaded.getLaneRunTimes());
+    }
+
+    private JournalStateStore store(long minCompactionBytes) {
+        return new JournalStateStore(tempDir.toFile(), REPO, RETENTION, SnapshotFormat.JSON, minCompactionBytes);
+    }
+
+    private File snapshotFile() {
+        return new File(tempDir.toFile(), REPO + "-workflow-state.json");
+    }
+
+    private File logFile() {
+        return new File(tempDir.toFile(), REPO + "-workflow-state.log");
+    }
+}
@@ -30,11 +30,12 @@ class MonitorStateTest {
     @Test
     void isNewEvent_withNewKey_shouldReturnTrueAndStoreKey() {
         String key = "run_123_STARTED";
-        Instant time = Instant.now();
+        Instant time = Instant.parse("2024-06-15T12:34:56Z");
 
         assertTrue(state.isNewEvent(key, time));
-        assertTrue(state.getAlreadySeenKeys().containsKey(key));
-        assertEquals(time, state.getAlreadySeenKeys().get(key));
+        assertTrue(state.hasSeen(key));
+        // times are kept per hourly bucket
+        assertEquals(Instant.parse("2024-06-15T12:00:00Z").getEpochSecond(), state.getSeenTimes()[0]);
     }
 
     @Test
@@ -46,6 +47,33 @@ class MonitorStateTest {
         assertFalse(state.isNewEvent(key, time.plusSeconds(10)));
     }
 
+    @Test
+    void isNewEvent_withExistingKeyInTheNextHour_shouldReturnFalse() {
+        String key = "run_123_STARTED";
+        Instant time = Instant.parse("2024-06-15T12:59:55Z");
+
+        assertTrue(state.isNewEvent(key, time));
+        assertFalse(state.isNewEvent(key, time.plusSeconds(10)));
+        assertFalse(state.isNewEvent(key, time.plusSeconds(7200)));
+        assertEquals(1, state.getSeenEvents().size());
+    }
+
+    @Test
+    void isNewEvent_withoutTime_shouldFindTheEventAgainAfterCleanup() {
+        String key = "run_123_QUEUED";
+
+        assertTrue(state.isNewEvent(key, null));
+        // filed under the same bucket whenever it is seen, not under the current hour
+        long bucket = MonitorState.NO_TIME / SeenEventSet.BUCKET_SECONDS * SeenEventSet.BUCKET_SECONDS;
+        assertEquals(bucket, state.getSeenTimes()[0]);
+        state.cleanupOldKeys(Duration.ofDays(7));
+
+        assertFalse(state.isNewEvent(key, null));
+        // a key is the same event whatever time it comes with
+        assertFalse(state.isNewEvent(key, Instant.now()));
+        assertEquals(1, state.getSeenEvents().size());
+    }
+
     @Test
     void cleanupOldKeys_shouldRemoveKeysOlderThanThreshold() {
         Instant oldTime = Instant.now().minus(Duration.ofDays(10));
@@ -56,8 +84,8 @@ class MonitorStateTest {
 
         state.cleanupOldKeys(Duration.ofDays(7));
 
-        assertFalse(state.getAlreadySeenKeys().containsKey("old_key"));
-        assertTrue(state.getAlreadySeenKeys().containsKey("recent_key"));
+        assertFalse(state.hasSeen("old_key"));
+        assertTrue(state.hasSeen("recent_key"));
     }
 
     @Test
@@ -70,6 +98,6 @@ class MonitorStateTest {
 
         state.cleanupOldKeys(Duration.ofDays(7));
 
-        assertEquals(2, state.getAlreadySeenKeys().size());
+        assertEquals(2, state.getSeenEvents().size());
     }
 }
@@ -0,0 +1,109 @@
+package dev.ruby.persistence;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class SeenEventSetTest {
+
+    private static final long HOUR = SeenEventSet.BUCKET_SECONDS;
+
+    @Test
+    void add_shouldBehaveLikeASetAcrossResizes() {
+        SeenEventSet set = new SeenEventSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            // a narrow range forces duplicates and colliding slots; the time follows from the fingerprint
+            long fingerprint = random.nextInt(5_000) + 1;
+            assertEquals(expected.add(fingerprint), set.add(fingerprint, fingerprint % 200 * HOUR));
+        }
+
+        assertEquals(expected.size(), set.size());
+        assertEquals(200, set.bucketCount());
+        for (long fingerprint = 1; fingerprint <= 5_000; fingerprint++) {
+            assertEquals(expected.contains(fingerprint), set.contains(fingerprint, fingerprint % 200 * HOUR));
+            assertEquals(expected.contains(fingerprint), set.contains(fingerprint));
+        }
+    }
+
+    @Test
+    void add_shouldKeepTimesPerHour() {
+        SeenEventSet set = new SeenEventSet();
+
+        assertTrue(set.add(7L, 10 * HOUR + 100));
+        assertFalse(set.add(7L, 10 * HOUR + 200));
+        // seen again just past the hour: still the same event
+        assertFalse(set.add(7L, 11 * HOUR + 5));
+        assertFalse(set.add(7L, 10 * HOUR - 5));
+
+        assertArrayEquals(new long[] { 10 * HOUR }, set.times());
+        assertFalse(set.contains(7L, 11 * HOUR));
+    }
+
+    @Test
+    void removeOlderThan_shouldDropWholeBuckets() {
+        SeenEventSet set = new SeenEventSet();
+        for (long i = 1; i <= 1000; i++) {
+            set.add(i * 31, i * HOUR / 10);
+        }
+
+        // hour 90 straddles the cutoff and is kept whole
+        set.removeOlderThan(90 * HOUR + 1);
+
+        assertEquals(101, set.size());
+        assertEquals(11, set.bucketCount());
+        assertFalse(set.contains(899 * 31, 899 * HOUR / 10));
+        assertTrue(set.contains(900 * 31, 900 * HOUR / 10));
+        assertTrue(set.add(899 * 31, 2000 * HOUR));
+    }
+
+    @Test
+    void copyConstructor_shouldRestoreFingerprintsAndTimes() {
+        SeenEventSet set = new SeenEventSet();
+        set.add(-5L, HOUR);
+        set.add(Long.MAX_VALUE, 2 * HOUR);
+        set.add(Long.MIN_VALUE, -3 * HOUR);
+
+        SeenEventSet copy = new SeenEventSet(set.fingerprints(), set.times());
+
+        assertEquals(3, copy.size());
+        assertTrue(copy.contains(Long.MIN_VALUE, -3 * HOUR));
+        assertArrayEquals(set.fingerprints(), copy.fingerprints());
+        assertArrayEquals(set.times(), copy.times());
+    }
+
+    @Test
+    void snapshot_shouldNotSeeLaterChanges() {
+        SeenEventSet set = new SeenEventSet();
+        for (long fingerprint = 1; fingerprint <= 100; fingerprint++) {
+            set.add(fingerprint, fingerprint % 3 * HOUR);
+        }
+
+        SeenEventSet snapshot = set.snapshot();
+        set.add(101, 0);
+        set.removeOlderThan(HOUR);
+        snapshot.add(102, 2 * HOUR);
+
+        assertEquals(101, snapshot.size());
+        assertFalse(snapshot.contains(101, 0));
+        assertTrue(snapshot.contains(3, 0));
+        assertEquals(67, set.size());
+        assertFalse(set.contains(102, 2 * HOUR));
+        assertTrue(set.contains(2, 2 * HOUR));
+        assertFalse(set.add(2, 2 * HOUR));
+    }
+
+    @Test
+    void add_withZeroFingerprint_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new SeenEventSet().add(0, 1));
+    }
+}
@@ -1,7 +1,10 @@
 package dev.ruby.persistence;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
 
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -11,6 +14,10 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+
 class StateStoreTest {
 
     private static final String TEST_REPO = "test-owner-test-repo";
@@ -36,7 +43,7 @@ class StateStoreTest {
 
         assertNotNull(state);
         assertNotNull(state.getLastRunTime());
-        assertTrue(state.getAlreadySeenKeys().isEmpty());
+        assertEquals(0, state.getSeenEvents().size());
     }
 
     @Test
@@ -63,23 +70,50 @@ class StateStoreTest {
         MonitorState loadedState = stateStore.load();
 
         assertEquals(testTime, loadedState.getLastRunTime());
-        assertTrue(loadedState.getAlreadySeenKeys().containsKey("test_key_1"));
-        assertTrue(loadedState.getAlreadySeenKeys().containsKey("test_key_2"));
+        assertTrue(loadedState.hasSeen("test_key_1"));
+        assertTrue(loadedState.hasSeen("test_key_2"));
+    }
+
+    @Test
+    void loadAfterSave_shouldRestoreActiveRunIds() {
+        MonitorState originalState = new MonitorState();
+        originalState.getActiveRunIds().add(42L);
+        originalState.getActiveRunIds().add(43L);
+
+        stateStore.save(originalState);
+        MonitorState loadedState = stateStore.load();
+
+        assertEquals(Set.of(42L, 43L), loadedState.getActiveRunIds());
+        assertFalse(new File(TEST_REPO + "-workflow-state.json.tmp").exists());
+    }
+
+    @Test
+    void load_withLegacyStringKeys_shouldMatchEventFingerprints() throws Exception {
+        Instant time = Instant.now().minusSeconds(60).truncatedTo(ChronoUnit.SECONDS);
+        WorkflowEvent event = new WorkflowEvent("10:1", time, WorkflowLevel.STEP, EventStatus.SUCCESS, "main",
+                "abc1234", "Test");
+        Files.writeString(stateFile.toPath(), "{\"lastRunTime\": \"" + time + "\", \"alreadySeenKeys\": {\""
+                + event.getKey() + "\": \"" + time + "\"}}");
+
+        MonitorState loadedState = stateStore.load();
+
+        assertFalse(loadedState.isNewEvent(event.getFingerprint(), time));
+        assertEquals(1, loadedState.getSeenEvents().size());
     }
 
     @Test
     void save_shouldCleanupOldKeys() {
         MonitorState state = new MonitorState();
         // add an old key (10 days ago)
-        state.getAlreadySeenKeys().put("old_key", Instant.now().minusSeconds(10 * 24 * 60 * 60));
+        state.isNewEvent("old_key", Instant.now().minusSeconds(10 * 24 * 60 * 60));
         // add a recent key
         state.isNewEvent("recent_key", Instant.now());
 
         stateStore.save(state);
         MonitorState loadedState = stateStore.load();
 
-        assertFalse(loadedState.getAlreadySeenKeys().containsKey("old_key"));
-        assertTrue(loadedState.getAlreadySeenKeys().containsKey("recent_key"));
+        assertFalse(loadedState.hasSeen("old_key"));
+        assertTrue(loadedState.hasSeen("recent_key"));
     }
 
     @Test
@@ -102,11 +136,11 @@ class StateStoreTest {
             MonitorState loaded1 = manager1.load();
             MonitorState loaded2 = manager2.load();
 
-            assertTrue(loaded1.getAlreadySeenKeys().containsKey("key1"));
-            assertFalse(loaded1.getAlreadySeenKeys().containsKey("key2"));
+            assertTrue(loaded1.hasSeen("key1"));
+            assertFalse(loaded1.hasSeen("key2"));
 
-            assertTrue(loaded2.getAlreadySeenKeys().containsKey("key2"));
-            assertFalse(loaded2.getAlreadySeenKeys().containsKey("key1"));
+            assertTrue(loaded2.hasSeen("key2"));
+            assertFalse(loaded2.hasSeen("key1"));
         } finally {
             file1.delete();
             file2.delete();
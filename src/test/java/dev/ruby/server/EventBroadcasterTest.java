@@ -0,0 +1,69 @@
+package dev.ruby.server;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+
+class EventBroadcasterTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-15T10:00:00Z");
+
+    @Test
+    void get_shouldReturnEventsByOffsetUntilTheyAreOverwritten() {
+        EventBroadcaster broadcaster = new EventBroadcaster(4);
+        broadcaster.start();
+        for (int i = 0; i < 6; i++) {
+            broadcaster.accept(event(i), "octo/api");
+        }
+
+        assertEquals(6, broadcaster.next());
+        assertEquals(2, broadcaster.oldest());
+        assertNull(broadcaster.get(1));
+        assertNull(broadcaster.get(6));
+        EventBroadcaster.Entry entry = broadcaster.get(5);
+        assertEquals("5", entry.event().getId());
+        assertEquals("{\"time\":\"2024-01-15T10:00:00Z\",\"repository\":\"octo/api\",\"id\":\"5\",\"level\":\"JOB\","
+                + "\"status\":\"SUCCESS\",\"branch\":\"main\",\"sha\":\"abc1234567890\",\"name\":\"test\","
+                + "\"workflow\":\"CI\"}", new String(entry.json(), StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> new EventBroadcaster(1000));
+    }
+
+    @Test
+    void await_shouldReturnOnceAnEventIsPublished() throws Exception {
+        EventBroadcaster broadcaster = new EventBroadcaster(16);
+        broadcaster.start();
+        assertEquals(0, broadcaster.await(0, 10, TimeUnit.MILLISECONDS));
+
+        Thread publisher = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            broadcaster.accept(event(0), "octo/api");
+        });
+        assertEquals(1, broadcaster.await(0, 10, TimeUnit.SECONDS));
+        publisher.join();
+
+        broadcaster.close();
+        assertTrue(broadcaster.isClosed());
+        assertEquals(1, broadcaster.await(1, 10, TimeUnit.SECONDS));
+        broadcaster.accept(event(1), "octo/api");
+        assertEquals(1, broadcaster.next());
+    }
+
+    private static WorkflowEvent event(int id) {
+        return new WorkflowEvent(String.valueOf(id), T0, WorkflowLevel.JOB, EventStatus.SUCCESS, "main",
+                "abc1234567890", "test", "CI");
+    }
+}
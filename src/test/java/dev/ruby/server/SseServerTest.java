@@ -0,0 +1,210 @@
+package dev.ruby.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+
+class SseServerTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-15T10:00:00Z");
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private EventBroadcaster broadcaster;
+    private SseServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        broadcaster = new EventBroadcaster(8);
+        broadcaster.start();
+        server = new SseServer(broadcaster, new InetSocketAddress("127.0.0.1", 0), Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void events_shouldReplayMatchingEventsAndResumeAfterTheLastId() {
+        publish(new WorkflowEvent("1", T0, WorkflowLevel.RUN, EventStatus.STARTED, "main", "abc", "CI", "CI"),
+                "octo/api");
+        publish(new WorkflowEvent("2", T0, WorkflowLevel.JOB, EventStatus.STARTED, "main", "abc", "test", "CI"),
+                "octo/api");
+        publish(new WorkflowEvent("3", T0, WorkflowLevel.RUN, EventStatus.STARTED, "dev", "abc", "CI", "CI"),
+                "octo/api");
+        publish(new WorkflowEvent("4", T0, WorkflowLevel.RUN, EventStatus.SUCCESS, "main", "abc", "CI", "CI"),
+                "octo/web");
+        publish(new WorkflowEvent("5", T0, WorkflowLevel.RUN, EventStatus.SUCCESS, "main", "abc", "CI", "CI"),
+                "octo/api");
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<String> frames = frames(get("/events?from=0&branch=main&level=RUN&repository=octo/api", null), 2);
+            assertTrue(frames.get(0).startsWith("id: 0\nevent: workflow\ndata: {\"time\":"), frames.get(0));
+            assertTrue(frames.get(0).contains("\"id\":\"1\""), frames.get(0));
+            assertTrue(frames.get(1).startsWith("id: 4\n"), frames.get(1));
+
+            List<String> resumed = frames(get("/events?level=RUN", "2"), 2);
+            assertTrue(resumed.get(0).startsWith("id: 3\n"), resumed.get(0));
+            assertTrue(resumed.get(1).startsWith("id: 4\n"), resumed.get(1));
+        });
+    }
+
+    @Test
+    void events_shouldReportOverwrittenEventsAsAGap() {
+        for (int i = 0; i < 12; i++) {
+            publish(event(i), "octo/api");
+        }
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<String> frames = frames(get("/events?from=1", null), 2);
+            assertEquals("event: gap\ndata: {\"missed\":3}", frames.get(0));
+            assertTrue(frames.get(1).startsWith("id: 4\n"), frames.get(1));
+        });
+    }
+
+    @Test
+    void events_shouldStreamNewEventsLiveAndKeepTheConnectionAlive() {
+        publish(event(0), "octo/api");
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Iterator<String> lines = get("/events", null).body().iterator();
+            assertEquals(": offset 1", lines.next());
+            assertEquals("", lines.next());
+            assertEquals(": keepalive", lines.next());
+            publish(event(1), "octo/api");
+            assertEquals("id: 1", next(lines));
+        });
+    }
+
+    @Test
+    void events_withFilterMatchingNothing_shouldStillGetKeepalives() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Iterator<String> lines = get("/events?branch=release", null).body().iterator();
+            assertEquals(": offset 0", lines.next());
+            assertEquals("", lines.next());
+            // events the filter drops keep arriving faster than the keepalive interval
+            Thread publisher = Thread.ofVirtual().start(() -> {
+                for (int i = 0; !Thread.currentThread().isInterrupted(); i++) {
+                    publish(event(i), "octo/api");
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            assertEquals(": keepalive", lines.next());
+            publisher.interrupt();
+            publisher.join();
+        });
+    }
+
+    @Test
+    void events_withInvalidFilter_shouldBeRejected() throws Exception {
+        assertEquals(400, status("/events?level=TASK"));
+        assertEquals(400, status("/events?filter=actor!%3Ddependabot%5Bbot%5D"));
+        assertEquals(400, status("/events?from=first"));
+    }
+
+    @Test
+    void slowSubscriber_shouldNotHoldUpPublishing() throws Exception {
+        // connects and never reads, so the server's writes fill the socket buffers
+        try (Socket socket = new Socket("127.0.0.1", server.getAddress().getPort())) {
+            socket.getOutputStream().write(("GET /events?from=0 HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+            InputStream in = socket.getInputStream();
+            assertTrue(in.read() >= 0);
+
+            assertTimeoutPreemptively(TIMEOUT, () -> {
+                for (int i = 0; i < 50_000; i++) {
+                    publish(event(i), "octo/api");
+                }
+            });
+            assertEquals(50_000, broadcaster.next());
+            assertEquals(1, server.getSubscribers());
+        }
+    }
+
+    private void publish(WorkflowEvent event, String repository) {
+        broadcaster.accept(event, repository);
+    }
+
+    private HttpResponse<Stream<String>> get(String path, String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        assertEquals(SseServer.CONTENT_TYPE, response.headers().firstValue("content-type").orElseThrow());
+        return response;
+    }
+
+    private int status(String path) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(uri(path)).build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    // the first count frames that are not comments, each without its closing blank line
+    private static List<String> frames(HttpResponse<Stream<String>> response, int count) {
+        List<String> frames = new ArrayList<>();
+        Iterator<String> lines = response.body().iterator();
+        StringBuilder frame = new StringBuilder();
+        while (frames.size() < count) {
+            String line = lines.next();
+            if (line.startsWith(":")) {
+                continue;
+            }
+            if (!line.isEmpty()) {
+                frame.append(frame.isEmpty() ? "" : "\n").append(line);
+            } else if (!frame.isEmpty()) {
+                frames.add(frame.toString());
+                frame.setLength(0);
+            }
+        }
+        response.body().close();
+        return frames;
+    }
+
+    private static String next(Iterator<String> lines) {
+        String line = lines.next();
+        while (line.isEmpty() || line.startsWith(":")) {
+            line = lines.next();
+        }
+        return line;
+    }
+
+    private static WorkflowEvent event(int id) {
+        return new WorkflowEvent(String.valueOf(id), T0, WorkflowLevel.JOB, EventStatus.SUCCESS, "main", "abc",
+                "test", "CI");
+    }
+}
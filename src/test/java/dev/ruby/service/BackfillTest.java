@@ -0,0 +1,182 @@
+package dev.ruby.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import dev.ruby.client.GitHubClient;
+import dev.ruby.client.RateBudget;
+import dev.ruby.client.RequestPriority;
+import dev.ruby.client.RunQuery;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowRunsPage;
+import dev.ruby.persistence.BackfillCheckpoint;
+import dev.ruby.persistence.MonitorState;
+import dev.ruby.persistence.StateBackend;
+
+class BackfillTest {
+
+    private static final Instant FROM = Instant.parse("2024-01-15T00:00:00Z");
+    private static final Instant TO = FROM.plus(Duration.ofHours(2));
+
+    @TempDir
+    Path tempDir;
+
+    private final GitHubClient client = mock(GitHubClient.class);
+    private final List<WorkflowRun> history = new ArrayList<>();
+    private final List<Instant[]> queriedWindows = new CopyOnWriteArrayList<>();
+    private final List<Integer> pagesRead = new CopyOnWriteArrayList<>();
+    private final Map<Long, Integer> jobFetches = new ConcurrentHashMap<>();
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private PrintStream originalOut;
+
+    private final StateBackend backend = new StateBackend() {
+        @Override
+        public MonitorState load() {
+            return new MonitorState();
+        }
+
+        @Override
+        public void save(MonitorState state) {
+        }
+    };
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // one finished run every 4 seconds: 1800 runs, more than one created filter returns
+        for (int i = 0; i < 1800; i++) {
+            Instant created = FROM.plusSeconds(i * 4L);
+            history.add(new WorkflowRun(i + 1, "Build " + (i + 1), "completed", "success", "main", "abc1234567890",
+                    created, created.plusSeconds(60), created));
+        }
+        when(client.getRepository()).thenReturn("octo/repo");
+        when(client.getRateBudget()).thenReturn(new RateBudget());
+        when(client.getWorkflowRuns(any(), anyInt(), anyInt())).thenReturn(List.of());
+        when(client.getWorkflowRunsCreated(any(), any(), any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            Instant from = invocation.getArgument(1);
+            Instant to = invocation.getArgument(2);
+            int page = invocation.getArgument(3);
+            int perPage = invocation.getArgument(4);
+            pagesRead.add(page);
+            if (page == 1) {
+                queriedWindows.add(new Instant[] { from, to });
+            }
+            // newest first and at most 1000 results, as the API does; total_count counts them all
+            List<WorkflowRun> matching = history.stream()
+                    .filter(run -> !run.createdAt().isBefore(from) && run.createdAt().isBefore(to))
+                    .sorted(Comparator.comparing(WorkflowRun::createdAt).reversed()).toList();
+            List<WorkflowRun> returned = matching.subList(0, Math.min(1000, matching.size()));
+            int start = Math.min((page - 1) * perPage, returned.size());
+            return new WorkflowRunsPage(matching.size(),
+                    returned.subList(start, Math.min(start + perPage, returned.size())));
+        });
+        when(client.getJobsForRun(anyLong(), eq(RequestPriority.BACKFILL))).thenAnswer(invocation -> {
+            jobFetches.merge(invocation.getArgument(0), 1, Integer::sum);
+            return List.of();
+        });
+
+        originalOut = System.out;
+        System.setOut(new PrintStream(output));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    void backfill_shouldSplitFullWindowsAndReportEveryRunOnce() throws Exception {
+        WorkflowMonitor monitor = new WorkflowMonitor(client, backend);
+        BackfillCheckpoint checkpoint = BackfillCheckpoint.open(tempDir.resolve("backfill.json").toFile(), FROM, TO);
+        Backfill backfill = new Backfill(client, monitor, RunQuery.ALL, checkpoint, Duration.ofHours(4), 2, 1.0);
+
+        runUntilComplete(monitor, backfill);
+
+        // the single 2 hour window counted 1800 runs on its first page and was split before reading the others:
+        // only the two halves of 900 runs are paged through
+        assertEquals(3, queriedWindows.size());
+        assertEquals(1 + 2 * 9, pagesRead.size());
+        Map<String, Integer> reported = reportedRuns();
+        assertEquals(1800, reported.size());
+        assertTrue(reported.values().stream().allMatch(count -> count == 2), "RUN STARTED and RUN SUCCESS once");
+        assertEquals(1800, jobFetches.size());
+        assertTrue(BackfillCheckpoint.open(tempDir.resolve("backfill.json").toFile(), FROM, TO).isComplete());
+    }
+
+    @Test
+    void backfill_shouldResumeFromCheckpoint() throws Exception {
+        Instant middle = FROM.plus(Duration.ofHours(1));
+        BackfillCheckpoint done = BackfillCheckpoint.open(tempDir.resolve("backfill.json").toFile(), FROM, TO);
+        done.complete(new BackfillCheckpoint.Window(middle, TO));
+
+        WorkflowMonitor monitor = new WorkflowMonitor(client, backend);
+        // a later start keeps the end of the backfill it resumes
+        BackfillCheckpoint checkpoint = BackfillCheckpoint.open(tempDir.resolve("backfill.json").toFile(), FROM,
+                TO.plus(Duration.ofDays(1)));
+        Backfill backfill = new Backfill(client, monitor, RunQuery.ALL, checkpoint, Duration.ofMinutes(30), 2, 1.0);
+
+        runUntilComplete(monitor, backfill);
+
+        assertFalse(queriedWindows.isEmpty());
+        assertTrue(queriedWindows.stream().allMatch(window -> !window[1].isAfter(middle)));
+        assertEquals(900, reportedRuns().size());
+    }
+
+    @Test
+    void backfill_shouldQueryWholeSeconds() throws Exception {
+        WorkflowMonitor monitor = new WorkflowMonitor(client, backend);
+        // as MonitorFleet starts it, up to now
+        Backfill backfill = new Backfill(client, monitor, RunQuery.ALL, tempDir.resolve("backfill.json").toFile(),
+                FROM, TO.plusMillis(250));
+
+        runUntilComplete(monitor, backfill);
+
+        assertEquals(TO, queriedWindows.get(0)[1]);
+        assertTrue(queriedWindows.stream().allMatch(window -> window[0].getNano() == 0 && window[1].getNano() == 0));
+    }
+
+    private void runUntilComplete(WorkflowMonitor monitor, Backfill backfill) throws InterruptedException {
+        backfill.start();
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!backfill.isComplete() && System.nanoTime() < deadline) {
+            monitor.run();
+            Thread.sleep(1);
+        }
+        backfill.stop();
+        assertTrue(backfill.isComplete());
+    }
+
+    // how many RUN lines were printed per run name
+    private Map<String, Integer> reportedRuns() {
+        Map<String, Integer> reported = new HashMap<>();
+        for (String line : output.toString().split("\n")) {
+            if (line.contains("| RUN ")) {
+                reported.merge(line.substring(line.lastIndexOf(" | ") + 3).trim(), 1, Integer::sum);
+            }
+        }
+        return reported;
+    }
+}
@@ -0,0 +1,83 @@
+package dev.ruby.service;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.WorkflowEvent;
+import dev.ruby.model.WorkflowLevel;
+
+class EventFilterTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-15T10:00:00Z");
+
+    @Test
+    void rejecting_shouldReturnTheFirstFailingRunClause() {
+        EventFilter filter = EventFilter.parse("branch=main,release/*; workflow!=nightly*; actor!=dependabot[bot]");
+
+        assertNull(filter.rejecting(run("Build", "release/1.2", "octocat")));
+        assertNull(filter.rejecting(run("Build", "main", null)));
+        assertEquals("branch=main,release/*", filter.rejecting(run("Build", "feature", "octocat")).text());
+        assertEquals("workflow!=nightly*", filter.rejecting(run("Nightly Build", "main", "octocat")).text());
+        assertEquals(2, filter.rejecting(run("Build", "main", "dependabot[bot]")).index());
+        assertTrue(filter.fetchesJobs());
+        assertTrue(filter.mapsSteps());
+    }
+
+    @Test
+    void levelClause_shouldDecideWhatIsFetchedAndMapped() {
+        EventFilter runsOnly = EventFilter.parse("level=run; status!=STARTED");
+        assertFalse(runsOnly.fetchesJobs());
+        assertEquals("level=run", runsOnly.jobsExcludedBy().text());
+        assertTrue(runsOnly.accepts(event(WorkflowLevel.RUN, EventStatus.FAILURE)));
+        assertFalse(runsOnly.accepts(event(WorkflowLevel.RUN, EventStatus.STARTED)));
+        assertFalse(runsOnly.accepts(event(WorkflowLevel.JOB, EventStatus.FAILURE)));
+
+        EventFilter noSteps = EventFilter.parse("level!=STEP");
+        assertTrue(noSteps.fetchesJobs());
+        assertFalse(noSteps.mapsSteps());
+    }
+
+    @Test
+    void matches_shouldCheckEveryClauseOnTheEvent() {
+        EventFilter filter = EventFilter.parse("branch=main; workflow=CI*; level!=STEP");
+        WorkflowEvent job = new WorkflowEvent("7", T0, WorkflowLevel.JOB, EventStatus.SUCCESS, "main",
+                "abc1234567890", "test", "CI Build");
+
+        assertTrue(filter.matches(job));
+        assertFalse(filter.matches(new WorkflowEvent("7:1", T0, WorkflowLevel.STEP, EventStatus.SUCCESS, "main",
+                "abc1234567890", "checkout", "CI Build")));
+        assertFalse(filter.matches(new WorkflowEvent("8", T0, WorkflowLevel.JOB, EventStatus.SUCCESS, "feature",
+                "abc1234567890", "test", "CI Build")));
+        assertFalse(filter.matches(event(WorkflowLevel.RUN, EventStatus.SUCCESS)));
+        assertTrue(EventFilter.parse("actor!=dependabot[bot]").matches(job));
+        assertFalse(EventFilter.parse("actor=octocat").matches(job));
+    }
+
+    @Test
+    void parse_shouldRejectMalformedExpressions() {
+        assertSame(EventFilter.ALL, EventFilter.parse("  "));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("owner=octo"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("branch"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("branch=main,"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("level=TASK"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("status=DONE"));
+    }
+
+    private static WorkflowRun run(String name, String branch, String actor) {
+        return new WorkflowRun(1, name, "in_progress", null, branch, "abc1234567890", T0, T0, T0, 1,
+                actor != null ? new WorkflowRun.Actor(actor) : null, 0);
+    }
+
+    private static WorkflowEvent event(WorkflowLevel level, EventStatus status) {
+        return new WorkflowEvent("1", T0, level, status, "main", "abc1234567890", "Build");
+    }
+}
@@ -0,0 +1,96 @@
+package dev.ruby.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import dev.ruby.client.RateBudget;
+
+class FairPollSchedulerTest {
+
+    private static final CycleStats BUSY = new CycleStats(1, 1, 1, 0, 1, 1, 0, Duration.ZERO);
+
+    @Test
+    void busyRepository_shouldGetMoreCyclesThanQuietOne() throws Exception {
+        FairPollScheduler scheduler = new FairPollScheduler(1);
+        scheduler.add("octo/busy", monitor(BUSY), new RateBudget(), policy(Duration.ofMillis(10)));
+        scheduler.add("octo/quiet", monitor(CycleStats.EMPTY), new RateBudget(), policy(Duration.ofMillis(10)));
+
+        Map<String, Long> cycles = runFor(scheduler, Duration.ofMillis(600));
+
+        assertTrue(cycles.get("octo/busy") > 3 * cycles.get("octo/quiet"), cycles.toString());
+        assertTrue(cycles.get("octo/quiet") >= 2, cycles.toString());
+    }
+
+    @Test
+    void quietRepository_shouldNotStarveWhenBusyOnesSaturateTheSlots() throws Exception {
+        FairPollScheduler scheduler = new FairPollScheduler(1);
+        for (int i = 0; i < 5; i++) {
+            // always due again immediately
+            scheduler.add("octo/busy-" + i, monitor(BUSY), new RateBudget(), policy(Duration.ZERO));
+        }
+        scheduler.add("octo/quiet", monitor(CycleStats.EMPTY), new RateBudget(), policy(Duration.ZERO));
+
+        Map<String, Long> cycles = runFor(scheduler, Duration.ofMillis(500));
+
+        // the quiet repository waits 100-200 ms between cycles but is served as soon as it is due
+        assertTrue(cycles.get("octo/quiet") >= 2, cycles.toString());
+    }
+
+    @Test
+    void urgentLane_shouldNotWaitForABusySlot() throws Exception {
+        FairPollScheduler scheduler = new FairPollScheduler(1);
+        // holds the only slot for the whole test
+        Pollable slow = new Pollable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(1_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public CycleStats getLastCycleStats() {
+                return BUSY;
+            }
+        };
+        scheduler.add("octo/slow", slow, new RateBudget(), policy(Duration.ZERO));
+        Duration laneInterval = Duration.ofMillis(20);
+        scheduler.add("octo/slow#deploy", monitor(CycleStats.EMPTY), new RateBudget(),
+                new PollingPolicy(laneInterval, laneInterval, laneInterval), true);
+
+        Map<String, Long> cycles = runFor(scheduler, Duration.ofMillis(300));
+
+        assertTrue(cycles.get("octo/slow#deploy") >= 5, cycles.toString());
+    }
+
+    private static Map<String, Long> runFor(FairPollScheduler scheduler, Duration duration) throws Exception {
+        scheduler.start();
+        Thread.sleep(duration.toMillis());
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(Duration.ofSeconds(5)));
+
+        List<FairPollScheduler.Status> statuses = scheduler.getStatuses();
+        return statuses.stream().collect(Collectors.toMap(FairPollScheduler.Status::repository,
+                FairPollScheduler.Status::cycles));
+    }
+
+    private static WorkflowMonitor monitor(CycleStats stats) {
+        WorkflowMonitor monitor = mock(WorkflowMonitor.class);
+        when(monitor.getLastCycleStats()).thenReturn(stats);
+        return monitor;
+    }
+
+    // idle repositories back off from 100 ms to 200 ms
+    private static PollingPolicy policy(Duration min) {
+        return new PollingPolicy(min, Duration.ofMillis(100), Duration.ofMillis(200));
+    }
+}
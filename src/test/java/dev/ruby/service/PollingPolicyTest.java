@@ -0,0 +1,95 @@
+package dev.ruby.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+import dev.ruby.client.RateBudget;
+
+class PollingPolicyTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-15T10:00:00Z");
+
+    private final PollingPolicy policy = new PollingPolicy(Duration.ofSeconds(2), Duration.ofSeconds(10),
+            Duration.ofMinutes(5));
+
+    @Test
+    void next_withActiveRuns_shouldUseMinimumInterval() {
+        PollingPolicy.Decision decision = policy.next(stats(0, 3, 5), budget(5000, 4900, 600), NOW);
+
+        assertEquals(Duration.ofSeconds(2), decision.interval());
+        assertEquals(PollingPolicy.Reason.ACTIVE_RUNS, decision.reason());
+    }
+
+    @Test
+    void next_withEventsJustEmitted_shouldUseMinimumInterval() {
+        PollingPolicy.Decision decision = policy.next(stats(4, 0, 1), budget(5000, 4000, 3600), NOW);
+
+        assertEquals(Duration.ofSeconds(2), decision.interval());
+        assertEquals(PollingPolicy.Reason.EVENTS, decision.reason());
+    }
+
+    @Test
+    void next_whileIdle_shouldBackOffExponentiallyUpToMaximum() {
+        RateBudget.Snapshot budget = budget(5000, 4000, 3600);
+
+        assertEquals(Duration.ofSeconds(10), policy.next(stats(0, 0, 1), budget, NOW).interval());
+        assertEquals(Duration.ofSeconds(20), policy.next(stats(0, 0, 1), budget, NOW).interval());
+        assertEquals(Duration.ofSeconds(40), policy.next(stats(0, 0, 1), budget, NOW).interval());
+        for (int i = 0; i < 10; i++) {
+            policy.next(stats(0, 0, 1), budget, NOW);
+        }
+        PollingPolicy.Decision decision = policy.next(stats(0, 0, 1), budget, NOW);
+        assertEquals(Duration.ofMinutes(5), decision.interval());
+        assertEquals(PollingPolicy.Reason.IDLE, decision.reason());
+
+        // activity resets the backoff
+        policy.next(stats(1, 0, 1), budget, NOW);
+        assertEquals(Duration.ofSeconds(10), policy.next(stats(0, 0, 1), budget, NOW).interval());
+    }
+
+    @Test
+    void next_withLowBudget_shouldStretchIntervalToLastUntilReset() {
+        // 100 calls left for 1000 seconds, 20 calls per cycle -> one cycle every 200 seconds
+        PollingPolicy.Decision decision = policy.next(stats(0, 5, 20), budget(5000, 100, 1000), NOW);
+
+        assertEquals(Duration.ofSeconds(200), decision.interval());
+        assertEquals(PollingPolicy.Reason.RATE_BUDGET, decision.reason());
+    }
+
+    @Test
+    void next_withSharedToken_shouldSpendOnlyItsShareOfTheBudget() {
+        PollingPolicy shared = new PollingPolicy(Duration.ofSeconds(2), Duration.ofSeconds(10),
+                Duration.ofMinutes(5), 4);
+
+        // 4 repositories on 1000 calls for 100 seconds, 5 calls per cycle -> one cycle every 2 seconds each
+        PollingPolicy.Decision decision = shared.next(stats(0, 5, 5), budget(5000, 1000, 100), NOW);
+
+        assertEquals(Duration.ofSeconds(2), decision.interval());
+        assertEquals(PollingPolicy.Reason.ACTIVE_RUNS, decision.reason());
+        assertEquals(Duration.ofSeconds(4), shared.next(stats(0, 5, 10), budget(5000, 1000, 100), NOW).interval());
+    }
+
+    @Test
+    void next_duringRateLimitBackoff_shouldWaitForBackoff() {
+        RateBudget.Snapshot budget = new RateBudget.Snapshot(5000, 0, 5000, NOW.plusSeconds(600),
+                NOW.plusSeconds(30), Map.of());
+
+        PollingPolicy.Decision decision = policy.next(stats(0, 5, 0), budget, NOW);
+
+        assertEquals(Duration.ofSeconds(30), decision.interval());
+        assertEquals(PollingPolicy.Reason.RATE_LIMITED, decision.reason());
+    }
+
+    private static CycleStats stats(int events, int activeRuns, long requestsCharged) {
+        return new CycleStats(0, 0, 0, 0, events, activeRuns, requestsCharged, Duration.ZERO);
+    }
+
+    private static RateBudget.Snapshot budget(int limit, int remaining, long secondsToReset) {
+        return new RateBudget.Snapshot(limit, remaining, limit - remaining, NOW.plusSeconds(secondsToReset),
+                Instant.EPOCH, Map.of());
+    }
+}
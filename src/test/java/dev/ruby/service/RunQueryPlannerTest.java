@@ -0,0 +1,66 @@
+package dev.ruby.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+import dev.ruby.service.RunQueryPlanner.Plan;
+import dev.ruby.service.RunQueryPlanner.Strategy;
+
+class RunQueryPlannerTest {
+
+    private final RunQueryPlanner planner = new RunQueryPlanner(Strategy.AUTO);
+
+    @Test
+    void plan_firstCycle_shouldScan() {
+        assertEquals(Plan.SCAN, planner.plan(50));
+    }
+
+    @Test
+    void plan_busyRepository_shouldOnlyListNewRuns() {
+        planner.observe(Plan.SCAN, 3, 10, 5, 40);
+
+        // 5 created runs and 10 single fetches beat a full list page
+        assertEquals(Plan.CREATED, planner.plan(50));
+    }
+
+    @Test
+    void plan_shouldScanRegularly() {
+        planner.observe(Plan.SCAN, 3, 10, 5, 40);
+        for (int i = 1; i < RunQueryPlanner.DISCOVERY_CYCLES; i++) {
+            assertEquals(Plan.CREATED, planner.plan(50));
+            planner.observe(Plan.CREATED, 3, 10, 5, 50);
+        }
+
+        assertEquals(Plan.SCAN, planner.plan(50));
+        planner.observe(Plan.SCAN, 3, 10, 5, 40);
+        assertEquals(Plan.CREATED, planner.plan(50));
+    }
+
+    @Test
+    void plan_liveListsOnly_shouldStillScanRegularly() {
+        planner.observe(Plan.SCAN, 0, 0, 0, 0);
+        for (int i = 1; i < RunQueryPlanner.DISCOVERY_CYCLES; i++) {
+            assertEquals(Plan.CREATED_AND_LIVE, planner.plan(3));
+            planner.observe(Plan.CREATED_AND_LIVE, 0, 0, 0, 0);
+        }
+
+        // the live lists miss a re-run that finished between two cycles; only a scan finds it
+        assertEquals(Plan.SCAN, planner.plan(3));
+    }
+
+    @Test
+    void plan_idleRepository_shouldPreferFewerRequests() {
+        planner.observe(Plan.SCAN, 0, 0, 0, 0);
+
+        // nothing moves and every response is a 304: one list of the runs in progress replaces three fetches
+        assertEquals(Plan.CREATED_AND_LIVE, planner.plan(3));
+    }
+
+    @Test
+    void plan_scanStrategy_shouldAlwaysScan() {
+        RunQueryPlanner scanning = new RunQueryPlanner(Strategy.SCAN);
+        scanning.observe(Plan.SCAN, 3, 10, 5, 40);
+
+        assertEquals(Plan.SCAN, scanning.plan(50));
+    }
+}
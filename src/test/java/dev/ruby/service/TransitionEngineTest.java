@@ -0,0 +1,169 @@
+package dev.ruby.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import dev.ruby.client.dto.WorkflowJob;
+import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowStep;
+import dev.ruby.mapper.EventMapper;
+import dev.ruby.model.WorkflowEvent;
+
+class TransitionEngineTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-15T10:00:00Z");
+
+    private final TransitionEngine engine = new TransitionEngine(Duration.ofSeconds(30));
+    private final List<String> events = new ArrayList<>();
+
+    @Test
+    void process_firstSighting_shouldEmitEverythingThatHappenedSoFar() {
+        process(run("in_progress", null, 1, T0.plusSeconds(20)),
+                job("in_progress", null, step(1, "completed", "success"), step(2, "in_progress", null)));
+
+        assertEquals(List.of("RUN STARTED", "JOB STARTED", "STEP STARTED", "STEP SUCCESS", "STEP STARTED"), events);
+    }
+
+    @Test
+    void process_withoutChanges_shouldEmitNothing() {
+        WorkflowRun run = run("in_progress", null, 1, T0.plusSeconds(20));
+        WorkflowJob job = job("in_progress", null, step(1, "completed", "success"), step(2, "in_progress", null));
+        process(run, job);
+        events.clear();
+
+        process(run, job);
+
+        assertTrue(events.isEmpty(), events.toString());
+        assertFalse(engine.isChanged(run, EventMapper.toStatus(run.status(), run.conclusion())));
+    }
+
+    @Test
+    void process_shouldEmitOnlyTheTransitions() {
+        process(run("queued", null, 1, T0), job("queued", null));
+        assertEquals(List.of("RUN QUEUED"), events);
+        events.clear();
+
+        process(run("in_progress", null, 1, T0.plusSeconds(10)),
+                job("in_progress", null, step(1, "in_progress", null)));
+        assertEquals(List.of("RUN STARTED", "JOB STARTED", "STEP STARTED"), events);
+        events.clear();
+
+        process(run("in_progress", null, 1, T0.plusSeconds(20)),
+                job("in_progress", null, step(1, "completed", "success"), step(2, "in_progress", null)));
+        assertEquals(List.of("STEP SUCCESS", "STEP STARTED"), events);
+        events.clear();
+
+        process(run("completed", "failure", 1, T0.plusSeconds(30)),
+                job("completed", "failure", step(1, "completed", "success"), step(2, "completed", "failure")));
+        assertEquals(List.of("STEP FAILURE", "JOB FAILURE", "RUN FAILURE"), events);
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    void process_withNewRunAttempt_shouldStartOver() {
+        process(run("in_progress", null, 1, T0.plusSeconds(10)), job(10, "in_progress", null));
+        events.clear();
+
+        WorkflowRun rerun = run("in_progress", null, 2, T0.plusSeconds(60));
+        assertTrue(engine.isChanged(rerun, EventMapper.toStatus(rerun.status(), rerun.conclusion())));
+        List<WorkflowEvent> emitted = new ArrayList<>();
+        engine.process(rerun, EventMapper.toStatus(rerun.status(), rerun.conclusion()),
+                List.of(job(11, "in_progress", null)), 0, emitted::add);
+
+        assertEquals(2, emitted.size());
+        assertTrue(emitted.get(0).getKey().startsWith("1#2_" + T0.plusSeconds(60)), emitted.get(0).getKey());
+    }
+
+    @Test
+    void restore_shouldOnlyEmitWhatMovedSinceTheSnapshot() {
+        process(run("in_progress", null, 1, T0.plusSeconds(20)),
+                job("in_progress", null, step(1, "completed", "success"), step(2, "in_progress", null)));
+        assertTrue(engine.isModified());
+        TransitionEngine restarted = new TransitionEngine(Duration.ofSeconds(30));
+        restarted.restore(engine.snapshot(), 0);
+        assertFalse(engine.isModified());
+        events.clear();
+
+        WorkflowRun run = run("in_progress", null, 1, T0.plusSeconds(20));
+        assertFalse(restarted.isChanged(run, EventMapper.toStatus(run.status(), run.conclusion())));
+        assertTrue(restarted.isJobRefreshDue(run.id(), 0));
+        process(restarted, run, job("in_progress", null, step(1, "completed", "success"),
+                step(2, "completed", "success"), step(3, "in_progress", null)));
+
+        assertEquals(List.of("STEP SUCCESS", "STEP STARTED"), events);
+        assertTrue(restarted.isModified());
+    }
+
+    @Test
+    void process_shouldTrackStepsByNumber() {
+        process(run("in_progress", null, 1, T0.plusSeconds(10)),
+                job("in_progress", null, step(1, "completed", "success"), step(2, "in_progress", null)));
+        events.clear();
+
+        // the same steps listed in another order, with a skipped step that never started in between
+        WorkflowStep skipped = new WorkflowStep("step 3", "completed", "skipped", 3, null, null);
+        process(run("in_progress", null, 1, T0.plusSeconds(20)), job("in_progress", null, step(2, "completed",
+                "success"), skipped, step(1, "completed", "success"), step(4, "in_progress", null)));
+
+        assertEquals(List.of("STEP SUCCESS", "STEP STARTED"), events);
+    }
+
+    @Test
+    void isJobRefreshDue_withoutStartedJobs_shouldStayDue() {
+        WorkflowRun run = run("in_progress", null, 1, T0.plusSeconds(10));
+        process(run, job("queued", null));
+        long later = Duration.ofSeconds(30).toNanos();
+        assertTrue(engine.isJobRefreshDue(run.id(), later));
+
+        engine.process(run, EventMapper.toStatus(run.status(), run.conclusion()), List.of(), 0, event -> {
+        });
+        assertTrue(engine.isJobRefreshDue(run.id(), later));
+
+        process(run, job("completed", "success", step(1, "completed", "success")));
+        assertFalse(engine.isJobRefreshDue(run.id(), later));
+
+        // the restarted engine knows the jobs are done and refreshes only what has not finished
+        TransitionEngine restarted = new TransitionEngine(Duration.ofSeconds(30));
+        restarted.restore(engine.snapshot(), 0);
+        assertFalse(restarted.isJobRefreshDue(run.id(), later));
+    }
+
+    private void process(WorkflowRun run, WorkflowJob job) {
+        process(engine, run, job);
+    }
+
+    private void process(TransitionEngine engine, WorkflowRun run, WorkflowJob job) {
+        engine.process(run, EventMapper.toStatus(run.status(), run.conclusion()), List.of(job), 0, event -> {
+            String[] parts = event.getKey().split("_");
+            events.add(parts[parts.length - 2] + " " + parts[parts.length - 1]);
+        });
+    }
+
+    private static WorkflowRun run(String status, String conclusion, int attempt, Instant updatedAt) {
+        Instant startedAt = attempt > 1 ? updatedAt : T0;
+        return new WorkflowRun(1L, "Build", status, conclusion, "main", "abcdef123456", T0, updatedAt, startedAt,
+                attempt);
+    }
+
+    private static WorkflowJob job(String status, String conclusion, WorkflowStep... steps) {
+        return job(10L, status, conclusion, steps);
+    }
+
+    private static WorkflowJob job(long id, String status, String conclusion, WorkflowStep... steps) {
+        Instant startedAt = "queued".equals(status) ? null : T0.plusSeconds(5);
+        Instant completedAt = "completed".equals(status) ? T0.plusSeconds(30) : null;
+        return new WorkflowJob(id, "test", status, conclusion, startedAt, completedAt, List.of(steps));
+    }
+
+    private static WorkflowStep step(int number, String status, String conclusion) {
+        Instant completedAt = "completed".equals(status) ? T0.plusSeconds(number * 10L) : null;
+        return new WorkflowStep("step " + number, status, conclusion, number, T0.plusSeconds(number), completedAt);
+    }
+}
@@ -1,23 +1,44 @@
 package dev.ruby.service;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.PrintStream;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import dev.ruby.client.GitHubClient;
+import dev.ruby.client.RequestPriority;
+import dev.ruby.client.RunQuery;
+import dev.ruby.client.dto.WorkflowJob;
 import dev.ruby.client.dto.WorkflowRun;
+import dev.ruby.client.dto.WorkflowStep;
+import dev.ruby.model.EventStatus;
+import dev.ruby.model.RunSnapshot;
+import dev.ruby.persistence.AsyncStatePersister;
 import dev.ruby.persistence.MonitorState;
 import dev.ruby.persistence.StateStore;
 
@@ -54,8 +75,8 @@ class WorkflowMonitorTest {
                                 futureTime, futureTime.plusSeconds(1), futureTime);
 
                 StateStore realStateStore = new StateStore("test-repo");
-                when(mockClient.getWorkflowRuns(1, 100)).thenReturn(List.of(run));
-                when(mockClient.getWorkflowRuns(2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100)).thenReturn(List.of(run));
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
 
                 WorkflowMonitor monitor = new WorkflowMonitor(mockClient, realStateStore);
                 Instant initialTime = monitor.getState().getLastRunTime();
@@ -74,18 +95,17 @@ class WorkflowMonitorTest {
                                 now, now.plusSeconds(1), now);
 
                 when(mockStateStore.load()).thenReturn(new MonitorState());
-                when(mockClient.getWorkflowRuns(1, 100))
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100))
                                 .thenReturn(List.of(inProgressRun))
                                 .thenReturn(Collections.emptyList());
-                when(mockClient.getWorkflowRuns(2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
                 when(mockClient.getJobsForRun(123L)).thenReturn(Collections.emptyList());
 
                 WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore);
                 monitor.run();
 
                 MonitorState state = monitor.getState();
-                assertTrue(state.getAlreadySeenKeys().keySet().stream()
-                                .anyMatch(k -> k.contains("123") && k.contains("STARTED")));
+                assertTrue(state.hasSeen("123_" + now + "_RUN_STARTED"));
 
                 // second run: state poll active runs and transition state to SUCCESS
                 WorkflowRun completedRun = new WorkflowRun(
@@ -97,8 +117,7 @@ class WorkflowMonitorTest {
 
                 monitor.run();
 
-                assertTrue(state.getAlreadySeenKeys().keySet().stream()
-                                .anyMatch(k -> k.contains("123") && k.contains("SUCCESS")));
+                assertTrue(state.hasSeen("123_" + now.plusSeconds(60) + "_RUN_SUCCESS"));
         }
 
         @Test
@@ -110,10 +129,10 @@ class WorkflowMonitorTest {
                                 now, now.plusSeconds(1), now);
 
                 when(mockStateStore.load()).thenReturn(new MonitorState());
-                when(mockClient.getWorkflowRuns(1, 100))
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100))
                                 .thenReturn(List.of(inProgressRun))
                                 .thenReturn(Collections.emptyList());
-                when(mockClient.getWorkflowRuns(2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
                 when(mockClient.getJobsForRun(123L)).thenReturn(Collections.emptyList());
 
                 WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore);
@@ -133,4 +152,450 @@ class WorkflowMonitorTest {
                 monitor.run();
                 verify(mockClient, times(1)).getWorkflowRun(123L);
         }
+
+        @Test
+        void run_shouldFetchJobsForRunsConcurrently() throws Exception {
+                Instant now = Instant.now();
+                List<WorkflowRun> runs = List.of(
+                                inProgressRun(1L, now.plusSeconds(1)),
+                                inProgressRun(2L, now.plusSeconds(2)),
+                                inProgressRun(3L, now.plusSeconds(3)));
+
+                // every job fetch waits until all three are in flight at the same time
+                CyclicBarrier barrier = new CyclicBarrier(runs.size());
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100)).thenReturn(runs);
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(anyLong())).thenAnswer(invocation -> {
+                        barrier.await(5, TimeUnit.SECONDS);
+                        return Collections.emptyList();
+                });
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore,
+                                MonitorOptions.defaults().withFetchConcurrency(3));
+                monitor.run();
+
+                verify(mockClient, times(3)).getJobsForRun(anyLong());
+                verify(mockStateStore).save(monitor.getState());
+        }
+
+        @Test
+        void run_shouldReportRunsInUpdatedAtOrder() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun later = inProgressRun(1L, now.plusSeconds(20));
+                WorkflowRun earlier = inProgressRun(2L, now.plusSeconds(10));
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100)).thenReturn(List.of(later, earlier));
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(anyLong())).thenReturn(Collections.emptyList());
+
+                PrintStream originalOut = System.out;
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                System.setOut(new PrintStream(out, true));
+                try {
+                        new WorkflowMonitor(mockClient, mockStateStore).run();
+                } finally {
+                        System.setOut(originalOut);
+                }
+
+                String printed = out.toString();
+                assertTrue(printed.indexOf(earlier.createdAt().toString()) < printed.indexOf(later.createdAt().toString()));
+        }
+
+        @Test
+        void run_failedCycle_shouldKeepTheLastStats() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun run = inProgressRun(123L, now.plusSeconds(1));
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100))
+                                .thenReturn(List.of(run))
+                                .thenThrow(new RuntimeException("API Error: 502"));
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(123L)).thenReturn(List.of(inProgressJob(run)));
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore);
+                monitor.run();
+                CycleStats stats = monitor.getLastCycleStats();
+                monitor.run();
+
+                // the policy keeps polling the active run at the short interval instead of backing off
+                assertEquals(1, stats.activeRuns());
+                assertEquals(stats, monitor.getLastCycleStats());
+        }
+
+        @Test
+        void run_shouldPublishTheSeenEventCountWhenItSaves() throws Exception {
+                WorkflowRun run = inProgressRun(123L, Instant.now().plusSeconds(1));
+                WorkflowStep step = new WorkflowStep("build", "in_progress", null, 1, run.createdAt(), null);
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100)).thenReturn(List.of(run));
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(123L)).thenReturn(List.of(job(run, step)));
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore);
+                assertEquals(0, monitor.getSeenEventCount());
+
+                monitor.run();
+
+                assertEquals(monitor.getLastCycleStats().eventsEmitted(), monitor.getSeenEventCount());
+                assertEquals(monitor.getState().getSeenEvents().size(), monitor.getSeenEventCount());
+        }
+
+        @Test
+        void run_unchangedRun_shouldSkipJobFetchUntilRefreshDue() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun run = inProgressRun(123L, now.plusSeconds(1));
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100))
+                                .thenReturn(List.of(run))
+                                .thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRun(123L)).thenReturn(run);
+                when(mockClient.getJobsForRun(123L)).thenReturn(List.of(inProgressJob(run)));
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore,
+                                MonitorOptions.defaults().withJobRefreshInterval(Duration.ofHours(1)));
+                monitor.run();
+                monitor.run();
+
+                verify(mockClient, times(1)).getJobsForRun(123L);
+                assertEquals(1, monitor.getLastCycleStats().jobFetchesSkipped());
+                assertEquals(0, monitor.getLastCycleStats().jobFetches());
+        }
+
+        @Test
+        void run_unchangedRunWithDueRefresh_shouldRefetchInProgressJobs() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun run = inProgressRun(123L, now.plusSeconds(1));
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100))
+                                .thenReturn(List.of(run))
+                                .thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRun(123L)).thenReturn(run);
+                when(mockClient.getJobsForRun(123L)).thenReturn(List.of(inProgressJob(run)));
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore,
+                                MonitorOptions.defaults().withJobRefreshInterval(Duration.ZERO));
+                monitor.run();
+                monitor.run();
+
+                verify(mockClient, times(2)).getJobsForRun(123L);
+                assertEquals(0, monitor.getLastCycleStats().jobFetchesSkipped());
+        }
+
+        @Test
+        void run_afterRestart_shouldResumeTrackedRunsWithoutRepeatingEvents() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun run = inProgressRun(123L, now.plusSeconds(1));
+                WorkflowStep done = new WorkflowStep("build", "completed", "success", 1, run.createdAt(),
+                                run.createdAt().plusSeconds(5));
+                WorkflowStep running = new WorkflowStep("test", "in_progress", null, 2, run.createdAt().plusSeconds(5),
+                                null);
+                WorkflowStep finished = new WorkflowStep("test", "completed", "success", 2,
+                                run.createdAt().plusSeconds(5), run.createdAt().plusSeconds(9));
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100))
+                                .thenReturn(List.of(run))
+                                .thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(123L)).thenReturn(List.of(job(run, done, running)));
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore);
+                monitor.run();
+                assertEquals(5, monitor.getLastCycleStats().eventsEmitted());
+
+                // the restarted process has the tracked runs but, to make the point, none of the seen events
+                MonitorState saved = monitor.getState();
+                MonitorState restarted = new MonitorState(saved.getLastRunTime(), null,
+                                new HashSet<>(saved.getActiveRunIds()));
+                restarted.setRunSnapshots(saved.getRunSnapshots());
+                when(mockStateStore.load()).thenReturn(restarted);
+                when(mockClient.getWorkflowRun(123L)).thenReturn(run);
+                when(mockClient.getJobsForRun(123L)).thenReturn(List.of(job(run, done, finished)));
+
+                WorkflowMonitor warm = new WorkflowMonitor(mockClient, mockStateStore);
+                warm.run();
+
+                // only the step that finished while the monitor was down
+                assertEquals(1, warm.getLastCycleStats().eventsEmitted());
+                assertEquals(1, warm.getLastCycleStats().jobFetches());
+                // the warm cycle reads a single list page, the first cycle needed two
+                verify(mockClient, times(1)).getWorkflowRuns(RunQuery.ALL, 2, 100);
+        }
+
+        @Test
+        void run_afterFirstCycle_shouldListNewRunsByCreationTime() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun first = new WorkflowRun(1L, "Build", "completed", "success", "main", "abc1234567890",
+                                now, now.plusSeconds(1), now);
+                WorkflowRun second = new WorkflowRun(2L, "Build", "completed", "success", "main", "abc1234567890",
+                                now.plusSeconds(5), now.plusSeconds(6), now.plusSeconds(5));
+                RunQuery mainBranch = RunQuery.of("main", null, null);
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(mainBranch, 1, 100)).thenReturn(List.of(first));
+                when(mockClient.getWorkflowRuns(mainBranch, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRuns(mainBranch.withCreated(now.minusSeconds(10), null), 1, 100))
+                                .thenReturn(List.of(second, first));
+                when(mockClient.getJobsForRun(anyLong())).thenReturn(Collections.emptyList());
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore,
+                                MonitorOptions.defaults().withRunFilter(mainBranch)
+                                                .withRunQueries(RunQueryPlanner.Strategy.AUTO));
+                monitor.run();
+                monitor.run();
+
+                assertTrue(monitor.getState().hasSeen("2_" + now.plusSeconds(6) + "_RUN_SUCCESS"));
+                assertEquals(2, monitor.getLastCycleStats().eventsEmitted());
+                // only the first cycle scanned the list
+                verify(mockClient, times(1)).getWorkflowRuns(mainBranch, 1, 100);
+        }
+
+        @Test
+        void run_auto_shouldReportAReRunThatFinishedBetweenTwoCycles() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun first = new WorkflowRun(1L, "Build", "completed", "success", "main", "abc1234567890",
+                                now, now.plusSeconds(1), now);
+                WorkflowRun second = new WorkflowRun(2L, "Build", "completed", "success", "main", "abc1234567890",
+                                now.plusSeconds(25), now.plusSeconds(30), now.plusSeconds(25));
+                // an hour old run, re-run and done before the next cycle: no created or live list returns it
+                WorkflowRun reRun = new WorkflowRun(3L, "Build", "completed", "success", "main", "abc1234567890",
+                                now.minusSeconds(3600), now.plusSeconds(20), now.plusSeconds(15));
+                RunQuery mainBranch = RunQuery.of("main", null, null);
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(mainBranch, 1, 100))
+                                .thenReturn(List.of(first))
+                                .thenReturn(List.of(second, reRun, first));
+                when(mockClient.getWorkflowRuns(mainBranch, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRuns(mainBranch.withCreated(now.minusSeconds(10), null), 1, 100))
+                                .thenReturn(List.of(second, first));
+                when(mockClient.getWorkflowRuns(mainBranch.withCreated(now.plusSeconds(15), null), 1, 100))
+                                .thenReturn(List.of(second));
+                when(mockClient.getJobsForRun(anyLong())).thenReturn(Collections.emptyList());
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore,
+                                MonitorOptions.defaults().withRunFilter(mainBranch)
+                                                .withRunQueries(RunQueryPlanner.Strategy.AUTO));
+                String reRunKey = "3_" + now.plusSeconds(20) + "_RUN_SUCCESS";
+                for (int i = 0; i < RunQueryPlanner.DISCOVERY_CYCLES; i++) {
+                        monitor.run();
+                }
+                // the created cycles reported the new run, but left the cursor where the first scan put it
+                assertTrue(monitor.getState().hasSeen("2_" + now.plusSeconds(30) + "_RUN_SUCCESS"));
+                assertFalse(monitor.getState().hasSeen(reRunKey));
+                assertEquals(now.plusSeconds(1), monitor.getState().getLastRunTime());
+
+                monitor.run();
+
+                assertTrue(monitor.getState().hasSeen(reRunKey));
+                assertEquals(now.plusSeconds(30), monitor.getState().getLastRunTime());
+                verify(mockClient, times(2)).getWorkflowRuns(mainBranch, 1, 100);
+        }
+
+        @Test
+        void run_withFilter_shouldNotFetchJobsOfExcludedRuns() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun onMain = inProgressRun(1L, now.plusSeconds(1));
+                WorkflowRun onFeature = new WorkflowRun(2L, "Build", "in_progress", null, "feature", "abc1234567890",
+                                now, now.plusSeconds(2), now);
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100)).thenReturn(List.of(onMain, onFeature));
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(1L)).thenReturn(List.of(inProgressJob(onMain)));
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore, MonitorOptions.defaults()
+                                .withEventFilter(EventFilter.parse("branch=main; level!=STEP")));
+                monitor.run();
+
+                verify(mockClient, never()).getJobsForRun(2L);
+                assertEquals(Set.of(1L), monitor.getState().getActiveRunIds());
+                assertEquals(Map.of("branch=main", 1L, "level!=STEP", 0L), monitor.getSavedCalls());
+                // RUN STARTED and JOB STARTED of run 1
+                assertEquals(2, monitor.getLastCycleStats().eventsEmitted());
+        }
+
+        @Test
+        void run_withRunLevelFilter_shouldNotFetchJobs() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun run = inProgressRun(1L, now.plusSeconds(1));
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100)).thenReturn(List.of(run));
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore,
+                                MonitorOptions.defaults().withEventFilter(EventFilter.parse("level=RUN")));
+                monitor.run();
+
+                verify(mockClient, never()).getJobsForRun(anyLong());
+                assertTrue(monitor.getState().hasSeen("1_" + run.runStartedAt() + "_RUN_STARTED"));
+                assertEquals(Map.of("level=RUN", 1L), monitor.getSavedCalls());
+        }
+
+        @Test
+        void run_withFilter_shouldCountAnExcludedRunOnce() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun onFeature = new WorkflowRun(2L, "Build", "in_progress", null, "feature", "abc1234567890",
+                                now, now.plusSeconds(2), now);
+                WorkflowRun movedOn = new WorkflowRun(2L, "Build", "in_progress", null, "feature", "abc1234567890",
+                                now, now.plusSeconds(20), now);
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100))
+                                .thenReturn(List.of(onFeature))
+                                .thenReturn(List.of(movedOn));
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore, MonitorOptions.defaults()
+                                .withEventFilter(EventFilter.parse("branch=main")));
+                monitor.run();
+                monitor.run();
+
+                assertEquals(Map.of("branch=main", 1L), monitor.getSavedCalls());
+        }
+
+        @Test
+        void run_withFilter_shouldDropATrackedRunItExcludes() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun onFeature = new WorkflowRun(2L, "Build", "in_progress", null, "feature", "abc1234567890",
+                                now, now.minusSeconds(2), now);
+                // tracked by a monitor that ran without the filter
+                MonitorState state = new MonitorState(now.minusSeconds(1), null, new HashSet<>(Set.of(2L)));
+                state.setRunSnapshots(Map.of(2L, new RunSnapshot(1, EventStatus.STARTED, true, false,
+                                onFeature.updatedAt(), List.of())));
+
+                when(mockStateStore.load()).thenReturn(state);
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRun(2L)).thenReturn(onFeature);
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore, MonitorOptions.defaults()
+                                .withEventFilter(EventFilter.parse("branch=main")));
+                monitor.run();
+
+                assertTrue(monitor.getState().getActiveRunIds().isEmpty());
+                assertTrue(monitor.getState().getRunSnapshots().isEmpty());
+        }
+
+        @Test
+        void lane_shouldPollItsWorkflowsInsteadOfTheRepositoryCycle() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun deploy = workflowRun(1L, 7L, now.plusSeconds(10));
+                WorkflowRun build = workflowRun(2L, 3L, now.plusSeconds(11));
+                RunQuery deployRuns = RunQuery.of(null, null, 7L);
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100)).thenReturn(List.of(deploy, build));
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(2L)).thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRuns(deployRuns, 1, 100, RequestPriority.ACTIVE)).thenReturn(List.of(deploy));
+                when(mockClient.getWorkflowRuns(deployRuns, 2, 100, RequestPriority.ACTIVE))
+                                .thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(1L, RequestPriority.ACTIVE)).thenReturn(List.of(inProgressJob(deploy)));
+
+                PollLane lane = new PollLane("deploy", Set.of(7L), Duration.ofSeconds(3), PollLane.Priority.HIGH);
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore,
+                                MonitorOptions.defaults().withLanes(List.of(lane)));
+                monitor.run();
+                monitor.getLane("deploy").run();
+
+                verify(mockClient, never()).getJobsForRun(1L);
+                assertEquals(Set.of(1L, 2L), monitor.getState().getActiveRunIds());
+                // the deploy run is counted by its lane only
+                assertEquals(1, monitor.getLastCycleStats().activeRuns());
+                assertEquals(1, monitor.getLane("deploy").getLastCycleStats().activeRuns());
+                // RUN STARTED and JOB STARTED of the deploy run
+                assertEquals(2, monitor.getLane("deploy").getLastCycleStats().eventsEmitted());
+                assertEquals(2, monitor.getDetectionLatencies().get("deploy").count());
+                assertEquals(1, monitor.getDetectionLatencies().get("").count());
+        }
+
+        @Test
+        void lane_afterRestart_shouldListFromItsOwnCursor() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun deploy = workflowRun(1L, 7L, now.plusSeconds(10));
+                WorkflowRun build = workflowRun(2L, 3L, now.plusSeconds(20));
+                WorkflowRun laterDeploy = workflowRun(3L, 7L, now.plusSeconds(15));
+                RunQuery deployRuns = RunQuery.of(null, null, 7L);
+                PollLane lane = new PollLane("deploy", Set.of(7L), Duration.ofSeconds(3), PollLane.Priority.HIGH);
+
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(deployRuns, 1, 100, RequestPriority.ACTIVE))
+                                .thenReturn(List.of(deploy))
+                                .thenReturn(List.of(laterDeploy, deploy));
+                when(mockClient.getWorkflowRuns(deployRuns, 2, 100, RequestPriority.ACTIVE))
+                                .thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(anyLong(), eq(RequestPriority.ACTIVE)))
+                                .thenReturn(Collections.emptyList());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100)).thenReturn(List.of(build, laterDeploy));
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(2L)).thenReturn(Collections.emptyList());
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, mockStateStore,
+                                MonitorOptions.defaults().withLanes(List.of(lane)));
+                monitor.getLane("deploy").run();
+                // the repository-wide cycle moves the repository cursor past a deploy run the lane has not seen
+                monitor.run();
+                assertEquals(now.plusSeconds(10), monitor.getState().getLaneRunTimes().get("deploy"));
+                assertEquals(now.plusSeconds(20), monitor.getState().getLastRunTime());
+
+                // the restarted monitor's lane still lists the run between its cursor and the repository's
+                MonitorState saved = monitor.getState();
+                MonitorState restarted = new MonitorState(saved.getLastRunTime(), null, new HashSet<>());
+                restarted.setLaneRunTimes(saved.getLaneRunTimes());
+                when(mockStateStore.load()).thenReturn(restarted);
+                WorkflowMonitor warm = new WorkflowMonitor(mockClient, mockStateStore,
+                                MonitorOptions.defaults().withLanes(List.of(lane)));
+                warm.getLane("deploy").run();
+
+                assertEquals(1, warm.getLane("deploy").getLastCycleStats().runsProcessed());
+                assertEquals(now.plusSeconds(15), warm.getState().getLaneRunTimes().get("deploy"));
+        }
+
+        @Test
+        void checkSave_shouldWriteOnceTheSaveDelayRunsOutBetweenCycles() throws Exception {
+                Instant now = Instant.now();
+                WorkflowRun run = inProgressRun(1L, now.plusSeconds(1));
+                when(mockStateStore.load()).thenReturn(new MonitorState());
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 1, 100)).thenReturn(List.of(run));
+                when(mockClient.getWorkflowRuns(RunQuery.ALL, 2, 100)).thenReturn(Collections.emptyList());
+                when(mockClient.getJobsForRun(1L)).thenReturn(Collections.emptyList());
+                AsyncStatePersister persister = new AsyncStatePersister(mockStateStore, Runnable::run,
+                                Duration.ofDays(7), Duration.ofMillis(50), 1000);
+
+                WorkflowMonitor monitor = new WorkflowMonitor(mockClient, persister);
+                monitor.run();
+                verify(mockStateStore, never()).save(any());
+
+                Thread.sleep(60);
+                monitor.checkSave();
+                verify(mockStateStore, times(1)).save(any());
+                monitor.checkSave();
+                assertFalse(persister.isDirty());
+        }
+
+        private WorkflowRun workflowRun(long id, long workflowId, Instant updatedAt) {
+                Instant createdAt = updatedAt.minusSeconds(5);
+                return new WorkflowRun(id, "Build", "in_progress", null, "main", "abc1234567890",
+                                createdAt, updatedAt, createdAt, 1, null, workflowId);
+        }
+
+        private WorkflowJob job(WorkflowRun run, WorkflowStep... steps) {
+                return new WorkflowJob(run.id() * 10, "test", "in_progress", null, run.createdAt(), null, List.of(steps));
+        }
+
+        private WorkflowJob inProgressJob(WorkflowRun run) {
+                return new WorkflowJob(run.id() * 10, "test", "in_progress", null, run.createdAt(), null, List.of());
+        }
+
+        private WorkflowRun inProgressRun(long id, Instant updatedAt) {
+                Instant createdAt = updatedAt.minusSeconds(5).plusMillis(id);
+                return new WorkflowRun(id, "Build", "in_progress", null, "main", "abc1234567890",
+                                createdAt, updatedAt, createdAt);
+        }
 }
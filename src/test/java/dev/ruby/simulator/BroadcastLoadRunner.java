@@ -0,0 +1,162 @@
+package dev.ruby.simulator;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import dev.ruby.config.MonitorConfig;
+import dev.ruby.service.MonitorFleet;
+import dev.ruby.service.MonitorOptions;
+
+// many subscribers on one MonitorFleet's event stream in real time: the simulator starts ticking once every
+// subscriber is connected, and each reads the whole stream from then on. reports the API requests (which do not
+// depend on the number of subscribers), what the subscribers received and how far apart in time the first and
+// the last subscriber got each event
+// args: [seconds=30] [subscribers=1000] [runs=50] [newRunsPerTick=2]
+public class BroadcastLoadRunner {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = intArg(args, 0, 30);
+        int subscribers = intArg(args, 1, 1000);
+        int runs = intArg(args, 2, 50);
+        int newRunsPerTick = intArg(args, 3, 2);
+
+        SimulatorConfig simulatorConfig = SimulatorConfig.defaults()
+                .withRuns(runs, newRunsPerTick)
+                .withRates(0.5, 0.2, 0.02)
+                .withRateLimit(Integer.MAX_VALUE, Duration.ofHours(1));
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        MonitorOptions options = MonitorOptions.defaults()
+                .withPollIntervals(Duration.ofSeconds(2), Duration.ofSeconds(2), Duration.ofSeconds(10))
+                .withServeAddress(new InetSocketAddress("127.0.0.1", port));
+
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        File stateDir = Files.createTempDirectory("broadcast-load").toFile();
+        // per offset, the first and the last time a subscriber read it
+        Map<Long, long[]> receipts = new ConcurrentHashMap<>();
+        AtomicLong received = new AtomicLong();
+        AtomicLong missed = new AtomicLong();
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients)
+                .build();
+        CountDownLatch connected = new CountDownLatch(subscribers);
+        AtomicLong firstOffset = new AtomicLong(Long.MAX_VALUE);
+
+        try (GitHubApiSimulator simulator = new GitHubApiSimulator(simulatorConfig)) {
+            MonitorConfig config = new MonitorConfig(simulator.baseUrl(), stateDir, 1,
+                    MonitorConfig.DEFAULT_CACHE_ENTRIES, options, List.of(new MonitorConfig.Repository("octo",
+                            "simulated", "token")), null);
+            MonitorFleet fleet = new MonitorFleet(config);
+            fleet.start();
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/events")).build();
+            for (int i = 0; i < subscribers; i++) {
+                clients.submit(() -> subscribe(httpClient, request, connected, firstOffset, receipts,
+                        received, missed));
+            }
+            if (!connected.await(60, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("only " + (subscribers - connected.getCount()) + " connected");
+            }
+            // the first cycle ran while subscribers were connecting, only what comes later reaches all of them
+            firstOffset.set(fleet.getBroadcaster().next());
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+            while (System.nanoTime() < deadline) {
+                Duration untilTick = Duration.between(Instant.now(), simulator.repository().now().plusSeconds(1));
+                if (!untilTick.isNegative()) {
+                    Thread.sleep(untilTick.toMillis() + 1);
+                }
+                simulator.tick();
+            }
+            fleet.getScheduler().shutdown();
+            fleet.getScheduler().awaitTermination(Duration.ofSeconds(10));
+            long published = fleet.getBroadcaster().next() - firstOffset.get();
+            // let the subscribers catch up before the streams end
+            long catchUp = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+            while (received.get() + missed.get() < published * subscribers && System.nanoTime() < catchUp) {
+                Thread.sleep(100);
+            }
+            fleet.shutdown(Duration.ofSeconds(10));
+            clients.shutdownNow();
+
+            long[] spreads = receipts.entrySet().stream().filter(entry -> entry.getKey() >= firstOffset.get())
+                    .mapToLong(entry -> entry.getValue()[1] - entry.getValue()[0]).sorted().toArray();
+            report.printf("subscribers: %d, seconds: %d, requests: %d, events: %d%n", subscribers, seconds,
+                    simulator.requests(), published);
+            report.printf("received: %d of %d, missed (gaps): %d%n", received.get(), published * subscribers,
+                    missed.get());
+            report.printf("first-to-last subscriber spread p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                    percentile(spreads, 0.5) / 1e6, percentile(spreads, 0.99) / 1e6,
+                    percentile(spreads, 1.0) / 1e6);
+        } finally {
+            System.setOut(report);
+            File[] files = stateDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            stateDir.delete();
+        }
+    }
+
+    private static void subscribe(HttpClient httpClient, HttpRequest request, CountDownLatch connected,
+            AtomicLong firstOffset, Map<Long, long[]> receipts, AtomicLong received, AtomicLong missed) {
+        try (Stream<String> lines = httpClient.send(request, HttpResponse.BodyHandlers.ofLines()).body()) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.startsWith(": offset ")) {
+                    connected.countDown();
+                } else if (line.startsWith("id: ")) {
+                    long now = System.nanoTime();
+                    long offset = Long.parseLong(line.substring(4));
+                    long[] times = receipts.computeIfAbsent(offset, key -> new long[] {now, now});
+                    synchronized (times) {
+                        times[0] = Math.min(times[0], now);
+                        times[1] = Math.max(times[1], now);
+                    }
+                    if (offset >= firstOffset.get()) {
+                        received.incrementAndGet();
+                    }
+                } else if (line.startsWith("data: {\"missed\":")) {
+                    missed.addAndGet(Long.parseLong(line.substring(16, line.length() - 1)));
+                }
+            }
+        } catch (Exception e) {
+            // the stream ends with the run
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,95 @@
+package dev.ruby.simulator;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import dev.ruby.config.MonitorConfig;
+import dev.ruby.service.MonitorFleet;
+import dev.ruby.service.MonitorOptions;
+
+// retained heap per monitored repository: builds a MonitorFleet over N repositories served by the simulator,
+// runs a few cycles for each and measures live heap after full GCs
+// args: [repositories=1000] [cycles=3] [runsPerRepository=10] [tokens=10]
+public class FleetFootprintRunner {
+
+    public static void main(String[] args) throws Exception {
+        int repositories = intArg(args, 0, 1000);
+        int cycles = intArg(args, 1, 3);
+        int runsPerRepository = intArg(args, 2, 10);
+        int tokens = intArg(args, 3, 10);
+
+        SimulatorConfig simulatorConfig = SimulatorConfig.defaults()
+                .withRuns(runsPerRepository, 0)
+                .withRateLimit(Integer.MAX_VALUE, Duration.ofHours(1));
+
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        File stateDir = Files.createTempDirectory("fleet-footprint").toFile();
+
+        try (GitHubApiSimulator simulator = new GitHubApiSimulator(simulatorConfig)) {
+            List<MonitorConfig.Repository> repos = new ArrayList<>();
+            for (int i = 0; i < repositories; i++) {
+                repos.add(new MonitorConfig.Repository("octo", "repo-" + i, "token-" + (i % tokens)));
+            }
+            MonitorConfig config = new MonitorConfig(simulator.baseUrl(), stateDir, MonitorConfig.DEFAULT_SLOTS,
+                    MonitorConfig.DEFAULT_CACHE_ENTRIES, MonitorOptions.defaults().withShowRepository(true), repos, null);
+
+            long baseline = liveHeap();
+            MonitorFleet fleet = new MonitorFleet(config);
+            long constructed = liveHeap();
+
+            long start = System.nanoTime();
+            for (int cycle = 0; cycle < cycles; cycle++) {
+                simulator.tick();
+                fleet.getMembers().parallelStream().forEach(member -> member.monitor().run());
+            }
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            long settled = liveHeap();
+
+            long perRepository = (settled - baseline) / repositories;
+            long maxHeap = Runtime.getRuntime().maxMemory();
+            report.printf("repositories: %d, tokens: %d, cycles: %d in %d ms, requests: %d%n", repositories,
+                    tokens, cycles, elapsedMillis, simulator.requests());
+            report.printf("live heap: baseline %s, constructed %s, after cycles %s (max heap %s)%n",
+                    mb(baseline), mb(constructed), mb(settled), mb(maxHeap));
+            report.printf("per repository: %d KB idle, %d KB after cycles; cache entries: %d%n",
+                    (constructed - baseline) / repositories / 1024, perRepository / 1024,
+                    fleet.getResponseCache().size());
+            report.printf("repositories that fit in 512 MB at this footprint: %d%n",
+                    perRepository > 0 ? (512L << 20) / perRepository : Long.MAX_VALUE);
+        } finally {
+            System.setOut(report);
+            File[] files = stateDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            stateDir.delete();
+        }
+    }
+
+    private static long liveHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String mb(long bytes) {
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,270 @@
+package dev.ruby.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// in-process stand-in for the GitHub Actions REST endpoints used by GitHubClient
+public class GitHubApiSimulator implements AutoCloseable {
+    private final SimulatorConfig config;
+    private final SyntheticRepository repository;
+    private final HttpServer server;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong listRequests = new AtomicLong();
+    private final AtomicLong runRequests = new AtomicLong();
+
+    private final Object rateLock = new Object();
+    private long windowResetEpochSecond;
+    private int remaining;
+    private volatile boolean secondaryLimit;
+    private volatile boolean forceNotModified;
+    private volatile String lastIfNoneMatch;
+
+    public GitHubApiSimulator(SimulatorConfig config) throws IOException {
+        this.config = config;
+        this.repository = new SyntheticRepository(config);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/repos/", this::handle);
+        resetWindow();
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public SyntheticRepository repository() {
+        return repository;
+    }
+
+    public void tick() {
+        repository.tick();
+    }
+
+    // the next request is answered with a secondary rate limit (403 + retry-after)
+    public void triggerSecondaryLimit() {
+        secondaryLimit = true;
+    }
+
+    // the next request is answered with a 304 whatever it sent, as a misbehaving intermediary might
+    public void forceNotModified() {
+        forceNotModified = true;
+    }
+
+    // the If-None-Match header of the last request, or null when it had none
+    public String lastIfNoneMatch() {
+        return lastIfNoneMatch;
+    }
+
+    public void exhaustRateLimit() {
+        synchronized (rateLock) {
+            remaining = 0;
+        }
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long notModified() {
+        return notModified.get();
+    }
+
+    public long rateLimited() {
+        return rateLimited.get();
+    }
+
+    public long bytesSent() {
+        return bytesSent.get();
+    }
+
+    // runs list pages, filtered or not
+    public long listRequests() {
+        return listRequests.get();
+    }
+
+    // single runs, as fetched for tracked runs
+    public long runRequests() {
+        return runRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            if (!config.latency().isZero()) {
+                Thread.sleep(config.latency().toMillis());
+            }
+
+            if (secondaryLimit) {
+                secondaryLimit = false;
+                rateLimited.incrementAndGet();
+                exchange.getResponseHeaders().add("retry-after", "1");
+                send(exchange, 403, "{\"message\":\"You have exceeded a secondary rate limit.\"}");
+                return;
+            }
+
+            SyntheticRepository.Resource resource = resolve(exchange.getRequestURI());
+            if (resource == null) {
+                send(exchange, 404, "{\"message\":\"Not Found\"}");
+                return;
+            }
+
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            lastIfNoneMatch = ifNoneMatch;
+            boolean conditionalHit = config.conditionalRequests() && resource.etag().equals(ifNoneMatch);
+            if (forceNotModified) {
+                forceNotModified = false;
+                conditionalHit = true;
+            }
+
+            // 304s are free, everything else spends the primary budget
+            if (!conditionalHit && !spend()) {
+                rateLimited.incrementAndGet();
+                addRateHeaders(exchange);
+                send(exchange, 403, "{\"message\":\"API rate limit exceeded\"}");
+                return;
+            }
+
+            addRateHeaders(exchange);
+            if (config.conditionalRequests()) {
+                exchange.getResponseHeaders().add("ETag", resource.etag());
+            }
+            if (conditionalHit) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, resource.body().length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(resource.body());
+            }
+            bytesSent.addAndGet(resource.body().length);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SyntheticRepository.Resource resolve(URI uri) throws IOException {
+        // /repos/{owner}/{repo}/actions/runs[/{id}[/jobs]], /repos/{owner}/{repo}/actions/workflows/{id}/runs
+        String[] parts = uri.getPath().split("/");
+        if (parts.length == 8 && "actions".equals(parts[4]) && "workflows".equals(parts[5])
+                && "runs".equals(parts[7])) {
+            try {
+                return runsPage(uri, Long.parseLong(parts[6]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (parts.length < 6 || !"actions".equals(parts[4]) || !"runs".equals(parts[5])) {
+            return null;
+        }
+        try {
+            if (parts.length == 6) {
+                return runsPage(uri, null);
+            }
+            long runId = Long.parseLong(parts[6]);
+            if (parts.length == 7) {
+                runRequests.incrementAndGet();
+                return repository.run(runId);
+            }
+            if (parts.length == 8 && "jobs".equals(parts[7])) {
+                return repository.jobs(runId);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private SyntheticRepository.Resource runsPage(URI uri, Long workflowId) throws IOException {
+        listRequests.incrementAndGet();
+        Map<String, String> query = query(uri.getRawQuery());
+        int page = Integer.parseInt(query.getOrDefault("page", "1"));
+        int perPage = Integer.parseInt(query.getOrDefault("per_page", "30"));
+        Instant createdFrom = null;
+        Instant createdTo = null;
+        String created = query.get("created");
+        if (created != null && created.startsWith(">=")) {
+            createdFrom = Instant.parse(created.substring(2));
+        } else if (created != null) {
+            String[] range = created.split("\\.\\.", 2);
+            createdFrom = Instant.parse(range[0]);
+            createdTo = Instant.parse(range[1]);
+        }
+        return repository.runsPage(new SyntheticRepository.RunFilter(query.get("status"), query.get("branch"),
+                query.get("event"), workflowId, createdFrom, createdTo), page, perPage);
+    }
+
+    private boolean spend() {
+        synchronized (rateLock) {
+            if (Instant.now().getEpochSecond() >= windowResetEpochSecond) {
+                resetWindow();
+            }
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            return true;
+        }
+    }
+
+    private void resetWindow() {
+        synchronized (rateLock) {
+            windowResetEpochSecond = Instant.now().plus(config.rateLimitWindow()).getEpochSecond();
+            remaining = config.rateLimit();
+        }
+    }
+
+    private void addRateHeaders(HttpExchange exchange) {
+        synchronized (rateLock) {
+            var headers = exchange.getResponseHeaders();
+            headers.add("x-ratelimit-limit", String.valueOf(config.rateLimit()));
+            headers.add("x-ratelimit-remaining", String.valueOf(remaining));
+            headers.add("x-ratelimit-used", String.valueOf(config.rateLimit() - remaining));
+            headers.add("x-ratelimit-reset", String.valueOf(windowResetEpochSecond));
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> values = new HashMap<>();
+        if (rawQuery == null) {
+            return values;
+        }
+        for (String pair : rawQuery.split("&")) {
+            String[] kv = pair.split("=", 2);
+            values.put(kv[0], kv.length > 1 ? URLDecoder.decode(kv[1], StandardCharsets.UTF_8) : "");
+        }
+        return values;
+    }
+}
@@ -0,0 +1,85 @@
+package dev.ruby.simulator;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import dev.ruby.config.MonitorConfig;
+import dev.ruby.service.MonitorFleet;
+import dev.ruby.service.MonitorOptions;
+import dev.ruby.service.PollLane;
+
+// event detection latency per lane in real time: the simulator's clock is ticked along with the wall clock and a
+// MonitorFleet polls it through its scheduler. simulated runs of workflow 0 go to a HIGH "deploy" lane, those of
+// workflow 1 to a NORMAL "lint" lane polled every minute, the rest to the repository-wide cycle
+// args: [seconds=60] [laneSeconds=2] [repositoryMinSeconds=10] [runs=50] [newRunsPerTick=1] [lanes=on|off]
+public class LaneLatencyRunner {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = intArg(args, 0, 60);
+        int laneSeconds = intArg(args, 1, 2);
+        int repositoryMinSeconds = intArg(args, 2, 10);
+        int runs = intArg(args, 3, 50);
+        int newRunsPerTick = intArg(args, 4, 1);
+        boolean lanes = args.length <= 5 || !"off".equals(args[5]);
+
+        SimulatorConfig simulatorConfig = SimulatorConfig.defaults()
+                .withRuns(runs, newRunsPerTick)
+                .withRates(0.5, 0.2, 0.02)
+                .withRateLimit(Integer.MAX_VALUE, Duration.ofHours(1));
+        Duration repositoryMin = Duration.ofSeconds(repositoryMinSeconds);
+        MonitorOptions options = MonitorOptions.defaults()
+                .withPollIntervals(repositoryMin, repositoryMin, repositoryMin.multipliedBy(6));
+        if (lanes) {
+            options = options.withLanes(List.of(
+                    new PollLane("deploy", Set.of(0L), Duration.ofSeconds(laneSeconds), PollLane.Priority.HIGH),
+                    new PollLane("lint", Set.of(1L), Duration.ofMinutes(1), PollLane.Priority.NORMAL)));
+        }
+
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        File stateDir = Files.createTempDirectory("lane-latency").toFile();
+
+        try (GitHubApiSimulator simulator = new GitHubApiSimulator(simulatorConfig)) {
+            MonitorConfig config = new MonitorConfig(simulator.baseUrl(), stateDir, 1,
+                    MonitorConfig.DEFAULT_CACHE_ENTRIES, options, List.of(new MonitorConfig.Repository("octo",
+                            "simulated", "token")), null);
+            MonitorFleet fleet = new MonitorFleet(config);
+            fleet.start();
+
+            // a tick happens once the wall clock reaches the simulated time, so events carry real timestamps
+            long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+            while (System.nanoTime() < deadline) {
+                Duration untilTick = Duration.between(Instant.now(), simulator.repository().now().plusSeconds(1));
+                if (!untilTick.isNegative()) {
+                    Thread.sleep(untilTick.toMillis() + 1);
+                }
+                simulator.tick();
+            }
+
+            fleet.shutdown(Duration.ofSeconds(10));
+            report.printf("lanes: %s, seconds: %d, requests: %d%n", lanes ? "on" : "off", seconds,
+                    simulator.requests());
+            fleet.getMembers().get(0).monitor().getDetectionLatencies().forEach((lane, summary) -> report
+                    .printf("%-10s %s%n", lane.isEmpty() ? "repository" : lane, summary));
+        } finally {
+            System.setOut(report);
+            File[] files = stateDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            stateDir.delete();
+        }
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,113 @@
+package dev.ruby.simulator;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Arrays;
+
+import dev.ruby.client.GitHubClient;
+import dev.ruby.client.RateBudget;
+import dev.ruby.client.ResponseCache;
+import dev.ruby.persistence.StateStore;
+import dev.ruby.service.EventFilter;
+import dev.ruby.service.MonitorOptions;
+import dev.ruby.service.RunQueryPlanner;
+import dev.ruby.service.WorkflowMonitor;
+
+// end-to-end cycle latency and throughput of WorkflowMonitor against the simulator
+// args: [activeRuns=10000] [jobsPerRun=3] [stepsPerJob=5] [cycles=10] [concurrency=64] [latencyMillis=0]
+//       [runQueries=auto] [newRunsPerTick=0]
+public class MonitorLoadRunner {
+    private static final int RUNS_PER_LIST_SCAN = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int activeRuns = intArg(args, 0, 10_000);
+        int jobsPerRun = intArg(args, 1, 3);
+        int stepsPerJob = intArg(args, 2, 5);
+        int cycles = intArg(args, 3, 10);
+        int concurrency = intArg(args, 4, 64);
+        int latencyMillis = intArg(args, 5, 0);
+        RunQueryPlanner.Strategy runQueries = args.length > 6 ? RunQueryPlanner.Strategy.parse(args[6])
+                : RunQueryPlanner.Strategy.AUTO;
+        int newRunsPerTick = intArg(args, 7, 0);
+        EventFilter eventFilter = EventFilter.parse(args.length > 8 ? args[8] : null);
+
+        SimulatorConfig config = SimulatorConfig.defaults()
+                .withRuns(0, Math.min(activeRuns, RUNS_PER_LIST_SCAN))
+                .withShape(jobsPerRun, stepsPerJob)
+                .withRates(0.5, 0.02, 0.01)
+                .withLatency(Duration.ofMillis(latencyMillis))
+                .withRateLimit(Integer.MAX_VALUE, Duration.ofHours(1));
+
+        String repoKey = "load-runner-simulated";
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        try (GitHubApiSimulator simulator = new GitHubApiSimulator(config)) {
+            GitHubClient client = new GitHubClient(simulator.baseUrl(), "octo", "simulated", "token",
+                    new ResponseCache(activeRuns * 4), new RateBudget());
+            WorkflowMonitor monitor = new WorkflowMonitor(client, new StateStore(repoKey),
+                    MonitorOptions.defaults().withFetchConcurrency(concurrency).withRunQueries(runQueries)
+                            .withEventFilter(eventFilter));
+
+            // ramp up: each list scan can discover at most 1000 new runs
+            int rampCycles = (activeRuns + RUNS_PER_LIST_SCAN - 1) / RUNS_PER_LIST_SCAN;
+            for (int i = 0; i < rampCycles; i++) {
+                simulator.tick();
+                monitor.run();
+            }
+            simulator.repository().setNewRunsPerTick(newRunsPerTick);
+
+            long[] cycleMillis = new long[cycles];
+            long jobFetches = 0;
+            long jobFetchesSkipped = 0;
+            long requestsBefore = simulator.requests();
+            long notModifiedBefore = simulator.notModified();
+            long bytesBefore = simulator.bytesSent();
+            long listPagesBefore = simulator.listRequests();
+            long runFetchesBefore = simulator.runRequests();
+            long start = System.nanoTime();
+            for (int i = 0; i < cycles; i++) {
+                simulator.tick();
+                long cycleStart = System.nanoTime();
+                monitor.run();
+                cycleMillis[i] = Duration.ofNanos(System.nanoTime() - cycleStart).toMillis();
+                jobFetches += monitor.getLastCycleStats().jobFetches();
+                jobFetchesSkipped += monitor.getLastCycleStats().jobFetchesSkipped();
+            }
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            long requests = simulator.requests() - requestsBefore;
+            long listPages = simulator.listRequests() - listPagesBefore;
+            long runFetches = simulator.runRequests() - runFetchesBefore;
+
+            Arrays.sort(cycleMillis);
+            report.printf("active runs (simulator): %d, tracked by ramp-up: %d cycles%n",
+                    simulator.repository().unfinishedRuns(), rampCycles);
+            report.printf("cycles: %d, p50: %d ms, p99: %d ms, max: %d ms%n", cycles,
+                    percentile(cycleMillis, 0.50), percentile(cycleMillis, 0.99), cycleMillis[cycles - 1]);
+            report.printf("requests: %d (%.0f/s), 304s: %d, bytes: %d, cache hits: %d%n", requests,
+                    requests / elapsedSeconds, simulator.notModified() - notModifiedBefore,
+                    simulator.bytesSent() - bytesBefore, client.getResponseCache().getHits());
+            report.printf("list pages per cycle: %.1f, run fetches per cycle: %.1f%n",
+                    (double) listPages / cycles, (double) runFetches / cycles);
+            report.printf("job fetches per cycle: %d, skipped per cycle: %d%n", jobFetches / cycles,
+                    jobFetchesSkipped / cycles);
+            if (!eventFilter.isEmpty()) {
+                report.printf("API calls saved by the filter: %s%n", monitor.getSavedCalls());
+            }
+        } finally {
+            System.setOut(report);
+            new File(repoKey + "-workflow-state.json").delete();
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
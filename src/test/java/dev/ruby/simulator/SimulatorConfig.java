@@ -0,0 +1,55 @@
+package dev.ruby.simulator;
+
+import java.time.Duration;
+
+// knobs for the synthetic GitHub Actions API; rates are per-tick probabilities
+public record SimulatorConfig(
+        int initialRuns,
+        int newRunsPerTick,
+        int jobsPerRun,
+        int stepsPerJob,
+        double startRate,
+        double stepRate,
+        double failureRate,
+        Duration tickDuration,
+        Duration latency,
+        int rateLimit,
+        Duration rateLimitWindow,
+        boolean conditionalRequests,
+        long seed) {
+
+    public static SimulatorConfig defaults() {
+        return new SimulatorConfig(10, 0, 3, 5, 0.5, 0.5, 0.05, Duration.ofSeconds(1), Duration.ZERO, 5000,
+                Duration.ofHours(1), true, 42L);
+    }
+
+    public SimulatorConfig withRuns(int initialRuns, int newRunsPerTick) {
+        return new SimulatorConfig(initialRuns, newRunsPerTick, jobsPerRun, stepsPerJob, startRate, stepRate,
+                failureRate, tickDuration, latency, rateLimit, rateLimitWindow, conditionalRequests, seed);
+    }
+
+    public SimulatorConfig withShape(int jobsPerRun, int stepsPerJob) {
+        return new SimulatorConfig(initialRuns, newRunsPerTick, jobsPerRun, stepsPerJob, startRate, stepRate,
+                failureRate, tickDuration, latency, rateLimit, rateLimitWindow, conditionalRequests, seed);
+    }
+
+    public SimulatorConfig withRates(double startRate, double stepRate, double failureRate) {
+        return new SimulatorConfig(initialRuns, newRunsPerTick, jobsPerRun, stepsPerJob, startRate, stepRate,
+                failureRate, tickDuration, latency, rateLimit, rateLimitWindow, conditionalRequests, seed);
+    }
+
+    public SimulatorConfig withLatency(Duration latency) {
+        return new SimulatorConfig(initialRuns, newRunsPerTick, jobsPerRun, stepsPerJob, startRate, stepRate,
+                failureRate, tickDuration, latency, rateLimit, rateLimitWindow, conditionalRequests, seed);
+    }
+
+    public SimulatorConfig withRateLimit(int rateLimit, Duration rateLimitWindow) {
+        return new SimulatorConfig(initialRuns, newRunsPerTick, jobsPerRun, stepsPerJob, startRate, stepRate,
+                failureRate, tickDuration, latency, rateLimit, rateLimitWindow, conditionalRequests, seed);
+    }
+
+    public SimulatorConfig withConditionalRequests(boolean conditionalRequests) {
+        return new SimulatorConfig(initialRuns, newRunsPerTick, jobsPerRun, stepsPerJob, startRate, stepRate,
+                failureRate, tickDuration, latency, rateLimit, rateLimitWindow, conditionalRequests, seed);
+    }
+}
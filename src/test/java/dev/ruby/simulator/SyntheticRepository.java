@@ -0,0 +1,394 @@
+package dev.ruby.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+// in-memory runs/jobs/steps that advance through queued -> in_progress -> completed on every tick
+public class SyntheticRepository {
+    private final SimulatorConfig config;
+    private final Random random;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<SimRun> runs = new ArrayList<>();
+    private final Map<Long, SimRun> runsById = new HashMap<>();
+    private final Set<SimRun> unfinished = new LinkedHashSet<>();
+    private Instant now;
+    private int newRunsPerTick;
+    private long listVersion;
+    private long nextRunId = 1_000_000L;
+    private long nextJobId = 50_000_000L;
+
+    public record Resource(String etag, byte[] body) {
+    }
+
+    // the runs list filters the simulator understands; createdTo is inclusive, like the API's ranges
+    public record RunFilter(String status, String branch, String event, Long workflowId, Instant createdFrom,
+            Instant createdTo) {
+        public static final RunFilter NONE = new RunFilter(null, null, null, null, null, null);
+
+        boolean isEmpty() {
+            return equals(NONE);
+        }
+    }
+
+    private static final class SimRun {
+        long id;
+        String name;
+        String branch;
+        String sha;
+        String status = "queued";
+        String conclusion;
+        Instant createdAt;
+        Instant updatedAt;
+        Instant runStartedAt;
+        long version;
+        int currentJob;
+        boolean failed;
+        final List<SimJob> jobs = new ArrayList<>();
+    }
+
+    private static final class SimJob {
+        long id;
+        String name;
+        String status = "queued";
+        String conclusion;
+        Instant startedAt;
+        Instant completedAt;
+        int currentStep;
+        final List<SimStep> steps = new ArrayList<>();
+    }
+
+    private static final class SimStep {
+        int number;
+        String name;
+        String status = "queued";
+        String conclusion;
+        Instant startedAt;
+        Instant completedAt;
+    }
+
+    public SyntheticRepository(SimulatorConfig config) {
+        this.config = config;
+        this.random = new Random(config.seed());
+        this.now = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        this.newRunsPerTick = config.newRunsPerTick();
+        for (int i = 0; i < config.initialRuns(); i++) {
+            createRun();
+        }
+    }
+
+    public void tick() {
+        lock.writeLock().lock();
+        try {
+            now = now.plus(config.tickDuration());
+            for (int i = 0; i < newRunsPerTick; i++) {
+                createRun();
+            }
+
+            var iterator = unfinished.iterator();
+            while (iterator.hasNext()) {
+                SimRun run = iterator.next();
+                if (advance(run)) {
+                    run.updatedAt = now;
+                    run.version++;
+                    listVersion++;
+                }
+                if ("completed".equals(run.status)) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setNewRunsPerTick(int newRunsPerTick) {
+        lock.writeLock().lock();
+        try {
+            this.newRunsPerTick = newRunsPerTick;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Instant now() {
+        lock.readLock().lock();
+        try {
+            return now;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int unfinishedRuns() {
+        lock.readLock().lock();
+        try {
+            return unfinished.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Resource runsPage(int page, int perPage) throws IOException {
+        return runsPage(RunFilter.NONE, page, perPage);
+    }
+
+    public Resource runsPage(RunFilter filter, int page, int perPage) throws IOException {
+        lock.readLock().lock();
+        try {
+            String etag = "\"l" + listVersion + "-" + filter.hashCode() + "-" + page + "-" + perPage + "\"";
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("workflow_runs");
+                // newest first, like the real endpoint
+                int skip = (page - 1) * perPage;
+                int written = 0;
+                int total = 0;
+                for (int i = runs.size() - 1; i >= 0; i--) {
+                    SimRun run = runs.get(i);
+                    if (!filter.isEmpty() && !matches(run, filter)) {
+                        continue;
+                    }
+                    if (total++ >= skip && written < perPage) {
+                        writeRun(json, run);
+                        written++;
+                    }
+                    if (filter.isEmpty() && written == perPage) {
+                        total = runs.size();
+                        break;
+                    }
+                }
+                json.writeEndArray();
+                json.writeNumberField("total_count", total);
+                json.writeEndObject();
+            }
+            return new Resource(etag, out.toByteArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Resource run(long runId) throws IOException {
+        lock.readLock().lock();
+        try {
+            SimRun run = runsById.get(runId);
+            if (run == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+                writeRun(json, run);
+            }
+            return new Resource("\"r" + run.id + "-" + run.version + "\"", out.toByteArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Resource jobs(long runId) throws IOException {
+        lock.readLock().lock();
+        try {
+            SimRun run = runsById.get(runId);
+            if (run == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+                json.writeStartObject();
+                json.writeNumberField("total_count", run.jobs.size());
+                json.writeArrayFieldStart("jobs");
+                for (SimJob job : run.jobs) {
+                    writeJob(json, run, job);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            return new Resource("\"j" + run.id + "-" + run.version + "\"", out.toByteArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matches(SimRun run, RunFilter filter) {
+        return (filter.status() == null || filter.status().equals(run.status))
+                && (filter.branch() == null || filter.branch().equals(run.branch))
+                && (filter.event() == null || filter.event().equals("push"))
+                && (filter.workflowId() == null || filter.workflowId() == run.id % 7)
+                && (filter.createdFrom() == null || !run.createdAt.isBefore(filter.createdFrom()))
+                && (filter.createdTo() == null || !run.createdAt.isAfter(filter.createdTo()));
+    }
+
+    private void createRun() {
+        SimRun run = new SimRun();
+        run.id = nextRunId++;
+        run.name = "Workflow " + (run.id % 7);
+        run.branch = (run.id % 5 == 0) ? "release" : "main";
+        run.sha = String.format("%040x", run.id * 2654435761L);
+        run.createdAt = now;
+        run.updatedAt = now;
+        for (int j = 0; j < config.jobsPerRun(); j++) {
+            SimJob job = new SimJob();
+            job.id = nextJobId++;
+            job.name = "job-" + (j + 1);
+            for (int n = 1; n <= config.stepsPerJob(); n++) {
+                SimStep step = new SimStep();
+                step.number = n;
+                step.name = "step-" + n;
+                job.steps.add(step);
+            }
+            run.jobs.add(job);
+        }
+        runs.add(run);
+        runsById.put(run.id, run);
+        unfinished.add(run);
+        listVersion++;
+    }
+
+    // returns true when the run (or any of its jobs/steps) changed
+    private boolean advance(SimRun run) {
+        if ("queued".equals(run.status)) {
+            if (random.nextDouble() >= config.startRate()) {
+                return false;
+            }
+            run.status = "in_progress";
+            run.runStartedAt = now;
+            if (run.jobs.isEmpty()) {
+                complete(run);
+            } else {
+                startJob(run.jobs.get(0));
+            }
+            return true;
+        }
+
+        if (random.nextDouble() >= config.stepRate()) {
+            return false;
+        }
+
+        SimJob job = run.jobs.get(run.currentJob);
+        if (job.steps.isEmpty()) {
+            finishJob(run, job, "success");
+        } else {
+            SimStep step = job.steps.get(job.currentStep);
+            boolean failed = random.nextDouble() < config.failureRate();
+            step.status = "completed";
+            step.conclusion = failed ? "failure" : "success";
+            step.completedAt = now;
+            job.currentStep++;
+
+            if (failed || job.currentStep == job.steps.size()) {
+                for (int i = job.currentStep; i < job.steps.size(); i++) {
+                    job.steps.get(i).status = "completed";
+                    job.steps.get(i).conclusion = "skipped";
+                }
+                finishJob(run, job, failed ? "failure" : "success");
+            } else {
+                startStep(job.steps.get(job.currentStep));
+            }
+        }
+        return true;
+    }
+
+    private void finishJob(SimRun run, SimJob job, String conclusion) {
+        job.status = "completed";
+        job.conclusion = conclusion;
+        job.completedAt = now;
+        run.failed |= "failure".equals(conclusion);
+        run.currentJob++;
+        if (run.currentJob == run.jobs.size()) {
+            complete(run);
+        } else {
+            startJob(run.jobs.get(run.currentJob));
+        }
+    }
+
+    private void complete(SimRun run) {
+        run.status = "completed";
+        run.conclusion = run.failed ? "failure" : "success";
+    }
+
+    private void startJob(SimJob job) {
+        job.status = "in_progress";
+        job.startedAt = now;
+        if (!job.steps.isEmpty()) {
+            startStep(job.steps.get(0));
+        }
+    }
+
+    private void startStep(SimStep step) {
+        step.status = "in_progress";
+        step.startedAt = now;
+    }
+
+    private void writeRun(JsonGenerator json, SimRun run) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", run.id);
+        json.writeStringField("name", run.name);
+        json.writeStringField("head_branch", run.branch);
+        json.writeStringField("head_sha", run.sha);
+        json.writeStringField("event", "push");
+        json.writeStringField("status", run.status);
+        json.writeStringField("conclusion", run.conclusion);
+        json.writeNumberField("workflow_id", run.id % 7);
+        json.writeNumberField("run_attempt", 1);
+        writeTime(json, "created_at", run.createdAt);
+        writeTime(json, "updated_at", run.updatedAt);
+        writeTime(json, "run_started_at", run.runStartedAt);
+        json.writeObjectFieldStart("actor");
+        json.writeStringField("login", "octocat");
+        json.writeNumberField("id", 583231);
+        json.writeEndObject();
+        json.writeObjectFieldStart("repository");
+        json.writeNumberField("id", 1296269);
+        json.writeStringField("full_name", "octo/simulated");
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private void writeJob(JsonGenerator json, SimRun run, SimJob job) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", job.id);
+        json.writeNumberField("run_id", run.id);
+        json.writeStringField("name", job.name);
+        json.writeStringField("status", job.status);
+        json.writeStringField("conclusion", job.conclusion);
+        writeTime(json, "started_at", job.startedAt);
+        writeTime(json, "completed_at", job.completedAt);
+        json.writeArrayFieldStart("steps");
+        for (SimStep step : job.steps) {
+            json.writeStartObject();
+            json.writeStringField("name", step.name);
+            json.writeStringField("status", step.status);
+            json.writeStringField("conclusion", step.conclusion);
+            json.writeNumberField("number", step.number);
+            writeTime(json, "started_at", step.startedAt);
+            writeTime(json, "completed_at", step.completedAt);
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    private static void writeTime(JsonGenerator json, String field, Instant time) throws IOException {
+        if (time == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeStringField(field, time.toString());
+        }
+    }
+}